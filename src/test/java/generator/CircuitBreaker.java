@@ -0,0 +1,82 @@
+package generator;
+
+import java.time.Duration;
+
+/**
+ * Circuit breaker for one LLM server
+ * After a number of consecutive failed requests the circuit opens, and requests are
+ * refused at once instead of each waiting for its own timeout. Once the open period
+ * has passed, a single trial request is let through: success closes the circuit,
+ * failure opens it again.
+ */
+public class CircuitBreaker {
+    
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+    
+    private final String name;
+    private final int failureThreshold;
+    private final long openNanos;
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private int trips;
+    
+    /**
+     * @param name Server the breaker protects, for the log
+     * @param failureThreshold Consecutive failures that open the circuit
+     * @param openDuration How long requests are refused before a trial request
+     */
+    public CircuitBreaker(String name, int failureThreshold, Duration openDuration) {
+        this.name = name;
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openNanos = openDuration.toNanos();
+    }
+    
+    /**
+     * Whether a request may be sent now; in the half-open state only the first caller gets through
+     */
+    public synchronized boolean allowRequest() {
+        if (state == State.OPEN && System.nanoTime() - openedAt >= openNanos) {
+            state = State.HALF_OPEN;
+            return true;
+        }
+        return state == State.CLOSED;
+    }
+    
+    public synchronized void recordSuccess() {
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+    }
+    
+    /**
+     * Records an outcome that says nothing about the server's health, e.g. a rejected prompt
+     * A half-open trial is handed back, so the next request becomes the trial.
+     */
+    public synchronized void recordIgnored() {
+        if (state == State.HALF_OPEN) {
+            state = State.OPEN;
+        }
+    }
+    
+    public synchronized void recordFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+            state = State.OPEN;
+            openedAt = System.nanoTime();
+            trips++;
+            System.err.println("⚡ LLM circuit open for " + name + " after " + consecutiveFailures
+                + " consecutive failures; remaining prompts use templates for " + openNanos / 1_000_000_000 + " s");
+        }
+    }
+    
+    public synchronized State getState() {
+        return state;
+    }
+    
+    /**
+     * Number of times the circuit has opened
+     */
+    public synchronized int getTrips() {
+        return trips;
+    }
+}
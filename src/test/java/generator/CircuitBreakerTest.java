@@ -0,0 +1,116 @@
+package generator;
+
+import org.testng.annotations.Test;
+
+import java.time.Duration;
+
+import static org.testng.Assert.*;
+
+/**
+ * State transitions of the LLM circuit breaker
+ */
+public class CircuitBreakerTest {
+    
+    @Test
+    public void staysClosedBelowThreshold() {
+        CircuitBreaker breaker = new CircuitBreaker("test", 3, Duration.ofMinutes(1));
+        breaker.recordFailure();
+        breaker.recordFailure();
+        
+        assertEquals(breaker.getState(), CircuitBreaker.State.CLOSED);
+        assertTrue(breaker.allowRequest());
+    }
+    
+    @Test
+    public void successResetsConsecutiveFailures() {
+        CircuitBreaker breaker = new CircuitBreaker("test", 3, Duration.ofMinutes(1));
+        breaker.recordFailure();
+        breaker.recordFailure();
+        breaker.recordSuccess();
+        breaker.recordFailure();
+        breaker.recordFailure();
+        
+        assertEquals(breaker.getState(), CircuitBreaker.State.CLOSED);
+        assertEquals(breaker.getTrips(), 0);
+    }
+    
+    @Test
+    public void opensAtThresholdAndRefusesRequests() {
+        CircuitBreaker breaker = new CircuitBreaker("test", 3, Duration.ofMinutes(1));
+        for (int i = 0; i < 3; i++) {
+            breaker.recordFailure();
+        }
+        
+        assertEquals(breaker.getState(), CircuitBreaker.State.OPEN);
+        assertEquals(breaker.getTrips(), 1);
+        assertFalse(breaker.allowRequest());
+    }
+    
+    @Test
+    public void letsOneTrialRequestThroughAfterOpenPeriod() throws InterruptedException {
+        CircuitBreaker breaker = open(Duration.ofMillis(50));
+        assertFalse(breaker.allowRequest());
+        
+        Thread.sleep(80);
+        assertTrue(breaker.allowRequest());
+        assertEquals(breaker.getState(), CircuitBreaker.State.HALF_OPEN);
+        assertFalse(breaker.allowRequest());
+    }
+    
+    @Test
+    public void trialSuccessClosesCircuit() {
+        CircuitBreaker breaker = open(Duration.ZERO);
+        assertTrue(breaker.allowRequest());
+        
+        breaker.recordSuccess();
+        assertEquals(breaker.getState(), CircuitBreaker.State.CLOSED);
+        assertTrue(breaker.allowRequest());
+        assertTrue(breaker.allowRequest());
+    }
+    
+    @Test
+    public void trialFailureOpensCircuitAgain() {
+        CircuitBreaker breaker = open(Duration.ZERO);
+        assertTrue(breaker.allowRequest());
+        
+        breaker.recordFailure();
+        assertEquals(breaker.getState(), CircuitBreaker.State.OPEN);
+        assertEquals(breaker.getTrips(), 2);
+    }
+    
+    @Test
+    public void ignoredTrialIsHandedToNextRequest() {
+        CircuitBreaker breaker = open(Duration.ZERO);
+        assertTrue(breaker.allowRequest());
+        
+        breaker.recordIgnored();
+        assertEquals(breaker.getTrips(), 1);
+        assertTrue(breaker.allowRequest());
+        assertEquals(breaker.getState(), CircuitBreaker.State.HALF_OPEN);
+    }
+    
+    @Test
+    public void ignoredOutcomeLeavesClosedCircuitAlone() {
+        CircuitBreaker breaker = new CircuitBreaker("test", 1, Duration.ofMinutes(1));
+        breaker.recordIgnored();
+        
+        assertEquals(breaker.getState(), CircuitBreaker.State.CLOSED);
+        assertTrue(breaker.allowRequest());
+    }
+    
+    @Test
+    public void thresholdIsAtLeastOne() {
+        CircuitBreaker breaker = new CircuitBreaker("test", 0, Duration.ofMinutes(1));
+        assertTrue(breaker.allowRequest());
+        
+        breaker.recordFailure();
+        assertEquals(breaker.getState(), CircuitBreaker.State.OPEN);
+    }
+    
+    private static CircuitBreaker open(Duration openDuration) {
+        CircuitBreaker breaker = new CircuitBreaker("test", 1, openDuration);
+        breaker.recordFailure();
+        assertEquals(breaker.getState(), CircuitBreaker.State.OPEN);
+        return breaker;
+    }
+}
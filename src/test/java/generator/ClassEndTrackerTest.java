@@ -0,0 +1,142 @@
+package generator;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+/**
+ * Detection of the closing brace of a streamed class by LLMService.ClassEndTracker
+ */
+public class ClassEndTrackerTest {
+    
+    @Test
+    public void stopsAtClosingBraceOfClass() {
+        String code = "public class LoginTest {\n"
+            + "    public void loginPortal() {\n"
+            + "        if (ready) { click(); }\n"
+            + "    }\n"
+            + "}";
+        
+        LLMService.ClassEndTracker tracker = new LLMService.ClassEndTracker();
+        assertTrue(tracker.accept(code + "\n\nThis class logs in.\n"));
+        assertEquals(tracker.getCode(), code);
+    }
+    
+    @Test
+    public void tokensSplitAnywhereGiveTheSameEnd() {
+        String code = "class LoginTest {\n    String s = \"{\";\n}";
+        
+        LLMService.ClassEndTracker tracker = new LLMService.ClassEndTracker();
+        boolean closed = false;
+        for (char c : (code + "\ntrailing text\n").toCharArray()) {
+            closed = tracker.accept(String.valueOf(c));
+            if (closed) break;
+        }
+        assertTrue(closed);
+        assertEquals(tracker.getCode(), code);
+    }
+    
+    @Test
+    public void ignoresBracesInStringsAndCharLiterals() {
+        String code = "class LoginTest {\n"
+            + "    String open = \"{ \\\"}\\\" {\";\n"
+            + "    char close = '}';\n"
+            + "    char quote = '\\'';\n"
+            + "    char unicode = '\\u007D';\n"
+            + "}";
+        
+        assertEquals(track(code + "\n}\n"), code);
+    }
+    
+    @Test
+    public void ignoresBracesInTextBlocks() {
+        String code = "class LoginTest {\n"
+            + "    String json = \"\"\"\n"
+            + "        {\"user\": \"welldocsu\"}\n"
+            + "        }\n"
+            + "        \\\"\"\"}\n"
+            + "        \"\"\";\n"
+            + "}";
+        
+        assertEquals(track(code + "\n}\n"), code);
+    }
+    
+    @Test
+    public void ignoresBracesInComments() {
+        String code = "class LoginTest {\n"
+            + "    // }\n"
+            + "    /* }\n"
+            + "       } */\n"
+            + "    int retries = 3; /* } */\n"
+            + "}";
+        
+        assertEquals(track(code + "\n}\n"), code);
+    }
+    
+    @Test
+    public void skipsProseAroundFence() {
+        String code = "public class LoginTest {\n}";
+        
+        String response = "Here is the class { with braces } you asked for:\n"
+            + "```java\n"
+            + code + "\n"
+            + "```\n";
+        assertEquals(track(response), "Here is the class { with braces } you asked for:\n```java\n" + code);
+    }
+    
+    @Test
+    public void proseNamingAClassIsNotADeclaration() {
+        String code = "@Test(groups = {\"smoke\"}) public final class LoginTest {\n}";
+        
+        String response = "Sure, the class LoginTest { logs in } as asked.\n" + code;
+        assertEquals(track(response + "\n}\n"), response);
+    }
+    
+    @Test
+    public void proseAfterClosedFenceIsNotScanned() {
+        String response = "```java\n"
+            + "import java.util.List;\n"
+            + "```\n"
+            + "The class keyword starts a class { and }\n";
+        
+        LLMService.ClassEndTracker tracker = new LLMService.ClassEndTracker();
+        assertFalse(tracker.accept(response));
+        assertEquals(tracker.finish(), response);
+    }
+    
+    @Test
+    public void classLiteralInAnnotationIsNotADeclaration() {
+        String code = "@Listeners(Reporter.class)\n"
+            + "public class LoginTest {\n"
+            + "    @Test(expectedExceptions = {IllegalStateException.class})\n"
+            + "    public void rejects() {\n"
+            + "    }\n"
+            + "}";
+        
+        assertEquals(track(code + "\n}\n"), code);
+    }
+    
+    @Test
+    public void finishScansUnterminatedLastLine() {
+        String code = "class LoginTest {\n}";
+        
+        LLMService.ClassEndTracker tracker = new LLMService.ClassEndTracker();
+        assertFalse(tracker.accept(code));
+        assertEquals(tracker.finish(), code);
+    }
+    
+    @Test
+    public void unclosedClassKeepsEverything() {
+        String code = "class LoginTest {\n    void login() {\n    }\n";
+        
+        LLMService.ClassEndTracker tracker = new LLMService.ClassEndTracker();
+        assertFalse(tracker.accept(code));
+        assertEquals(tracker.finish(), code);
+    }
+    
+    private static String track(String response) {
+        LLMService.ClassEndTracker tracker = new LLMService.ClassEndTracker();
+        assertTrue(tracker.accept(response), "class end not detected");
+        return tracker.getCode();
+    }
+}
@@ -6,15 +6,26 @@ import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
-import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 
 import org.testng.annotations.Test;
 
+import util.ExcelReader;
+import util.IngestionMetrics;
+import util.PageDictionary;
+import util.PrecomputedTestCase;
+import util.StepUsage;
+import util.SpillingTestCaseStore;
 import util.TestCase;
+import util.TestCaseChanges;
+import util.TestCaseRepository;
+import util.TestCaseValidator;
 
 /**
  * Complete SMIT Automation Framework Generator using Ollama Mistral LLM
@@ -29,10 +40,40 @@ import util.TestCase;
 public class FullFrameworkGenerator {
     
     private static final String OUTPUT_DIR = "generated-framework";
+    private static final String WATCH_FLAG = "--watch";
+    private static final long HEAP_BUDGET_MB = Long.getLong("generator.heapBudgetMb", 64);
+    
+    // POM classes by class name; -Dgenerator.pageDictionary=<file> loads a full dictionary
+    private static final PageDictionary PAGE_DICTIONARY = PageDictionary.fromProperty("generator.pageDictionary",
+        "LoginPage: class:Authentication",
+        "PatientSearchPage: class:PatientSearch",
+        "MessagePage: class:Navigation");
+    
+    // Timings of the last streamed read, included in the generation report
+    private IngestionMetrics ingestionMetrics;
+    // LLM prompts run concurrently; worker threads only start with the first prompt
+    private final GenerationEngine generationEngine = new GenerationEngine();
+    // Classes written from LLM output, which may be none even if the LLM was up at the start
+    private final AtomicInteger llmGenerated = new AtomicInteger();
     
     public static void main(String[] args) {
+        // Watch mode follows exactly one file; the flag must not be read as an input path
+        if (Arrays.asList(args).contains(WATCH_FLAG) && (args.length != 2 || !WATCH_FLAG.equals(args[0]))) {
+            System.err.println("Usage: FullFrameworkGenerator [input.xlsx|input.csv ...]");
+            System.err.println("       FullFrameworkGenerator " + WATCH_FLAG + " <input.xlsx|input.csv>");
+            System.exit(2);
+        }
+        
         FullFrameworkGenerator generator = new FullFrameworkGenerator();
-        generator.generateCompleteFramework();
+        if (args.length > 1 && WATCH_FLAG.equals(args[0])) {
+            generator.watch(args[1]);
+        } else if (args.length > 1) {
+            generator.generateCompleteFramework(Arrays.asList(args));
+        } else if (args.length > 0) {
+            generator.generateCompleteFramework(args[0]);
+        } else {
+            generator.generateCompleteFramework();
+        }
     }
     
     @Test
@@ -41,12 +82,17 @@ public class FullFrameworkGenerator {
             System.out.println("🤖 SMIT Automation Framework Generator with Ollama Mistral");
             System.out.println("==========================================================");
             
+            // The LLM is probed in the background while the input is read
+            LLMService llmService = new LLMService();
+            llmService.startHealthMonitor();
+            
             // Step 1: Read Excel test cases
             List<TestCase> testCases = readExcelTestCases();
             System.out.println("📊 Loaded " + testCases.size() + " test cases from Excel");
+            validateTestCases(TestCaseValidator.validate(testCases));
+            TestCaseRepository repository = new TestCaseRepository(testCases, PAGE_DICTIONARY);
             
-            // Step 2: Initialize LLM service
-            LLMService llmService = new LLMService();
+            // Step 2: Initialize LLM service; classes switch to templates and back as its availability changes
             boolean useLLM = llmService.isAvailable();
             
             if (useLLM) {
@@ -59,26 +105,282 @@ public class FullFrameworkGenerator {
             createProjectStructure();
             
             // Step 4: Generate Page Object Model classes
-            generatePOMClasses(testCases, llmService, useLLM);
+            generatePOMClasses(repository.getPages(), repository::getByPage, llmService);
             
             // Step 5: Generate TestNG test classes
-            generateTestClasses(testCases, llmService, useLLM);
+            generateTestClasses(repository, llmService);
             
             // Step 6: Generate utilities and configuration
             generateUtilities();
             
             // Step 7: Generate summary report
-            generateReport(testCases, useLLM);
+            generateReport(repository.size(), repository.getPages(), repository.getClassNames(), usedLLM());
             
             System.out.println("\n🎉 Framework Generation Complete!");
             System.out.println("📁 Generated framework in: " + OUTPUT_DIR);
             System.out.println("🚀 Ready to run with: mvn test");
+
+        } catch (Exception e) {
+            System.err.println("❌ Framework generation failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Generates the framework from an Excel or CSV file
+     * Rows are streamed, so test classes are prompted and written while
+     * later rows are still being read; POM classes follow once all rows are in
+     * @param inputPath Path to the Excel or CSV test case file
+     */
+    public void generateCompleteFramework(String inputPath) {
+        try {
+            System.out.println("🤖 SMIT Automation Framework Generator with Ollama Mistral");
+            System.out.println("==========================================================");
+            System.out.println("📄 Input: " + inputPath);
+            LLMService llmService = new LLMService();
+            llmService.startHealthMonitor();
+            validateTestCases(ExcelReader.validate(inputPath));
+            
+            boolean useLLM = llmService.isAvailable();
+            
+            if (useLLM) {
+                System.out.println("🤖 Using Ollama Mistral (" + llmService.getModel() + ") for code generation");
+            } else {
+                System.out.println("⚠️  Mistral not available, using template-based generation");
+            }
+            
+            TestCaseRepository repository = generateStreaming(inputPath, llmService);
+            generateReport(repository.size(), repository.getPages(), repository.getClassNames(), usedLLM());
+
+            System.out.println("\n🎉 Framework Generation Complete!");
+            System.out.println("📁 Generated framework in: " + OUTPUT_DIR);
+            System.out.println("🚀 Ready to run with: mvn test");
+
+        } catch (Exception e) {
+            System.err.println("❌ Framework generation failed: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Generates the framework from several Excel or CSV files, e.g. for a full release
+     * Rows are kept in a store that spills to memory-mapped files beyond
+     * -Dgenerator.heapBudgetMb (default 64), so the heap stays small however many rows there are
+     * @param inputPaths Paths to the Excel or CSV test case files
+     */
+    public void generateCompleteFramework(List<String> inputPaths) {
+        System.out.println("🤖 SMIT Automation Framework Generator with Ollama Mistral");
+        System.out.println("==========================================================");
+        System.out.println("📄 Inputs: " + inputPaths);
+        LLMService llmService = new LLMService();
+        llmService.startHealthMonitor();
+        
+        try (SpillingTestCaseStore store = ExcelReader.readToStore(inputPaths, HEAP_BUDGET_MB * 1024 * 1024)) {
+            List<TestCase> testCases = store.asList();
+            System.out.println("📊 Loaded " + testCases.size() + " test cases"
+                + (store.isSpilled() ? " (spilled to disk)" : ""));
+            validateTestCases(TestCaseValidator.validate(testCases));
+            
+            boolean useLLM = llmService.isAvailable();
             
+            if (useLLM) {
+                System.out.println("🤖 Using Ollama Mistral (" + llmService.getModel() + ") for code generation");
+            } else {
+                System.out.println("⚠️  Mistral not available, using template-based generation");
+            }
+            
+            createProjectStructure();
+            
+            // Each class is decoded from the store only while it is being generated
+            System.out.println("🧪 Generating TestNG test classes...");
+            for (String className : store.getClassNames()) {
+                generateTestClass(className, store.getByClass(className), llmService);
+            }
+            
+            // Pages and their rows are inferred in one pass over the store; a repository would hold
+            // every row on the heap, so each page's rows are only decoded while it is prompted
+            Map<String, List<Integer>> pageRows = new LinkedHashMap<>();
+            for (int row = 0; row < store.size(); row++) {
+                for (String pageName : PAGE_DICTIONARY.pagesFor(store.get(row))) {
+                    pageRows.computeIfAbsent(pageName, k -> new ArrayList<>()).add(row);
+                }
+            }
+            Set<String> pages = pageRows.keySet();
+            generatePOMClasses(pages, pageName -> {
+                List<TestCase> pageTests = new ArrayList<>();
+                for (int row : pageRows.get(pageName)) {
+                    pageTests.add(store.get(row));
+                }
+                return pageTests;
+            }, llmService);
+            generateUtilities();
+            generateReport(store.size(), pages, store.getClassNames(), usedLLM());
+            
+            System.out.println("\n🎉 Framework Generation Complete!");
+            System.out.println("📁 Generated framework in: " + OUTPUT_DIR);
+            System.out.println("🚀 Ready to run with: mvn test");
+        
         } catch (Exception e) {
             System.err.println("❌ Framework generation failed: " + e.getMessage());
         }
     }
     
+    /**
+     * Generates the framework once, then watches the input file and regenerates only
+     * the test and POM classes affected by each save, until the process is stopped
+     * @param inputPath Path to the Excel or CSV test case file
+     */
+    public void watch(String inputPath) {
+        try {
+            System.out.println("🤖 SMIT Automation Framework Generator with Ollama Mistral (watch mode)");
+            System.out.println("==========================================================");
+            System.out.println("📄 Input: " + inputPath);
+            LLMService llmService = new LLMService();
+            llmService.startHealthMonitor();
+            
+            // Watch from before the first read, so saves made while generating are picked up afterwards
+            try (WorkbookWatcher watcher = new WorkbookWatcher(Paths.get(inputPath))) {
+                watcher.start();
+                // Baseline row fingerprints, so each save only re-ingests the rows that changed.
+                // Taken before generating: a row saved meanwhile still differs from it on the first cycle
+                TestCaseChanges baseline = ExcelReader.readChanges(inputPath);
+                validateTestCases(baseline.getValidator());
+                
+                boolean useLLM = llmService.isAvailable();
+                System.out.println(useLLM ? "🤖 Using Ollama Mistral (" + llmService.getModel() + ") for code generation"
+                                          : "⚠️  Mistral not available, using template-based generation");
+                
+                // Replaced by the updated repository after each regeneration
+                TestCaseRepository[] repository = {generateStreaming(inputPath, llmService)};
+                writeReport(repository[0], usedLLM());
+                baseline.commit();
+                
+                System.out.println("👀 Watching " + inputPath + " for changes (Ctrl+C to stop)");
+                watcher.watch(() -> repository[0] = regenerateChanges(inputPath, repository[0], llmService));
+            }
+        
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            System.err.println("❌ Watch mode failed: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Streams the input, writing test classes as each class completes, then POM and utility classes
+     */
+    private TestCaseRepository generateStreaming(String inputPath, LLMService llmService) throws IOException {
+        createProjectStructure();
+        
+        // Test classes are generated as soon as each class's rows have been read
+        System.out.println("🧪 Generating TestNG test classes...");
+        ingestionMetrics = new IngestionMetrics();
+        List<TestCase> testCases = TestClassStreamer.forEachClass(ExcelReader.streamTestCases(inputPath, ingestionMetrics),
+            (className, classTests, regenerate) -> generateTestClass(className, classTests, llmService));
+        System.out.println("📊 Loaded " + testCases.size() + " test cases from " + inputPath);
+        
+        TestCaseRepository repository = new TestCaseRepository(testCases, PAGE_DICTIONARY);
+        generatePOMClasses(repository.getPages(), repository::getByPage, llmService);
+        generateUtilities();
+        return repository;
+    }
+    
+    /**
+     * Re-ingests the changed rows of the input and regenerates the affected classes
+     * @param current Repository of the last successful generation
+     * @return Updated repository, or the current one if the save is rejected or has no changes
+     */
+    private TestCaseRepository regenerateChanges(String inputPath, TestCaseRepository current,
+                                                 LLMService llmService) throws IOException {
+        long start = System.nanoTime();
+        TestCaseChanges changes = ExcelReader.readChanges(inputPath);
+        // Refuse to regenerate until the sheet is consistent again; the changes stay uncommitted.
+        // Checked first, since a row repeating an ID is not reported as a change
+        validateTestCases(changes.getValidator());
+        if (!changes.hasChanges()) {
+            System.out.println("💤 Saved without test case changes");
+            return current;
+        }
+        
+        List<TestCase> upserts = new ArrayList<>();
+        for (TestCase testCase : changes.getChanged()) {
+            upserts.add(PrecomputedTestCase.of(testCase));
+        }
+        for (TestCase testCase : changes.getAdded()) {
+            upserts.add(PrecomputedTestCase.of(testCase));
+        }
+        
+        TestCaseRepository updated = current.withChanges(changes.getRemovedIds(), upserts);
+        
+        List<TestCase> touched = new ArrayList<>(upserts);
+        for (String id : changes.getRemovedIds()) {
+            TestCase removed = current.getById(id);
+            if (removed != null) {
+                touched.add(removed);
+            }
+        }
+        for (TestCase testCase : upserts) {
+            TestCase previous = current.getById(testCase.getId());
+            if (previous != null) {
+                touched.add(previous);
+            }
+        }
+        
+        Set<String> affectedClasses = new LinkedHashSet<>();
+        for (TestCase testCase : touched) {
+            affectedClasses.add(testCase.getClassName());
+        }
+        for (String className : affectedClasses) {
+            List<TestCase> classTests = updated.getByClass(className);
+            if (classTests.isEmpty()) {
+                generationEngine.deleteNow(Paths.get(OUTPUT_DIR + "/src/test/java/tests/" + className + ".java"));
+                System.out.println("🗑️  Removed " + className);
+            } else {
+                generateTestClass(className, classTests, llmService);
+            }
+        }
+        
+        // POM classes: regenerate pages touched by the changed rows, drop pages no longer used
+        Set<String> affectedPages = new LinkedHashSet<>();
+        for (TestCase testCase : touched) {
+            affectedPages.addAll(updated.pagesOf(testCase));
+        }
+        affectedPages.retainAll(updated.getPages());
+        for (String pageName : updated.getPages()) {
+            if (!current.getPages().contains(pageName)) {
+                affectedPages.add(pageName);
+            }
+        }
+        for (String pageName : affectedPages) {
+            List<TestCase> pageTests = updated.getByPage(pageName);
+            if (llmService.isAvailable()) {
+                generatePOMWithMistral(pageName, pageTests, StepUsage.of(pageTests), llmService);
+            } else {
+                generatePOMWithTemplate(pageName, StepUsage.of(pageTests));
+            }
+        }
+        generationEngine.awaitAll();
+        for (String pageName : current.getPages()) {
+            if (!updated.getPages().contains(pageName)) {
+                generationEngine.deleteNow(Paths.get(OUTPUT_DIR + "/src/test/java/pages/" + pageName + ".java"));
+                System.out.println("🗑️  Removed " + pageName);
+            }
+        }
+        
+        writeReport(updated, usedLLM());
+        changes.commit();
+        
+        System.out.printf("♻️  %s: regenerated %d test and %d POM classes in %d ms%n", changes,
+            affectedClasses.size(), affectedPages.size(), (System.nanoTime() - start) / 1_000_000);
+        return updated;
+    }
+    
+    /**
+     * Stops generation before any LLM call if IDs or class/method names conflict
+     */
+    private void validateTestCases(TestCaseValidator validator) {
+        validator.throwIfInvalid();
+        System.out.println("✅ Validated " + validator.getCount() + " test cases");
+    }
+    
     private List<TestCase> readExcelTestCases() throws Exception {
         // Use sample CSV data since we have it available
         List<TestCase> testCases = new ArrayList<>();
@@ -90,20 +392,20 @@ public class FullFrameworkGenerator {
             Arrays.asList("Navigate to https://azqa21-dsm.testwd.com/SMITPortal/Guest/Login.htm",
                          "Enter username welldocsu", "Enter password welldoc123", "Click Login"),
             "System should allow the user to successfully login"));
-            
+
         testCases.add(createSampleTestCase("TC_SMIT_02", "PatientSearchTest", "searchPatient",
             "Search for Patient",
             "Search Criteria: John Doe",
             Arrays.asList("Login to SMIT Portal", "Navigate to Patient Search", 
                          "Enter search criteria", "Click Search"),
             "Search results should be displayed"));
-            
+
         testCases.add(createSampleTestCase("TC_SMIT_03", "PortalNavigationTest", "navigateToMessages",
             "Navigate to Messages",
             "",
             Arrays.asList("Login to SMIT Portal", "Click Messages link", "Verify message page"),
             "Should successfully navigate to messages page"));
-            
+
         return testCases;
     }
     
@@ -131,76 +433,98 @@ public class FullFrameworkGenerator {
         System.out.println("✅ Project structure created");
     }
     
-    private void generatePOMClasses(List<TestCase> testCases, LLMService llmService, boolean useLLM) throws IOException {
+    /**
+     * Generates a POM class per page from the test cases exercising that page only
+     * @param testsOfPage Test cases of a page, e.g. from the repository's page index
+     */
+    private void generatePOMClasses(Set<String> pages, Function<String, List<TestCase>> testsOfPage,
+                                    LLMService llmService) throws IOException {
         System.out.println("🏗️  Generating Page Object Model classes...");
         
-        Set<String> pages = extractPages(testCases);
-        
+        // Template pages get one method per unique step of their test cases; LLM pages
+        // need them too, for the template used when the LLM cannot answer
         for (String pageName : pages) {
-            if (useLLM) {
-                generatePOMWithMistral(pageName, testCases, llmService);
+            List<TestCase> pageTests = testsOfPage.apply(pageName);
+            if (llmService.isAvailable()) {
+                generatePOMWithMistral(pageName, pageTests, StepUsage.of(pageTests), llmService);
             } else {
-                generatePOMWithTemplate(pageName, testCases);
+                generatePOMWithTemplate(pageName, StepUsage.of(pageTests));
             }
         }
+        // Also waits for test classes still being generated
+        generationEngine.awaitAll();
         
         System.out.println("✅ Generated " + pages.size() + " POM classes");
     }
     
-    private void generatePOMWithMistral(String pageName, List<TestCase> testCases, LLMService llmService) throws IOException {
+    /**
+     * Queues the page for generation; the class is written once the LLM answers, or from
+     * the template if the LLM fails, its circuit is open or the time budget is spent
+     */
+    private void generatePOMWithMistral(String pageName, List<TestCase> testCases, StepUsage steps, LLMService llmService) {
         String prompt = buildPOMPrompt(pageName, testCases);
-        String generatedCode = llmService.generateCode(prompt);
-        
-        // Clean and format the generated code
-        generatedCode = cleanGeneratedCode(generatedCode);
-        
+        String templateCode = generatePOMTemplate(pageName, steps);
         String fileName = OUTPUT_DIR + "/src/test/java/pages/" + pageName + ".java";
-        Files.write(Paths.get(fileName), generatedCode.getBytes());
         
-        System.out.println("🤖 Generated " + pageName + " with Mistral LLM");
+        generationEngine.submit(pageName, Paths.get(fileName), () -> generateOrFallBack(pageName, prompt, templateCode, llmService));
     }
     
-    private void generatePOMWithTemplate(String pageName, List<TestCase> testCases) throws IOException {
+    private void generatePOMWithTemplate(String pageName, StepUsage steps) throws IOException {
         // Fallback template-based generation
-        String templateCode = generatePOMTemplate(pageName);
+        String templateCode = generatePOMTemplate(pageName, steps);
         
         String fileName = OUTPUT_DIR + "/src/test/java/pages/" + pageName + ".java";
-        Files.write(Paths.get(fileName), templateCode.getBytes());
+        generationEngine.writeNow(Paths.get(fileName), templateCode);
         
         System.out.println("📝 Generated " + pageName + " with template");
     }
     
-    private void generateTestClasses(List<TestCase> testCases, LLMService llmService, boolean useLLM) throws IOException {
+    private void generateTestClasses(TestCaseRepository repository, LLMService llmService) throws IOException {
         System.out.println("🧪 Generating TestNG test classes...");
         
-        Map<String, List<TestCase>> testsByClass = testCases.stream()
-            .collect(Collectors.groupingBy(TestCase::getClassName));
-        
-        for (Map.Entry<String, List<TestCase>> entry : testsByClass.entrySet()) {
-            String className = entry.getKey();
-            List<TestCase> classTests = entry.getValue();
-            
-            if (useLLM) {
-                generateTestClassWithMistral(className, classTests, llmService);
-            } else {
-                generateTestClassWithTemplate(className, classTests);
-            }
+        for (String className : repository.getClassNames()) {
+            generateTestClass(className, repository.getByClass(className), llmService);
         }
+        generationEngine.awaitAll();
         
-        System.out.println("✅ Generated " + testsByClass.size() + " test classes");
+        System.out.println("✅ Generated " + repository.getClassNames().size() + " test classes");
     }
     
-    private void generateTestClassWithMistral(String className, List<TestCase> testCases, LLMService llmService) throws IOException {
+    /**
+     * Prompts the LLM for the class if its last health probe found the model loaded, otherwise uses the template
+     */
+    private void generateTestClass(String className, List<TestCase> classTests, LLMService llmService) throws IOException {
+        if (llmService.isAvailable()) {
+            generateTestClassWithMistral(className, classTests, llmService);
+        } else {
+            generateTestClassWithTemplate(className, classTests);
+        }
+    }
+
+    /**
+     * Queues the test class for generation; the prompt and fallback template are built now,
+     * so the rows may be released
+     */
+    private void generateTestClassWithMistral(String className, List<TestCase> testCases, LLMService llmService) {
         String prompt = buildTestClassPrompt(className, testCases);
-        String generatedCode = llmService.generateCode(prompt);
-        
-        // Clean and format the generated code
-        generatedCode = cleanGeneratedCode(generatedCode);
-        
+        String templateCode = generateTestTemplate(className, testCases);
         String fileName = OUTPUT_DIR + "/src/test/java/tests/" + className + ".java";
-        Files.write(Paths.get(fileName), generatedCode.getBytes());
         
-        System.out.println("🤖 Generated " + className + " with Mistral LLM");
+        generationEngine.submit(className, Paths.get(fileName), () -> generateOrFallBack(className, prompt, templateCode, llmService));
+    }
+    
+    /**
+     * Cleaned LLM code for the prompt, or the template code if the LLM gives none or has
+     * gone down since the class was queued
+     */
+    private String generateOrFallBack(String className, String prompt, String templateCode, LLMService llmService) {
+        String code = llmService.isAvailable() ? llmService.tryGenerateCode(prompt) : null;
+        if (code == null) {
+            System.out.println("📝 Generated " + className + " with template (LLM unavailable)");
+            return templateCode;
+        }
+        llmGenerated.incrementAndGet();
+        return cleanGeneratedCode(code);
     }
     
     private void generateTestClassWithTemplate(String className, List<TestCase> testCases) throws IOException {
@@ -208,27 +532,11 @@ public class FullFrameworkGenerator {
         String templateCode = generateTestTemplate(className, testCases);
         
         String fileName = OUTPUT_DIR + "/src/test/java/tests/" + className + ".java";
-        Files.write(Paths.get(fileName), templateCode.getBytes());
+        generationEngine.writeNow(Paths.get(fileName), templateCode);
         
         System.out.println("📝 Generated " + className + " with template");
     }
     
-    private Set<String> extractPages(List<TestCase> testCases) {
-        Set<String> pages = new HashSet<>();
-        for (TestCase testCase : testCases) {
-            if (testCase.getClassName().contains("Authentication")) {
-                pages.add("LoginPage");
-            }
-            if (testCase.getClassName().contains("PatientSearch")) {
-                pages.add("PatientSearchPage");
-            }
-            if (testCase.getClassName().contains("Navigation")) {
-                pages.add("MessagePage");
-            }
-        }
-        return pages;
-    }
-    
     private String buildPOMPrompt(String pageName, List<TestCase> testCases) {
         StringBuilder prompt = new StringBuilder();
         prompt.append("Generate a complete Java Page Object Model class for Selenium automation.\n\n");
@@ -239,12 +547,16 @@ public class FullFrameworkGenerator {
         prompt.append("- Use Selenium WebDriver\n");
         prompt.append("- Include proper Javadoc comments\n");
         prompt.append("- Add TODO comments for locator verification\n");
-        prompt.append("- Use By.id(), By.name(), By.xpath() for locators\n\n");
+        prompt.append("- Use By.id(), By.name(), By.xpath() for locators\n");
+        prompt.append("- One method per listed step, shared by all test cases that use it\n\n");
+        
+        StepUsage steps = StepUsage.of(testCases);
+        appendSteps(prompt, steps);
         
         prompt.append("Test cases for this page:\n");
         for (TestCase testCase : testCases) {
             prompt.append("- ").append(testCase.getSummary()).append("\n");
-            prompt.append("  Steps: ").append(String.join(", ", testCase.getSteps())).append("\n");
+            prompt.append("  Steps: ").append(steps.getReferences(testCase)).append("\n");
             if (testCase.getTestData() != null && !testCase.getTestData().isEmpty()) {
                 prompt.append("  Test Data: ").append(testCase.getTestData()).append("\n");
             }
@@ -268,12 +580,15 @@ public class FullFrameworkGenerator {
         prompt.append("- Use assertions for validations\n");
         prompt.append("- Include logging statements\n\n");
         
+        StepUsage steps = StepUsage.of(testCases);
+        appendSteps(prompt, steps);
+        
         prompt.append("Test cases to implement:\n");
         for (TestCase testCase : testCases) {
             prompt.append("- Test ID: ").append(testCase.getId()).append("\n");
             prompt.append("  Method: ").append(testCase.getMethodName()).append("\n");
             prompt.append("  Description: ").append(testCase.getSummary()).append("\n");
-            prompt.append("  Steps: ").append(String.join(", ", testCase.getSteps())).append("\n");
+            prompt.append("  Steps: ").append(steps.getReferences(testCase)).append("\n");
             prompt.append("  Expected: ").append(testCase.getExpected()).append("\n\n");
         }
         
@@ -283,6 +598,21 @@ public class FullFrameworkGenerator {
         return prompt.toString();
     }
     
+    /**
+     * Lists each unique step once, so test cases can refer to it by number
+     */
+    private void appendSteps(StringBuilder prompt, StepUsage steps) {
+        prompt.append("Steps (each listed once; test cases refer to them by number):\n");
+        for (int i = 0; i < steps.size(); i++) {
+            prompt.append(steps.getReference(i)).append(". ").append(steps.getText(i));
+            if (steps.getOccurrences(i) > 1) {
+                prompt.append(" (used ").append(steps.getOccurrences(i)).append(" times)");
+            }
+            prompt.append("\n");
+        }
+        prompt.append("\n");
+    }
+    
     private String cleanGeneratedCode(String code) {
         // Remove markdown code blocks
         code = code.replaceAll("```java\\s*", "").replaceAll("```\\s*", "");
@@ -295,7 +625,7 @@ public class FullFrameworkGenerator {
         return code.trim();
     }
     
-    private String generatePOMTemplate(String pageName) {
+    private String generatePOMTemplate(String pageName, StepUsage steps) {
         return """
             package pages;
             
@@ -324,8 +654,28 @@ public class FullFrameworkGenerator {
                 public void performAction(String input) {
                     // TODO: Implement page-specific actions
                 }
-            }
-            """.formatted(pageName, pageName, pageName);
+            %s}
+            """.formatted(pageName, pageName, pageName, generateStepMethods(steps, Set.of("open", "performAction")));
+    }
+    
+    /**
+     * One method per unique step of the page, shared by every test case using it
+     * @param reserved Method names the page template already declares
+     */
+    private String generateStepMethods(StepUsage steps, Set<String> reserved) {
+        StringBuilder code = new StringBuilder();
+        List<String> methodNames = steps.getMethodNames(reserved);
+        for (int i = 0; i < steps.size(); i++) {
+            code.append("    \n");
+            code.append("    /**\n");
+            code.append("     * Step: ").append(steps.getText(i).replace("*/", "*&#47;")).append("\n");
+            code.append("     * Used ").append(steps.getOccurrences(i)).append(" time(s) by the test cases of this page\n");
+            code.append("     */\n");
+            code.append("    public void ").append(methodNames.get(i)).append("() {\n");
+            code.append("        // TODO: Implement this step\n");
+            code.append("    }\n");
+        }
+        return code.toString();
     }
     
     private String generateTestTemplate(String className, List<TestCase> testCases) {
@@ -411,39 +761,69 @@ public class FullFrameworkGenerator {
         System.out.println("✅ Generated utility classes");
     }
     
-    private void generateReport(List<TestCase> testCases, boolean usedLLM) throws IOException {
+    private void generateReport(int testCaseCount, Set<String> pages, Set<String> classNames, boolean usedLLM) throws IOException {
         System.out.println("\n📊 Generation Report");
         System.out.println("===================");
         System.out.println("🤖 LLM Used: " + (usedLLM ? "Ollama Mistral ✅" : "Template-based ⚠️"));
-        System.out.println("📝 Test Cases Processed: " + testCases.size());
-        System.out.println("🏗️  POM Classes Generated: " + extractPages(testCases).size());
-        System.out.println("🧪 Test Classes Generated: " + testCases.stream().map(TestCase::getClassName).distinct().count());
+        System.out.println("📝 Test Cases Processed: " + testCaseCount);
+        System.out.println("🏗️  POM Classes Generated: " + pages.size());
+        System.out.println("🧪 Test Classes Generated: " + classNames.size());
         System.out.println("📁 Output Directory: " + OUTPUT_DIR);
         System.out.println("🎯 Target Portal: SMIT Portal (https://azqa21-dsm.testwd.com/SMITPortal/Guest/Login.htm)");
+        if (usedLLM) {
+            System.out.printf("♻️  LLM responses reused: %d recent (%d misses), %d joined in flight%n",
+                LLMService.getRecentHits(), LLMService.getRecentMisses(), LLMService.getJoinedRequests());
+        }
+        if (ingestionMetrics != null) {
+            System.out.printf("⏱️  Ingestion: %.1f ms, %.0f rows/sec (blocked on generation: %.1f ms)%n",
+                ingestionMetrics.getIngestionNanos() / 1_000_000.0, ingestionMetrics.getRowsPerSecond(),
+                ingestionMetrics.getMillis(IngestionMetrics.Phase.CONSUMER_WAIT));
+        }
         
-        Files.write(Paths.get(OUTPUT_DIR + "/generation-report.txt"), generateReportContent(testCases, usedLLM).getBytes());
+        Files.write(Paths.get(OUTPUT_DIR + "/generation-report.txt"),
+            generateReportContent(testCaseCount, pages, classNames, usedLLM).getBytes());
+    }
+    
+    /**
+     * Whether any class of this process was generated by the LLM
+     */
+    private boolean usedLLM() {
+        return llmGenerated.get() > 0;
     }
     
-    private String generateReportContent(List<TestCase> testCases, boolean usedLLM) {
+    /**
+     * Writes generation-report.txt without printing the console summary
+     */
+    private void writeReport(TestCaseRepository repository, boolean usedLLM) throws IOException {
+        Files.write(Paths.get(OUTPUT_DIR + "/generation-report.txt"), generateReportContent(repository.size(),
+            repository.getPages(), repository.getClassNames(), usedLLM).getBytes());
+    }
+    
+    private String generateReportContent(int testCaseCount, Set<String> pages, Set<String> classNames, boolean usedLLM) {
         StringBuilder report = new StringBuilder();
         report.append("SMIT Automation Framework Generation Report\n");
         report.append("==========================================\n\n");
         report.append("Generation Method: ").append(usedLLM ? "Ollama Mistral LLM" : "Template-based").append("\n");
         report.append("Timestamp: ").append(new Date()).append("\n");
-        report.append("Test Cases: ").append(testCases.size()).append("\n");
-        report.append("POM Classes: ").append(extractPages(testCases).size()).append("\n");
-        report.append("Test Classes: ").append(testCases.stream().map(TestCase::getClassName).distinct().count()).append("\n\n");
+        report.append("Test Cases: ").append(testCaseCount).append("\n");
+        report.append("POM Classes: ").append(pages.size()).append("\n");
+        report.append("Test Classes: ").append(classNames.size()).append("\n\n");
         
         report.append("Generated Files:\n");
         report.append("- BasePage.java\n");
         report.append("- BaseTest.java\n");
-        for (String page : extractPages(testCases)) {
+        for (String page : pages) {
             report.append("- ").append(page).append(".java\n");
         }
-        for (String className : testCases.stream().map(TestCase::getClassName).distinct().collect(Collectors.toList())) {
+        for (String className : classNames) {
             report.append("- ").append(className).append(".java\n");
         }
         
+        if (ingestionMetrics != null) {
+            report.append("\nIngestion:\n");
+            report.append(ingestionMetrics.toReport());
+        }
+        
         return report.toString();
     }
 }
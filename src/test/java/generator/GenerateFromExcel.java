@@ -4,15 +4,21 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 import util.ExcelReader;
+import util.IngestionMetrics;
+import util.PageDictionary;
+import util.PrecomputedTestCase;
+import util.StepUsage;
 import util.TestCase;
+import util.TestCaseCatalog;
+import util.TestCaseRepository;
+import util.TestCaseValidator;
 
 /**
  * Main generator class that reads Excel test cases and generates Selenium automation framework
@@ -25,6 +31,13 @@ public class GenerateFromExcel {
     private static final String TESTS_DIR = PROJECT_ROOT + "/src/test/java/tests";
     private static final String UTIL_DIR = PROJECT_ROOT + "/src/test/java/util";
     
+    // Page inference by class name; -Dgenerator.pageDictionary=<file> loads a full dictionary
+    private static final PageDictionary PAGE_DICTIONARY = PageDictionary.fromProperty("generator.pageDictionary",
+        "LoginPage: class:login",
+        "PatientSearchPage: class:patient",
+        "MessagePage: class:message",
+        "NavigationPage: class:navigation");
+    
     /**
      * Main method to run the generator
      * @param args Command line arguments: [excel_file_path] [browser_type]
@@ -39,23 +52,37 @@ public class GenerateFromExcel {
             System.out.println("Browser Type: " + browserType);
             System.out.println();
             
-            // Read test cases from Excel
-            List<TestCase> testCases = ExcelReader.readTestCases(excelFilePath);
-            System.out.println("Loaded " + testCases.size() + " test cases from Excel file");
-            
             // Create project structure
             createProjectStructure();
             
-            // Generate framework files
-            generateFrameworkFiles(testCases);
+            // Read test cases from the binary catalog when the workbook is unchanged
+            List<TestCase> testCases = TestCaseCatalog.load(excelFilePath);
+            IngestionMetrics metrics = null;
+            TestCaseRepository repository;
+            if (testCases != null) {
+                testCases = PrecomputedTestCase.of(testCases);
+                System.out.println("Loaded " + testCases.size() + " test cases from catalog");
+                TestCaseValidator.validate(testCases).throwIfInvalid();
+                repository = new TestCaseRepository(testCases, PAGE_DICTIONARY);
+                generateFrameworkFiles(repository);
+            } else {
+                // Identify the workbook before reading it; a save during generation leaves the catalog stale
+                TestCaseCatalog.SourceIdentity identity = TestCaseCatalog.SourceIdentity.of(excelFilePath);
+                // Reject conflicting IDs or class/method names before anything is generated
+                ExcelReader.validate(excelFilePath).throwIfInvalid();
+                metrics = new IngestionMetrics();
+                repository = generateFrameworkFilesStreaming(excelFilePath, metrics);
+                System.out.println("Loaded " + repository.size() + " test cases from Excel file");
+                TestCaseCatalog.save(excelFilePath, identity, repository.getAll());
+            }
             
             // Generate report
-            generateReport(testCases);
+            generateReport(repository, metrics);
             
             System.out.println("\n=== Generation Complete ===");
             System.out.println("Framework generated successfully!");
             System.out.println("Run 'mvn test' to execute the tests");
-            
+
         } catch (Exception e) {
             System.err.println("Error during generation: " + e.getMessage());
         }
@@ -79,26 +106,54 @@ public class GenerateFromExcel {
     /**
      * Generates all framework files based on test cases
      */
-    private static void generateFrameworkFiles(List<TestCase> testCases) throws IOException {
+    private static void generateFrameworkFiles(TestCaseRepository repository) throws IOException {
         System.out.println("Generating framework files...");
         
-        // Group test cases by class name
-        Map<String, List<TestCase>> testCasesByClass = testCases.stream()
-            .collect(Collectors.groupingBy(TestCase::getClassName));
-        
         // Generate Page Object Model classes
-        generatePageObjectClasses(testCases);
+        generatePageObjectClasses(repository);
         
         // Generate TestNG test classes
-        generateTestClasses(testCasesByClass);
+        generateTestClasses(repository);
+        
+        System.out.println("Framework files generated successfully");
+    }
+    
+    /**
+     * Generates framework files while the workbook is still being read
+     * Test classes are written as soon as all rows of a class have arrived;
+     * page objects need the full suite and are generated at the end
+     */
+    private static TestCaseRepository generateFrameworkFilesStreaming(String excelFilePath, IngestionMetrics metrics)
+            throws IOException {
+        System.out.println("Generating framework files (streaming)...");
+        // Probe the LLM in the background while the workbook is read
+        new LLMService().startHealthMonitor();
+        
+        Set<String> writtenThisRun = new HashSet<>();
+        List<TestCase> testCases = TestClassStreamer.forEachClass(ExcelReader.streamTestCases(excelFilePath, metrics),
+            (className, classTestCases, regenerate) -> {
+                Path filePath = Paths.get(TESTS_DIR, className + ".java");
+                if (regenerate && writtenThisRun.contains(className)) {
+                    // Class reappeared later in the sheet; rewrite it with all of its rows
+                    Files.deleteIfExists(filePath);
+                }
+                if (!Files.exists(filePath)) {
+                    writtenThisRun.add(className);
+                }
+                generateTestClass(className, classTestCases);
+            });
+        
+        TestCaseRepository repository = new TestCaseRepository(testCases, PAGE_DICTIONARY);
+        generatePageObjectClasses(repository);
         
         System.out.println("Framework files generated successfully");
+        return repository;
     }
     
     /**
      * Generates Page Object Model classes based on test cases
      */
-    private static void generatePageObjectClasses(List<TestCase> testCases) throws IOException {
+    private static void generatePageObjectClasses(TestCaseRepository repository) throws IOException {
         System.out.println("Generating Page Object Model classes...");
         
         // Check if local LLM is available
@@ -111,43 +166,17 @@ public class GenerateFromExcel {
             System.out.println("⚠️  Local LLM not available, using template-based generation...");
         }
         
-        // Extract unique pages from test cases
-        Set<String> pages = extractPagesFromTestCases(testCases);
-        
-        for (String pageName : pages) {
-            if (useLLM) {
-                generatePageObjectClassWithLLM(pageName, testCases, llmService);
+        // Pages and their test cases come from the repository's page index; each page
+        // follows the latest health probe, so generation switches modes if the LLM goes up or down
+        for (String pageName : repository.getPages()) {
+            if (llmService.isAvailable()) {
+                generatePageObjectClassWithLLM(pageName, repository.getByPage(pageName), llmService);
             } else {
-                generatePageObjectClass(pageName, testCases);
+                generatePageObjectClass(pageName, repository.getByPage(pageName));
             }
         }
     }
     
-    /**
-     * Extracts unique page names from test cases
-     */
-    private static Set<String> extractPagesFromTestCases(List<TestCase> testCases) {
-        Set<String> pages = new HashSet<>();
-        
-        for (TestCase testCase : testCases) {
-            // Extract page names from test case steps and class names
-            if (testCase.getClassName().toLowerCase().contains("login")) {
-                pages.add("LoginPage");
-            }
-            if (testCase.getClassName().toLowerCase().contains("patient")) {
-                pages.add("PatientSearchPage");
-            }
-            if (testCase.getClassName().toLowerCase().contains("message")) {
-                pages.add("MessagePage");
-            }
-            if (testCase.getClassName().toLowerCase().contains("navigation")) {
-                pages.add("NavigationPage");
-            }
-        }
-        
-        return pages;
-    }
-    
     /**
      * Generates a specific Page Object Model class using LLM
      */
@@ -164,8 +193,12 @@ public class GenerateFromExcel {
         // Build prompt for LLM
         String prompt = buildPOMPrompt(pageName, testCases);
         
-        // Generate code using LLM
-        String pageContent = llmService.generateCode(prompt);
+        // Generate code using LLM, or the template if it cannot answer
+        String pageContent = llmService.tryGenerateCode(prompt);
+        if (pageContent == null) {
+            generatePageObjectClass(pageName, testCases);
+            return;
+        }
         
         // Write file
         try (PrintWriter writer = new PrintWriter(new FileWriter(filePath))) {
@@ -214,17 +247,26 @@ public class GenerateFromExcel {
         prompt.append("- Add TODO comments for locator verification\n");
         prompt.append("- Use common locator patterns like By.id(), By.name(), By.xpath()\n\n");
         
-        prompt.append("Test cases for this page:\n");
-        for (TestCase testCase : testCases) {
-            if (testCase.getClassName().toLowerCase().contains(pageName.toLowerCase().replace("page", ""))) {
-                prompt.append("- ").append(testCase.getSummary()).append("\n");
-                prompt.append("  Steps: ").append(String.join(", ", testCase.getSteps())).append("\n");
-                prompt.append("  Test Data: ").append(testCase.getTestData()).append("\n");
+        // Each unique step is sent once; test cases refer to it by number
+        StepUsage steps = StepUsage.of(testCases);
+        prompt.append("Steps used on this page:\n");
+        for (int i = 0; i < steps.size(); i++) {
+            prompt.append(steps.getReference(i)).append(". ").append(steps.getText(i));
+            if (steps.getOccurrences(i) > 1) {
+                prompt.append(" (used ").append(steps.getOccurrences(i)).append(" times)");
             }
+            prompt.append("\n");
+        }
+        
+        prompt.append("\nTest cases for this page:\n");
+        for (TestCase testCase : testCases) {
+            prompt.append("- ").append(testCase.getSummary()).append("\n");
+            prompt.append("  Steps: ").append(steps.getReferences(testCase)).append("\n");
+            prompt.append("  Test Data: ").append(testCase.getTestData()).append("\n");
         }
         
         prompt.append("\nGenerate locators and methods based on the test cases above.\n");
-        prompt.append("Include methods for all actions mentioned in test steps.\n");
+        prompt.append("Include one method per listed step, shared by all test cases that use it.\n");
         prompt.append("Return only the complete Java class code, no explanations.\n");
         
         return prompt.toString();
@@ -265,6 +307,9 @@ public class GenerateFromExcel {
         // Generate methods based on page type
         generatePageMethods(content, pageName, testCases);
         
+        // One method per unique step of the page's test cases
+        generateStepMethods(content, StepUsage.of(testCases), Set.of("open", "login", "isLoggedIn"));
+        
         content.append("}\n");
         
         return content.toString();
@@ -329,17 +374,31 @@ public class GenerateFromExcel {
         // Add more page-specific methods as needed
     }
     
+    /**
+     * Generates one method per unique step, shared by every test case using it
+     * @param reserved Method names the page template already declares
+     */
+    private static void generateStepMethods(StringBuilder content, StepUsage steps, Set<String> reserved) {
+        List<String> methodNames = steps.getMethodNames(reserved);
+        for (int i = 0; i < steps.size(); i++) {
+            content.append("    /**\n");
+            content.append("     * Step: ").append(steps.getText(i).replace("*/", "*&#47;")).append("\n");
+            content.append("     * Used ").append(steps.getOccurrences(i)).append(" time(s) by the test cases of this page\n");
+            content.append("     */\n");
+            content.append("    public void ").append(methodNames.get(i)).append("() {\n");
+            content.append("        // TODO: Implement this step\n");
+            content.append("    }\n\n");
+        }
+    }
+    
     /**
      * Generates TestNG test classes
      */
-    private static void generateTestClasses(Map<String, List<TestCase>> testCasesByClass) throws IOException {
+    private static void generateTestClasses(TestCaseRepository repository) throws IOException {
         System.out.println("Generating TestNG test classes...");
         
-        for (Map.Entry<String, List<TestCase>> entry : testCasesByClass.entrySet()) {
-            String className = entry.getKey();
-            List<TestCase> classTestCases = entry.getValue();
-            
-            generateTestClass(className, classTestCases);
+        for (String className : repository.getClassNames()) {
+            generateTestClass(className, repository.getByClass(className));
         }
     }
     
@@ -444,24 +503,24 @@ public class GenerateFromExcel {
     
     /**
      * Generates a summary report of the generation process
+     * @param metrics Ingestion timings, or null when the test cases came from the catalog
      */
-    private static void generateReport(List<TestCase> testCases) {
+    private static void generateReport(TestCaseRepository repository, IngestionMetrics metrics) {
         System.out.println("\n=== Generation Report ===");
-        System.out.println("Total test cases processed: " + testCases.size());
-        
-        // Count by class
-        Map<String, Long> testCountByClass = testCases.stream()
-            .collect(Collectors.groupingBy(TestCase::getClassName, Collectors.counting()));
+        System.out.println("Total test cases processed: " + repository.size());
         
         System.out.println("Test classes generated:");
-        for (Map.Entry<String, Long> entry : testCountByClass.entrySet()) {
-            System.out.println("  - " + entry.getKey() + ": " + entry.getValue() + " test methods");
+        for (String className : repository.getClassNames()) {
+            System.out.println("  - " + className + ": " + repository.getByClass(className).size() + " test methods");
         }
         
+        StepUsage steps = StepUsage.of(repository.getAll());
+        System.out.println("\nUnique steps: " + steps.size() + " of " + steps.getTotalOccurrences() + " step occurrences");
+        
         System.out.println("\nPage Object Model classes generated:");
-        System.out.println("  - LoginPage.java");
-        System.out.println("  - PatientSearchPage.java");
-        System.out.println("  - MessagePage.java");
+        for (String pageName : repository.getPages()) {
+            System.out.println("  - " + pageName + ".java");
+        }
         
         System.out.println("\nUtility classes generated:");
         System.out.println("  - BasePage.java");
@@ -469,5 +528,10 @@ public class GenerateFromExcel {
         System.out.println("  - DriverFactory.java");
         System.out.println("  - ExcelReader.java");
         System.out.println("  - TestCase.java");
+        
+        if (metrics != null) {
+            System.out.println("\nIngestion:");
+            System.out.print(metrics.toReport());
+        }
     }
 }
@@ -0,0 +1,206 @@
+package generator;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs LLM generations for page and test classes concurrently and writes each class
+ * as soon as its code is generated
+ * Prompts are built by the caller before submitting, so each file's content does not
+ * depend on the order in which generations finish. If a file is submitted again, the
+ * earlier generation is cancelled or its result dropped: the last submission wins.
+ * Classes written directly, e.g. from templates, go through writeNow so they take
+ * part in the same ordering.
+ * The engine's concurrency is the number of prompts in flight; LLMService additionally
+ * caps the connections per endpoint at llm.maxConnections.
+ */
+public class GenerationEngine implements AutoCloseable {
+    
+    /**
+     * Produces the code of one class, normally by prompting the LLM
+     */
+    @FunctionalInterface
+    public interface Generation {
+        String generate() throws IOException;
+    }
+    
+    private final int concurrency;
+    private final ExecutorService executor;
+    private final List<Future<?>> pending = new ArrayList<>();
+    // Target file -> sequence number of its latest submission
+    private final Map<Path, Integer> latest = new HashMap<>();
+    private final Map<Path, Future<?>> latestJobs = new HashMap<>();
+    private final AtomicInteger completed = new AtomicInteger();
+    private int sequence;
+    private int submitted;
+    private long startNanos;
+    
+    /**
+     * Engine with -Dgenerator.concurrency prompts in flight, by default one per LLM connection
+     */
+    public GenerationEngine() {
+        this(Integer.getInteger("generator.concurrency", LLMService.getMaxConnections()));
+    }
+    
+    /**
+     * @param concurrency Number of generations running at a time
+     */
+    public GenerationEngine(int concurrency) {
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("Concurrency must be at least 1 but was " + concurrency);
+        }
+        this.concurrency = concurrency;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(concurrency, runnable -> {
+            Thread thread = new Thread(runnable, "llm-generation-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    /**
+     * Queues a class for generation
+     * @param name Class name for the progress log
+     * @param target File the generated code is written to
+     * @param generation Produces the code; runs on a worker thread
+     */
+    public synchronized void submit(String name, Path target, Generation generation) {
+        if (submitted++ == 0) {
+            startNanos = System.nanoTime();
+        }
+        int jobSequence = supersede(target);
+        
+        Future<?> job = executor.submit(() -> {
+            String code = generation.generate();
+            if (write(target, jobSequence, code)) {
+                System.out.println("✅ Wrote " + name + " (" + completed.incrementAndGet() + " done)");
+            }
+            return null;
+        });
+        pending.add(job);
+        latestJobs.put(target, job);
+    }
+    
+    /**
+     * Writes a class at once, superseding any generation of the same file that is still
+     * queued or running, so a late LLM answer cannot overwrite it
+     */
+    public synchronized void writeNow(Path target, String code) throws IOException {
+        write(target, supersede(target), code);
+    }
+    
+    /**
+     * Deletes a class file, superseding any generation of it that is still queued or running
+     */
+    public synchronized void deleteNow(Path target) throws IOException {
+        supersede(target);
+        Files.deleteIfExists(target);
+    }
+    
+    /**
+     * Waits for every submitted class to be written
+     * @throws IOException the first failure, in submission order; the other classes are still written.
+     *         A RuntimeException thrown by a generation is rethrown as is.
+     */
+    public void awaitAll() throws IOException {
+        List<Future<?>> jobs;
+        synchronized (this) {
+            jobs = new ArrayList<>(pending);
+        }
+        Throwable failure = null;
+        for (Future<?> job : jobs) {
+            try {
+                job.get();
+            } catch (CancellationException e) {
+                // Superseded by a later submission of the same file
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for generation", e);
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = e.getCause();
+                }
+            }
+        }
+        
+        synchronized (this) {
+            if (!jobs.isEmpty()) {
+                System.out.printf("⏱️  Generated %d classes in %d ms with %d concurrent prompts%n",
+                    completed.get(), (System.nanoTime() - startNanos) / 1_000_000, concurrency);
+            }
+            pending.removeAll(jobs);
+            latestJobs.values().removeAll(jobs);
+            if (pending.isEmpty()) {
+                latest.clear();
+                completed.set(0);
+                submitted = 0;
+            }
+        }
+        if (failure != null) {
+            // Converted only now: an unchecked failure must not skip the wait or the reset above
+            throw asIOException(failure);
+        }
+    }
+    
+    public int getConcurrency() {
+        return concurrency;
+    }
+    
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+    
+    /**
+     * Makes a new submission the latest for its file, cancelling the previous job if it has not started
+     * @return Sequence number of the new submission
+     */
+    private int supersede(Path target) {
+        int next = ++sequence;
+        latest.put(target, next);
+        Future<?> superseded = latestJobs.remove(target);
+        if (superseded != null) {
+            superseded.cancel(false);
+        }
+        return next;
+    }
+    
+    /**
+     * Writes the code unless a later submission for the same file exists
+     * @return Whether the file was written
+     */
+    private synchronized boolean write(Path target, int jobSequence, String code) throws IOException {
+        // A superseded job may still be running after awaitAll has cleared the map
+        Integer current = latest.get(target);
+        if (current == null || current != jobSequence) {
+            return false;
+        }
+        Files.write(target, code.getBytes());
+        return true;
+    }
+    
+    private static IOException asIOException(Throwable cause) {
+        if (cause instanceof IOException) {
+            return (IOException) cause;
+        }
+        if (cause instanceof UncheckedIOException) {
+            return ((UncheckedIOException) cause).getCause();
+        }
+        if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        }
+        return new IOException(cause);
+    }
+}
@@ -0,0 +1,198 @@
+package generator;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.testng.Assert.*;
+
+/**
+ * Last-submission-wins ordering and failure reporting of the GenerationEngine
+ */
+public class GenerationEngineTest {
+    
+    private Path directory;
+    private Path target;
+    private GenerationEngine engine;
+    
+    @BeforeMethod
+    public void createEngine() throws IOException {
+        directory = Files.createTempDirectory("generation-engine-test");
+        target = directory.resolve("LoginPage.java");
+        engine = new GenerationEngine(2);
+    }
+    
+    @AfterMethod(alwaysRun = true)
+    public void closeEngine() throws IOException {
+        engine.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+    
+    @Test
+    public void laterSubmissionWinsOverQueuedOne() throws Exception {
+        // Both workers are busy, so the first submission for the file is still queued
+        CountDownLatch release = new CountDownLatch(1);
+        engine.submit("Busy1", directory.resolve("Busy1.java"), waitFor(release, "busy"));
+        engine.submit("Busy2", directory.resolve("Busy2.java"), waitFor(release, "busy"));
+        engine.submit("LoginPage", target, () -> "first");
+        engine.submit("LoginPage", target, () -> "second");
+        release.countDown();
+        engine.awaitAll();
+        
+        assertEquals(read(target), "second");
+    }
+    
+    @Test
+    public void laterSubmissionWinsOverRunningOne() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        engine.submit("LoginPage", target, () -> {
+            started.countDown();
+            return waitFor(release, "first").generate();
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        engine.submit("LoginPage", target, () -> "second");
+        
+        // The second answer is written before the first one arrives
+        waitUntilWritten(target);
+        release.countDown();
+        engine.awaitAll();
+        
+        assertEquals(read(target), "second");
+    }
+    
+    @Test
+    public void writeNowWinsOverPendingGeneration() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        engine.submit("LoginPage", target, waitFor(release, "generated"));
+        engine.writeNow(target, "template");
+        release.countDown();
+        engine.awaitAll();
+        
+        assertEquals(read(target), "template");
+    }
+    
+    @Test
+    public void deleteWinsOverPendingWrite() throws Exception {
+        Files.write(target, "stale".getBytes(StandardCharsets.UTF_8));
+        CountDownLatch release = new CountDownLatch(1);
+        engine.submit("LoginPage", target, waitFor(release, "generated"));
+        engine.deleteNow(target);
+        release.countDown();
+        engine.awaitAll();
+        
+        assertFalse(Files.exists(target));
+    }
+    
+    @Test
+    public void supersededJobFinishingAfterAwaitAllIsDropped() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(1);
+        engine.submit("LoginPage", target, () -> {
+            started.countDown();
+            try {
+                return waitFor(release, "generated").generate();
+            } finally {
+                finished.countDown();
+            }
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        engine.writeNow(target, "template");
+        
+        // The running job was only cancelled, so awaitAll returns and resets while it still runs
+        engine.awaitAll();
+        release.countDown();
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+        Thread.sleep(50);
+        assertEquals(read(target), "template");
+        
+        // The next round starts from a clean slate
+        engine.submit("LoginPage", target, () -> "regenerated");
+        engine.awaitAll();
+        assertEquals(read(target), "regenerated");
+    }
+    
+    @Test
+    public void reportsFirstFailureInSubmissionOrder() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        engine.submit("LoginPage", target, () -> {
+            waitFor(release, "").generate();
+            throw new IOException("first");
+        });
+        engine.submit("SearchPage", directory.resolve("SearchPage.java"), () -> {
+            throw new IOException("second");
+        });
+        release.countDown();
+        
+        IOException failure = expectThrows(IOException.class, engine::awaitAll);
+        assertEquals(failure.getMessage(), "first");
+    }
+    
+    @Test
+    public void uncheckedFailureStillWaitsForOtherClasses() throws Exception {
+        Path search = directory.resolve("SearchPage.java");
+        CountDownLatch release = new CountDownLatch(1);
+        engine.submit("LoginPage", target, () -> {
+            throw new IllegalStateException("bad prompt");
+        });
+        engine.submit("SearchPage", search, waitFor(release, "search"));
+        
+        Thread releaser = new Thread(() -> {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            release.countDown();
+        });
+        releaser.start();
+        IllegalStateException failure = expectThrows(IllegalStateException.class, engine::awaitAll);
+        releaser.join();
+        
+        assertEquals(failure.getMessage(), "bad prompt");
+        assertEquals(read(search), "search");
+        // The failed round was cleared, so it is not reported again
+        engine.awaitAll();
+    }
+    
+    /**
+     * Generation that answers once the latch is released
+     */
+    private static GenerationEngine.Generation waitFor(CountDownLatch release, String code) {
+        return () -> {
+            try {
+                if (!release.await(5, TimeUnit.SECONDS)) {
+                    throw new IOException("Generation was never released");
+                }
+            } catch (InterruptedException e) {
+                throw new InterruptedIOException("Generation interrupted");
+            }
+            return code;
+        };
+    }
+    
+    private static void waitUntilWritten(Path file) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!Files.exists(file) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(Files.exists(file), file + " was not written");
+    }
+    
+    private static String read(Path file) throws IOException {
+        return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,204 @@
+package generator;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Background health check of one LLM server and model
+ * The server's model list is probed when the monitor starts and then every TTL, and the
+ * result is cached, so callers never wait for a probe. The LLM counts as available only
+ * if the configured model is among the loaded ones: a running server without the model
+ * would fail every prompt. Changes of availability are logged once.
+ */
+public class HealthMonitor implements AutoCloseable {
+    
+    /**
+     * Lists the models the server has loaded, normally from its /api/tags
+     */
+    @FunctionalInterface
+    public interface ModelLister {
+        List<String> listModels() throws IOException;
+    }
+    
+    /**
+     * The probe could not be sent for a local reason, e.g. no free connection; it tells
+     * nothing about the server, so the last result is kept
+     */
+    public static class InconclusiveProbeException extends IOException {
+        private static final long serialVersionUID = 1L;
+        
+        public InconclusiveProbeException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+    
+    /**
+     * Result of one probe
+     */
+    public static class Status {
+        private final boolean available;
+        private final List<String> models;
+        private final String message;
+        private final long checkedAt;
+        
+        Status(boolean available, List<String> models, String message) {
+            this.available = available;
+            this.models = models;
+            this.message = message;
+            this.checkedAt = System.nanoTime();
+        }
+        
+        public boolean isAvailable() { return available; }
+        public List<String> getModels() { return models; }
+        public String getMessage() { return message; }
+        
+        /**
+         * Time since the probe finished
+         */
+        public Duration getAge() {
+            return Duration.ofNanos(System.nanoTime() - checkedAt);
+        }
+    }
+    
+    // One thread for all monitors; a probe is bounded by LLMService's probe timeout
+    private static final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "llm-health");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    private final String name;
+    private final String model;
+    private final ModelLister lister;
+    private final Duration ttl;
+    private final CountDownLatch firstProbe = new CountDownLatch(1);
+    private final AtomicBoolean probing = new AtomicBoolean();
+    private final AtomicBoolean waited = new AtomicBoolean();
+    private volatile Status status;
+    private volatile ScheduledFuture<?> schedule;
+    
+    /**
+     * @param name Server being probed, for the log
+     * @param model Model that must be loaded, e.g. mistral:latest
+     * @param lister Probe of the loaded models
+     * @param ttl How long a probe result is used before the next probe
+     */
+    public HealthMonitor(String name, String model, ModelLister lister, Duration ttl) {
+        this.name = name;
+        this.model = model;
+        this.lister = lister;
+        this.ttl = ttl;
+    }
+    
+    /**
+     * Probes now and then every TTL, in the background
+     * @return This monitor
+     */
+    public synchronized HealthMonitor start() {
+        if (schedule == null) {
+            schedule = scheduler.scheduleWithFixedDelay(this::probe, 0, ttl.toNanos(), TimeUnit.NANOSECONDS);
+        }
+        return this;
+    }
+    
+    /**
+     * Whether the model was loaded at the last probe; never waits for a probe
+     * A result older than the TTL is still returned, and a new probe is started.
+     */
+    public boolean isAvailable() {
+        Status current = status;
+        if (current == null) return false;
+        if (current.getAge().compareTo(ttl) > 0) {
+            refresh();
+        }
+        return current.isAvailable();
+    }
+    
+    /**
+     * Waits for the first probe, at most once per monitor, so a run can pick its mode at startup
+     * @param timeout Longest wait; later calls and calls after the first probe return at once
+     * @return Whether the model was loaded at the first probe, false if it has not finished
+     */
+    public boolean awaitFirstProbe(Duration timeout) {
+        if (status == null && waited.compareAndSet(false, true)) {
+            try {
+                firstProbe.await(timeout.toNanos(), TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return isAvailable();
+    }
+    
+    /**
+     * Result of the last probe, null before the first one finishes
+     */
+    public Status getStatus() {
+        return status;
+    }
+    
+    @Override
+    public synchronized void close() {
+        if (schedule != null) {
+            schedule.cancel(false);
+        }
+    }
+    
+    /**
+     * Starts a probe in the background unless one is running
+     */
+    private void refresh() {
+        if (!probing.get()) {
+            scheduler.execute(this::probe);
+        }
+    }
+    
+    private void probe() {
+        if (!probing.compareAndSet(false, true)) return;
+        try {
+            Status previous = status;
+            Status next;
+            try {
+                List<String> models = lister.listModels();
+                next = hasModel(models, model)
+                    ? new Status(true, models, model + " loaded")
+                    : new Status(false, models, model + " not loaded; server has " + models);
+            } catch (InconclusiveProbeException e) {
+                // Unknown rather than down: keep the last result, or none before the first probe
+                return;
+            } catch (IOException | RuntimeException e) {
+                next = new Status(false, Collections.emptyList(),
+                    e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+            }
+            status = next;
+            if (previous == null || previous.isAvailable() != next.isAvailable()) {
+                System.out.println((next.isAvailable() ? "🟢 LLM available at " : "🔴 LLM unavailable at ")
+                    + name + ": " + next.getMessage());
+            }
+        } finally {
+            probing.set(false);
+            firstProbe.countDown();
+        }
+    }
+    
+    /**
+     * Whether the model is in the list; a name without a tag matches its :latest tag, as in Ollama
+     */
+    static boolean hasModel(List<String> models, String model) {
+        String wanted = model.contains(":") ? model : model + ":latest";
+        for (String loaded : models) {
+            if (loaded.equals(model) || loaded.equals(wanted)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,162 @@
+package generator;
+
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.testng.Assert.*;
+
+/**
+ * Cached LLM availability: probe timing, TTL refresh and inconclusive probes
+ */
+public class HealthMonitorTest {
+    
+    private static final List<String> LOADED = List.of("mistral:latest", "llama3:8b");
+    
+    @Test
+    public void firstProbeDecidesAvailability() {
+        try (HealthMonitor monitor = new HealthMonitor("test", "mistral", () -> LOADED, Duration.ofMinutes(1))) {
+            assertFalse(monitor.isAvailable());
+            assertNull(monitor.getStatus());
+            
+            monitor.start();
+            assertTrue(monitor.awaitFirstProbe(Duration.ofSeconds(5)));
+            assertEquals(monitor.getStatus().getModels(), LOADED);
+        }
+    }
+    
+    @Test
+    public void resultIsReusedWithinTtl() {
+        AtomicInteger probes = new AtomicInteger();
+        HealthMonitor.ModelLister lister = () -> {
+            probes.incrementAndGet();
+            return LOADED;
+        };
+        try (HealthMonitor monitor = new HealthMonitor("test", "mistral", lister, Duration.ofMinutes(1))) {
+            monitor.start().awaitFirstProbe(Duration.ofSeconds(5));
+            for (int i = 0; i < 1_000; i++) {
+                assertTrue(monitor.isAvailable());
+            }
+            assertEquals(probes.get(), 1);
+        }
+    }
+    
+    @Test
+    public void staleResultIsReturnedWhileRefreshing() throws Exception {
+        CountDownLatch secondProbe = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger probes = new AtomicInteger();
+        HealthMonitor.ModelLister lister = () -> {
+            if (probes.incrementAndGet() == 1) {
+                return LOADED;
+            }
+            secondProbe.countDown();
+            await(release);
+            return List.of("llama3:8b");
+        };
+        HealthMonitor monitor = new HealthMonitor("test", "mistral", lister, Duration.ofMillis(50));
+        try {
+            assertTrue(monitor.start().awaitFirstProbe(Duration.ofSeconds(5)));
+            assertTrue(secondProbe.await(5, TimeUnit.SECONDS));
+            
+            // The probe hangs, but callers get the last result at once, however old
+            Thread.sleep(20);
+            long start = System.nanoTime();
+            assertTrue(monitor.isAvailable());
+            assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(100));
+            assertTrue(monitor.getStatus().getAge().compareTo(Duration.ofMillis(50)) > 0);
+        } finally {
+            release.countDown();
+        }
+        assertTrue(waitFor(() -> !monitor.isAvailable()));
+        assertTrue(monitor.getStatus().getMessage().contains("not loaded"));
+        monitor.close();
+    }
+    
+    @Test
+    public void failedProbeMarksServerUnavailable() {
+        HealthMonitor.ModelLister lister = () -> {
+            throw new IOException("Connection refused");
+        };
+        try (HealthMonitor monitor = new HealthMonitor("test", "mistral", lister, Duration.ofMinutes(1))) {
+            assertFalse(monitor.start().awaitFirstProbe(Duration.ofSeconds(5)));
+            assertEquals(monitor.getStatus().getMessage(), "Connection refused");
+        }
+    }
+    
+    @Test
+    public void inconclusiveProbeKeepsLastResult() throws InterruptedException {
+        AtomicInteger probes = new AtomicInteger();
+        HealthMonitor.ModelLister lister = () -> {
+            if (probes.incrementAndGet() == 1) {
+                return LOADED;
+            }
+            throw new HealthMonitor.InconclusiveProbeException("No free connection", null);
+        };
+        try (HealthMonitor monitor = new HealthMonitor("test", "mistral", lister, Duration.ofMillis(20))) {
+            assertTrue(monitor.start().awaitFirstProbe(Duration.ofSeconds(5)));
+            assertTrue(waitFor(() -> probes.get() >= 3));
+            
+            assertTrue(monitor.isAvailable());
+            assertEquals(monitor.getStatus().getMessage(), "mistral loaded");
+        }
+    }
+    
+    @Test
+    public void firstProbeIsAwaitedOnlyOnce() {
+        CountDownLatch release = new CountDownLatch(1);
+        HealthMonitor monitor = new HealthMonitor("test", "mistral", () -> {
+            await(release);
+            return LOADED;
+        }, Duration.ofMinutes(1));
+        try {
+            monitor.start();
+            long start = System.nanoTime();
+            assertFalse(monitor.awaitFirstProbe(Duration.ofMillis(100)));
+            assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(100));
+            
+            start = System.nanoTime();
+            assertFalse(monitor.awaitFirstProbe(Duration.ofSeconds(5)));
+            assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(100));
+        } finally {
+            release.countDown();
+            monitor.close();
+        }
+    }
+    
+    @Test
+    public void modelWithoutTagMatchesLatest() {
+        assertTrue(HealthMonitor.hasModel(LOADED, "mistral"));
+        assertTrue(HealthMonitor.hasModel(LOADED, "mistral:latest"));
+        assertTrue(HealthMonitor.hasModel(LOADED, "llama3:8b"));
+        assertFalse(HealthMonitor.hasModel(LOADED, "llama3"));
+        assertFalse(HealthMonitor.hasModel(LOADED, "mistral:7b"));
+    }
+    
+    private static void await(CountDownLatch latch) throws IOException {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        }
+    }
+    
+    /**
+     * Polls a condition for up to five seconds
+     */
+    private static boolean waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) return false;
+            Thread.sleep(10);
+        }
+        return true;
+    }
+}
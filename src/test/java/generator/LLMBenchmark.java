@@ -0,0 +1,554 @@
+package generator;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Latency comparison of the LLM transports against a local stub of the Ollama API
+ * The stub answers every prompt at once with a fixed generated class, so the timings
+ * are pure transport cost: connection setup, request writing and response parsing.
+ * A second stub generates line by line at a fixed pace, followed by the explanation models
+ * tend to append, to compare waiting for the whole completion with streaming until the
+ * class is closed, and to time the GenerationEngine at increasing concurrency. That stub
+ * serves up to 16 prompts at once, like Ollama with OLLAMA_NUM_PARALLEL set. The last
+ * runs send identical prompts from several threads at once, and generate the same classes
+ * twice through a fresh ResponseCache. The final runs degrade the stub: hung after the
+ * first token, with and without the circuit breaker, and failing every other request.
+ * Usage: LLMBenchmark [calls] [threads]; concurrency above 4 needs -Dllm.maxConnections
+ */
+public class LLMBenchmark {
+    
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    
+    @FunctionalInterface
+    interface Transport {
+        String complete(String prompt) throws IOException;
+    }
+    
+    public static void main(String[] args) throws Exception {
+        int calls = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        
+        StubServer stub = new StubServer(syntheticClass(300));
+        try {
+            System.out.println("=== LLM Transport Benchmark ===");
+            System.out.println("Calls: " + calls + ", response body: " + stub.body.length / 1024 + " KB");
+            
+            String endpoint = stub.endpoint();
+            LLMService llmService = new LLMService(endpoint, "stub");
+            llmService.setStreaming(false);
+            String prompt = syntheticPrompt();
+            
+            System.out.println();
+            System.out.println("Sequential");
+            for (int pass = 0; pass < 2; pass++) {
+                boolean report = pass == 1; // First pass is warm-up
+                run("New connection per call", text -> legacyComplete(endpoint, text, false), stub, prompt, calls, 1, report);
+                run("HttpURLConnection keep-alive", text -> legacyComplete(endpoint, text, true), stub, prompt, calls, 1, report);
+                run("Shared HttpClient", llmService::complete, stub, prompt, calls, 1, report);
+            }
+            
+            System.out.println();
+            System.out.println("Concurrent, " + threads + " threads");
+            run("New connection per call", text -> legacyComplete(endpoint, text, false), stub, prompt, calls, threads, true);
+            run("HttpURLConnection keep-alive", text -> legacyComplete(endpoint, text, true), stub, prompt, calls, threads, true);
+            run("Shared HttpClient", llmService::complete, stub, prompt, calls, threads, true);
+        } finally {
+            stub.stop();
+        }
+        
+        runStreaming(syntheticClass(60), syntheticExplanation(20), 5, 10);
+        runEngine(16, 2, 1, 2, 4, 8);
+        runSingleFlight(8, 4, 2);
+        runCachedRerun(48, 2);
+        runDegraded(24, 4, 2);
+    }
+    
+    /**
+     * Generates classes against a hung server, with and without the circuit breaker, and
+     * against a server failing every other request, counting the classes that fell back
+     * to templates
+     */
+    static void runDegraded(int classes, int concurrency, long msPerLine) throws Exception {
+        StubServer stub = new StubServer(syntheticClass(60), syntheticExplanation(20), msPerLine);
+        Path outputDir = Files.createTempDirectory("llm-degraded");
+        Path cacheDir = Files.createTempDirectory("llm-cache");
+        try (ResponseCache cache = ResponseCache.open(cacheDir, 64 * 1024 * 1024)) {
+            List<String> results = new ArrayList<>();
+            stub.stallMs = 500;
+            for (boolean withBreaker : new boolean[]{false, true}) {
+                CircuitBreaker breaker = new CircuitBreaker(stub.endpoint(), withBreaker ? 3 : Integer.MAX_VALUE, Duration.ofMinutes(1));
+                results.add(runDegradedPass(withBreaker ? "Hung server, circuit breaker" : "Hung server, no breaker",
+                    stub, cache, breaker, outputDir, classes, concurrency));
+            }
+            stub.stallMs = 0;
+            stub.failEvery = 2;
+            results.add(runDegradedPass("Every other request fails", stub, cache,
+                new CircuitBreaker(stub.endpoint(), 5, Duration.ofMinutes(1)), outputDir, classes, concurrency));
+            
+            System.out.println();
+            System.out.println("Degraded server, " + classes + " classes at concurrency " + concurrency
+                + ", 200 ms idle timeout, llm.maxAttempts and llm.retryBaseMs as set");
+            for (String result : results) {
+                System.out.println(result);
+            }
+        } finally {
+            stub.stop();
+            for (Path dir : new Path[]{outputDir, cacheDir}) {
+                try (Stream<Path> files = Files.list(dir)) {
+                    for (Path file : (Iterable<Path>) files::iterator) {
+                        Files.delete(file);
+                    }
+                }
+                Files.delete(dir);
+            }
+        }
+    }
+    
+    private static String runDegradedPass(String name, StubServer stub, ResponseCache cache, CircuitBreaker breaker,
+                                          Path outputDir, int classes, int concurrency) throws IOException {
+        LLMService llmService = new LLMService(stub.endpoint(), "stub");
+        llmService.setCache(cache);
+        llmService.setCircuitBreaker(breaker);
+        llmService.setIdleTimeout(Duration.ofMillis(200));
+        llmService.setRequestTimeout(Duration.ofSeconds(5));
+        AtomicInteger templates = new AtomicInteger();
+        stub.requests.set(0);
+        long start = System.nanoTime();
+        try (GenerationEngine engine = new GenerationEngine(concurrency)) {
+            for (int i = 0; i < classes; i++) {
+                // Distinct prompts per pass, so no answer comes from an earlier pass
+                String prompt = "Class name: Page" + i + "\nScenario: " + name + "\n" + syntheticPrompt();
+                engine.submit("Page" + i, outputDir.resolve("Page" + i + ".java"), () -> {
+                    String code = llmService.tryGenerateCode(prompt);
+                    if (code == null) {
+                        templates.incrementAndGet();
+                        return "// template";
+                    }
+                    return code;
+                });
+            }
+            engine.awaitAll();
+        }
+        return String.format("%-30s %8d ms  %4d LLM calls  %4d templates  %d trips", name,
+            (System.nanoTime() - start) / 1_000_000, stub.requests.get(), templates.get(), breaker.getTrips());
+    }
+    
+    /**
+     * Threads requesting the same page prompts at the same time, as parallel generators do,
+     * with raw complete calls and with generateCode
+     */
+    static void runSingleFlight(int threads, int pages, long msPerLine) throws Exception {
+        StubServer stub = new StubServer(syntheticClass(60), syntheticExplanation(20), msPerLine);
+        Path cacheDir = Files.createTempDirectory("llm-cache");
+        try (ResponseCache cache = ResponseCache.open(cacheDir, 64 * 1024 * 1024)) {
+            LLMService llmService = new LLMService(stub.endpoint(), "stub");
+            llmService.setCache(cache);
+            String[] prompts = new String[pages];
+            for (int i = 0; i < pages; i++) {
+                prompts[i] = "Class name: SharedPage" + i + "\n" + syntheticPrompt();
+            }
+            
+            String[] results = new String[2];
+            for (int run = 0; run < 2; run++) {
+                boolean deduplicated = run == 1;
+                long joined = LLMService.getJoinedRequests();
+                stub.requests.set(0);
+                ExecutorService pool = Executors.newFixedThreadPool(threads);
+                try {
+                    long start = System.nanoTime();
+                    List<Future<?>> workers = new ArrayList<>();
+                    for (int t = 0; t < threads; t++) {
+                        workers.add(pool.submit(() -> {
+                            for (String prompt : prompts) {
+                                String code = deduplicated ? llmService.generateCode(prompt) : llmService.complete(prompt);
+                                if (code == null) {
+                                    throw new IOException("No response");
+                                }
+                            }
+                            return null;
+                        }));
+                    }
+                    for (Future<?> worker : workers) {
+                        worker.get();
+                    }
+                    results[run] = String.format("%-30s %8d ms  %4d LLM calls  %4d joined",
+                        deduplicated ? "Single flight (generateCode)" : "Independent (complete)",
+                        (System.nanoTime() - start) / 1_000_000, stub.requests.get(), LLMService.getJoinedRequests() - joined);
+                } finally {
+                    pool.shutdown();
+                }
+            }
+            
+            System.out.println();
+            System.out.println(threads + " threads requesting the same " + pages + " page prompts, "
+                + msPerLine + " ms/line, llm.maxConnections=" + LLMService.getMaxConnections());
+            for (String result : results) {
+                System.out.println(result);
+            }
+            System.out.println("Recent responses: " + LLMService.getRecentHits() + " hits, "
+                + LLMService.getRecentMisses() + " misses");
+        } finally {
+            stub.stop();
+            try (Stream<Path> files = Files.list(cacheDir)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(cacheDir);
+        }
+    }
+    
+    /**
+     * Generates the same classes twice with generateCode and a fresh cache: a cold run, then an unchanged re-run
+     */
+    static void runCachedRerun(int classes, long msPerLine) throws Exception {
+        StubServer stub = new StubServer(syntheticClass(60), syntheticExplanation(20), msPerLine);
+        Path outputDir = Files.createTempDirectory("llm-rerun");
+        Path cacheDir = Files.createTempDirectory("llm-cache");
+        try (ResponseCache cache = ResponseCache.open(cacheDir, 64 * 1024 * 1024)) {
+            LLMService llmService = new LLMService(stub.endpoint(), "stub");
+            llmService.setCache(cache);
+            String[] results = new String[2];
+            for (int run = 0; run < 2; run++) {
+                stub.requests.set(0);
+                long start = System.nanoTime();
+                try (GenerationEngine engine = new GenerationEngine()) {
+                    for (int i = 0; i < classes; i++) {
+                        String prompt = "Class name: Page" + i + "\n" + syntheticPrompt();
+                        engine.submit("Page" + i, outputDir.resolve("Page" + i + ".java"), () -> llmService.generateCode(prompt));
+                    }
+                    engine.awaitAll();
+                }
+                results[run] = String.format("%-30s %8d ms  %4d LLM calls", run == 0 ? "Cold run" : "Unchanged re-run",
+                    (System.nanoTime() - start) / 1_000_000, stub.requests.get());
+            }
+            
+            System.out.println();
+            System.out.println("Response cache, " + classes + " classes at " + msPerLine + " ms/line: "
+                + cache.size() + " responses in " + cache.getDiskBytes() / 1024 + " KB");
+            for (String result : results) {
+                System.out.println(result);
+            }
+        } finally {
+            stub.stop();
+            for (Path dir : new Path[]{outputDir, cacheDir}) {
+                try (Stream<Path> files = Files.list(dir)) {
+                    for (Path file : (Iterable<Path>) files::iterator) {
+                        Files.delete(file);
+                    }
+                }
+                Files.delete(dir);
+            }
+        }
+    }
+    
+    /**
+     * Wall-clock time to generate a number of classes through the GenerationEngine at each concurrency
+     */
+    static void runEngine(int classes, long msPerLine, int... concurrencies) throws Exception {
+        StubServer stub = new StubServer(syntheticClass(60), syntheticExplanation(20), msPerLine);
+        Path outputDir = Files.createTempDirectory("llm-engine");
+        try {
+            LLMService llmService = new LLMService(stub.endpoint(), "stub");
+            String prompt = syntheticPrompt();
+            Map<Integer, Long> millis = new LinkedHashMap<>();
+            for (int concurrency : concurrencies) {
+                try (GenerationEngine engine = new GenerationEngine(concurrency)) {
+                    long start = System.nanoTime();
+                    for (int i = 0; i < classes; i++) {
+                        engine.submit("Page" + i, outputDir.resolve("Page" + i + ".java"), () -> llmService.complete(prompt));
+                    }
+                    engine.awaitAll();
+                    millis.put(concurrency, (System.nanoTime() - start) / 1_000_000);
+                }
+            }
+            
+            System.out.println();
+            System.out.println("Generation engine, " + classes + " classes at " + msPerLine
+                + " ms/line, llm.maxConnections=" + LLMService.getMaxConnections());
+            long baseline = millis.values().iterator().next();
+            for (Map.Entry<Integer, Long> entry : millis.entrySet()) {
+                System.out.printf("Concurrency %-18d %8d ms  %5.2fx%n", entry.getKey(), entry.getValue(),
+                    baseline / (double) entry.getValue());
+            }
+        } finally {
+            stub.stop();
+            try (Stream<Path> files = Files.list(outputDir)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(outputDir);
+        }
+    }
+    
+    /**
+     * Time per call with and without streaming against a stub generating one line per interval
+     */
+    static void runStreaming(String generatedClass, String explanation, long msPerLine, int calls) throws Exception {
+        StubServer stub = new StubServer(generatedClass, explanation, msPerLine);
+        try {
+            System.out.println();
+            System.out.println("Generation at " + msPerLine + " ms/line, " + generatedClass.split("\n").length
+                + " lines of code + " + explanation.split("\n").length + " lines of explanation");
+            LLMService llmService = new LLMService(stub.endpoint(), "stub");
+            String prompt = syntheticPrompt();
+            for (boolean streaming : new boolean[]{false, true}) {
+                llmService.setStreaming(streaming);
+                llmService.complete(prompt); // Warm-up
+                stub.linesGenerated.set(0);
+                long start = System.nanoTime();
+                int chars = 0;
+                for (int i = 0; i < calls; i++) {
+                    chars += llmService.complete(prompt).length();
+                }
+                long nanos = System.nanoTime() - start;
+                System.out.printf("%-30s %6.1f ms/call  %6d chars/call  %5.1f lines generated/call%n",
+                    streaming ? "Streaming, stop at class end" : "Whole completion",
+                    nanos / 1_000_000.0 / calls, chars / calls, stub.linesGenerated.get() / (double) calls);
+            }
+        } finally {
+            stub.stop();
+        }
+    }
+    
+    static void run(String name, Transport transport, StubServer stub, String prompt, int calls, int threads,
+                    boolean report) throws Exception {
+        stub.connections.clear();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            long start = System.nanoTime();
+            Future<?>[] workers = new Future<?>[threads];
+            for (int t = 0; t < threads; t++) {
+                int share = calls / threads + (t < calls % threads ? 1 : 0);
+                workers[t] = pool.submit(() -> {
+                    for (int i = 0; i < share; i++) {
+                        if (transport.complete(prompt) == null) {
+                            throw new IOException("No response");
+                        }
+                    }
+                    return null;
+                });
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+            long nanos = System.nanoTime() - start;
+            if (report) {
+                System.out.printf("%-30s %8.1f ms  %6.1f us/call  (%d connections)%n", name, nanos / 1_000_000.0,
+                    nanos / 1000.0 / calls, stub.connections.size());
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+    
+    /**
+     * The transport LLMService used before the shared client: a new HttpURLConnection
+     * per prompt, without timeouts, and the body read line by line into a String
+     * @param keepAlive Whether the JDK may reuse the socket; without it every call connects anew
+     */
+    @SuppressWarnings("unchecked")
+    static String legacyComplete(String endpoint, String prompt, boolean keepAlive) throws IOException {
+        Map<String, Object> request = new HashMap<>();
+        request.put("model", "stub");
+        request.put("prompt", prompt);
+        request.put("stream", false);
+        
+        HttpURLConnection connection = (HttpURLConnection) new URL(endpoint).openConnection();
+        connection.setRequestMethod("POST");
+        connection.setRequestProperty("Content-Type", "application/json");
+        if (!keepAlive) {
+            connection.setRequestProperty("Connection", "close");
+        }
+        connection.setDoOutput(true);
+        try (OutputStream os = connection.getOutputStream()) {
+            os.write(objectMapper.writeValueAsString(request).getBytes(StandardCharsets.UTF_8));
+        }
+        
+        StringBuilder response = new StringBuilder();
+        try (BufferedReader br = new BufferedReader(
+                new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8))) {
+            String responseLine;
+            while ((responseLine = br.readLine()) != null) {
+                response.append(responseLine.trim());
+            }
+        }
+        Map<String, Object> responseMap = objectMapper.readValue(response.toString(), Map.class);
+        return (String) responseMap.get("response");
+    }
+    
+    /**
+     * Ollama /api/generate and /api/tags stand-in on an ephemeral loopback port
+     * Records the client port of every request, i.e. the connections used
+     */
+    static class StubServer {
+        final byte[] body;
+        final Set<Integer> connections = ConcurrentHashMap.newKeySet();
+        // Lines produced by the paced stub, stopping when the client hangs up
+        final AtomicInteger linesGenerated = new AtomicInteger();
+        final AtomicInteger requests = new AtomicInteger();
+        // Streamed answers stop after the first line for this long, like a hung model
+        volatile long stallMs;
+        // Every n-th request is answered with failStatus, 503 like an overloaded server; 0 never fails
+        volatile int failEvery;
+        volatile int failStatus = 503;
+        private final HttpServer server;
+        private final ExecutorService executor = Executors.newFixedThreadPool(16);
+        
+        StubServer(String generatedText) throws IOException {
+            this(generatedText, "", 0);
+        }
+        
+        /**
+         * @param msPerLine Generation pace; 0 answers at once and ignores the stream flag
+         */
+        @SuppressWarnings("unchecked")
+        StubServer(String generatedText, String trailingText, long msPerLine) throws IOException {
+            // Without TCP_NODELAY every response waits ~40 ms on delayed ACKs, hiding the transport cost
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+            String completion = generatedText + trailingText;
+            String[] lines = completion.split("(?<=\n)");
+            body = objectMapper.writeValueAsBytes(Map.of("model", "stub", "response", completion, "done", true));
+            server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 64);
+            server.createContext("/api/generate", exchange -> {
+                connections.add(exchange.getRemoteAddress().getPort());
+                int number = requests.incrementAndGet();
+                Map<String, Object> request;
+                try (InputStream in = exchange.getRequestBody()) {
+                    request = objectMapper.readValue(in, Map.class);
+                }
+                if (failEvery > 0 && number % failEvery == 0) {
+                    exchange.sendResponseHeaders(failStatus, -1);
+                    exchange.close();
+                    return;
+                }
+                exchange.getResponseHeaders().set("Content-Type", "application/json");
+                if (stallMs > 0 && Boolean.TRUE.equals(request.get("stream"))) {
+                    exchange.sendResponseHeaders(200, 0);
+                    try (OutputStream out = exchange.getResponseBody()) {
+                        out.write(objectMapper.writeValueAsBytes(Map.of("response", lines[0], "done", false)));
+                        out.write('\n');
+                        out.flush();
+                        pause(stallMs);
+                    } catch (IOException e) {
+                        exchange.close();
+                    }
+                } else if (msPerLine == 0) {
+                    exchange.sendResponseHeaders(200, body.length);
+                    try (OutputStream out = exchange.getResponseBody()) {
+                        out.write(body);
+                    }
+                } else if (Boolean.TRUE.equals(request.get("stream"))) {
+                    exchange.sendResponseHeaders(200, 0);
+                    try (OutputStream out = exchange.getResponseBody()) {
+                        for (String line : lines) {
+                            pause(msPerLine);
+                            out.write(objectMapper.writeValueAsBytes(Map.of("response", line, "done", false)));
+                            out.write('\n');
+                            out.flush();
+                            linesGenerated.incrementAndGet();
+                        }
+                        out.write(objectMapper.writeValueAsBytes(Map.of("response", "", "done", true)));
+                        out.write('\n');
+                    } catch (IOException e) {
+                        // Client stopped reading: generation is cancelled
+                        exchange.close();
+                    }
+                } else {
+                    for (int i = 0; i < lines.length; i++) {
+                        pause(msPerLine);
+                        linesGenerated.incrementAndGet();
+                    }
+                    exchange.sendResponseHeaders(200, body.length);
+                    try (OutputStream out = exchange.getResponseBody()) {
+                        out.write(body);
+                    }
+                }
+            });
+            server.createContext("/api/tags", exchange -> {
+                byte[] tags = "{\"models\":[{\"name\":\"stub\"}]}".getBytes(StandardCharsets.UTF_8);
+                exchange.sendResponseHeaders(200, tags.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(tags);
+                }
+            });
+            server.setExecutor(executor);
+            server.start();
+        }
+        
+        String endpoint() {
+            return "http://127.0.0.1:" + server.getAddress().getPort() + "/api/generate";
+        }
+        
+        void stop() {
+            server.stop(0);
+            executor.shutdown();
+        }
+        
+        private static void pause(long millis) throws IOException {
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted", e);
+            }
+        }
+    }
+    
+    /**
+     * Page Object class of the given number of lines, roughly what the model returns
+     */
+    static String syntheticClass(int lines) {
+        StringBuilder code = new StringBuilder("package pages;\n\npublic class StubPage extends BasePage {\n");
+        for (int i = 0; i < lines; i++) {
+            code.append("    private final By field").append(i).append(" = By.id(\"field").append(i).append("\");\n");
+        }
+        return code.append("}\n").toString();
+    }
+    
+    /**
+     * Markdown explanation of the given number of lines, as models append after the code
+     */
+    static String syntheticExplanation(int lines) {
+        StringBuilder explanation = new StringBuilder("\nThis Page Object class provides:\n");
+        for (int i = 0; i < lines - 2; i++) {
+            explanation.append("- A locator for field ").append(i).append(", so tests don't repeat the By.id { } lookup\n");
+        }
+        return explanation.append("Let me know if you need anything else!\n").toString();
+    }
+    
+    private static String syntheticPrompt() {
+        StringBuilder prompt = new StringBuilder("Generate a Java Page Object Model class for Selenium automation.\n\n");
+        for (int i = 0; i < 40; i++) {
+            prompt.append("S").append(i + 1).append(". Enter the value of field ").append(i).append("\n");
+        }
+        return prompt.toString();
+    }
+}
@@ -2,6 +2,7 @@ package generator;
 
 import java.util.List;
 
+import util.StepUsage;
 import util.TestCase;
 
 /**
@@ -45,10 +46,17 @@ public class LLMCodeGenerator {
         prompt.append("- Include proper Javadoc comments\n");
         prompt.append("- Add TODO comments for locator verification\n\n");
         
-        prompt.append("Test cases for this page:\n");
+        // Each unique step is sent once; test cases refer to it by number
+        StepUsage steps = StepUsage.of(testCases);
+        prompt.append("Steps used on this page:\n");
+        for (int i = 0; i < steps.size(); i++) {
+            prompt.append(steps.getReference(i)).append(". ").append(steps.getText(i)).append("\n");
+        }
+        
+        prompt.append("\nTest cases for this page:\n");
         for (TestCase testCase : testCases) {
             prompt.append("- ").append(testCase.getSummary()).append("\n");
-            prompt.append("  Steps: ").append(String.join(", ", testCase.getSteps())).append("\n");
+            prompt.append("  Steps: ").append(steps.getReferences(testCase)).append("\n");
         }
         
         prompt.append("\nGenerate locators and methods based on the test cases above.\n");
@@ -70,7 +78,7 @@ public class LLMCodeGenerator {
         prompt.append("- ID: ").append(testCase.getId()).append("\n");
         prompt.append("- Method Name: ").append(testCase.getMethodName()).append("\n");
         prompt.append("- Summary: ").append(testCase.getSummary()).append("\n");
-        prompt.append("- Steps: ").append(String.join(", ", testCase.getSteps())).append("\n");
+        prompt.append("- Steps: ").append(testCase.getJoinedSteps()).append("\n");
         prompt.append("- Expected Results: ").append(testCase.getExpected()).append("\n");
         prompt.append("- Test Data: ").append(testCase.getTestData()).append("\n\n");
         
@@ -104,7 +112,7 @@ public class LLMCodeGenerator {
             
             // Simulate LLM response (replace with actual LLM call)
             return simulateLLMResponse(prompt);
-            
+        
         } catch (Exception e) {
             System.err.println("Error calling local LLM: " + e.getMessage());
             return generateFallbackCode(prompt);
@@ -1,20 +1,55 @@
 package generator;
 
-import java.io.BufferedReader;
+import java.io.FilterInputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.InputStream;
 import java.io.OutputStream;
-import java.net.HttpURLConnection;
-import java.net.URL;
-import java.nio.charset.StandardCharsets;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 /**
  * Service for integrating with local LLM APIs
  * Supports Ollama, LM Studio, and other local LLM endpoints
+ * All services share one HTTP/1.1 client, so prompts reuse a few kept-alive connections
+ * to the endpoint; at most llm.maxConnections requests per server are in flight at a time.
+ * In streaming mode (llm.stream, on by default) tokens are read as they are generated
+ * and the request is ended as soon as the top-level class is closed, so the model does
+ * not spend time on the explanation it tends to append.
+ * Generated code is kept in a persistent ResponseCache, so an unchanged prompt is only
+ * ever sent once. Within the process, identical prompts issued concurrently share a
+ * single request, and recent responses are kept in memory.
+ * Every attempt has a deadline: the request timeout, cut short by the run's time budget
+ * (llm.budgetMs), and a streamed body is abandoned when no data arrives for
+ * llm.idleTimeoutMs. Transient failures are retried with jittered exponential backoff;
+ * after llm.breakerThreshold consecutive failures a server's circuit opens, and
+ * tryGenerateCode returns null at once so generators switch to their templates.
+ * Availability comes from a HealthMonitor probing the endpoint's /api/tags in the
+ * background for the configured model, so isAvailable does not block generation.
  */
 public class LLMService {
     
@@ -22,8 +57,54 @@ public class LLMService {
     private static final String DEFAULT_MODEL = "mistral:latest";
     private static final ObjectMapper objectMapper = new ObjectMapper();
     
+    private static final Duration CONNECT_TIMEOUT = Duration.ofMillis(Long.getLong("llm.connectTimeoutMs", 5000));
+    private static final Duration DEFAULT_REQUEST_TIMEOUT = Duration.ofMillis(Long.getLong("llm.requestTimeoutMs", 300_000));
+    private static final Duration PROBE_TIMEOUT = Duration.ofSeconds(5);
+    private static final Duration HEALTH_TTL = Duration.ofMillis(Long.getLong("llm.healthTtlMs", 30_000));
+    private static final Duration HEALTH_WAIT = Duration.ofMillis(Long.getLong("llm.healthWaitMs", 2000));
+    private static final int MAX_CONNECTIONS = Integer.getInteger("llm.maxConnections", 4);
+    private static final boolean DEFAULT_STREAMING = Boolean.parseBoolean(System.getProperty("llm.stream", "true"));
+    private static final Duration DEFAULT_IDLE_TIMEOUT = Duration.ofMillis(Long.getLong("llm.idleTimeoutMs", 30_000));
+    private static final int MAX_ATTEMPTS = Integer.getInteger("llm.maxAttempts", 3);
+    private static final long RETRY_BASE_MS = Long.getLong("llm.retryBaseMs", 500);
+    private static final long RETRY_MAX_MS = 30_000;
+    private static final int BREAKER_THRESHOLD = Integer.getInteger("llm.breakerThreshold", 3);
+    private static final Duration BREAKER_OPEN = Duration.ofMillis(Long.getLong("llm.breakerOpenMs", 60_000));
+    
+    private static final HttpClient httpClient = HttpClient.newBuilder()
+        .version(HttpClient.Version.HTTP_1_1)
+        .connectTimeout(CONNECT_TIMEOUT)
+        .build();
+    // Server (scheme://host:port) -> requests in flight to it over all services, and so its open connections
+    private static final Map<String, Semaphore> connections = new ConcurrentHashMap<>();
+    // Server -> one connection reserved for health probes, so a busy run cannot starve them
+    private static final Map<String, Semaphore> probeConnections = new ConcurrentHashMap<>();
+    // Request key -> response of the request being sent, awaited by identical requests
+    private static final Map<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+    private static final RecentResponses recentResponses = new RecentResponses(Integer.getInteger("llm.recentResponses", 128));
+    private static final AtomicLong joinedRequests = new AtomicLong();
+    // Server -> breaker shared by all services calling it
+    private static final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+    // Endpoint and model -> background health probe shared by all services using them
+    private static final Map<String, HealthMonitor> healthMonitors = new ConcurrentHashMap<>();
+    // Aborts response bodies that pass their deadline or stall
+    private static final ScheduledExecutorService watchdog = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "llm-watchdog");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // System.nanoTime() at which the run's time budget ends, counted from class loading; Long.MAX_VALUE without a budget
+    private static volatile long budgetDeadline = deadlineAfter(Duration.ofMillis(Long.getLong("llm.budgetMs", 0)));
+    
     private String endpoint;
     private String model;
+    private Duration requestTimeout = DEFAULT_REQUEST_TIMEOUT;
+    private boolean streaming = DEFAULT_STREAMING;
+    private Duration idleTimeout = DEFAULT_IDLE_TIMEOUT;
+    // Null uses the shared cache in llm.cacheDir
+    private ResponseCache cache;
+    // Null uses the breaker shared by all services calling the endpoint's server
+    private CircuitBreaker circuitBreaker;
     
     public LLMService() {
         this.endpoint = DEFAULT_ENDPOINT;
@@ -38,89 +119,718 @@ public class LLMService {
     /**
      * Generates code using local LLM
      * @param prompt The prompt to send to the LLM
-     * @return Generated code response
+     * @return Generated code response, or a fallback class if the LLM cannot answer
      */
     public String generateCode(String prompt) {
+        String code = tryGenerateCode(prompt);
+        return code != null ? code : generateFallbackCode(prompt);
+    }
+    
+    /**
+     * Generates code using local LLM, leaving the fallback to the caller
+     * @param prompt The prompt to send to the LLM
+     * @return Generated code, or null if the LLM failed, its circuit is open or the time budget is spent
+     */
+    public String tryGenerateCode(String prompt) {
+        Map<String, Object> request = buildRequest(prompt);
+        String key = ResponseCache.key(endpoint, request);
+        String recentText = recentResponses.get(key);
+        if (recentText != null) {
+            System.out.println("♻️  Reusing recent " + model + " response " + key.substring(0, 12));
+            return cleanGeneratedCode(recentText);
+        }
+        
+        // Single flight: the first caller sends the request, identical concurrent callers wait for it
+        CompletableFuture<String> call = new CompletableFuture<>();
+        CompletableFuture<String> sharedCall = inFlight.putIfAbsent(key, call);
+        if (sharedCall != null) {
+            joinedRequests.incrementAndGet();
+            System.out.println("⏳ Joining identical " + model + " request " + key.substring(0, 12));
+            try {
+                return cleanGeneratedCode(sharedCall.get());
+            } catch (ExecutionException e) {
+                // The leader has already logged the failure
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                System.err.println("❌ LLM generation interrupted");
+            }
+            return null;
+        }
+        
         try {
+            String generatedText = fetch(request, key);
+            call.complete(generatedText);
+            return cleanGeneratedCode(generatedText);
+        
+        } catch (UnavailableException e) {
+            call.completeExceptionally(e);
+            System.out.println("⏭️  Skipping LLM: " + e.getMessage());
+            return null;
+        } catch (Exception e) {
+            call.completeExceptionally(e);
+            System.err.println("❌ LLM generation failed: " + describe(e));
+            return null;
+        } finally {
+            inFlight.remove(key, call);
+        }
+    }
+    
+    /**
+     * Generated text of a request from the recent responses, the response cache or the LLM
+     * New text is added to both caches.
+     */
+    private String fetch(Map<String, Object> request, String key) throws IOException {
+        // A call that finished just before this one became the flight leader
+        String generatedText = recentResponses.peek(key);
+        if (generatedText != null) {
+            return generatedText;
+        }
+        
+        ResponseCache responseCache = getCache();
+        generatedText = responseCache == null ? null : cachedResponse(responseCache, key);
+        if (generatedText != null) {
+            System.out.println("💾 Using cached " + model + " response " + key.substring(0, 12));
+        } else {
             System.out.println("🤖 Calling local LLM: " + model);
             System.out.println("📡 Endpoint: " + endpoint);
             
-            // Prepare request payload
-            Map<String, Object> request = new HashMap<>();
-            request.put("model", model);
-            request.put("prompt", prompt);
-            request.put("stream", false);
-            request.put("options", Map.of(
-                "temperature", 0.1,
-                "top_p", 0.9,
-                "max_tokens", 2000
-            ));
-            
-            // Make HTTP request
-            String response = makeHttpRequest(request);
+            generatedText = complete(request);
+            if (generatedText == null || generatedText.trim().isEmpty()) {
+                throw new IOException("Empty response from LLM");
+            }
+            if (responseCache != null) {
+                cacheResponse(responseCache, key, generatedText);
+            }
+        }
+        recentResponses.put(key, generatedText);
+        return generatedText;
+    }
+    
+    /**
+     * Sends a prompt and returns the raw generated text, without cleanup or fallback
+     * When streaming, the text ends with the closing brace of the top-level class.
+     * @throws IOException if the endpoint is unreachable, times out or answers with an error
+     */
+    public String complete(String prompt) throws IOException {
+        return complete(buildRequest(prompt));
+    }
+    
+    /**
+     * Sends the request, retrying transient failures while the circuit is closed and the budget lasts
+     */
+    private String complete(Map<String, Object> request) throws IOException {
+        byte[] payload = objectMapper.writeValueAsBytes(request);
+        CircuitBreaker breaker = getCircuitBreaker();
+        for (int attempt = 1; ; attempt++) {
+            if (nanosLeft(budgetDeadline) <= 0) {
+                throw new UnavailableException("time budget spent");
+            }
+            if (!breaker.allowRequest()) {
+                throw new UnavailableException("circuit open for " + endpoint);
+            }
             
-            // Parse response
+            try {
+                String generatedText = completeOnce(payload);
+                breaker.recordSuccess();
+                return generatedText;
+            } catch (IOException e) {
+                // Only an unreachable, overloaded or hung server counts; a rejected prompt would
+                // otherwise trip the circuit for a healthy server when repeated across pages
+                if (isTransient(e) || e instanceof HttpTimeoutException) {
+                    breaker.recordFailure();
+                } else {
+                    breaker.recordIgnored();
+                }
+                // This failure opened the circuit: the caller falls back at once instead of after a backoff
+                if (breaker.getState() != CircuitBreaker.State.CLOSED) {
+                    throw new UnavailableException("circuit open for " + endpoint, e);
+                }
+                long backoffMs = backoffMillis(attempt);
+                if (attempt >= MAX_ATTEMPTS || !isTransient(e)
+                        || TimeUnit.MILLISECONDS.toNanos(backoffMs) >= nanosLeft(budgetDeadline)) {
+                    throw e;
+                }
+                System.err.println("🔁 LLM request failed (" + describe(e) + "), retry " + attempt + " in " + backoffMs + " ms");
+                try {
+                    Thread.sleep(backoffMs);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while waiting to retry " + endpoint, interrupted);
+                }
+            } catch (RuntimeException e) {
+                // Every attempt must report an outcome, or a half-open circuit would refuse requests for good
+                breaker.recordFailure();
+                throw e;
+            }
+        }
+    }
+    
+    /**
+     * One attempt, due by the request timeout or the end of the time budget, whichever is first
+     */
+    private String completeOnce(byte[] payload) throws IOException {
+        long deadline = Math.min(deadlineAfter(requestTimeout), budgetDeadline);
+        HttpRequest httpRequest = HttpRequest.newBuilder(URI.create(endpoint))
+            .timeout(Duration.ofNanos(Math.max(nanosLeft(deadline), 1)))
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofByteArray(payload))
+            .build();
+        if (streaming) {
+            return completeStreaming(httpRequest, deadline);
+        }
+        try (InputStream response = send(httpRequest, connectionSlots(httpRequest.uri()), deadline, idleTimeout)) {
             return parseLLMResponse(response);
-            
-        } catch (Exception e) {
-            System.err.println("❌ LLM generation failed: " + e.getMessage());
-            return generateFallbackCode(prompt);
         }
     }
     
     /**
-     * Makes HTTP request to local LLM endpoint
+     * Connection failures, resets and overload answers; a timed-out request is not retried,
+     * as a hung server would only hang again
+     */
+    private static boolean isTransient(IOException e) {
+        if (Thread.currentThread().isInterrupted() || e instanceof UnavailableException) return false;
+        if (e instanceof HttpConnectTimeoutException) return true;
+        if (e instanceof HttpTimeoutException || e instanceof JsonProcessingException) return false;
+        if (e instanceof StatusException) {
+            int status = ((StatusException) e).status;
+            return status == 429 || status >= 500;
+        }
+        return true;
+    }
+    
+    private static long backoffMillis(int attempt) {
+        return backoffMillis(attempt, RETRY_BASE_MS, RETRY_MAX_MS);
+    }
+    
+    /**
+     * Exponential backoff with equal jitter: half the delay is fixed, half is random
+     * @return Between half and all of min(baseMs * 2^(attempt - 1), maxMs)
+     */
+    static long backoffMillis(int attempt, long baseMs, long maxMs) {
+        int shift = Math.min(Math.max(attempt - 1, 0), 62);
+        // Compared before shifting, so a large base or attempt cannot overflow
+        long delay = baseMs > maxMs >> shift ? maxMs : baseMs << shift;
+        return delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+    }
+    
+    /**
+     * Request payload; everything in it is part of the cache key
+     */
+    private Map<String, Object> buildRequest(String prompt) {
+        Map<String, Object> request = new HashMap<>();
+        request.put("model", model);
+        request.put("prompt", prompt);
+        request.put("stream", streaming);
+        request.put("options", Map.of(
+            "temperature", 0.1,
+            "top_p", 0.9,
+            "max_tokens", 2000
+        ));
+        return request;
+    }
+    
+    /**
+     * Cached text for a request, or null on a miss or when the cache cannot be read
+     */
+    private static String cachedResponse(ResponseCache responseCache, String cacheKey) {
+        try {
+            return responseCache.get(cacheKey);
+        } catch (IOException e) {
+            System.err.println("⚠️  LLM cache read failed: " + describe(e));
+            return null;
+        }
+    }
+    
+    private static void cacheResponse(ResponseCache responseCache, String cacheKey, String generatedText) {
+        try {
+            responseCache.put(cacheKey, generatedText);
+        } catch (IOException e) {
+            System.err.println("⚠️  LLM cache write failed: " + describe(e));
+        }
+    }
+    
+    /**
+     * Reads Ollama's NDJSON token stream, one JSON object per line, until the class is closed
+     * Ending the request early closes the connection, which makes Ollama stop generating.
+     */
+    private String completeStreaming(HttpRequest httpRequest, long deadline) throws IOException {
+        ClassEndTracker tracker = new ClassEndTracker();
+        try (ResponseBody body = send(httpRequest, connectionSlots(httpRequest.uri()), deadline, idleTimeout)) {
+            MappingIterator<Map<String, Object>> chunks = objectMapper.readerFor(Map.class).readValues(body);
+            while (chunks.hasNextValue()) {
+                Map<String, Object> chunk = chunks.nextValue();
+                if (chunk.get("error") != null) {
+                    throw new StatusException(0, "LLM error: " + chunk.get("error"));
+                }
+                Object token = chunk.get("response");
+                if (token instanceof String && tracker.accept((String) token)) {
+                    body.abort();
+                    return tracker.getCode();
+                }
+                if (Boolean.TRUE.equals(chunk.get("done"))) break;
+            }
+            return tracker.finish();
+        }
+    }
+    
+    /**
+     * Generation connection slots of a server, -Dllm.maxConnections of them
+     */
+    private static Semaphore connectionSlots(URI uri) {
+        return connections.computeIfAbsent(server(uri), server -> new Semaphore(MAX_CONNECTIONS, true));
+    }
+    
+    /**
+     * Free generation connection slots of the endpoint's server
      */
-    private String makeHttpRequest(Map<String, Object> request) throws IOException {
-        URL url = new URL(endpoint);
-        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+    static int availableConnectionSlots(String endpoint) {
+        return connectionSlots(URI.create(endpoint)).availablePermits();
+    }
+    
+    /**
+     * Sends a request over the shared client, holding a connection slot until the body is read
+     * @param slots Connection slots the request counts against
+     * @param deadline System.nanoTime() by which the body must have been read
+     * @param idleTimeout Longest wait for more of the body
+     * @return Response body; closing it releases the slot and returns the connection to the pool
+     * @throws IOException if the request fails or the status is not 200
+     */
+    private static ResponseBody send(HttpRequest request, Semaphore slots, long deadline, Duration idleTimeout) throws IOException {
+        try {
+            if (!slots.tryAcquire(nanosLeft(deadline), TimeUnit.NANOSECONDS)) {
+                throw new SlotTimeoutException("Timed out waiting for a connection to " + request.uri());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting to call " + request.uri(), e);
+        }
         
-        connection.setRequestMethod("POST");
-        connection.setRequestProperty("Content-Type", "application/json");
-        connection.setDoOutput(true);
+        boolean bodyOwnsSlot = false;
+        try {
+            HttpResponse<InputStream> response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+            ResponseBody body = new ResponseBody(response.body(), slots, deadline, idleTimeout);
+            bodyOwnsSlot = true;
+            if (response.statusCode() != 200) {
+                body.abort();
+                throw new StatusException(response.statusCode(), request.uri() + " returned HTTP " + response.statusCode());
+            }
+            return body;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while calling " + request.uri(), e);
+        } finally {
+            if (!bodyOwnsSlot) {
+                slots.release();
+            }
+        }
+    }
+    
+    /**
+     * Most recently used responses by request key, with hit and miss counts
+     */
+    private static class RecentResponses {
+        private final Map<String, String> responses;
+        private long hits;
+        private long misses;
         
-        // Send request
-        String requestBody = objectMapper.writeValueAsString(request);
-        try (OutputStream os = connection.getOutputStream()) {
-            byte[] input = requestBody.getBytes(StandardCharsets.UTF_8);
-            os.write(input, 0, input.length);
+        RecentResponses(int capacity) {
+            this.responses = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                    return size() > capacity;
+                }
+            };
         }
         
-        // Read response
-        StringBuilder response = new StringBuilder();
-        try (BufferedReader br = new BufferedReader(
-                new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8))) {
-            String responseLine;
-            while ((responseLine = br.readLine()) != null) {
-                response.append(responseLine.trim());
+        synchronized String get(String key) {
+            String response = responses.get(key);
+            if (response != null) {
+                hits++;
+            } else {
+                misses++;
             }
+            return response;
         }
         
-        return response.toString();
+        /**
+         * Like get, without counting
+         */
+        synchronized String peek(String key) {
+            return responses.get(key);
+        }
+        
+        synchronized void put(String key, String response) {
+            responses.put(key, response);
+        }
+        
+        synchronized long getHits() {
+            return hits;
+        }
+        
+        synchronized long getMisses() {
+            return misses;
+        }
     }
     
     /**
-     * Parses LLM response to extract generated code
+     * Response body holding a connection slot
      */
-    @SuppressWarnings("unchecked")
-    private String parseLLMResponse(String response) {
-        try {
-            // Parse JSON response from Ollama/LM Studio
-            Map<String, Object> responseMap = objectMapper.readValue(response, Map.class);
-            String generatedText = (String) responseMap.get("response");
-            
-            if (generatedText != null && !generatedText.trim().isEmpty()) {
-                return cleanGeneratedCode(generatedText);
-            } else {
-                throw new RuntimeException("Empty response from LLM");
+    private static class ResponseBody extends FilterInputStream {
+        private final Semaphore slots;
+        private final long deadline;
+        private final long idleNanos;
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private volatile long lastRead = System.nanoTime();
+        private volatile boolean expired;
+        private volatile ScheduledFuture<?> watch;
+        
+        ResponseBody(InputStream in, Semaphore slots, long deadline, Duration idleTimeout) {
+            super(in);
+            this.slots = slots;
+            this.deadline = deadline;
+            this.idleNanos = idleTimeout.toNanos();
+            scheduleCheck(Math.min(nanosLeft(deadline), idleNanos));
+        }
+        
+        @Override
+        public int read() throws IOException {
+            try {
+                int b = in.read();
+                lastRead = System.nanoTime();
+                return b;
+            } catch (IOException e) {
+                throw timeoutIfExpired(e);
+            }
+        }
+        
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            try {
+                int n = in.read(b, off, len);
+                lastRead = System.nanoTime();
+                return n;
+            } catch (IOException e) {
+                throw timeoutIfExpired(e);
             }
+        }
+        
+        /**
+         * Reads the rest of the body, so the client can keep the connection alive, and releases the slot
+         */
+        @Override
+        public void close() throws IOException {
+            if (!closed.compareAndSet(false, true)) return;
+            try (InputStream remaining = in) {
+                if (!expired) {
+                    remaining.transferTo(OutputStream.nullOutputStream());
+                }
+            } catch (IOException e) {
+                throw timeoutIfExpired(e);
+            } finally {
+                release();
+            }
+        }
+        
+        /**
+         * Closes without reading the rest, dropping the connection and so cancelling the request
+         */
+        void abort() throws IOException {
+            if (!closed.compareAndSet(false, true)) return;
+            try {
+                in.close();
+            } finally {
+                release();
+            }
+        }
+        
+        private void release() {
+            ScheduledFuture<?> check = watch;
+            if (check != null) {
+                check.cancel(false);
+            }
+            slots.release();
+        }
+        
+        /**
+         * Closes the stream, which fails the pending read, once the deadline passes or the server
+         * has sent nothing for the idle timeout; HttpRequest.timeout is not specified to cover the body
+         */
+        private void scheduleCheck(long delayNanos) {
+            watch = watchdog.schedule(() -> {
+                if (closed.get()) return;
+                long untilDeadline = nanosLeft(deadline);
+                long untilIdle = lastRead + idleNanos - System.nanoTime();
+                if (untilDeadline > 0 && untilIdle > 0) {
+                    scheduleCheck(Math.min(untilDeadline, untilIdle));
+                    return;
+                }
+                expired = true;
+                try {
+                    in.close();
+                } catch (IOException e) {
+                    // The reader sees the failure and releases the slot
+                }
+            }, Math.max(delayNanos, 0), TimeUnit.NANOSECONDS);
+        }
+        
+        private IOException timeoutIfExpired(IOException e) {
+            if (!expired) return e;
+            HttpTimeoutException timeout = new HttpTimeoutException(nanosLeft(deadline) <= 0
+                ? "LLM response not finished before its deadline"
+                : "LLM response stalled for " + idleNanos / 1_000_000 + " ms");
+            timeout.initCause(e);
+            return timeout;
+        }
+    }
+    
+    /**
+     * Non-200 answer, or an error reported inside a streamed body (status 0)
+     */
+    private static class StatusException extends IOException {
+        private static final long serialVersionUID = 1L;
+        final int status;
+        
+        StatusException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+    
+    /**
+     * No connection slot became free before the deadline; the request was never sent
+     */
+    private static class SlotTimeoutException extends HttpTimeoutException {
+        private static final long serialVersionUID = 1L;
+        
+        SlotTimeoutException(String message) {
+            super(message);
+        }
+    }
+    
+    /**
+     * Request not sent because the circuit is open or the time budget is spent
+     */
+    private static class UnavailableException extends IOException {
+        private static final long serialVersionUID = 1L;
+        
+        UnavailableException(String message) {
+            super(message);
+        }
+        
+        UnavailableException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+    
+    /**
+     * Follows generated text line by line and tells when the top-level class, interface
+     * or enum is closed
+     * Braces in strings, char literals and comments are ignored, and once a ``` fence has
+     * been seen so is any prose outside fences.
+     */
+    static class ClassEndTracker {
+        private final StringBuilder text = new StringBuilder();
+        private int lineStart;
+        private boolean fenced;
+        private boolean inFence;
+        private boolean inBlockComment;
+        private boolean inTextBlock;
+        // A type keyword was seen at depth 0 and its body is not open yet
+        private boolean typeDeclared;
+        private boolean inTypeBody;
+        private int depth;
+        // Open parentheses at depth 0, such as annotation arguments
+        private int parens;
+        private int end = -1;
+        
+        /**
+         * Adds the next generated tokens
+         * @return true once the class is closed; later tokens are ignored
+         */
+        boolean accept(String tokens) {
+            for (int i = 0; i < tokens.length() && end < 0; i++) {
+                char c = tokens.charAt(i);
+                text.append(c);
+                if (c == '\n') {
+                    scanLine(text.length() - 1);
+                    lineStart = text.length();
+                }
+            }
+            return end >= 0;
+        }
+        
+        /**
+         * Text up to and including the closing brace, or everything so far if the class is not closed
+         */
+        String getCode() {
+            return end < 0 ? text.toString() : text.substring(0, end);
+        }
+        
+        /**
+         * Scans the last unterminated line at the end of the stream
+         */
+        String finish() {
+            if (end < 0 && lineStart < text.length()) {
+                scanLine(text.length());
+            }
+            return getCode();
+        }
+        
+        private void scanLine(int lineEnd) {
+            int first = lineStart;
+            while (first < lineEnd && Character.isWhitespace(text.charAt(first))) {
+                first++;
+            }
+            if (!inBlockComment && !inTextBlock && startsWith(first, lineEnd, "```")) {
+                fenced = true;
+                inFence = !inFence;
+                if (inFence) {
+                    // Anything before the fence was prose
+                    depth = 0;
+                    typeDeclared = false;
+                    inTypeBody = false;
+                    parens = 0;
+                }
+                return;
+            }
+            if (fenced && !inFence) return;
             
-        } catch (IOException e) {
-            System.err.println("Error parsing LLM response: " + e.getMessage());
-            return generateFallbackCode("Error parsing response");
+            char previous = ' ';
+            // Only modifiers and annotations may precede a type keyword, so prose naming a class is not a declaration
+            boolean declarationStart = true;
+            for (int i = first; i < lineEnd; i++) {
+                char c = text.charAt(i);
+                if (inBlockComment) {
+                    if (startsWith(i, lineEnd, "*/")) {
+                        inBlockComment = false;
+                        i++;
+                    }
+                    continue;
+                }
+                if (inTextBlock) {
+                    if (startsWith(i, lineEnd, "\"\"\"")) {
+                        inTextBlock = false;
+                        i += 2;
+                    } else if (c == '\\') {
+                        i++;
+                    }
+                    continue;
+                }
+                if (startsWith(i, lineEnd, "//")) return;
+                if (startsWith(i, lineEnd, "/*")) {
+                    inBlockComment = true;
+                    i++;
+                } else if (startsWith(i, lineEnd, "\"\"\"")) {
+                    inTextBlock = true;
+                    i += 2;
+                } else if (c == '"') {
+                    i = skipString(i, lineEnd);
+                } else if (c == '\'') {
+                    i = skipCharLiteral(i, lineEnd);
+                } else if (c == '{') {
+                    if (depth == 0 && typeDeclared) {
+                        inTypeBody = true;
+                        typeDeclared = false;
+                    }
+                    depth++;
+                } else if (c == '}') {
+                    depth = Math.max(depth - 1, 0);
+                    if (depth == 0 && inTypeBody) {
+                        end = i + 1;
+                        return;
+                    }
+                } else if (c == '(' && depth == 0) {
+                    parens++;
+                } else if (c == ')' && depth == 0) {
+                    parens = Math.max(parens - 1, 0);
+                } else if (Character.isJavaIdentifierStart(c)) {
+                    int wordEnd = i + 1;
+                    while (wordEnd < lineEnd && Character.isJavaIdentifierPart(text.charAt(wordEnd))) {
+                        wordEnd++;
+                    }
+                    // Annotation names and arguments, and the class in Foo.class, are not part of the modifiers
+                    if (depth == 0 && parens == 0 && previous != '@' && previous != '.') {
+                        String word = text.substring(i, wordEnd);
+                        if (declarationStart && isTypeKeyword(word)) {
+                            typeDeclared = true;
+                        } else if (!isModifier(word)) {
+                            declarationStart = false;
+                        }
+                    }
+                    i = wordEnd - 1;
+                    c = text.charAt(i);
+                }
+                if (!Character.isWhitespace(c)) {
+                    previous = c;
+                }
+            }
+        }
+        
+        /**
+         * Index of the closing quote, or of the last char if the string is not closed on this line
+         */
+        private int skipString(int quote, int lineEnd) {
+            for (int i = quote + 1; i < lineEnd; i++) {
+                char c = text.charAt(i);
+                if (c == '\\') {
+                    i++;
+                } else if (c == '"') {
+                    return i;
+                }
+            }
+            return lineEnd - 1;
+        }
+        
+        /**
+         * Index of the closing quote of a char literal; a lone apostrophe, as in prose, is skipped alone
+         */
+        private int skipCharLiteral(int quote, int lineEnd) {
+            int limit = Math.min(lineEnd, quote + 8); // Long enough for a unicode escape
+            for (int i = quote + 1; i < limit; i++) {
+                char c = text.charAt(i);
+                if (c == '\\') {
+                    i++;
+                } else if (c == '\'') {
+                    return i;
+                } else if (i > quote + 1 && text.charAt(quote + 1) != '\\') {
+                    break;
+                }
+            }
+            return quote;
+        }
+        
+        private boolean startsWith(int index, int lineEnd, String prefix) {
+            if (lineEnd - index < prefix.length()) return false;
+            for (int i = 0; i < prefix.length(); i++) {
+                if (text.charAt(index + i) != prefix.charAt(i)) return false;
+            }
+            return true;
+        }
+        
+        private static boolean isTypeKeyword(String word) {
+            return word.equals("class") || word.equals("interface") || word.equals("enum") || word.equals("record");
+        }
+        
+        private static boolean isModifier(String word) {
+            switch (word) {
+                case "public": case "protected": case "private": case "abstract": case "static":
+                case "final": case "sealed": case "non": case "strictfp":
+                    return true;
+                default:
+                    return false;
+            }
         }
     }
     
+    /**
+     * Extracts the generated text from an Ollama/LM Studio JSON response, parsing the body bytes as they arrive
+     */
+    @SuppressWarnings("unchecked")
+    private static String parseLLMResponse(InputStream response) throws IOException {
+        Map<String, Object> responseMap = objectMapper.readValue(response, Map.class);
+        return (String) responseMap.get("response");
+    }
+    
     /**
      * Cleans and formats generated code
      */
@@ -182,59 +892,172 @@ public class LLMService {
     }
     
     /**
-     * Checks if local LLM is available
+     * Checks if local LLM is available with the model loaded, from the cached health probe
+     * Only the first call may wait, up to -Dllm.healthWaitMs (default 2000), for the first probe;
+     * later calls return the last result at once.
      */
     public boolean isAvailable() {
-        try {
-            URL url = new URL("http://localhost:11434/api/tags");
-            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-            connection.setRequestMethod("GET");
-            connection.setConnectTimeout(5000);
-            connection.setReadTimeout(5000);
-            
-            int responseCode = connection.getResponseCode();
-            return responseCode == 200;
-            
-        } catch (IOException e) {
-            System.err.println("Local LLM not available: " + e.getMessage());
-            return false;
+        return startHealthMonitor().awaitFirstProbe(HEALTH_WAIT);
+    }
+    
+    /**
+     * Health monitor of the endpoint and model, probing them in the background every
+     * -Dllm.healthTtlMs (default 30000); started by the first call
+     */
+    public HealthMonitor startHealthMonitor() {
+        String server = server(URI.create(endpoint));
+        String monitorEndpoint = endpoint;
+        String monitorModel = model;
+        return healthMonitors.computeIfAbsent(endpoint + " " + model, key -> new HealthMonitor(server, monitorModel,
+            () -> new LLMService(monitorEndpoint, monitorModel).listModels(), HEALTH_TTL).start());
+    }
+    
+    /**
+     * Names of the models the server has loaded, from its /api/tags
+     * The request uses a connection reserved for probes, outside the generation limit,
+     * so it is not held up by a run that keeps every generation connection busy.
+     * @throws HealthMonitor.InconclusiveProbeException if another probe of the server kept its connection
+     * @throws IOException if the server cannot be reached or the answer has no model list
+     */
+    @SuppressWarnings("unchecked")
+    public List<String> listModels() throws IOException {
+        URI uri = tagsUri();
+        Semaphore probeSlot = probeConnections.computeIfAbsent(server(uri), server -> new Semaphore(1));
+        Map<String, Object> tags;
+        try (InputStream response = send(HttpRequest.newBuilder(uri).timeout(PROBE_TIMEOUT).GET().build(),
+                probeSlot, deadlineAfter(PROBE_TIMEOUT), PROBE_TIMEOUT)) {
+            tags = objectMapper.readValue(response, Map.class);
+        } catch (SlotTimeoutException e) {
+            throw new HealthMonitor.InconclusiveProbeException(e.getMessage(), e);
+        }
+        if (!(tags.get("models") instanceof List)) {
+            throw new IOException(tagsUri() + " returned no model list");
         }
+        
+        List<String> models = new ArrayList<>();
+        for (Object entry : (List<Object>) tags.get("models")) {
+            if (entry instanceof Map && ((Map<String, Object>) entry).get("name") != null) {
+                models.add(String.valueOf(((Map<String, Object>) entry).get("name")));
+            }
+        }
+        return models;
     }
     
     /**
      * Gets available models from local LLM
      */
-    @SuppressWarnings("unchecked")
     public String[] getAvailableModels() {
         try {
-            URL url = new URL(endpoint.replace("/generate", "/api/tags"));
-            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-            connection.setRequestMethod("GET");
-            
-            StringBuilder response = new StringBuilder();
-            try (BufferedReader br = new BufferedReader(
-                    new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8))) {
-                String responseLine;
-                while ((responseLine = br.readLine()) != null) {
-                    response.append(responseLine.trim());
-                }
-            }
-            
-            // Parse models from response
-            objectMapper.readValue(response.toString(), Map.class);
-            // Extract model names from response
-            return new String[]{"codellama", "llama2", "mistral", "phi"}; // Simplified
-            
+            return listModels().toArray(new String[0]);
+        
         } catch (IOException e) {
-            System.err.println("Error getting available models: " + e.getMessage());
+            System.err.println("Error getting available models: " + describe(e));
             return new String[]{"codellama"}; // Default fallback
         }
     }
     
+    /**
+     * Error message for logs; HttpClient connection failures often carry none
+     */
+    private static String describe(Throwable e) {
+        return e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+    }
+    
+    /**
+     * Model list URL of the endpoint's server, e.g. http://localhost:11434/api/tags
+     */
+    private URI tagsUri() {
+        return URI.create(endpoint).resolve("/api/tags");
+    }
+    
+    /**
+     * Maximum number of requests in flight to one server, -Dllm.maxConnections (default 4)
+     */
+    public static int getMaxConnections() {
+        return MAX_CONNECTIONS;
+    }
+    
+    /**
+     * generateCode calls answered from the in-memory recent responses, over all services
+     */
+    public static long getRecentHits() {
+        return recentResponses.getHits();
+    }
+    
+    /**
+     * generateCode calls not found in the recent responses
+     */
+    public static long getRecentMisses() {
+        return recentResponses.getMisses();
+    }
+    
+    /**
+     * generateCode calls that waited for an identical request already in flight
+     */
+    public static long getJoinedRequests() {
+        return joinedRequests.get();
+    }
+    
+    /**
+     * Starts the time budget for all LLM calls from now; once spent, calls fail at once
+     * @param budget Time left for LLM calls, null or zero for no budget
+     */
+    public static void setTimeBudget(Duration budget) {
+        budgetDeadline = deadlineAfter(budget);
+    }
+    
+    /**
+     * System.nanoTime() the given time from now, Long.MAX_VALUE for null, zero or negative
+     */
+    private static long deadlineAfter(Duration timeout) {
+        if (timeout == null || timeout.isZero() || timeout.isNegative()) {
+            return Long.MAX_VALUE;
+        }
+        long now = System.nanoTime();
+        long nanos = timeout.toNanos();
+        return nanos >= Long.MAX_VALUE - Math.max(now, 0) ? Long.MAX_VALUE : now + nanos;
+    }
+    
+    /**
+     * Nanoseconds until a deadline from deadlineAfter, Long.MAX_VALUE if it has none
+     */
+    private static long nanosLeft(long deadline) {
+        return deadline == Long.MAX_VALUE ? Long.MAX_VALUE : deadline - System.nanoTime();
+    }
+    
+    private static String server(URI uri) {
+        return uri.getScheme() + "://" + uri.getAuthority();
+    }
+    
     // Getters and setters
     public String getEndpoint() { return endpoint; }
     public void setEndpoint(String endpoint) { this.endpoint = endpoint; }
     
     public String getModel() { return model; }
     public void setModel(String model) { this.model = model; }
+    
+    public Duration getRequestTimeout() { return requestTimeout; }
+    public void setRequestTimeout(Duration requestTimeout) { this.requestTimeout = requestTimeout; }
+    
+    public boolean isStreaming() { return streaming; }
+    public void setStreaming(boolean streaming) { this.streaming = streaming; }
+    
+    public Duration getIdleTimeout() { return idleTimeout; }
+    public void setIdleTimeout(Duration idleTimeout) { this.idleTimeout = idleTimeout; }
+    
+    /**
+     * Breaker for the endpoint's server; shared by all services calling it unless set
+     */
+    public CircuitBreaker getCircuitBreaker() {
+        if (circuitBreaker != null) return circuitBreaker;
+        String server = server(URI.create(endpoint));
+        return breakers.computeIfAbsent(server, name -> new CircuitBreaker(name, BREAKER_THRESHOLD, BREAKER_OPEN));
+    }
+    public void setCircuitBreaker(CircuitBreaker circuitBreaker) { this.circuitBreaker = circuitBreaker; }
+    
+    /**
+     * Response cache used by generateCode; the shared one unless set, null if caching is disabled
+     */
+    public ResponseCache getCache() { return cache != null ? cache : ResponseCache.shared(); }
+    public void setCache(ResponseCache cache) { this.cache = cache; }
 }
@@ -0,0 +1,280 @@
+package generator;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.net.http.HttpTimeoutException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static org.testng.Assert.*;
+
+/**
+ * Transport timeouts, retry timing, circuit breaker accounting and single-flight deduplication of LLMService
+ */
+public class LLMServiceTest {
+    
+    private static final int THREADS = 8;
+    
+    private LLMBenchmark.StubServer stub;
+    private Path cacheDir;
+    private ResponseCache cache;
+    private LLMService llmService;
+    
+    @BeforeMethod
+    public void startStub() throws IOException {
+        // 60 lines at 5 ms each: identical calls arrive while the first is still streaming
+        stub = new LLMBenchmark.StubServer(LLMBenchmark.syntheticClass(60), "", 5);
+        cacheDir = Files.createTempDirectory("llm-service-test");
+        cache = ResponseCache.open(cacheDir, 16 * 1024 * 1024);
+        llmService = new LLMService(stub.endpoint(), "stub");
+        llmService.setCache(cache);
+        llmService.setCircuitBreaker(new CircuitBreaker(stub.endpoint(), Integer.MAX_VALUE, Duration.ofMinutes(1)));
+    }
+    
+    @AfterMethod(alwaysRun = true)
+    public void stopStub() throws IOException {
+        stub.stop();
+        cache.close();
+        try (Stream<Path> files = Files.walk(cacheDir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+    
+    @Test
+    public void identicalConcurrentPromptsShareOneRequest() throws Exception {
+        long joined = LLMService.getJoinedRequests();
+        List<String> results = generateConcurrently(uniquePrompt("shared"));
+        
+        assertEquals(stub.requests.get(), 1);
+        assertTrue(LLMService.getJoinedRequests() > joined);
+        for (String code : results) {
+            assertNotNull(code);
+            assertEquals(code, results.get(0));
+        }
+    }
+    
+    @Test
+    public void distinctPromptsAreSentSeparately() throws Exception {
+        String first = llmService.tryGenerateCode(uniquePrompt("first"));
+        String second = llmService.tryGenerateCode(uniquePrompt("second"));
+        
+        assertNotNull(first);
+        assertNotNull(second);
+        assertEquals(stub.requests.get(), 2);
+    }
+    
+    @Test
+    public void repeatedPromptIsAnsweredWithoutRequest() throws Exception {
+        String prompt = uniquePrompt("repeated");
+        String code = llmService.tryGenerateCode(prompt);
+        
+        assertEquals(llmService.tryGenerateCode(prompt), code);
+        assertEquals(stub.requests.get(), 1);
+    }
+    
+    @Test
+    public void failedRequestIsSharedWithWaiters() throws Exception {
+        // A stalled stream times out and is not retried, so the leader fails once
+        stub.stallMs = 2_000;
+        llmService.setIdleTimeout(Duration.ofMillis(300));
+        List<String> results = generateConcurrently(uniquePrompt("failed"));
+        
+        assertEquals(stub.requests.get(), 1);
+        for (String code : results) {
+            assertNull(code);
+        }
+    }
+    
+    @Test
+    public void rejectedPromptsDoNotOpenCircuit() {
+        CircuitBreaker breaker = new CircuitBreaker(stub.endpoint(), 2, Duration.ofMinutes(1));
+        llmService.setCircuitBreaker(breaker);
+        stub.failEvery = 1;
+        stub.failStatus = 400;
+        
+        for (int i = 0; i < 3; i++) {
+            assertThrows(IOException.class, () -> llmService.complete(uniquePrompt("rejected")));
+        }
+        // Not retried either, and the server stays usable
+        assertEquals(stub.requests.get(), 3);
+        assertEquals(breaker.getState(), CircuitBreaker.State.CLOSED);
+    }
+    
+    @Test
+    public void overloadAnswersOpenCircuit() {
+        CircuitBreaker breaker = new CircuitBreaker(stub.endpoint(), 2, Duration.ofMinutes(1));
+        llmService.setCircuitBreaker(breaker);
+        stub.failEvery = 1;
+        
+        assertThrows(IOException.class, () -> llmService.complete(uniquePrompt("overloaded")));
+        assertEquals(stub.requests.get(), 2);
+        assertEquals(breaker.getState(), CircuitBreaker.State.OPEN);
+    }
+    
+    @Test
+    public void openingFailureSkipsBackoff() throws IOException {
+        CircuitBreaker breaker = new CircuitBreaker(stub.endpoint(), 1, Duration.ofMinutes(1));
+        llmService.setCircuitBreaker(breaker);
+        // Warms up the connection, so only the backoff could make the failing call slow
+        llmService.complete(uniquePrompt("warm-up"));
+        stub.failEvery = 1;
+        
+        long start = System.nanoTime();
+        IOException failure = expectThrows(IOException.class, () -> llmService.complete(uniquePrompt("opening")));
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        
+        assertTrue(failure.getMessage().startsWith("circuit open"), failure.getMessage());
+        assertEquals(stub.requests.get(), 2);
+        // The first backoff is at least half of llm.retryBaseMs, 250 ms by default
+        assertTrue(elapsedMs < 250, "failed after " + elapsedMs + " ms");
+    }
+    
+    @Test
+    public void stallMidBodyTimesOutAndReleasesTheSlot() throws IOException {
+        int freeSlots = LLMService.availableConnectionSlots(stub.endpoint());
+        // Headers and the first line arrive, then the stream goes quiet
+        stub.stallMs = 3_000;
+        llmService.setIdleTimeout(Duration.ofMillis(200));
+        
+        long start = System.nanoTime();
+        HttpTimeoutException failure = expectThrows(HttpTimeoutException.class,
+            () -> llmService.complete(uniquePrompt("stalled")));
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        
+        assertEquals(failure.getMessage(), "LLM response stalled for 200 ms");
+        assertTrue(elapsedMs < 2_000, "timed out after " + elapsedMs + " ms");
+        assertEquals(stub.requests.get(), 1);
+        assertEquals(LLMService.availableConnectionSlots(stub.endpoint()), freeSlots);
+        
+        // The server is still usable over a fresh connection
+        stub.stallMs = 0;
+        assertNotNull(llmService.complete(uniquePrompt("after stall")));
+        assertEquals(LLMService.availableConnectionSlots(stub.endpoint()), freeSlots);
+    }
+    
+    @Test
+    public void bodyStillStreamingAtTheDeadlineTimesOut() throws IOException {
+        // 60 lines at 50 ms each, every one well within the idle timeout
+        LLMBenchmark.StubServer slowStub = new LLMBenchmark.StubServer(LLMBenchmark.syntheticClass(60), "", 50);
+        try {
+            LLMService slowService = new LLMService(slowStub.endpoint(), "stub");
+            slowService.setCache(cache);
+            slowService.setCircuitBreaker(new CircuitBreaker(slowStub.endpoint(), Integer.MAX_VALUE, Duration.ofMinutes(1)));
+            slowService.setRequestTimeout(Duration.ofMillis(200));
+            int freeSlots = LLMService.availableConnectionSlots(slowStub.endpoint());
+            
+            long start = System.nanoTime();
+            HttpTimeoutException failure = expectThrows(HttpTimeoutException.class,
+                () -> slowService.complete(uniquePrompt("slow")));
+            long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+            
+            // Whichever fires first at the deadline: the watchdog, or the client's own request timer
+            assertTrue(failure.getMessage().equals("LLM response not finished before its deadline")
+                || failure.getMessage().equals("request timed out"), failure.getMessage());
+            assertTrue(elapsedMs < 2_000, "timed out after " + elapsedMs + " ms");
+            assertEquals(LLMService.availableConnectionSlots(slowStub.endpoint()), freeSlots);
+        } finally {
+            slowStub.stop();
+        }
+    }
+    
+    @Test
+    public void lateHeadersTimeOutAndReleaseTheSlot() {
+        int freeSlots = LLMService.availableConnectionSlots(stub.endpoint());
+        // Without streaming the stub answers only once the whole completion is generated
+        llmService.setStreaming(false);
+        llmService.setRequestTimeout(Duration.ofMillis(100));
+        
+        expectThrows(HttpTimeoutException.class, () -> llmService.complete(uniquePrompt("late")));
+        
+        assertEquals(LLMService.availableConnectionSlots(stub.endpoint()), freeSlots);
+    }
+    
+    @Test
+    public void errorStatusReleasesTheSlot() {
+        int freeSlots = LLMService.availableConnectionSlots(stub.endpoint());
+        stub.failEvery = 1;
+        stub.failStatus = 400;
+        
+        IOException failure = expectThrows(IOException.class, () -> llmService.complete(uniquePrompt("rejected")));
+        
+        assertTrue(failure.getMessage().endsWith("returned HTTP 400"), failure.getMessage());
+        assertEquals(LLMService.availableConnectionSlots(stub.endpoint()), freeSlots);
+    }
+    
+    /**
+     * Calls tryGenerateCode with the same prompt from several threads released together
+     */
+    private List<String> generateConcurrently(String prompt) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<String>> calls = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                calls.add(pool.submit(() -> {
+                    start.await();
+                    return llmService.tryGenerateCode(prompt);
+                }));
+            }
+            start.countDown();
+            
+            List<String> results = new ArrayList<>();
+            for (Future<String> call : calls) {
+                results.add(call.get());
+            }
+            return results;
+        } finally {
+            pool.shutdown();
+        }
+    }
+    
+    /**
+     * Prompt no earlier test has sent; recent responses are shared by the whole process
+     */
+    private static String uniquePrompt(String name) {
+        return "Class name: " + name + "Page\nTest run " + System.nanoTime();
+    }
+    
+    @Test
+    public void backoffStaysWithinHalfToFullDelay() {
+        for (int attempt = 1; attempt <= 5; attempt++) {
+            long delay = 100L << (attempt - 1);
+            for (int i = 0; i < 1_000; i++) {
+                long backoff = LLMService.backoffMillis(attempt, 100, 30_000);
+                assertTrue(backoff >= delay / 2 && backoff <= delay, "attempt " + attempt + ": " + backoff);
+            }
+        }
+    }
+    
+    @Test
+    public void backoffIsCappedAtMaximum() {
+        for (int attempt : new int[] {10, 21, 63, 64, 1_000, Integer.MAX_VALUE}) {
+            long backoff = LLMService.backoffMillis(attempt, 500, 30_000);
+            assertTrue(backoff >= 15_000 && backoff <= 30_000, "attempt " + attempt + ": " + backoff);
+        }
+    }
+    
+    @Test
+    public void largeBaseDoesNotOverflow() {
+        long backoff = LLMService.backoffMillis(40, Long.MAX_VALUE / 4, 30_000);
+        assertTrue(backoff >= 15_000 && backoff <= 30_000, String.valueOf(backoff));
+    }
+    
+    @Test
+    public void firstAttemptUsesBaseDelay() {
+        long backoff = LLMService.backoffMillis(1, 500, 30_000);
+        assertTrue(backoff >= 250 && backoff <= 500, String.valueOf(backoff));
+    }
+}
@@ -0,0 +1,453 @@
+package generator;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * Persistent cache of LLM responses, keyed by a SHA-256 hash of the endpoint and the
+ * request (model, options and prompt), so unchanged prompts are never sent twice
+ * Responses are deflate-compressed and appended to segment files in the cache directory;
+ * an in-memory index, rebuilt from the segments on open, maps each key to its record.
+ * Position in the log is recency: a hit copies its record into the newest segment, and
+ * while the directory exceeds its size bound the oldest segment is deleted, so the
+ * responses dropped are those unused for longest.
+ *
+ * Segment layout: magic, version, then records of key hash, compressed length,
+ * uncompressed length, CRC32C of the key, lengths and compressed bytes, and the bytes.
+ * Records failing their checksum are ignored, and a torn record at the end of a segment,
+ * e.g. after a crash, is cut off when the cache is opened.
+ *
+ * The index and segment sizes live in memory, so one process owns the directory at a
+ * time: open() takes an exclusive lock on a "lock" file there and fails if it is held.
+ */
+public class ResponseCache implements Closeable {
+    
+    private static final int MAGIC = 0x4c4c4d43; // "LLMC"
+    private static final int VERSION = 2;
+    private static final int SEGMENT_HEADER_BYTES = 8;
+    private static final int KEY_BYTES = 32;
+    private static final int RECORD_HEADER_BYTES = KEY_BYTES + 12;
+    private static final int SEGMENTS_PER_CACHE = 8;
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".dat";
+    private static final String LOCK_FILE = "lock";
+    
+    private static final Path DEFAULT_DIRECTORY = Paths.get(System.getProperty("llm.cacheDir", ".llm-cache"));
+    private static final long DEFAULT_MAX_MB = Long.getLong("llm.cacheMaxMb", 256);
+    // Request maps are serialized with sorted keys, so equal maps hash equally
+    private static final ObjectMapper canonicalMapper = new ObjectMapper()
+        .configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
+    
+    private static ResponseCache shared;
+    private static boolean sharedOpened;
+    
+    private final Path directory;
+    private final long maxBytes;
+    private final long segmentBytes;
+    private final FileChannel lockChannel;
+    private final Map<String, Entry> index = new HashMap<>();
+    // Segment number -> segment, oldest first; the last one is appended to
+    private final TreeMap<Integer, Segment> segments = new TreeMap<>();
+    private long diskBytes;
+    private int hits;
+    private int misses;
+    
+    private ResponseCache(Path directory, long maxBytes, FileChannel lockChannel) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        this.segmentBytes = Math.max(maxBytes / SEGMENTS_PER_CACHE, 64 * 1024);
+        this.lockChannel = lockChannel;
+    }
+    
+    /**
+     * Opens the cache in a directory, creating it if needed
+     * @param maxBytes Size bound of all segment files together
+     * @throws IOException also if another process or cache instance has the directory open
+     */
+    public static ResponseCache open(Path directory, long maxBytes) throws IOException {
+        Files.createDirectories(directory);
+        ResponseCache cache = new ResponseCache(directory, maxBytes, lock(directory));
+        try {
+            try (Stream<Path> files = Files.list(directory)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    String name = file.getFileName().toString();
+                    if (name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX)) {
+                        int number = Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+                        cache.segments.put(number, new Segment(number, file));
+                    }
+                }
+            }
+            for (Segment segment : new ArrayList<>(cache.segments.values())) {
+                cache.load(segment);
+            }
+            return cache;
+        } catch (IOException | RuntimeException e) {
+            cache.close();
+            throw e;
+        }
+    }
+    
+    /**
+     * Takes the directory's exclusive lock, held until the cache is closed
+     */
+    private static FileChannel lock(Path directory) throws IOException {
+        FileChannel channel = FileChannel.open(directory.resolve(LOCK_FILE),
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        FileLock lock;
+        try {
+            lock = channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            // Held by another cache in this JVM
+            lock = null;
+        }
+        if (lock == null) {
+            channel.close();
+            throw new IOException("LLM response cache " + directory + " is in use by another generator");
+        }
+        return channel;
+    }
+    
+    /**
+     * Cache in -Dllm.cacheDir (default .llm-cache) bounded by -Dllm.cacheMaxMb (default 256),
+     * opened on first use
+     * @return The cache, or null if it is disabled with a bound of 0 or cannot be opened
+     */
+    public static synchronized ResponseCache shared() {
+        if (!sharedOpened) {
+            sharedOpened = true;
+            if (DEFAULT_MAX_MB > 0) {
+                try {
+                    shared = open(DEFAULT_DIRECTORY, DEFAULT_MAX_MB * 1024 * 1024);
+                    System.out.println("💾 LLM response cache: " + shared.size() + " responses in " + DEFAULT_DIRECTORY);
+                } catch (IOException | RuntimeException e) {
+                    System.err.println("⚠️  LLM response cache disabled: " + e.getMessage());
+                }
+            }
+        }
+        return shared;
+    }
+    
+    /**
+     * Cache key of a request: hex SHA-256 over the endpoint and the request map with sorted keys
+     */
+    public static String key(String endpoint, Map<String, Object> request) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            sha256.update(endpoint.getBytes(StandardCharsets.UTF_8));
+            sha256.update((byte) 0);
+            sha256.update(canonicalMapper.writeValueAsBytes(request));
+            return toHex(sha256.digest());
+        } catch (NoSuchAlgorithmException | JsonProcessingException e) {
+            throw new IllegalStateException("Cannot hash LLM request", e);
+        }
+    }
+    
+    /**
+     * Cached response for a key, or null
+     * A hit moves the response to the newest segment, making it the last to be evicted.
+     */
+    public synchronized String get(String key) throws IOException {
+        Entry entry = index.get(key);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        
+        ByteBuffer record = ByteBuffer.allocate(entry.length);
+        while (record.hasRemaining() && entry.segment.channel.read(record, entry.offset + record.position()) >= 0) {
+            // Read the whole record
+        }
+        record.flip();
+        String response = record.limit() == entry.length ? decode(record) : null;
+        if (response == null) {
+            // Damaged on disk since it was loaded
+            index.remove(key);
+            misses++;
+            return null;
+        }
+        
+        hits++;
+        if (entry.segment != segments.lastEntry().getValue()) {
+            record.rewind();
+            append(key, record);
+            evict();
+        }
+        return response;
+    }
+    
+    /**
+     * Stores a response, evicting the least recently used ones if the cache outgrows its bound
+     */
+    public synchronized void put(String key, String response) throws IOException {
+        append(key, encode(key, response));
+        evict();
+    }
+    
+    /**
+     * Number of cached responses
+     */
+    public synchronized int size() {
+        return index.size();
+    }
+    
+    /**
+     * Size of the segment files
+     */
+    public synchronized long getDiskBytes() {
+        return diskBytes;
+    }
+    
+    public synchronized int getHits() {
+        return hits;
+    }
+    
+    public synchronized int getMisses() {
+        return misses;
+    }
+    
+    public Path getDirectory() {
+        return directory;
+    }
+    
+    @Override
+    public synchronized void close() throws IOException {
+        for (Segment segment : segments.values()) {
+            segment.channel.close();
+        }
+        // Releases the directory lock
+        lockChannel.close();
+    }
+    
+    /**
+     * Appends an encoded record to the newest segment, starting a new one when it is full
+     */
+    private void append(String key, ByteBuffer record) throws IOException {
+        Segment segment = segments.isEmpty() ? null : segments.lastEntry().getValue();
+        if (segment == null || (segment.size + record.remaining() > segmentBytes && segment.size > SEGMENT_HEADER_BYTES)) {
+            segment = newSegment(segment == null ? 1 : segment.number + 1);
+        }
+        
+        long offset = segment.size;
+        int length = record.remaining();
+        while (record.hasRemaining()) {
+            segment.channel.write(record, segment.size + (length - record.remaining()));
+        }
+        segment.size += length;
+        diskBytes += length;
+        index.put(key, new Entry(segment, offset, length));
+    }
+    
+    /**
+     * Deletes the oldest segments, with every response last used in them, until the cache fits its bound
+     */
+    private void evict() throws IOException {
+        while (diskBytes > maxBytes && segments.size() > 1) {
+            Segment oldest = segments.pollFirstEntry().getValue();
+            for (Iterator<Entry> entries = index.values().iterator(); entries.hasNext(); ) {
+                if (entries.next().segment == oldest) {
+                    entries.remove();
+                }
+            }
+            oldest.channel.close();
+            Files.deleteIfExists(oldest.file);
+            diskBytes -= oldest.size;
+        }
+    }
+    
+    private Segment newSegment(int number) throws IOException {
+        Path file = directory.resolve(String.format("%s%06d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX));
+        Segment segment = new Segment(number, file);
+        ByteBuffer header = ByteBuffer.allocate(SEGMENT_HEADER_BYTES).putInt(MAGIC).putInt(VERSION);
+        header.flip();
+        segment.channel.truncate(0);
+        segment.channel.write(header, 0);
+        segment.size = SEGMENT_HEADER_BYTES;
+        diskBytes += SEGMENT_HEADER_BYTES;
+        segments.put(number, segment);
+        return segment;
+    }
+    
+    /**
+     * Indexes the records of a segment; later records of a key replace earlier ones
+     */
+    private void load(Segment segment) throws IOException {
+        long fileSize = segment.channel.size();
+        ByteBuffer data = ByteBuffer.allocate((int) fileSize);
+        while (data.hasRemaining() && segment.channel.read(data, data.position()) >= 0) {
+            // Read the whole segment
+        }
+        data.flip();
+        if (data.remaining() < SEGMENT_HEADER_BYTES || data.getInt() != MAGIC || data.getInt() != VERSION) {
+            // Unknown or torn segment: start it over
+            segment.channel.truncate(0);
+            segments.remove(segment.number);
+            segment.channel.close();
+            Files.deleteIfExists(segment.file);
+            return;
+        }
+        
+        while (data.remaining() >= RECORD_HEADER_BYTES) {
+            int start = data.position();
+            byte[] keyBytes = new byte[KEY_BYTES];
+            data.get(keyBytes);
+            int compressedLength = data.getInt();
+            data.position(start);
+            int length = RECORD_HEADER_BYTES + compressedLength;
+            if (compressedLength < 0 || length > data.remaining()) break;
+            
+            ByteBuffer record = data.slice();
+            record.limit(length);
+            // A damaged record is skipped; its key is simply generated again
+            if (checksumMatches(record)) {
+                index.put(toHex(keyBytes), new Entry(segment, start, length));
+            }
+            data.position(start + length);
+        }
+        
+        // Cut off a torn tail, so appends continue after the last complete record
+        if (data.position() < fileSize) {
+            segment.channel.truncate(data.position());
+        }
+        segment.size = data.position();
+        diskBytes += segment.size;
+    }
+    
+    private static ByteBuffer encode(String key, String response) {
+        byte[] text = response.getBytes(StandardCharsets.UTF_8);
+        Deflater deflater = new Deflater();
+        deflater.setInput(text);
+        deflater.finish();
+        byte[] compressed = new byte[Math.max(64, text.length / 2)];
+        int compressedLength = 0;
+        while (!deflater.finished()) {
+            if (compressedLength == compressed.length) {
+                compressed = Arrays.copyOf(compressed, compressed.length * 2);
+            }
+            compressedLength += deflater.deflate(compressed, compressedLength, compressed.length - compressedLength);
+        }
+        deflater.end();
+        
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_BYTES + compressedLength);
+        for (int i = 0; i < KEY_BYTES; i++) {
+            record.put((byte) Integer.parseInt(key.substring(i * 2, i * 2 + 2), 16));
+        }
+        record.putInt(compressedLength).putInt(text.length).putInt(0);
+        record.put(compressed, 0, compressedLength);
+        record.putInt(KEY_BYTES + 8, checksum(record));
+        record.flip();
+        return record;
+    }
+    
+    /**
+     * Inflated response of a record, or null if its checksum or data is damaged
+     */
+    private static String decode(ByteBuffer record) {
+        if (!checksumMatches(record)) return null;
+        
+        int compressedLength = record.getInt(KEY_BYTES);
+        int textLength = record.getInt(KEY_BYTES + 4);
+        Inflater inflater = new Inflater();
+        try {
+            byte[] compressed = new byte[compressedLength];
+            record.position(RECORD_HEADER_BYTES);
+            record.get(compressed);
+            inflater.setInput(compressed);
+            byte[] text = new byte[textLength];
+            int inflated = 0;
+            while (inflated < textLength && !inflater.finished()) {
+                int count = inflater.inflate(text, inflated, textLength - inflated);
+                if (count == 0 && inflater.needsInput()) break;
+                inflated += count;
+            }
+            return inflated == textLength ? new String(text, StandardCharsets.UTF_8) : null;
+        } catch (DataFormatException e) {
+            return null;
+        } finally {
+            inflater.end();
+        }
+    }
+    
+    private static boolean checksumMatches(ByteBuffer record) {
+        int compressedLength = record.getInt(KEY_BYTES);
+        if (compressedLength < 0 || RECORD_HEADER_BYTES + compressedLength > record.limit()) return false;
+        return checksum(record) == record.getInt(KEY_BYTES + 8);
+    }
+    
+    /**
+     * CRC32C of a record's key, lengths and compressed bytes, so damage to any of them
+     * is detected and a response is never served under another key
+     */
+    private static int checksum(ByteBuffer record) {
+        int compressedLength = record.getInt(KEY_BYTES);
+        CRC32C crc = new CRC32C();
+        ByteBuffer header = record.duplicate();
+        header.position(0).limit(KEY_BYTES + 8);
+        crc.update(header);
+        ByteBuffer compressed = record.duplicate();
+        compressed.position(RECORD_HEADER_BYTES).limit(RECORD_HEADER_BYTES + compressedLength);
+        crc.update(compressed);
+        return (int) crc.getValue();
+    }
+    
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+    
+    /**
+     * Location of a key's latest record
+     */
+    private static class Entry {
+        final Segment segment;
+        final long offset;
+        final int length;
+        
+        Entry(Segment segment, long offset, int length) {
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+    
+    private static class Segment {
+        final int number;
+        final Path file;
+        final FileChannel channel;
+        long size;
+        
+        Segment(int number, Path file) throws IOException {
+            this.number = number;
+            this.file = file;
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        }
+    }
+}
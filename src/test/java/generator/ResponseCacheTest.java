@@ -0,0 +1,244 @@
+package generator;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.testng.Assert.*;
+
+/**
+ * Eviction, recency and damage handling of the persistent LLM response cache
+ */
+public class ResponseCacheTest {
+    
+    private static final long MAX_BYTES = 256 * 1024;
+    // Random text barely compresses, so a few responses fill a segment
+    private static final int RESPONSE_CHARS = 24 * 1024;
+    
+    private final Random random = new Random(7);
+    private Path directory;
+    
+    @BeforeMethod
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("response-cache-test");
+    }
+    
+    @AfterMethod(alwaysRun = true)
+    public void deleteDirectory() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+    
+    @Test
+    public void keyIgnoresMapOrderButNotContent() {
+        Map<String, Object> request = new LinkedHashMap<>();
+        request.put("model", "mistral");
+        request.put("prompt", "Generate LoginPage");
+        Map<String, Object> reordered = new LinkedHashMap<>();
+        reordered.put("prompt", "Generate LoginPage");
+        reordered.put("model", "mistral");
+        
+        String key = ResponseCache.key("http://localhost:11434/api/generate", request);
+        assertEquals(ResponseCache.key("http://localhost:11434/api/generate", reordered), key);
+        assertNotEquals(ResponseCache.key("http://other:11434/api/generate", request), key);
+        reordered.put("prompt", "Generate MessagePage");
+        assertNotEquals(ResponseCache.key("http://localhost:11434/api/generate", reordered), key);
+    }
+    
+    @Test
+    public void responsesSurviveReopen() throws IOException {
+        try (ResponseCache cache = ResponseCache.open(directory, MAX_BYTES)) {
+            cache.put(key(1), "public class LoginPage {}");
+            assertNull(cache.get(key(2)));
+        }
+        
+        try (ResponseCache cache = ResponseCache.open(directory, MAX_BYTES)) {
+            assertEquals(cache.size(), 1);
+            assertEquals(cache.get(key(1)), "public class LoginPage {}");
+        }
+    }
+    
+    @Test
+    public void evictsOldestResponsesToStayWithinBound() throws IOException {
+        try (ResponseCache cache = ResponseCache.open(directory, MAX_BYTES)) {
+            for (int i = 0; i < 40; i++) {
+                cache.put(key(i), randomText());
+                assertTrue(cache.getDiskBytes() <= MAX_BYTES, "disk bytes " + cache.getDiskBytes());
+            }
+            
+            assertNull(cache.get(key(0)));
+            assertNotNull(cache.get(key(39)));
+            assertTrue(cache.size() < 40);
+            assertEquals(cache.getDiskBytes(), segmentBytes());
+        }
+    }
+    
+    @Test
+    public void recentlyReadResponsesAreKept() throws IOException {
+        try (ResponseCache cache = ResponseCache.open(directory, MAX_BYTES)) {
+            String first = randomText();
+            cache.put(key(0), first);
+            for (int i = 1; i < 40; i++) {
+                cache.put(key(i), randomText());
+                assertEquals(cache.get(key(0)), first, "after " + i + " puts");
+            }
+            assertNull(cache.get(key(1)));
+        }
+    }
+    
+    @Test
+    public void damagedRecordIsSkippedOnOpen() throws IOException {
+        try (ResponseCache cache = ResponseCache.open(directory, MAX_BYTES)) {
+            cache.put(key(1), "first response");
+            cache.put(key(2), "second response");
+        }
+        // First record: 8 byte segment header, 44 byte record header, then its data
+        flipByte(segmentFiles().get(0), 8 + 44 + 1);
+        
+        try (ResponseCache cache = ResponseCache.open(directory, MAX_BYTES)) {
+            assertNull(cache.get(key(1)));
+            assertEquals(cache.get(key(2)), "second response");
+        }
+    }
+    
+    @Test
+    public void damagedKeyOrLengthIsNotServed() throws IOException {
+        try (ResponseCache cache = ResponseCache.open(directory, MAX_BYTES)) {
+            cache.put(key(1), "first response");
+            cache.put(key(2), "second response");
+        }
+        // Key hash of the first record, then the uncompressed length of the second one
+        Path segment = segmentFiles().get(0);
+        long second = 8 + 44 + readInt(segment, 8 + 32);
+        flipByte(segment, 8);
+        flipByte(segment, second + 32 + 4);
+        
+        try (ResponseCache cache = ResponseCache.open(directory, MAX_BYTES)) {
+            assertEquals(cache.size(), 0);
+            assertNull(cache.get(key(1)));
+            assertNull(cache.get(key(2)));
+        }
+    }
+    
+    @Test
+    public void directoryIsOwnedByOneCacheAtATime() throws IOException {
+        try (ResponseCache cache = ResponseCache.open(directory, MAX_BYTES)) {
+            cache.put(key(1), "first response");
+            assertThrows(IOException.class, () -> ResponseCache.open(directory, MAX_BYTES));
+        }
+        
+        try (ResponseCache cache = ResponseCache.open(directory, MAX_BYTES)) {
+            assertEquals(cache.get(key(1)), "first response");
+        }
+    }
+    
+    @Test
+    public void recordDamagedAfterOpenIsAMiss() throws IOException {
+        try (ResponseCache cache = ResponseCache.open(directory, MAX_BYTES)) {
+            cache.put(key(1), "first response");
+            flipByte(segmentFiles().get(0), 8 + 44 + 1);
+            
+            assertNull(cache.get(key(1)));
+            assertEquals(cache.size(), 0);
+            assertEquals(cache.getMisses(), 1);
+        }
+    }
+    
+    @Test
+    public void tornTailIsCutOffAndAppendsContinue() throws IOException {
+        try (ResponseCache cache = ResponseCache.open(directory, MAX_BYTES)) {
+            cache.put(key(1), "first response");
+            cache.put(key(2), "second response");
+        }
+        Path segment = segmentFiles().get(0);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+        
+        try (ResponseCache cache = ResponseCache.open(directory, MAX_BYTES)) {
+            assertEquals(cache.get(key(1)), "first response");
+            assertNull(cache.get(key(2)));
+            cache.put(key(3), "third response");
+        }
+        try (ResponseCache cache = ResponseCache.open(directory, MAX_BYTES)) {
+            assertEquals(cache.get(key(1)), "first response");
+            assertEquals(cache.get(key(3)), "third response");
+        }
+    }
+    
+    @Test
+    public void segmentWithUnknownHeaderIsDropped() throws IOException {
+        try (ResponseCache cache = ResponseCache.open(directory, MAX_BYTES)) {
+            cache.put(key(1), "first response");
+        }
+        flipByte(segmentFiles().get(0), 0);
+        
+        try (ResponseCache cache = ResponseCache.open(directory, MAX_BYTES)) {
+            assertEquals(cache.size(), 0);
+            assertTrue(segmentFiles().isEmpty());
+            cache.put(key(2), "second response");
+            assertEquals(cache.get(key(2)), "second response");
+        }
+    }
+    
+    private static String key(int number) {
+        return ResponseCache.key("http://localhost:11434/api/generate", Map.of("prompt", "prompt " + number));
+    }
+    
+    private String randomText() {
+        char[] text = new char[RESPONSE_CHARS];
+        for (int i = 0; i < text.length; i++) {
+            text[i] = (char) (' ' + random.nextInt(95));
+        }
+        return new String(text);
+    }
+    
+    private List<Path> segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().startsWith("segment-"))
+                .sorted()
+                .collect(Collectors.toList());
+        }
+    }
+    
+    private long segmentBytes() throws IOException {
+        long bytes = 0;
+        for (Path file : segmentFiles()) {
+            bytes += Files.size(file);
+        }
+        return bytes;
+    }
+    
+    private static int readInt(Path file, long position) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(4);
+            channel.read(buffer, position);
+            return buffer.getInt(0);
+        }
+    }
+    
+    private static void flipByte(Path file, long position) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(1);
+            channel.read(buffer, position);
+            buffer.put(0, (byte) ~buffer.get(0));
+            buffer.rewind();
+            channel.write(buffer, position);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package generator;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import util.TestCase;
+
+/**
+ * Groups a lazily read stream of test cases into test classes as rows arrive
+ * Sheets normally list all rows of a class together, so a class is handed to the
+ * handler as soon as the next class starts, while later rows are still being read.
+ * If a class shows up again further down the sheet, it is handed over once more
+ * at the end with all of its rows and the regenerate flag set.
+ */
+public class TestClassStreamer {
+    
+    /**
+     * Receives each completed test class
+     */
+    @FunctionalInterface
+    public interface ClassHandler {
+        void onClass(String className, List<TestCase> testCases, boolean regenerate) throws IOException;
+    }
+    
+    /**
+     * Consumes the stream, handing over each class once its rows are complete
+     * @param testCases Ordered stream of test cases; closed by this method
+     * @param handler Receives each completed class
+     * @return All test cases in stream order
+     */
+    public static List<TestCase> forEachClass(Stream<TestCase> testCases, ClassHandler handler) throws IOException {
+        List<TestCase> allTestCases = new ArrayList<>();
+        Map<String, List<TestCase>> testsByClass = new LinkedHashMap<>();
+        Set<String> handled = new LinkedHashSet<>();
+        Set<String> reopened = new LinkedHashSet<>();
+        String currentClass = null;
+        
+        try (Stream<TestCase> stream = testCases) {
+            Iterator<TestCase> iterator = stream.iterator();
+            while (iterator.hasNext()) {
+                TestCase testCase = iterator.next();
+                String className = testCase.getClassName();
+                
+                if (currentClass != null && !currentClass.equals(className)) {
+                    flush(currentClass, testsByClass, handled, handler);
+                }
+                if (handled.contains(className)) {
+                    reopened.add(className);
+                }
+                
+                currentClass = className;
+                allTestCases.add(testCase);
+                testsByClass.computeIfAbsent(className, k -> new ArrayList<>()).add(testCase);
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        
+        if (currentClass != null) {
+            flush(currentClass, testsByClass, handled, handler);
+        }
+        for (String className : reopened) {
+            handler.onClass(className, testsByClass.get(className), true);
+        }
+        
+        return allTestCases;
+    }
+    
+    private static void flush(String className, Map<String, List<TestCase>> testsByClass,
+                              Set<String> handled, ClassHandler handler) throws IOException {
+        if (handled.add(className)) {
+            handler.onClass(className, testsByClass.get(className), false);
+        }
+    }
+}
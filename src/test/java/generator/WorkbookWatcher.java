@@ -0,0 +1,113 @@
+package generator;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches a single workbook or CSV file and reports debounced saves
+ * Spreadsheet editors usually save through temp files and several write events,
+ * so events are collected until the file has been quiet for the debounce interval.
+ * Call start() before any long first run, so saves made during it are not missed.
+ */
+public class WorkbookWatcher implements Closeable {
+    
+    private static final long DEFAULT_DEBOUNCE_MILLIS = 200;
+    
+    /**
+     * Called once per debounced save
+     */
+    @FunctionalInterface
+    public interface ChangeListener {
+        void onChange() throws Exception;
+    }
+    
+    private final Path file;
+    private final long debounceMillis;
+    private WatchService watchService;
+    
+    public WorkbookWatcher(Path file) {
+        this(file, DEFAULT_DEBOUNCE_MILLIS);
+    }
+    
+    public WorkbookWatcher(Path file, long debounceMillis) {
+        this.file = file.toAbsolutePath();
+        this.debounceMillis = debounceMillis;
+    }
+    
+    /**
+     * Starts recording events for the file without blocking
+     * Saves made between this call and watch() are reported by watch()'s first cycle
+     */
+    public void start() throws IOException {
+        if (watchService != null) {
+            return;
+        }
+        Path directory = file.getParent();
+        watchService = directory.getFileSystem().newWatchService();
+        directory.register(watchService, ENTRY_CREATE, ENTRY_MODIFY);
+    }
+    
+    /**
+     * Blocks and calls the listener after each save until the thread is interrupted
+     * Failures in the listener are reported and watching continues, since a save
+     * may be caught half-written and the next event will retry it
+     */
+    public void watch(ChangeListener listener) throws IOException, InterruptedException {
+        start();
+        Path fileName = file.getFileName();
+        
+        while (!Thread.currentThread().isInterrupted()) {
+            if (!drain(watchService.take(), fileName)) {
+                continue;
+            }
+            
+            // Debounce: wait until no further events arrive for the interval
+            WatchKey next;
+            while ((next = watchService.poll(debounceMillis, TimeUnit.MILLISECONDS)) != null) {
+                drain(next, fileName);
+            }
+            
+            if (!Files.exists(file)) {
+                continue;
+            }
+            try {
+                listener.onChange();
+            } catch (InterruptedException e) {
+                throw e;
+            } catch (Exception e) {
+                System.err.println("⚠️  Could not process change to " + fileName + ": " + e.getMessage());
+            }
+        }
+    }
+    
+    @Override
+    public void close() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+        }
+    }
+    
+    /**
+     * Consumes the events of a key and reports whether any of them concern the watched file
+     */
+    private static boolean drain(WatchKey key, Path fileName) {
+        boolean matched = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == OVERFLOW || fileName.equals(event.context())) {
+                matched = true;
+            }
+        }
+        key.reset();
+        return matched;
+    }
+}
@@ -0,0 +1,183 @@
+package generator;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+import static org.testng.Assert.*;
+
+/**
+ * Debouncing and filtering of workbook save events
+ */
+public class WorkbookWatcherTest {
+    
+    private static final long DEBOUNCE_MILLIS = 200;
+    
+    private Path directory;
+    private Path workbook;
+    private Thread watchThread;
+    private final AtomicReference<Throwable> watchFailure = new AtomicReference<>();
+    
+    @BeforeMethod
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("workbook-watcher-test");
+        workbook = directory.resolve("cases.xlsx");
+        write(workbook, "initial");
+        watchFailure.set(null);
+    }
+    
+    @AfterMethod(alwaysRun = true)
+    public void stopAndDelete() throws Exception {
+        if (watchThread != null) {
+            watchThread.interrupt();
+            watchThread.join(5000);
+            watchThread = null;
+        }
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+    
+    @Test
+    public void burstOfWritesIsOneChange() throws Exception {
+        Semaphore changes = new Semaphore(0);
+        AtomicInteger calls = new AtomicInteger();
+        WorkbookWatcher watcher = startWatching(() -> {
+            calls.incrementAndGet();
+            changes.release();
+        });
+        
+        // An editor saving through several writes, each well inside the debounce interval
+        for (int i = 0; i < 5; i++) {
+            write(workbook, "save " + i);
+            Thread.sleep(DEBOUNCE_MILLIS / 5);
+        }
+        assertTrue(changes.tryAcquire(5, TimeUnit.SECONDS));
+        Thread.sleep(DEBOUNCE_MILLIS * 2);
+        assertEquals(calls.get(), 1);
+        
+        // A later save after a quiet period is a change of its own
+        write(workbook, "second save");
+        assertTrue(changes.tryAcquire(5, TimeUnit.SECONDS));
+        assertEquals(calls.get(), 2);
+        watcher.close();
+    }
+    
+    @Test
+    public void listenerRunsOnlyAfterTheFileIsQuiet() throws Exception {
+        Semaphore changes = new Semaphore(0);
+        AtomicReference<String> seen = new AtomicReference<>();
+        WorkbookWatcher watcher = startWatching(() -> {
+            seen.set(Files.readString(workbook));
+            changes.release();
+        });
+        
+        long lastWrite = 0;
+        for (int i = 0; i < 4; i++) {
+            write(workbook, "part " + i);
+            lastWrite = System.nanoTime();
+            Thread.sleep(DEBOUNCE_MILLIS / 4);
+        }
+        assertTrue(changes.tryAcquire(5, TimeUnit.SECONDS));
+        
+        long quietMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - lastWrite);
+        assertTrue(quietMillis >= DEBOUNCE_MILLIS, "listener ran " + quietMillis + " ms after the last write");
+        assertEquals(seen.get(), "part 3");
+        watcher.close();
+    }
+    
+    @Test
+    public void otherFilesInTheDirectoryAreIgnored() throws Exception {
+        Semaphore changes = new Semaphore(0);
+        WorkbookWatcher watcher = startWatching(changes::release);
+        
+        write(directory.resolve("~$cases.xlsx"), "lock file");
+        write(directory.resolve("other.csv"), "other");
+        assertFalse(changes.tryAcquire(DEBOUNCE_MILLIS * 3, TimeUnit.MILLISECONDS));
+        
+        write(workbook, "save");
+        assertTrue(changes.tryAcquire(5, TimeUnit.SECONDS));
+        watcher.close();
+    }
+    
+    @Test
+    public void saveBeforeWatchIsReported() throws Exception {
+        WorkbookWatcher watcher = new WorkbookWatcher(workbook, DEBOUNCE_MILLIS);
+        watcher.start();
+        // Saved while the first generation would be running
+        write(workbook, "saved early");
+        
+        Semaphore changes = new Semaphore(0);
+        startWatching(watcher, changes::release);
+        assertTrue(changes.tryAcquire(5, TimeUnit.SECONDS));
+        watcher.close();
+    }
+    
+    @Test
+    public void failingListenerKeepsWatching() throws Exception {
+        Semaphore changes = new Semaphore(0);
+        AtomicInteger calls = new AtomicInteger();
+        WorkbookWatcher watcher = startWatching(() -> {
+            changes.release();
+            if (calls.incrementAndGet() == 1) {
+                throw new IOException("workbook caught half-written");
+            }
+        });
+        
+        write(workbook, "half");
+        assertTrue(changes.tryAcquire(5, TimeUnit.SECONDS));
+        Thread.sleep(DEBOUNCE_MILLIS);
+        write(workbook, "complete");
+        assertTrue(changes.tryAcquire(5, TimeUnit.SECONDS));
+        assertEquals(calls.get(), 2);
+        assertNull(watchFailure.get());
+        watcher.close();
+    }
+    
+    @Test
+    public void interruptStopsWatching() throws Exception {
+        startWatching(() -> { });
+        
+        watchThread.interrupt();
+        watchThread.join(5000);
+        
+        assertFalse(watchThread.isAlive());
+        // Depending on where the interrupt lands, watch() returns or throws InterruptedException
+        Throwable failure = watchFailure.get();
+        assertTrue(failure == null || failure instanceof InterruptedException, String.valueOf(failure));
+    }
+    
+    private WorkbookWatcher startWatching(WorkbookWatcher.ChangeListener listener) throws IOException {
+        WorkbookWatcher watcher = new WorkbookWatcher(workbook, DEBOUNCE_MILLIS);
+        watcher.start();
+        startWatching(watcher, listener);
+        return watcher;
+    }
+    
+    private void startWatching(WorkbookWatcher watcher, WorkbookWatcher.ChangeListener listener) {
+        watchThread = new Thread(() -> {
+            try {
+                watcher.watch(listener);
+            } catch (Throwable e) {
+                watchFailure.set(e);
+            }
+        }, "workbook-watcher-test");
+        watchThread.setDaemon(true);
+        watchThread.start();
+    }
+    
+    private static void write(Path path, String content) throws IOException {
+        Files.write(path, content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,148 @@
+package util;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Reader for test cases exported as CSV
+ * Memory-maps the file and parses RFC 4180 records in a single pass,
+ * including quoted cells with embedded newlines and doubled quotes.
+ * Records are numbered like sheet rows: blank lines are skipped but keep their number.
+ */
+public class CsvTestCaseReader {
+
+    private static final byte QUOTE = '"';
+    private static final byte COMMA = ',';
+    private static final byte CR = '\r';
+    private static final byte LF = '\n';
+
+    /**
+     * Reads test cases from a CSV file
+     * @param filePath Path to the CSV file
+     * @return List of TestCase objects
+     */
+    public static List<TestCase> readTestCases(String filePath) throws IOException {
+        List<TestCase> testCases = new ArrayList<>();
+        readTestCases(filePath, testCases::add);
+        return testCases;
+    }
+
+    /**
+     * Reads test cases from a CSV file, handing each one to the consumer in file order
+     * @param filePath Path to the CSV file
+     * @param consumer Receives each TestCase
+     */
+    public static void readTestCases(String filePath, Consumer<TestCase> consumer) throws IOException {
+        readRows(filePath, ExcelReader.testCaseRowHandler(consumer));
+    }
+
+    /**
+     * Parses the raw records of a CSV file
+     * @param filePath Path to the CSV file
+     * @param handler Receives each record, header record first
+     */
+    public static void readRows(String filePath, RowHandler handler) throws IOException {
+        readRows(filePath, handler, new IngestionMetrics());
+    }
+    
+    /**
+     * Parses the raw records of a CSV file, charging mapping and parsing to the metrics
+     * A CSV file has no workbook to materialize, so that phase stays empty
+     */
+    static void readRows(String filePath, RowHandler handler, IngestionMetrics metrics) throws IOException {
+        metrics.begin(IngestionMetrics.Phase.FILE_OPEN);
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("CSV file too large to map: " + filePath);
+            }
+
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            metrics.addBytesRead(size);
+            metrics.enter(IngestionMetrics.Phase.ROW_EXTRACTION);
+            parse(buffer, (int) size, handler);
+        }
+    }
+
+    /**
+     * Single-pass RFC 4180 state machine over the mapped bytes
+     * Field bytes are accumulated in a reusable scratch buffer and decoded once per field
+     */
+    private static void parse(MappedByteBuffer buffer, int limit, RowHandler handler) {
+        int pos = hasBom(buffer, limit) ? 3 : 0;
+
+        byte[] field = new byte[256];
+        int fieldLength = 0;
+        List<String> record = new ArrayList<>();
+        boolean inQuotes = false;
+        boolean recordStarted = false;
+        int rowNum = 0;
+
+        while (pos < limit) {
+            byte b = buffer.get(pos++);
+
+            if (inQuotes) {
+                if (b == QUOTE) {
+                    if (pos < limit && buffer.get(pos) == QUOTE) {
+                        pos++;
+                    } else {
+                        inQuotes = false;
+                        continue;
+                    }
+                }
+            } else if (b == QUOTE) {
+                inQuotes = true;
+                recordStarted = true;
+                continue;
+            } else if (b == COMMA) {
+                record.add(new String(field, 0, fieldLength, StandardCharsets.UTF_8));
+                fieldLength = 0;
+                recordStarted = true;
+                continue;
+            } else if (b == CR || b == LF) {
+                if (b == CR && pos < limit && buffer.get(pos) == LF) {
+                    pos++;
+                }
+                if (recordStarted || fieldLength > 0) {
+                    record.add(new String(field, 0, fieldLength, StandardCharsets.UTF_8));
+                    handler.handleRow(rowNum++, record.toArray(new String[0]));
+                    record.clear();
+                } else if (rowNum > 0) {
+                    // A blank line is an empty record, like an empty sheet row, so later row
+                    // numbers match the file; blank lines before the header are dropped
+                    rowNum++;
+                }
+                fieldLength = 0;
+                recordStarted = false;
+                continue;
+            }
+
+            if (fieldLength == field.length) {
+                field = Arrays.copyOf(field, field.length * 2);
+            }
+            field[fieldLength++] = b;
+            recordStarted = true;
+        }
+
+        // Last record without a trailing newline
+        if (recordStarted || fieldLength > 0) {
+            record.add(new String(field, 0, fieldLength, StandardCharsets.UTF_8));
+            handler.handleRow(rowNum, record.toArray(new String[0]));
+        }
+    }
+
+    private static boolean hasBom(MappedByteBuffer buffer, int limit) {
+        return limit >= 3
+            && buffer.get(0) == (byte) 0xEF
+            && buffer.get(1) == (byte) 0xBB
+            && buffer.get(2) == (byte) 0xBF;
+    }
+}
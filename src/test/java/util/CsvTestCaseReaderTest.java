@@ -0,0 +1,127 @@
+package util;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.testng.Assert.*;
+
+/**
+ * RFC 4180 parsing and row numbering of the memory-mapped CSV reader
+ */
+public class CsvTestCaseReaderTest {
+    
+    private Path directory;
+    private Path source;
+    
+    @BeforeMethod
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("csv-reader-test");
+        source = directory.resolve("cases.csv");
+    }
+    
+    @AfterMethod(alwaysRun = true)
+    public void deleteFiles() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+    
+    @Test
+    public void splitsPlainRecords() throws IOException {
+        List<String[]> rows = read("a,b,c\n1,2,3\n");
+        
+        assertEquals(rows.size(), 2);
+        assertEquals(rows.get(0), new String[] {"a", "b", "c"});
+        assertEquals(rows.get(1), new String[] {"1", "2", "3"});
+    }
+    
+    @Test
+    public void keepsEmptyFields() throws IOException {
+        List<String[]> rows = read("a,,c\n,,\n");
+        
+        assertEquals(rows.get(0), new String[] {"a", "", "c"});
+        assertEquals(rows.get(1), new String[] {"", "", ""});
+    }
+    
+    @Test
+    public void quotedFieldsKeepCommasAndNewlines() throws IOException {
+        List<String[]> rows = read("id,steps\nTC_01,\"1. Open, then wait\n2. Click Login\"\nTC_02,done\n");
+        
+        assertEquals(rows.size(), 3);
+        assertEquals(rows.get(1), new String[] {"TC_01", "1. Open, then wait\n2. Click Login"});
+        assertEquals(rows.get(2), new String[] {"TC_02", "done"});
+    }
+    
+    @Test
+    public void doubledQuotesAreUnescaped() throws IOException {
+        List<String[]> rows = read("id,step\nTC_01,\"Enter \"\"welldocsu\"\" as username\"\n");
+        
+        assertEquals(rows.get(1), new String[] {"TC_01", "Enter \"welldocsu\" as username"});
+    }
+    
+    @Test
+    public void skipsByteOrderMark() throws IOException {
+        List<String[]> rows = read("﻿Test Case ID,Expected Results\nTC_01,Dashboard\n");
+        
+        assertEquals(rows.get(0)[0], "Test Case ID");
+    }
+    
+    @Test
+    public void acceptsCrlfInsideAndBetweenRecords() throws IOException {
+        List<String[]> rows = read("id,steps\r\nTC_01,\"Open\r\nClick\"\r\nTC_02,done\r\n");
+        
+        assertEquals(rows.size(), 3);
+        assertEquals(rows.get(1), new String[] {"TC_01", "Open\r\nClick"});
+        assertEquals(rows.get(2), new String[] {"TC_02", "done"});
+    }
+    
+    @Test
+    public void readsLastRecordWithoutNewline() throws IOException {
+        List<String[]> rows = read("id,steps\nTC_01,done");
+        
+        assertEquals(rows.size(), 2);
+        assertEquals(rows.get(1), new String[] {"TC_01", "done"});
+    }
+    
+    @Test
+    public void blankLinesKeepTheirRowNumber() throws IOException {
+        List<Integer> rowNumbers = new ArrayList<>();
+        write("\nid,steps\nTC_01,a\n\n\r\nTC_02,b\n");
+        CsvTestCaseReader.readRows(source.toString(), (rowNum, values) -> rowNumbers.add(rowNum));
+        
+        // A blank line before the header is dropped, so the header stays row 0
+        assertEquals(rowNumbers, List.of(0, 1, 4));
+    }
+    
+    @Test
+    public void validationNamesFileRows() throws IOException {
+        write("Test Case ID,Automation Class Name,Automation Method Name\n"
+            + "\n"
+            + "TC_01,LoginTest,loginPortal\n"
+            + "TC_01,LoginTest,loginAgain\n");
+        
+        List<String> problems = ExcelReader.validate(source.toString()).getProblems();
+        assertEquals(problems, List.of("TC_01: duplicate Test Case ID (first used by row 3)"));
+    }
+    
+    private List<String[]> read(String content) throws IOException {
+        write(content);
+        List<String[]> rows = new ArrayList<>();
+        CsvTestCaseReader.readRows(source.toString(), (rowNum, values) -> rows.add(values));
+        return rows;
+    }
+    
+    private void write(String content) throws IOException {
+        Files.write(source, content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -4,7 +4,11 @@ import org.apache.poi.ss.usermodel.*;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Utility class for reading test cases from Excel files
@@ -12,14 +16,36 @@ import java.util.*;
  */
 public class ExcelReader {
     
-    private static final String TEST_CASE_ID = "Test Case ID";
-    private static final String AUTOMATION_CLASS_NAME = "Automation Class Name";
-    private static final String AUTOMATION_METHOD_NAME = "Automation Method Name";
+    /**
+     * Version of the parse output; bump it whenever the same sheet would parse differently
+     * (header aliases, step lexing and numbering, cell formatting), so persisted results
+     * such as TestCaseCatalog files are rebuilt
+     */
+    static final int PARSER_VERSION = 3;
+    
+    private static final int DEFAULT_PREFETCH = 256;
+    private static final int DEFAULT_PARALLELISM = Runtime.getRuntime().availableProcessors();
+    
+    static final String TEST_CASE_ID = "Test Case ID";
+    static final String AUTOMATION_CLASS_NAME = "Automation Class Name";
+    static final String AUTOMATION_METHOD_NAME = "Automation Method Name";
     private static final String PRE_CONDITIONS = "Pre-Conditions";
     private static final String TEST_SCENARIO_SUMMARY = "Test Scenario Summary";
     private static final String TEST_DATA = "Test Data";
     private static final String TEST_CASE_STEPS = "Test Case (steps)";
     private static final String EXPECTED_RESULTS = "Expected Results";
+    
+    private static final Map<String, String> HEADER_ALIASES = Map.of(
+        "test case id", TEST_CASE_ID,
+        "automation class name", AUTOMATION_CLASS_NAME,
+        "automation method name", AUTOMATION_METHOD_NAME,
+        "pre-conditions", PRE_CONDITIONS,
+        "test scenario summary", TEST_SCENARIO_SUMMARY,
+        "test data", TEST_DATA,
+        "test case (steps)", TEST_CASE_STEPS,
+        "test case", TEST_CASE_STEPS,
+        "expected results", EXPECTED_RESULTS
+    );
 
     /**
      * Reads test cases from Excel file and converts them to TestCase objects
@@ -27,43 +53,273 @@ public class ExcelReader {
      * @return List of TestCase objects
      */
     public static List<TestCase> readTestCases(String filePath) throws IOException {
-        List<TestCase> testCases = new ArrayList<>();
-        
-        try (FileInputStream fis = new FileInputStream(filePath);
-             Workbook workbook = new XSSFWorkbook(fis)) {
-            
-            Sheet sheet = workbook.getSheetAt(0);
-            Map<String, Integer> columnMap = createColumnMap(sheet);
+        return readTestCases(filePath, DEFAULT_PARALLELISM);
+    }
+    
+    /**
+     * Reads test cases, extracting raw cells on the reading thread and lexing steps
+     * and test data for batches of rows on a fork-join pool
+     * @param filePath Path to the Excel or CSV file
+     * @param parallelism Post-processing threads; 1 does all work on the calling thread
+     * @return List of TestCase objects in sheet order
+     */
+    public static List<TestCase> readTestCases(String filePath, int parallelism) throws IOException {
+        return readTestCases(filePath, parallelism, new IngestionMetrics());
+    }
+    
+    /**
+     * Reads test cases with the default parallelism, recording per-phase timings
+     * @param filePath Path to the Excel or CSV file
+     * @param metrics Receives timings, row and byte counts of this read
+     * @return List of TestCase objects in sheet order
+     */
+    public static List<TestCase> readTestCases(String filePath, IngestionMetrics metrics) throws IOException {
+        return readTestCases(filePath, DEFAULT_PARALLELISM, metrics);
+    }
+    
+    /**
+     * Reads test cases, recording per-phase timings
+     * @param filePath Path to the Excel or CSV file
+     * @param parallelism Post-processing threads; 1 does all work on the calling thread
+     * @param metrics Receives timings, row and byte counts of this read
+     * @return List of TestCase objects in sheet order
+     */
+    public static List<TestCase> readTestCases(String filePath, int parallelism, IngestionMetrics metrics)
+            throws IOException {
+        try (ParallelRowProcessor processor = new ParallelRowProcessor(parallelism, metrics)) {
+            if (isCsv(filePath)) {
+                CsvTestCaseReader.readRows(filePath, processor, metrics);
+                return processor.finish();
+            }
             
-            // Skip header row, start from row 1
-            for (int i = 1; i <= sheet.getLastRowNum(); i++) {
-                Row row = sheet.getRow(i);
-                if (row == null) continue;
+            metrics.begin(IngestionMetrics.Phase.FILE_OPEN);
+            try (FileInputStream fis = new FileInputStream(filePath)) {
+                metrics.addBytesRead(fis.getChannel().size());
+                metrics.enter(IngestionMetrics.Phase.WORKBOOK_LOAD);
                 
-                TestCase testCase = createTestCaseFromRow(row, columnMap);
-                if (testCase != null && testCase.getId() != null && !testCase.getId().trim().isEmpty()) {
-                    testCases.add(testCase);
+                try (Workbook workbook = new XSSFWorkbook(fis);
+                     FormulaResults formulas = FormulaResults.forWorkbook(workbook)) {
+                    metrics.enter(IngestionMetrics.Phase.ROW_EXTRACTION);
+                    
+                    // Same formatting as the streaming reader's XSSFSheetXMLHandler
+                    DataFormatter formatter = new DataFormatter();
+                    Sheet sheet = workbook.getSheetAt(0);
+                    Row headerRow = sheet.getRow(0);
+                    processor.handleRow(0, headerRow != null ? getRowValues(headerRow, formatter, formulas) : new String[0]);
+                    
+                    // Skip header row, start from row 1
+                    for (int i = 1; i <= sheet.getLastRowNum(); i++) {
+                        Row row = sheet.getRow(i);
+                        if (row == null) continue;
+                        
+                        processor.handleRow(i, getRowValues(row, formatter, formulas));
+                    }
                 }
             }
+            return processor.finish();
+        } finally {
+            metrics.end();
+        }
+    }
+    
+    /**
+     * Reads test cases using the streaming SAX event model instead of a workbook DOM
+     * Heap usage stays constant per row, which matters for very large workbooks
+     * @param filePath Path to the Excel file
+     * @return List of TestCase objects
+     */
+    public static List<TestCase> readTestCasesStreaming(String filePath) throws IOException {
+        try (ParallelRowProcessor processor = new ParallelRowProcessor(DEFAULT_PARALLELISM)) {
+            readRows(filePath, processor);
+            return processor.finish();
         }
+    }
+    
+    /**
+     * Reads test cases from every sheet of several workbooks in parallel
+     * @param filePaths XLSX or CSV files, merged in the given order
+     * @return List of TestCase objects
+     */
+    public static List<TestCase> readTestCases(List<String> filePaths) throws IOException {
+        return new ParallelExcelReader().readTestCases(filePaths);
+    }
+    
+    /**
+     * Reads several workbooks into a store that spills to memory-mapped files once
+     * the heap budget is exceeded, so very large suites load with a fixed small heap
+     * Steps are not pooled: a pool would keep every unique step on the heap, outside the budget
+     * @param filePaths XLSX or CSV files, read in the given order
+     * @param heapBudgetBytes Approximate heap the rows may use before spilling
+     * @return Store of all test cases; close it to delete the spill files
+     */
+    public static SpillingTestCaseStore readToStore(List<String> filePaths, long heapBudgetBytes) throws IOException {
+        SpillingTestCaseStore store = new SpillingTestCaseStore(heapBudgetBytes);
+        try {
+            for (String filePath : filePaths) {
+                readRows(filePath, testCaseRowHandler(testCase -> {
+                    try {
+                        store.add(testCase);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }, (StepPool) null));
+            }
+        } catch (UncheckedIOException e) {
+            store.close();
+            throw e.getCause();
+        } catch (IOException | RuntimeException e) {
+            store.close();
+            throw e;
+        }
+        return store;
+    }
+    
+    /**
+     * Lazily streams test cases while the file is still being read
+     * Test cases are immutable PrecomputedTestCase objects, built on the reader thread
+     * The stream must be closed (e.g. try-with-resources) to release the file
+     * @param filePath Path to the Excel or CSV file
+     * @param prefetch Maximum number of test cases read ahead of the consumer
+     * @return Ordered stream of TestCase objects
+     */
+    public static Stream<TestCase> streamTestCases(String filePath, int prefetch) {
+        return streamTestCases(filePath, prefetch, new IngestionMetrics());
+    }
+    
+    /**
+     * Lazily streams test cases, recording per-phase timings of the background reader
+     * Time the reader spends blocked on a full prefetch buffer is reported as waiting on
+     * the consumer; the metrics are complete once the stream has been fully consumed
+     */
+    public static Stream<TestCase> streamTestCases(String filePath, int prefetch, IngestionMetrics metrics) {
+        PrefetchingTestCaseSpliterator spliterator = new PrefetchingTestCaseSpliterator(filePath, prefetch, metrics);
+        return StreamSupport.stream(spliterator, false).onClose(spliterator::close);
+    }
+    
+    /**
+     * Lazily streams test cases with the default prefetch buffer
+     */
+    public static Stream<TestCase> streamTestCases(String filePath) {
+        return streamTestCases(filePath, DEFAULT_PREFETCH);
+    }
+    
+    /**
+     * Lazily streams test cases with the default prefetch buffer, recording per-phase timings
+     */
+    public static Stream<TestCase> streamTestCases(String filePath, IngestionMetrics metrics) {
+        return streamTestCases(filePath, DEFAULT_PREFETCH, metrics);
+    }
+    
+    /**
+     * Reads test cases into a column-oriented, dictionary-encoded table
+     * Repeated text (class names, pre-conditions, steps) is held once for the whole suite
+     * @param filePath Path to the Excel or CSV file
+     * @return Table whose rows are exposed as read-only TestCase views
+     */
+    public static TestCaseTable readTable(String filePath) throws IOException {
+        TestCaseTable table = new TestCaseTable();
+        Map<String, Integer> columnMap = new HashMap<>();
         
-        return testCases;
+        readRows(filePath, (rowNum, values) -> {
+            if (rowNum == 0) {
+                columnMap.putAll(createColumnMap(values));
+                return;
+            }
+            String id = getCellValue(values, columnMap, TEST_CASE_ID);
+            if (id.trim().isEmpty()) return;
+            
+            table.add(id,
+                getCellValue(values, columnMap, AUTOMATION_CLASS_NAME),
+                getCellValue(values, columnMap, AUTOMATION_METHOD_NAME),
+                getCellValue(values, columnMap, PRE_CONDITIONS),
+                getCellValue(values, columnMap, TEST_SCENARIO_SUMMARY),
+                getCellValue(values, columnMap, TEST_DATA),
+                getCellValue(values, columnMap, TEST_CASE_STEPS),
+                getCellValue(values, columnMap, EXPECTED_RESULTS));
+        });
+        
+        table.trimToSize();
+        return table;
     }
     
     /**
-     * Creates a column mapping for the Excel headers
+     * Checks test case IDs and class/method names in one pass over the raw rows
+     * Only the identifying cells are read, so this is cheap enough to run before generation
+     * @param filePath Path to the Excel or CSV file
+     * @return Validator holding every conflict found
      */
-    private static Map<String, Integer> createColumnMap(Sheet sheet) {
+    public static TestCaseValidator validate(String filePath) throws IOException {
+        // Sheet row numbers (1-based, as shown in Excel) of the validated rows, for messages
+        int[][] rowNumbers = {new int[1024]};
+        TestCaseValidator validator = new TestCaseValidator(ordinal -> "row " + rowNumbers[0][ordinal]);
         Map<String, Integer> columnMap = new HashMap<>();
-        Row headerRow = sheet.getRow(0);
         
-        if (headerRow != null) {
-            for (int i = 0; i < headerRow.getLastCellNum(); i++) {
-                Cell cell = headerRow.getCell(i);
-                if (cell != null) {
-                    String headerName = getCellValueAsString(cell).trim();
-                    columnMap.put(headerName, i);
-                }
+        readRows(filePath, (rowNum, values) -> {
+            if (rowNum == 0) {
+                columnMap.putAll(createColumnMap(values));
+                return;
+            }
+            String id = getCellValue(values, columnMap, TEST_CASE_ID);
+            if (id.trim().isEmpty()) return;
+            
+            int ordinal = validator.getCount();
+            if (ordinal == rowNumbers[0].length) {
+                rowNumbers[0] = Arrays.copyOf(rowNumbers[0], ordinal * 2);
+            }
+            rowNumbers[0][ordinal] = rowNum + 1;
+            validator.add(id,
+                getCellValue(values, columnMap, AUTOMATION_CLASS_NAME),
+                getCellValue(values, columnMap, AUTOMATION_METHOD_NAME));
+        });
+        
+        return validator;
+    }
+    
+    /**
+     * Reads only what changed since the last committed run, using per-row fingerprints
+     * stored next to the workbook
+     * @param filePath Path to the Excel or CSV file
+     * @return Added, changed and removed test cases
+     */
+    public static TestCaseChanges readChanges(String filePath) throws IOException {
+        return RowFingerprintCache.readChanges(filePath);
+    }
+    
+    /**
+     * Streams the raw rows of the first sheet of an XLSX file, or of a CSV file
+     */
+    static void readRows(String filePath, RowHandler handler) throws IOException {
+        readRows(filePath, handler, new IngestionMetrics());
+    }
+    
+    /**
+     * Streams raw rows, charging file open, workbook loading and row extraction to the metrics
+     */
+    static void readRows(String filePath, RowHandler handler, IngestionMetrics metrics) throws IOException {
+        if (isCsv(filePath)) {
+            CsvTestCaseReader.readRows(filePath, handler, metrics);
+        } else {
+            StreamingExcelReader.readRows(filePath, handler, metrics);
+        }
+    }
+    
+    /**
+     * Checks whether the input file is a CSV export rather than an XLSX workbook
+     */
+    static boolean isCsv(String filePath) {
+        return filePath.toLowerCase().endsWith(".csv");
+    }
+    
+    /**
+     * Creates a column mapping from raw header values
+     */
+    static Map<String, Integer> createColumnMap(String[] headers) {
+        Map<String, Integer> columnMap = new HashMap<>();
+        
+        for (int i = 0; i < headers.length; i++) {
+            String headerName = canonicalHeader(headers[i]);
+            if (!headerName.isEmpty()) {
+                columnMap.put(headerName, i);
             }
         }
         
@@ -71,19 +327,37 @@ public class ExcelReader {
     }
     
     /**
-     * Creates a TestCase object from an Excel row
+     * Normalizes header spellings used by the different exports
+     * e.g. "Pre- Conditions" and "Test Case" in the CSV export
+     */
+    private static String canonicalHeader(String header) {
+        String name = header.replace("\uFEFF", "").trim().replaceAll("\\s*-\\s*", "-");
+        String canonical = HEADER_ALIASES.get(name.toLowerCase());
+        return canonical != null ? canonical : name;
+    }
+    
+    /**
+     * Creates a TestCase object from raw cell values, without pooling its steps
+     */
+    static TestCase createTestCaseFromValues(String[] values, Map<String, Integer> columnMap) {
+        return createTestCaseFromValues(values, columnMap, null);
+    }
+    
+    /**
+     * Creates a TestCase object from raw cell values
+     * @param steps Pool of the current read, or null to keep the steps unpooled
      */
-    private static TestCase createTestCaseFromRow(Row row, Map<String, Integer> columnMap) {
+    static TestCase createTestCaseFromValues(String[] values, Map<String, Integer> columnMap, StepPool steps) {
         TestCase testCase = new TestCase();
         
-        testCase.setId(getCellValue(row, columnMap, TEST_CASE_ID));
-        testCase.setClassName(getCellValue(row, columnMap, AUTOMATION_CLASS_NAME));
-        testCase.setMethodName(getCellValue(row, columnMap, AUTOMATION_METHOD_NAME));
-        testCase.setPreConditions(getCellValue(row, columnMap, PRE_CONDITIONS));
-        testCase.setSummary(getCellValue(row, columnMap, TEST_SCENARIO_SUMMARY));
-        testCase.setTestData(getCellValue(row, columnMap, TEST_DATA));
-        testCase.setSteps(parseSteps(getCellValue(row, columnMap, TEST_CASE_STEPS)));
-        testCase.setExpected(getCellValue(row, columnMap, EXPECTED_RESULTS));
+        testCase.setId(getCellValue(values, columnMap, TEST_CASE_ID));
+        testCase.setClassName(getCellValue(values, columnMap, AUTOMATION_CLASS_NAME));
+        testCase.setMethodName(getCellValue(values, columnMap, AUTOMATION_METHOD_NAME));
+        testCase.setPreConditions(getCellValue(values, columnMap, PRE_CONDITIONS));
+        testCase.setSummary(getCellValue(values, columnMap, TEST_SCENARIO_SUMMARY));
+        testCase.setTestData(getCellValue(values, columnMap, TEST_DATA));
+        parseSteps(testCase, getCellValue(values, columnMap, TEST_CASE_STEPS), steps);
+        testCase.setExpected(getCellValue(values, columnMap, EXPECTED_RESULTS));
         
         // Extract structured test data
         extractStructuredTestData(testCase);
@@ -92,62 +366,138 @@ public class ExcelReader {
     }
     
     /**
-     * Gets cell value as string, handling different cell types
+     * Creates a row handler that maps the header row and turns every
+     * following row into a TestCase, skipping rows without an ID
+     * Steps are pooled in a StepPool of this handler's read
+     */
+    static RowHandler testCaseRowHandler(Consumer<TestCase> consumer) {
+        return testCaseRowHandler(consumer, new StepPool());
+    }
+    
+    /**
+     * Creates a test case row handler that pools the steps in the given pool
+     * @param steps Pool of the current read, or null to keep the steps unpooled
+     */
+    static RowHandler testCaseRowHandler(Consumer<TestCase> consumer, StepPool steps) {
+        return testCaseRowHandler(consumer, new IngestionMetrics(), steps, false);
+    }
+    
+    /**
+     * Creates a test case row handler that charges header mapping, post-processing
+     * and the consumer's time to the metrics
      */
-    private static String getCellValue(Row row, Map<String, Integer> columnMap, String columnName) {
+    static RowHandler testCaseRowHandler(Consumer<TestCase> consumer, IngestionMetrics metrics) {
+        return testCaseRowHandler(consumer, metrics, new StepPool(), false);
+    }
+    
+    /**
+     * Creates a test case row handler that hands out immutable PrecomputedTestCase objects,
+     * deriving their cached fields as part of post-processing
+     */
+    static RowHandler precomputedRowHandler(Consumer<TestCase> consumer, IngestionMetrics metrics) {
+        return testCaseRowHandler(consumer, metrics, new StepPool(), true);
+    }
+    
+    private static RowHandler testCaseRowHandler(Consumer<TestCase> consumer, IngestionMetrics metrics,
+                                                 StepPool steps, boolean precompute) {
+        return new RowHandler() {
+            private Map<String, Integer> columnMap = Map.of();
+
+            @Override
+            public void handleRow(int rowNum, String[] values) {
+                if (rowNum == 0) {
+                    IngestionMetrics.Phase previous = metrics.enter(IngestionMetrics.Phase.HEADER_MAPPING);
+                    columnMap = createColumnMap(values);
+                    metrics.enter(previous);
+                    return;
+                }
+
+                metrics.countRow();
+                IngestionMetrics.Phase previous = metrics.enter(IngestionMetrics.Phase.POST_PROCESSING);
+                TestCase testCase = createTestCaseFromValues(values, columnMap, steps);
+                if (hasId(testCase)) {
+                    if (precompute) {
+                        testCase = PrecomputedTestCase.of(testCase);
+                    }
+                    metrics.enter(IngestionMetrics.Phase.CONSUMER_WAIT);
+                    consumer.accept(testCase);
+                }
+                metrics.enter(previous);
+            }
+        };
+    }
+
+    /**
+     * Checks that a parsed row carries a usable Test Case ID
+     */
+    static boolean hasId(TestCase testCase) {
+        return testCase != null && testCase.getId() != null && !testCase.getId().trim().isEmpty();
+    }
+    
+    /**
+     * Converts all cells of a row to strings, indexed by column
+     */
+    private static String[] getRowValues(Row row, DataFormatter formatter, FormulaResults formulas) {
+        int width = Math.max(row.getLastCellNum(), 0);
+        String[] values = new String[width];
+        for (int i = 0; i < width; i++) {
+            values[i] = getCellValueAsString(row.getCell(i), formatter, formulas);
+        }
+        return values;
+    }
+    
+    /**
+     * Gets cell value by column name from raw row values
+     */
+    static String getCellValue(String[] values, Map<String, Integer> columnMap, String columnName) {
         Integer columnIndex = columnMap.get(columnName);
-        if (columnIndex == null) return "";
+        if (columnIndex == null || columnIndex >= values.length) return "";
         
-        Cell cell = row.getCell(columnIndex);
-        return getCellValueAsString(cell);
+        String value = values[columnIndex];
+        return value != null ? value : "";
     }
     
     /**
      * Converts cell value to string regardless of cell type
+     * Values are formatted as Excel displays them, as in the streaming reader, so numbers,
+     * dates and booleans parse the same whichever entry point reads the sheet.
+     * Formula cells yield their cached result, evaluated only when none is stored
      */
-    private static String getCellValueAsString(Cell cell) {
+    private static String getCellValueAsString(Cell cell, DataFormatter formatter, FormulaResults formulas) {
         if (cell == null) return "";
-        
-        switch (cell.getCellType()) {
-            case STRING:
-                return cell.getStringCellValue();
-            case NUMERIC:
-                if (DateUtil.isCellDateFormatted(cell)) {
-                    return cell.getDateCellValue().toString();
-                } else {
-                    return String.valueOf((long) cell.getNumericCellValue());
-                }
-            case BOOLEAN:
-                return String.valueOf(cell.getBooleanCellValue());
-            case FORMULA:
-                return cell.getCellFormula();
-            default:
-                return "";
+        if (cell.getCellType() == CellType.FORMULA) {
+            return formulas.valueOf(cell);
         }
+        return formatter.formatCellValue(cell);
     }
     
     /**
      * Parses test case steps from a single cell value
      * Assumes steps are separated by newlines or semicolons
+     * Steps are interned in the read's StepPool, if any; exact repeats keep the pooled TestStep
      */
-    private static List<String> parseSteps(String stepsText) {
-        List<String> steps = new ArrayList<>();
-        if (stepsText == null || stepsText.trim().isEmpty()) {
-            return steps;
-        }
-        
-        // Split by newlines, semicolons, or numbered lists
-        String[] stepArray = stepsText.split("[\n\r;]+");
-        for (String step : stepArray) {
-            String cleanStep = step.trim();
-            if (!cleanStep.isEmpty()) {
-                // Remove step numbers (1., 2., etc.)
-                cleanStep = cleanStep.replaceAll("^\\d+\\.\\s*", "");
-                steps.add(cleanStep);
+    private static void parseSteps(TestCase testCase, String stepsText, StepPool pool) {
+        List<TestStep> structuredSteps = StepLexer.lexSteps(stepsText);
+        List<String> steps = new ArrayList<>(structuredSteps.size());
+        if (pool == null) {
+            for (TestStep step : structuredSteps) {
+                steps.add(step.getText());
             }
+            testCase.setSteps(steps);
+            testCase.setStructuredSteps(structuredSteps);
+            return;
         }
         
-        return steps;
+        int[] stepIds = new int[structuredSteps.size()];
+        for (int i = 0; i < stepIds.length; i++) {
+            stepIds[i] = pool.intern(structuredSteps.get(i));
+            TestStep step = pool.share(stepIds[i], structuredSteps.get(i));
+            structuredSteps.set(i, step);
+            steps.add(step.getText());
+        }
+        testCase.setSteps(steps);
+        testCase.setStructuredSteps(structuredSteps);
+        testCase.setStepIds(pool, stepIds);
     }
     
     /**
@@ -160,21 +510,6 @@ public class ExcelReader {
             return;
         }
         
-        Map<String, String> structuredData = new HashMap<>();
-        String[] lines = testData.split("[\n\r]+");
-        
-        for (String line : lines) {
-            line = line.trim();
-            if (line.contains(":")) {
-                String[] parts = line.split(":", 2);
-                if (parts.length == 2) {
-                    String key = parts[0].trim().toLowerCase();
-                    String value = parts[1].trim();
-                    structuredData.put(key, value);
-                }
-            }
-        }
-        
-        testCase.setStructuredTestData(structuredData);
+        testCase.setStructuredTestData(StepLexer.lexTestData(testData));
     }
 }
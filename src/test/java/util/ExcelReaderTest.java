@@ -0,0 +1,141 @@
+package util;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFCell;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.testng.Assert.*;
+
+/**
+ * Cell formatting of the workbook (DOM) and streaming (SAX) XLSX readers
+ */
+public class ExcelReaderTest {
+    
+    private static final String[] HEADERS = {
+        "Test Case ID", "Automation Class Name", "Automation Method Name", "Pre-Conditions",
+        "Test Scenario Summary", "Test Data", "Test Case (steps)", "Expected Results"
+    };
+    
+    private Path directory;
+    private Path source;
+    
+    @BeforeMethod
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("excel-reader-test");
+        source = directory.resolve("cases.xlsx");
+    }
+    
+    @AfterMethod(alwaysRun = true)
+    public void deleteFiles() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+    
+    @Test
+    public void bothReadersFormatNumbersDatesAndBooleansAlike() throws IOException {
+        try (XSSFWorkbook workbook = new XSSFWorkbook()) {
+            Row row = createSheet(workbook);
+            row.createCell(0).setCellValue(101);
+            row.createCell(1).setCellValue("LoginTest");
+            row.createCell(2).setCellValue("loginPortal");
+            row.createCell(3).setCellValue(true);
+            row.createCell(4).setCellValue(2.5);
+            Cell date = row.createCell(5);
+            date.setCellValue(LocalDate.of(2026, 10, 16));
+            CellStyle dateStyle = workbook.createCellStyle();
+            dateStyle.setDataFormat(workbook.createDataFormat().getFormat("yyyy-mm-dd"));
+            date.setCellStyle(dateStyle);
+            row.createCell(6).setCellValue("Click Login");
+            // Cached result stored with the formula
+            Cell formula = row.createCell(7);
+            formula.setCellFormula("E2*2");
+            workbook.getCreationHelper().createFormulaEvaluator().evaluateFormulaCell(formula);
+            save(workbook);
+        }
+        
+        TestCase dom = ExcelReader.readTestCases(source.toString()).get(0);
+        TestCase sax = ExcelReader.readTestCasesStreaming(source.toString()).get(0);
+        assertEquals(dom.getId(), "101");
+        assertEquals(dom.getPreConditions(), "TRUE");
+        assertEquals(dom.getSummary(), "2.5");
+        assertEquals(dom.getTestData(), "2026-10-16");
+        assertEquals(dom.getExpected(), "5");
+        
+        assertEquals(sax.getId(), dom.getId());
+        assertEquals(sax.getPreConditions(), dom.getPreConditions());
+        assertEquals(sax.getSummary(), dom.getSummary());
+        assertEquals(sax.getTestData(), dom.getTestData());
+        assertEquals(sax.getExpected(), dom.getExpected());
+    }
+    
+    @Test
+    public void evaluatesFormulasSavedWithoutResult() throws IOException {
+        try (XSSFWorkbook workbook = new XSSFWorkbook()) {
+            Row row = createSheet(workbook);
+            row.createCell(0).setCellValue("TC_01");
+            row.createCell(1).setCellValue("LoginTest");
+            row.createCell(2).setCellValue("loginPortal");
+            row.createCell(4).setCellValue(2.5);
+            // Not evaluated, so the file stores no cached result
+            row.createCell(7).setCellFormula("E2*2");
+            save(workbook);
+        }
+        
+        assertEquals(ExcelReader.readTestCases(source.toString()).get(0).getExpected(), "5");
+        assertEquals(ExcelReader.readTestCasesStreaming(source.toString()).get(0).getExpected(), "5");
+    }
+    
+    @Test
+    public void unresolvableFormulasFallBackToTheirText() throws IOException {
+        // An external reference as Excel stores it, without its link part, and a broken formula
+        for (String formula : List.of("[1]Sheet1!A1", "SUM(A1:")) {
+            try (XSSFWorkbook workbook = new XSSFWorkbook()) {
+                Row row = createSheet(workbook);
+                row.createCell(0).setCellValue("TC_01");
+                row.createCell(1).setCellValue("LoginTest");
+                row.createCell(2).setCellValue("loginPortal");
+                row.createCell(6).setCellValue("Click Login");
+                // Written as raw XML: POI refuses to set formulas it cannot parse or resolve
+                ((XSSFCell) row.createCell(7)).getCTCell().addNewF().setStringValue(formula);
+                save(workbook);
+            }
+            
+            // Ingestion continues with the other cells of the row
+            TestCase dom = ExcelReader.readTestCases(source.toString()).get(0);
+            assertEquals(dom.getExpected(), formula);
+            assertEquals(dom.getSteps(), List.of("Click Login"));
+            assertEquals(ExcelReader.readTestCasesStreaming(source.toString()).get(0).getExpected(), formula);
+        }
+    }
+    
+    private static Row createSheet(XSSFWorkbook workbook) {
+        Sheet sheet = workbook.createSheet("Test Cases");
+        Row header = sheet.createRow(0);
+        for (int i = 0; i < HEADERS.length; i++) {
+            header.createCell(i).setCellValue(HEADERS[i]);
+        }
+        return sheet.createRow(1);
+    }
+    
+    private void save(XSSFWorkbook workbook) throws IOException {
+        try (OutputStream out = Files.newOutputStream(source)) {
+            workbook.write(out);
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package util;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.CellValue;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.FormulaError;
+import org.apache.poi.ss.usermodel.FormulaEvaluator;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.ss.util.NumberToTextConverter;
+import org.apache.poi.xssf.usermodel.XSSFCell;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+
+/**
+ * Values of formula cells, read from the results cached in the XLSX file
+ * Excel stores the last calculated value next to every formula, so reading it costs
+ * no more than reading a constant. Only formula cells without a cached value (e.g.
+ * files written by tools that do not calculate) are evaluated, through a single
+ * FormulaEvaluator per workbook plus a per-cell memo, so no formula is calculated twice.
+ */
+class FormulaResults implements Closeable {
+    
+    private final String filePath;
+    private Workbook workbook;
+    private OPCPackage ownedPackage;
+    private FormulaEvaluator evaluator;
+    private final Map<String, CellValue> memo = new HashMap<>();
+    private final DataFormatter formatter = new DataFormatter();
+    
+    private FormulaResults(String filePath, Workbook workbook) {
+        this.filePath = filePath;
+        this.workbook = workbook;
+    }
+    
+    /**
+     * Formula results for an already opened workbook; the workbook is not closed
+     */
+    static FormulaResults forWorkbook(Workbook workbook) {
+        return new FormulaResults(null, workbook);
+    }
+    
+    /**
+     * Formula results for a file read with the streaming API
+     * The workbook is only opened if a formula without cached value is found
+     */
+    static FormulaResults forFile(String filePath) {
+        return new FormulaResults(filePath, null);
+    }
+    
+    /**
+     * Display value of a formula cell, formatted like constants are by DataFormatter
+     */
+    synchronized String valueOf(Cell cell) {
+        if (hasCachedValue(cell)) {
+            switch (cell.getCachedFormulaResultType()) {
+                case STRING:
+                    return cell.getStringCellValue();
+                case NUMERIC:
+                    return formatNumber(cell, cell.getNumericCellValue());
+                case BOOLEAN:
+                    return formatBoolean(cell.getBooleanCellValue());
+                case ERROR:
+                    return FormulaError.forInt(cell.getErrorCellValue()).getString();
+                default:
+                    return "";
+            }
+        }
+        
+        CellValue value = evaluate(cell);
+        if (value == null) return cell.getCellFormula();
+        switch (value.getCellType()) {
+            case STRING:
+                return value.getStringValue();
+            case NUMERIC:
+                return formatNumber(cell, value.getNumberValue());
+            case BOOLEAN:
+                return formatBoolean(value.getBooleanValue());
+            case ERROR:
+                return FormulaError.forInt(value.getErrorValue()).getString();
+            default:
+                return "";
+        }
+    }
+    
+    /**
+     * Raw value for a formula cell that the streaming reader found without cached result
+     * Numbers are returned unformatted, so the sheet's number format still applies
+     * @param booleanAsDigit Whether booleans are written as "1"/"0" (cells typed t="b")
+     * @return The calculated value, or null if the formula cannot be evaluated
+     */
+    synchronized String evaluate(String sheetName, String cellReference, boolean booleanAsDigit) throws IOException {
+        Workbook book = workbook();
+        Sheet sheet = book.getSheet(sheetName);
+        if (sheet == null) return null;
+        
+        CellReference reference = new CellReference(cellReference);
+        Row row = sheet.getRow(reference.getRow());
+        Cell cell = row != null ? row.getCell(reference.getCol()) : null;
+        if (cell == null || cell.getCellType() != CellType.FORMULA) return null;
+        
+        CellValue value = evaluate(cell);
+        if (value == null) return null;
+        switch (value.getCellType()) {
+            case STRING:
+                return value.getStringValue();
+            case NUMERIC:
+                return NumberToTextConverter.toText(value.getNumberValue());
+            case BOOLEAN:
+                return booleanAsDigit ? (value.getBooleanValue() ? "1" : "0") : String.valueOf(value.getBooleanValue()).toUpperCase();
+            case ERROR:
+                return FormulaError.forInt(value.getErrorValue()).getString();
+            default:
+                return "";
+        }
+    }
+    
+    @Override
+    public synchronized void close() throws IOException {
+        if (ownedPackage != null) {
+            // Read-only package: revert rather than close, which would try to save
+            ownedPackage.revert();
+            ownedPackage = null;
+        }
+        workbook = null;
+        evaluator = null;
+        memo.clear();
+    }
+    
+    private CellValue evaluate(Cell cell) {
+        String key = cell.getSheet().getSheetName() + "!" + cell.getRowIndex() + ":" + cell.getColumnIndex();
+        if (memo.containsKey(key)) {
+            return memo.get(key);
+        }
+        
+        if (evaluator == null) {
+            evaluator = cell.getSheet().getWorkbook().getCreationHelper().createFormulaEvaluator();
+        }
+        CellValue value;
+        try {
+            value = evaluator.evaluate(cell);
+        } catch (RuntimeException e) {
+            // Unsupported function, unparsable formula, or a reference POI cannot resolve
+            // (e.g. another workbook): fall back to the formula text
+            value = null;
+        }
+        memo.put(key, value);
+        return value;
+    }
+    
+    private Workbook workbook() throws IOException {
+        if (workbook == null) {
+            try {
+                ownedPackage = OPCPackage.open(new File(filePath), PackageAccess.READ);
+                workbook = new XSSFWorkbook(ownedPackage);
+            } catch (InvalidFormatException e) {
+                throw new IOException("Invalid XLSX file: " + filePath, e);
+            }
+        }
+        return workbook;
+    }
+    
+    private static boolean hasCachedValue(Cell cell) {
+        return !(cell instanceof XSSFCell) || ((XSSFCell) cell).getCTCell().isSetV();
+    }
+    
+    private String formatNumber(Cell cell, double value) {
+        CellStyle style = cell.getCellStyle();
+        return formatter.formatRawCellContents(value, style.getDataFormat(), style.getDataFormatString());
+    }
+    
+    private static String formatBoolean(boolean value) {
+        return value ? "TRUE" : "FALSE";
+    }
+}
@@ -0,0 +1,166 @@
+package util;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-phase timings and throughput counters of a test case ingestion run
+ * The reading thread runs a phase clock: switching phase charges the time since the
+ * last switch to the phase being left, so the phases add up to the elapsed read time.
+ * Only primitive counters are updated, so instrumenting every row allocates nothing.
+ * A metrics object is filled by one reading thread; read it once ingestion is done.
+ */
+public class IngestionMetrics {
+    
+    /**
+     * Phases of reading a test case file
+     */
+    public enum Phase {
+        FILE_OPEN("File open"),
+        WORKBOOK_LOAD("Workbook materialization"),
+        HEADER_MAPPING("Header mapping"),
+        ROW_EXTRACTION("Row extraction"),
+        POST_PROCESSING("Post-processing"),
+        CONSUMER_WAIT("Waiting on consumer");
+        
+        private final String label;
+        
+        Phase(String label) {
+            this.label = label;
+        }
+        
+        public String getLabel() {
+            return label;
+        }
+    }
+    
+    private static final Phase[] PHASES = Phase.values();
+    
+    private final long[] phaseNanos = new long[PHASES.length];
+    private final AtomicLong workerNanos = new AtomicLong();
+    private Phase current;
+    private long phaseStart;
+    private long rows;
+    private long bytesRead;
+    
+    /**
+     * Starts the clock in the given phase, or switches to it if already running
+     */
+    void begin(Phase phase) {
+        if (current == null) {
+            current = phase;
+            phaseStart = System.nanoTime();
+        } else {
+            enter(phase);
+        }
+    }
+    
+    /**
+     * Charges the elapsed time to the current phase and switches to another one
+     * @return The phase that was left, so nested work can switch back to it
+     */
+    Phase enter(Phase phase) {
+        Phase previous = current;
+        if (previous == null) {
+            begin(phase);
+            return phase;
+        }
+        long now = System.nanoTime();
+        phaseNanos[previous.ordinal()] += now - phaseStart;
+        phaseStart = now;
+        current = phase;
+        return previous;
+    }
+    
+    /**
+     * Stops the clock, charging the elapsed time to the current phase
+     */
+    void end() {
+        if (current == null) return;
+        phaseNanos[current.ordinal()] += System.nanoTime() - phaseStart;
+        current = null;
+    }
+    
+    void countRow() {
+        rows++;
+    }
+    
+    void addBytesRead(long bytes) {
+        bytesRead += bytes;
+    }
+    
+    /**
+     * Records post-processing time spent on pool threads; may be called from any thread
+     */
+    void addWorkerNanos(long nanos) {
+        workerNanos.addAndGet(nanos);
+    }
+    
+    public long getNanos(Phase phase) {
+        return phaseNanos[phase.ordinal()];
+    }
+    
+    public double getMillis(Phase phase) {
+        return getNanos(phase) / 1_000_000.0;
+    }
+    
+    /**
+     * Time spent reading, excluding time blocked on a slow consumer
+     */
+    public long getIngestionNanos() {
+        long total = 0;
+        for (Phase phase : PHASES) {
+            if (phase != Phase.CONSUMER_WAIT) {
+                total += phaseNanos[phase.ordinal()];
+            }
+        }
+        return total;
+    }
+    
+    /**
+     * Post-processing time summed over the fork-join workers; exceeds wall time when parallel
+     */
+    public long getWorkerNanos() {
+        return workerNanos.get();
+    }
+    
+    /**
+     * Number of data rows read, header excluded
+     */
+    public long getRows() {
+        return rows;
+    }
+    
+    public long getBytesRead() {
+        return bytesRead;
+    }
+    
+    public double getRowsPerSecond() {
+        long nanos = getIngestionNanos();
+        return nanos == 0 ? 0 : rows * 1_000_000_000.0 / nanos;
+    }
+    
+    /**
+     * Multi-line summary for generation reports
+     */
+    public String toReport() {
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("Rows read: %d (%.0f rows/sec)%n", rows, getRowsPerSecond()));
+        report.append(String.format("Bytes read: %d KB%n", bytesRead / 1024));
+        report.append(String.format("Ingestion time: %.1f ms%n", getIngestionNanos() / 1_000_000.0));
+        for (Phase phase : PHASES) {
+            if (phaseNanos[phase.ordinal()] > 0) {
+                report.append(String.format("  %-26s %10.1f ms%n", phase.getLabel() + ":", getMillis(phase)));
+            }
+        }
+        if (getWorkerNanos() > 0) {
+            report.append(String.format("  %-26s %10.1f ms%n", "Post-processing workers:", getWorkerNanos() / 1_000_000.0));
+        }
+        return report.toString();
+    }
+    
+    @Override
+    public String toString() {
+        return "IngestionMetrics{rows=" + rows + ", bytesRead=" + bytesRead
+            + ", ingestionMillis=" + getIngestionNanos() / 1_000_000 + "}";
+    }
+}
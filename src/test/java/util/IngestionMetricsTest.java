@@ -0,0 +1,222 @@
+package util;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.testng.Assert.*;
+
+/**
+ * Phase clock accounting and counters of IngestionMetrics
+ */
+public class IngestionMetricsTest {
+    
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+    
+    private Path directory;
+    
+    @BeforeMethod
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("ingestion-metrics-test");
+    }
+    
+    @AfterMethod(alwaysRun = true)
+    public void deleteFiles() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+    
+    @Test
+    public void switchingPhaseChargesThePhaseLeft() throws InterruptedException {
+        IngestionMetrics metrics = new IngestionMetrics();
+        long start = System.nanoTime();
+        
+        metrics.begin(IngestionMetrics.Phase.FILE_OPEN);
+        Thread.sleep(20);
+        metrics.enter(IngestionMetrics.Phase.ROW_EXTRACTION);
+        Thread.sleep(30);
+        metrics.end();
+        long elapsed = System.nanoTime() - start;
+        
+        assertTrue(metrics.getNanos(IngestionMetrics.Phase.FILE_OPEN) >= 20 * MS);
+        assertTrue(metrics.getNanos(IngestionMetrics.Phase.ROW_EXTRACTION) >= 30 * MS);
+        assertEquals(metrics.getNanos(IngestionMetrics.Phase.WORKBOOK_LOAD), 0);
+        // The phases add up to the time the clock ran
+        assertTrue(metrics.getIngestionNanos() <= elapsed);
+        assertEquals(metrics.getIngestionNanos(), metrics.getNanos(IngestionMetrics.Phase.FILE_OPEN)
+            + metrics.getNanos(IngestionMetrics.Phase.ROW_EXTRACTION));
+    }
+    
+    @Test
+    public void nestedWorkSwitchesBackToTheOuterPhase() throws InterruptedException {
+        IngestionMetrics metrics = new IngestionMetrics();
+        
+        metrics.begin(IngestionMetrics.Phase.ROW_EXTRACTION);
+        IngestionMetrics.Phase previous = metrics.enter(IngestionMetrics.Phase.POST_PROCESSING);
+        assertEquals(previous, IngestionMetrics.Phase.ROW_EXTRACTION);
+        Thread.sleep(20);
+        metrics.enter(previous);
+        Thread.sleep(20);
+        metrics.end();
+        
+        long postProcessing = metrics.getNanos(IngestionMetrics.Phase.POST_PROCESSING);
+        assertTrue(postProcessing >= 20 * MS);
+        assertTrue(postProcessing < metrics.getIngestionNanos());
+        assertTrue(metrics.getNanos(IngestionMetrics.Phase.ROW_EXTRACTION) >= 20 * MS);
+    }
+    
+    @Test
+    public void enterWithoutBeginStartsTheClock() throws InterruptedException {
+        IngestionMetrics metrics = new IngestionMetrics();
+        
+        assertEquals(metrics.enter(IngestionMetrics.Phase.HEADER_MAPPING), IngestionMetrics.Phase.HEADER_MAPPING);
+        Thread.sleep(10);
+        metrics.end();
+        
+        assertTrue(metrics.getNanos(IngestionMetrics.Phase.HEADER_MAPPING) >= 10 * MS);
+    }
+    
+    @Test
+    public void timeAfterEndIsNotCharged() throws InterruptedException {
+        IngestionMetrics metrics = new IngestionMetrics();
+        metrics.begin(IngestionMetrics.Phase.FILE_OPEN);
+        metrics.end();
+        long charged = metrics.getIngestionNanos();
+        
+        Thread.sleep(10);
+        metrics.end();
+        
+        assertEquals(metrics.getIngestionNanos(), charged);
+        assertTrue(charged < 10 * MS);
+    }
+    
+    @Test
+    public void consumerWaitIsExcludedFromIngestionTime() throws InterruptedException {
+        IngestionMetrics metrics = new IngestionMetrics();
+        metrics.begin(IngestionMetrics.Phase.ROW_EXTRACTION);
+        Thread.sleep(10);
+        metrics.enter(IngestionMetrics.Phase.CONSUMER_WAIT);
+        Thread.sleep(40);
+        metrics.end();
+        for (int i = 0; i < 100; i++) {
+            metrics.countRow();
+        }
+        
+        assertTrue(metrics.getNanos(IngestionMetrics.Phase.CONSUMER_WAIT) >= 40 * MS);
+        assertEquals(metrics.getIngestionNanos(), metrics.getNanos(IngestionMetrics.Phase.ROW_EXTRACTION));
+        assertEquals(metrics.getRowsPerSecond(), 100 * 1e9 / metrics.getIngestionNanos(), 1e-6);
+    }
+    
+    @Test
+    public void emptyMetricsReportNoRate() {
+        IngestionMetrics metrics = new IngestionMetrics();
+        
+        assertEquals(metrics.getIngestionNanos(), 0);
+        assertEquals(metrics.getRowsPerSecond(), 0.0);
+        assertTrue(metrics.toReport().startsWith("Rows read: 0 (0 rows/sec)"), metrics.toReport());
+    }
+    
+    @Test
+    public void workerTimeIsSummedAcrossThreads() throws InterruptedException {
+        IngestionMetrics metrics = new IngestionMetrics();
+        List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Thread worker = new Thread(() -> {
+                for (int j = 0; j < 1000; j++) {
+                    metrics.addWorkerNanos(3);
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        
+        assertEquals(metrics.getWorkerNanos(), 12_000);
+        // Worker time is reported separately, not added to the reading thread's phases
+        assertEquals(metrics.getIngestionNanos(), 0);
+    }
+    
+    @Test
+    public void reportListsOnlyPhasesThatRan() throws InterruptedException {
+        IngestionMetrics metrics = new IngestionMetrics();
+        metrics.begin(IngestionMetrics.Phase.FILE_OPEN);
+        Thread.sleep(2);
+        metrics.enter(IngestionMetrics.Phase.POST_PROCESSING);
+        Thread.sleep(2);
+        metrics.end();
+        metrics.addBytesRead(4096);
+        
+        String report = metrics.toReport();
+        assertTrue(report.contains("Bytes read: 4 KB"), report);
+        assertTrue(report.contains("File open:"), report);
+        assertTrue(report.contains("Post-processing:"), report);
+        assertFalse(report.contains("Workbook materialization:"), report);
+        assertFalse(report.contains("Post-processing workers:"), report);
+    }
+    
+    @Test
+    public void csvReadFillsRowsBytesAndPhases() throws IOException {
+        Path source = writeCsv(200);
+        IngestionMetrics metrics = new IngestionMetrics();
+        long start = System.nanoTime();
+        
+        List<TestCase> testCases = ExcelReader.readTestCases(source.toString(), 1, metrics);
+        long elapsed = System.nanoTime() - start;
+        
+        assertEquals(testCases.size(), 200);
+        assertEquals(metrics.getRows(), 200);
+        assertEquals(metrics.getBytesRead(), Files.size(source));
+        assertTrue(metrics.getNanos(IngestionMetrics.Phase.FILE_OPEN) > 0);
+        assertTrue(metrics.getNanos(IngestionMetrics.Phase.HEADER_MAPPING) > 0);
+        assertTrue(metrics.getNanos(IngestionMetrics.Phase.ROW_EXTRACTION) > 0);
+        assertTrue(metrics.getNanos(IngestionMetrics.Phase.POST_PROCESSING) > 0);
+        // A CSV file has no workbook to materialize
+        assertEquals(metrics.getNanos(IngestionMetrics.Phase.WORKBOOK_LOAD), 0);
+        assertTrue(metrics.getIngestionNanos() <= elapsed);
+    }
+    
+    @Test
+    public void slowConsumerIsChargedToConsumerWait() throws IOException {
+        Path source = writeCsv(10);
+        IngestionMetrics metrics = new IngestionMetrics();
+        
+        ExcelReader.readRows(source.toString(), ExcelReader.testCaseRowHandler(testCase -> sleep(5), metrics), metrics);
+        metrics.end();
+        
+        assertEquals(metrics.getRows(), 10);
+        assertTrue(metrics.getNanos(IngestionMetrics.Phase.CONSUMER_WAIT) >= 50 * MS);
+        assertTrue(metrics.getNanos(IngestionMetrics.Phase.POST_PROCESSING)
+            < metrics.getNanos(IngestionMetrics.Phase.CONSUMER_WAIT));
+    }
+    
+    private Path writeCsv(int rows) throws IOException {
+        StringBuilder csv = new StringBuilder("Test Case ID,Automation Class Name,Automation Method Name,Test Case (steps)\n");
+        for (int i = 1; i <= rows; i++) {
+            csv.append("TC_").append(i).append(",LoginTest,case").append(i).append(",Open the portal\n");
+        }
+        Path source = directory.resolve("cases.csv");
+        Files.write(source, csv.toString().getBytes(StandardCharsets.UTF_8));
+        return source;
+    }
+    
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package util;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keyword dictionary mapping test cases to Page Object classes
+ * All keywords are compiled into one Aho-Corasick automaton with a precomputed
+ * transition table, so a class name or step is scanned once at a constant cost per
+ * character however many pages and keywords the dictionary holds.
+ * Matching is case-insensitive and, like String.contains, ignores word boundaries.
+ *
+ * Dictionary files have one page per line, followed by its keywords:
+ * <pre>
+ * # comment
+ * LoginPage: class:login, steps:sign in, password
+ * </pre>
+ * "class:" keywords only match the class name, "steps:" keywords only match step
+ * text, and unprefixed keywords match both. Pages are reported in file order.
+ */
+public class PageDictionary implements TestCaseRepository.PageResolver {
+    
+    private static final int CLASS_NAME = 1;
+    private static final int STEPS = 2;
+    
+    private final String[] pages;
+    private final int keywordCount;
+    // Keyword id -> page index, and the texts it may match (CLASS_NAME | STEPS)
+    private final int[] keywordPages;
+    private final int[] keywordScopes;
+    private final boolean matchesSteps;
+    
+    // Lower-cased char -> column in the transition table, 0 for chars in no keyword
+    private final char[] columns;
+    private final int width;
+    // state * width + column -> next state; state 0 is the root
+    private final int[] transitions;
+    // State -> ids of the keywords ending there, including via failure links
+    private final int[][] outputs;
+    
+    private PageDictionary(List<String> pageNames, List<String> keywords, List<Integer> pageIndexes, List<Integer> scopes) {
+        this.pages = pageNames.toArray(new String[0]);
+        this.keywordCount = keywords.size();
+        this.keywordPages = new int[keywordCount];
+        this.keywordScopes = new int[keywordCount];
+        boolean anyStepKeyword = false;
+        for (int k = 0; k < keywordCount; k++) {
+            keywordPages[k] = pageIndexes.get(k);
+            keywordScopes[k] = scopes.get(k);
+            anyStepKeyword |= (keywordScopes[k] & STEPS) != 0;
+        }
+        this.matchesSteps = anyStepKeyword;
+        
+        // Column per distinct keyword character
+        columns = new char[Character.MAX_VALUE + 1];
+        int nextColumn = 1;
+        for (String keyword : keywords) {
+            for (int i = 0; i < keyword.length(); i++) {
+                char c = keyword.charAt(i);
+                if (columns[c] == 0) {
+                    columns[c] = (char) nextColumn++;
+                }
+            }
+        }
+        width = nextColumn;
+        
+        // Trie of all keywords
+        List<int[]> children = new ArrayList<>();
+        List<List<Integer>> endings = new ArrayList<>();
+        children.add(new int[width]);
+        endings.add(new ArrayList<>());
+        for (int k = 0; k < keywordCount; k++) {
+            String keyword = keywords.get(k);
+            int state = 0;
+            for (int i = 0; i < keyword.length(); i++) {
+                int column = columns[keyword.charAt(i)];
+                if (children.get(state)[column] == 0) {
+                    children.get(state)[column] = children.size();
+                    children.add(new int[width]);
+                    endings.add(new ArrayList<>());
+                }
+                state = children.get(state)[column];
+            }
+            endings.get(state).add(k);
+        }
+        
+        // Breadth-first over the trie: fill in failure transitions and merge outputs
+        int stateCount = children.size();
+        transitions = new int[stateCount * width];
+        outputs = new int[stateCount][];
+        int[] failure = new int[stateCount];
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        outputs[0] = new int[0];
+        for (int column = 1; column < width; column++) {
+            int child = children.get(0)[column];
+            transitions[column] = child;
+            if (child != 0) {
+                queue.add(child);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            int fallback = failure[state];
+            outputs[state] = merge(endings.get(state), outputs[fallback]);
+            for (int column = 1; column < width; column++) {
+                int child = children.get(state)[column];
+                if (child != 0) {
+                    failure[child] = transitions[fallback * width + column];
+                    transitions[state * width + column] = child;
+                    queue.add(child);
+                } else {
+                    transitions[state * width + column] = transitions[fallback * width + column];
+                }
+            }
+        }
+    }
+    
+    /**
+     * Parses dictionary lines in the "Page: keyword, class:keyword, steps:keyword" format
+     * @throws IllegalArgumentException if a line has no page name or an empty keyword
+     */
+    public static PageDictionary parse(List<String> lines) {
+        Map<String, Integer> pageIndexes = new LinkedHashMap<>();
+        List<String> keywords = new ArrayList<>();
+        List<Integer> keywordPages = new ArrayList<>();
+        List<Integer> scopes = new ArrayList<>();
+        
+        for (int lineNumber = 1; lineNumber <= lines.size(); lineNumber++) {
+            String line = lines.get(lineNumber - 1).trim();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            
+            int colon = line.indexOf(':');
+            String page = colon < 0 ? "" : line.substring(0, colon).trim();
+            if (page.isEmpty()) {
+                throw new IllegalArgumentException("Line " + lineNumber + ": expected 'Page: keyword, ...' but got '" + line + "'");
+            }
+            Integer pageIndex = pageIndexes.computeIfAbsent(page, k -> pageIndexes.size());
+            
+            for (String entry : line.substring(colon + 1).split(",")) {
+                String keyword = entry.trim();
+                int scope = CLASS_NAME | STEPS;
+                if (keyword.startsWith("class:")) {
+                    scope = CLASS_NAME;
+                    keyword = keyword.substring("class:".length()).trim();
+                } else if (keyword.startsWith("steps:")) {
+                    scope = STEPS;
+                    keyword = keyword.substring("steps:".length()).trim();
+                }
+                if (keyword.isEmpty()) {
+                    throw new IllegalArgumentException("Line " + lineNumber + ": empty keyword for " + page);
+                }
+                keywords.add(lowerCase(keyword));
+                keywordPages.add(pageIndex);
+                scopes.add(scope);
+            }
+        }
+        return new PageDictionary(new ArrayList<>(pageIndexes.keySet()), keywords, keywordPages, scopes);
+    }
+    
+    public static PageDictionary parse(String... lines) {
+        return parse(Arrays.asList(lines));
+    }
+    
+    /**
+     * Reads a dictionary file
+     */
+    public static PageDictionary load(Path file) throws IOException {
+        return parse(Files.readAllLines(file, StandardCharsets.UTF_8));
+    }
+    
+    /**
+     * Loads the dictionary file named by a system property, or parses the defaults if it is unset
+     * @throws UncheckedIOException if the configured file cannot be read
+     */
+    public static PageDictionary fromProperty(String property, String... defaultLines) {
+        String file = System.getProperty(property);
+        if (file == null || file.isEmpty()) {
+            return parse(defaultLines);
+        }
+        try {
+            PageDictionary dictionary = load(Paths.get(file));
+            System.out.println("Loaded " + dictionary.getPages().size() + " pages and "
+                + dictionary.keywordCount + " keywords from " + file);
+            return dictionary;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read page dictionary " + file, e);
+        }
+    }
+    
+    /**
+     * Pages whose keywords occur in the class name or steps, in dictionary order
+     */
+    @Override
+    public List<String> pagesFor(TestCase testCase) {
+        boolean[] matched = new boolean[pages.length];
+        int matches = scan(testCase.getClassName(), CLASS_NAME, matched, 0);
+        if (matchesSteps && testCase.getSteps() != null) {
+            for (String step : testCase.getSteps()) {
+                if (matches == pages.length) break;
+                matches = scan(step, STEPS, matched, matches);
+            }
+        }
+        if (matches == 0) return Collections.emptyList();
+        
+        List<String> result = new ArrayList<>(matches);
+        for (int page = 0; page < pages.length; page++) {
+            if (matched[page]) {
+                result.add(pages[page]);
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * All page names, in dictionary order
+     */
+    public List<String> getPages() {
+        return Collections.unmodifiableList(Arrays.asList(pages));
+    }
+    
+    /**
+     * Runs the automaton over one text, flagging the pages of keywords allowed in it
+     * @return Number of pages flagged so far
+     */
+    private int scan(String text, int scope, boolean[] matched, int matches) {
+        if (text == null) return matches;
+        
+        int state = 0;
+        for (int i = 0; i < text.length(); i++) {
+            state = transitions[state * width + columns[Character.toLowerCase(text.charAt(i))]];
+            for (int keyword : outputs[state]) {
+                int page = keywordPages[keyword];
+                if ((keywordScopes[keyword] & scope) != 0 && !matched[page]) {
+                    matched[page] = true;
+                    matches++;
+                }
+            }
+        }
+        return matches;
+    }
+    
+    private static int[] merge(List<Integer> own, int[] inherited) {
+        int[] merged = Arrays.copyOf(inherited, inherited.length + own.size());
+        for (int i = 0; i < own.size(); i++) {
+            merged[inherited.length + i] = own.get(i);
+        }
+        return merged;
+    }
+    
+    /**
+     * Lower-cases char by char, exactly as the scan folds its input
+     */
+    private static String lowerCase(String keyword) {
+        char[] chars = keyword.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = Character.toLowerCase(chars[i]);
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,124 @@
+package util;
+
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.testng.Assert.*;
+
+/**
+ * Aho-Corasick page matching against the String.contains checks it replaced
+ */
+public class PageDictionaryTest {
+    
+    // Overlapping keywords, so matches end inside other keywords and need failure links
+    private static final String[] RULES = {
+        "HePage: he",
+        "SheHisPage: class:she, steps:his",
+        "HersPage: hers, steps:rs",
+        "LoginPage: class:login, steps:log in"
+    };
+    
+    @Test
+    public void matchesLikeContainsOnRandomTexts() {
+        PageDictionary dictionary = PageDictionary.parse(RULES);
+        Random random = new Random(42);
+        for (int i = 0; i < 5_000; i++) {
+            TestCase testCase = new TestCase();
+            testCase.setClassName(randomText(random));
+            testCase.setSteps(Arrays.asList(randomText(random), randomText(random)));
+            
+            assertEquals(dictionary.pagesFor(testCase), pagesByContains(testCase),
+                testCase.getClassName() + " " + testCase.getSteps());
+        }
+    }
+    
+    @Test
+    public void defaultClassRulesMatchTheOldChecks() {
+        PageDictionary dictionary = PageDictionary.parse(
+            "LoginPage: class:Authentication",
+            "PatientSearchPage: class:PatientSearch",
+            "MessagePage: class:Navigation");
+        
+        assertEquals(dictionary.pagesFor(testCase("PortalAuthenticationTest")), List.of("LoginPage"));
+        assertEquals(dictionary.pagesFor(testCase("PatientSearchTest")), List.of("PatientSearchPage"));
+        assertEquals(dictionary.pagesFor(testCase("PortalNavigationTest")), List.of("MessagePage"));
+        assertEquals(dictionary.pagesFor(testCase("NavigationAfterAuthenticationTest")),
+            List.of("LoginPage", "MessagePage"));
+        assertTrue(dictionary.pagesFor(testCase("ReportTest")).isEmpty());
+    }
+    
+    @Test
+    public void matchingIgnoresCase() {
+        PageDictionary dictionary = PageDictionary.parse("LoginPage: class:login");
+        
+        assertEquals(dictionary.pagesFor(testCase("PortalLOGINTest")), List.of("LoginPage"));
+    }
+    
+    @Test
+    public void scopesLimitWhereKeywordsMatch() {
+        PageDictionary dictionary = PageDictionary.parse("LoginPage: class:login", "SearchPage: steps:search");
+        TestCase testCase = testCase("SearchTest");
+        testCase.setSteps(List.of("Open the login page"));
+        
+        assertTrue(dictionary.pagesFor(testCase).isEmpty());
+    }
+    
+    @Test
+    public void nullClassNameAndStepsMatchNothing() {
+        PageDictionary dictionary = PageDictionary.parse(RULES);
+        
+        assertTrue(dictionary.pagesFor(new TestCase()).isEmpty());
+    }
+    
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void rejectsLineWithoutPage() {
+        PageDictionary.parse("login, password");
+    }
+    
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void rejectsEmptyKeyword() {
+        PageDictionary.parse("LoginPage: login, steps:");
+    }
+    
+    /**
+     * Reference matcher: every keyword of RULES checked with String.contains
+     */
+    private static List<String> pagesByContains(TestCase testCase) {
+        String className = testCase.getClassName().toLowerCase(Locale.ROOT);
+        String steps = String.join("\n", testCase.getSteps()).toLowerCase(Locale.ROOT);
+        List<String> pages = new ArrayList<>();
+        if (className.contains("he") || steps.contains("he")) {
+            pages.add("HePage");
+        }
+        if (className.contains("she") || steps.contains("his")) {
+            pages.add("SheHisPage");
+        }
+        if (className.contains("hers") || steps.contains("hers") || steps.contains("rs")) {
+            pages.add("HersPage");
+        }
+        if (className.contains("login") || steps.contains("log in")) {
+            pages.add("LoginPage");
+        }
+        return pages;
+    }
+    
+    private static String randomText(Random random) {
+        String alphabet = "hHeErRsSiIlLoOgGnN ";
+        char[] text = new char[random.nextInt(12)];
+        for (int i = 0; i < text.length; i++) {
+            text[i] = alphabet.charAt(random.nextInt(alphabet.length()));
+        }
+        return new String(text);
+    }
+    
+    private static TestCase testCase(String className) {
+        TestCase testCase = new TestCase();
+        testCase.setClassName(className);
+        return testCase;
+    }
+}
@@ -0,0 +1,253 @@
+package util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.Semaphore;
+import java.util.function.Predicate;
+
+import org.apache.poi.openxml4j.exceptions.InvalidOperationException;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.SharedStrings;
+import org.apache.poi.xssf.model.Styles;
+
+/**
+ * Reads test cases from many workbooks and sheets concurrently
+ * Each sheet is parsed with the streaming reader on a bounded fork-join pool,
+ * and the number of workbooks open at the same time is capped so memory stays bounded.
+ * Results are merged in input order: workbook order first, then sheet order.
+ * All sheets of one call pool their steps in the same StepPool.
+ */
+public class ParallelExcelReader {
+
+    private static final int DEFAULT_MAX_OPEN_WORKBOOKS = 4;
+
+    private final int parallelism;
+    private final int maxOpenWorkbooks;
+
+    public ParallelExcelReader() {
+        this(Runtime.getRuntime().availableProcessors(), DEFAULT_MAX_OPEN_WORKBOOKS);
+    }
+
+    /**
+     * @param parallelism Number of fork-join worker threads
+     * @param maxOpenWorkbooks Maximum number of workbooks held open at once
+     */
+    public ParallelExcelReader(int parallelism, int maxOpenWorkbooks) {
+        if (parallelism < 1 || maxOpenWorkbooks < 1) {
+            throw new IllegalArgumentException("parallelism and maxOpenWorkbooks must be at least 1");
+        }
+        this.parallelism = parallelism;
+        this.maxOpenWorkbooks = maxOpenWorkbooks;
+    }
+
+    /**
+     * Reads every sheet of every workbook
+     * @param filePaths XLSX or CSV files, in the order results should be merged
+     * @return Merged list of TestCase objects
+     */
+    public List<TestCase> readTestCases(List<String> filePaths) throws IOException {
+        return readTestCases(filePaths, sheetName -> true);
+    }
+
+    /**
+     * Reads the selected sheets of every workbook
+     * @param filePaths XLSX or CSV files, in the order results should be merged
+     * @param sheetFilter Selects sheets by name; CSV files are always read
+     * @return Merged list of TestCase objects
+     */
+    public List<TestCase> readTestCases(List<String> filePaths, Predicate<String> sheetFilter) throws IOException {
+        Semaphore openWorkbooks = new Semaphore(maxOpenWorkbooks);
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        StepPool steps = new StepPool();
+
+        try {
+            return pool.invoke(new RecursiveTask<List<TestCase>>() {
+                @Override
+                protected List<TestCase> compute() {
+                    List<WorkbookTask> tasks = new ArrayList<>();
+                    for (String filePath : filePaths) {
+                        tasks.add(new WorkbookTask(filePath, sheetFilter, openWorkbooks, steps));
+                    }
+                    invokeAll(tasks);
+
+                    List<TestCase> merged = new ArrayList<>();
+                    for (WorkbookTask task : tasks) {
+                        merged.addAll(task.join());
+                    }
+                    return merged;
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Opens one workbook under the open-workbook cap and forks a task per selected sheet
+     */
+    private static class WorkbookTask extends RecursiveTask<List<TestCase>> {
+        private static final long serialVersionUID = 1L;
+        private final String filePath;
+        private final Predicate<String> sheetFilter;
+        private final Semaphore openWorkbooks;
+        private final StepPool steps;
+
+        WorkbookTask(String filePath, Predicate<String> sheetFilter, Semaphore openWorkbooks, StepPool steps) {
+            this.filePath = filePath;
+            this.sheetFilter = sheetFilter;
+            this.openWorkbooks = openWorkbooks;
+            this.steps = steps;
+        }
+
+        @Override
+        protected List<TestCase> compute() {
+            try {
+                if (ExcelReader.isCsv(filePath)) {
+                    List<TestCase> testCases = new ArrayList<>();
+                    CsvTestCaseReader.readRows(filePath, ExcelReader.testCaseRowHandler(testCases::add, steps));
+                    return testCases;
+                }
+
+                acquire(openWorkbooks);
+                try {
+                    return readSheets();
+                } finally {
+                    openWorkbooks.release();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private List<TestCase> readSheets() throws IOException {
+            try (OPCPackage pkg = OPCPackage.open(new File(filePath), PackageAccess.READ);
+                 FormulaResults formulas = FormulaResults.forFile(filePath)) {
+                XSSFReader reader = new XSSFReader(pkg);
+                SharedStrings strings = reader.getSharedStringsTable();
+                Styles styles = reader.getStylesTable();
+
+                List<SheetTask> sheetTasks = new ArrayList<>();
+                try {
+                    XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+                    while (sheets.hasNext()) {
+                        InputStream sheetData = sheets.next();
+                        if (sheetFilter.test(sheets.getSheetName())) {
+                            SheetTask task = new SheetTask(sheetData, sheets.getSheetName(), strings, styles,
+                                formulas, steps);
+                            task.fork();
+                            sheetTasks.add(task);
+                        } else {
+                            sheetData.close();
+                        }
+                    }
+
+                    List<TestCase> testCases = new ArrayList<>();
+                    for (SheetTask task : sheetTasks) {
+                        testCases.addAll(task.join());
+                    }
+                    return testCases;
+                } finally {
+                    // On failure, siblings may still be reading from the package: cancel those not
+                    // started and wait for the rest before it closes. Their own failures are dropped,
+                    // the first one is already propagating
+                    for (SheetTask task : sheetTasks) {
+                        task.cancel(false);
+                        task.quietlyJoin();
+                        if (task.isCancelled()) {
+                            closeQuietly(task.sheetData);
+                        }
+                    }
+                }
+            } catch (OpenXML4JException | InvalidOperationException e) {
+                // POI reports a missing or unreadable file as InvalidOperationException
+                throw new IOException("Invalid XLSX file: " + filePath, e);
+            }
+        }
+    }
+
+    /**
+     * Parses a single worksheet stream with the SAX reader
+     */
+    private static class SheetTask extends RecursiveTask<List<TestCase>> {
+        private static final long serialVersionUID = 1L;
+        private final InputStream sheetData;
+        private final String sheetName;
+        private final SharedStrings strings;
+        private final Styles styles;
+        private final FormulaResults formulas;
+        private final StepPool steps;
+
+        SheetTask(InputStream sheetData, String sheetName, SharedStrings strings, Styles styles,
+                  FormulaResults formulas, StepPool steps) {
+            this.sheetData = sheetData;
+            this.sheetName = sheetName;
+            this.strings = strings;
+            this.styles = styles;
+            this.formulas = formulas;
+            this.steps = steps;
+        }
+
+        @Override
+        protected List<TestCase> compute() {
+            List<TestCase> testCases = new ArrayList<>();
+            try (InputStream in = sheetData) {
+                StreamingExcelReader.readSheet(in, sheetName, strings, styles, formulas,
+                    ExcelReader.testCaseRowHandler(testCases::add, steps));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return testCases;
+        }
+    }
+
+    /**
+     * Closes the sheet stream of a task that was cancelled before it ran
+     */
+    private static void closeQuietly(InputStream in) {
+        try {
+            in.close();
+        } catch (IOException e) {
+            // Only released early because the read already failed
+        }
+    }
+
+    /**
+     * Acquires a permit without starving the pool: the fork-join pool may
+     * add a compensating worker while this thread is blocked
+     */
+    private static void acquire(Semaphore semaphore) throws IOException {
+        try {
+            ForkJoinPool.managedBlock(new ForkJoinPool.ManagedBlocker() {
+                private boolean acquired;
+
+                @Override
+                public boolean block() throws InterruptedException {
+                    if (!acquired) {
+                        semaphore.acquire();
+                        acquired = true;
+                    }
+                    return true;
+                }
+
+                @Override
+                public boolean isReleasable() {
+                    return acquired || (acquired = semaphore.tryAcquire());
+                }
+            });
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for a workbook slot", e);
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package util;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import static org.testng.Assert.*;
+
+/**
+ * Merge order and failure handling of the concurrent multi-workbook reader
+ */
+public class ParallelExcelReaderTest {
+    
+    private static final String[] HEADERS = {
+        "Test Case ID", "Automation Class Name", "Automation Method Name", "Test Case (steps)"
+    };
+    
+    private Path directory;
+    
+    @BeforeMethod
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("parallel-reader-test");
+    }
+    
+    @AfterMethod(alwaysRun = true)
+    public void deleteFiles() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+    
+    @Test
+    public void mergesInWorkbookThenSheetOrder() throws IOException {
+        Path first = writeWorkbook("first.xlsx", "A", 3, "B", 2);
+        Path csv = directory.resolve("second.csv");
+        Files.write(csv, ("Test Case ID,Automation Class Name,Automation Method Name,Test Case (steps)\n"
+            + "CSV_1,CsvTest,one,Open\n").getBytes(StandardCharsets.UTF_8));
+        Path third = writeWorkbook("third.xlsx", "C", 1, "D", 2);
+        
+        List<TestCase> testCases = new ParallelExcelReader(4, 2).readTestCases(
+            List.of(first.toString(), csv.toString(), third.toString()));
+        
+        assertEquals(ids(testCases), List.of("A_1", "A_2", "A_3", "B_1", "B_2", "CSV_1", "C_1", "D_1", "D_2"));
+    }
+    
+    @Test
+    public void sheetFilterSkipsSheetsByName() throws IOException {
+        Path workbook = writeWorkbook("cases.xlsx", "Smoke", 2, "Regression", 2);
+        
+        List<TestCase> testCases = new ParallelExcelReader(2, 1).readTestCases(
+            List.of(workbook.toString()), "Regression"::equals);
+        
+        assertEquals(ids(testCases), List.of("Regression_1", "Regression_2"));
+    }
+    
+    @Test
+    public void parallelismDoesNotChangeTheResult() throws IOException {
+        List<String> filePaths = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            filePaths.add(writeWorkbook("cases" + i + ".xlsx", "W" + i + "S1", 300, "W" + i + "S2", 150).toString());
+        }
+        
+        List<TestCase> sequential = new ParallelExcelReader(1, 1).readTestCases(filePaths);
+        List<TestCase> parallel = new ParallelExcelReader(8, 3).readTestCases(filePaths);
+        
+        assertEquals(sequential.size(), 1350);
+        assertEquals(describe(parallel), describe(sequential));
+    }
+    
+    @Test
+    public void stepsOfOneCallShareAPool() throws IOException {
+        Path first = writeWorkbook("first.xlsx", "A", 2, "B", 2);
+        Path second = writeWorkbook("second.xlsx", "C", 2, "D", 2);
+        
+        List<TestCase> testCases = new ParallelExcelReader(4, 2).readTestCases(
+            List.of(first.toString(), second.toString()));
+        
+        StepPool steps = testCases.get(0).getStepPool();
+        assertNotNull(steps);
+        for (TestCase testCase : testCases) {
+            assertSame(testCase.getStepPool(), steps);
+        }
+        // "Open the portal" is the first step of every row
+        assertEquals(testCases.get(7).getStepIds()[0], testCases.get(0).getStepIds()[0]);
+    }
+    
+    @Test
+    public void failureInOneSheetFailsTheRead() throws IOException {
+        Path good = writeWorkbook("good.xlsx", "A", 50, "B", 50);
+        Path broken = writeWorkbook("broken.xlsx", "C", 50, "D", 50);
+        truncateEntry(broken, "xl/worksheets/sheet2.xml");
+        
+        IOException failure = expectThrows(IOException.class, () ->
+            new ParallelExcelReader(4, 2).readTestCases(List.of(good.toString(), broken.toString())));
+        assertTrue(failure.getMessage().startsWith("Failed to parse worksheet"), failure.getMessage());
+        
+        // The package was closed cleanly and can be read again without the broken sheet
+        List<TestCase> testCases = new ParallelExcelReader(4, 2).readTestCases(
+            List.of(broken.toString()), "C"::equals);
+        assertEquals(testCases.size(), 50);
+    }
+    
+    @Test
+    public void missingWorkbookFailsTheRead() {
+        String missing = directory.resolve("missing.xlsx").toString();
+        
+        expectThrows(IOException.class, () -> new ParallelExcelReader(2, 1).readTestCases(List.of(missing)));
+    }
+    
+    @Test
+    public void rejectsNonPositiveLimits() {
+        expectThrows(IllegalArgumentException.class, () -> new ParallelExcelReader(0, 1));
+        expectThrows(IllegalArgumentException.class, () -> new ParallelExcelReader(1, 0));
+    }
+    
+    /**
+     * Writes a workbook with two sheets of numbered test cases
+     */
+    private Path writeWorkbook(String name, String firstSheet, int firstRows, String secondSheet, int secondRows)
+            throws IOException {
+        Path path = directory.resolve(name);
+        try (XSSFWorkbook workbook = new XSSFWorkbook()) {
+            addSheet(workbook, firstSheet, firstRows);
+            addSheet(workbook, secondSheet, secondRows);
+            try (OutputStream out = Files.newOutputStream(path)) {
+                workbook.write(out);
+            }
+        }
+        return path;
+    }
+    
+    private static void addSheet(XSSFWorkbook workbook, String name, int rows) {
+        Sheet sheet = workbook.createSheet(name);
+        Row header = sheet.createRow(0);
+        for (int i = 0; i < HEADERS.length; i++) {
+            header.createCell(i).setCellValue(HEADERS[i]);
+        }
+        for (int i = 1; i <= rows; i++) {
+            Row row = sheet.createRow(i);
+            row.createCell(0).setCellValue(name + "_" + i);
+            row.createCell(1).setCellValue(name + "Test");
+            row.createCell(2).setCellValue("case" + i);
+            row.createCell(3).setCellValue("1. Open the portal\n2. Click item " + i);
+        }
+    }
+    
+    /**
+     * Cuts a zip entry in half so the XML inside it no longer parses
+     */
+    private static void truncateEntry(Path zip, String entryName) throws IOException {
+        Path copy = zip.resolveSibling(zip.getFileName() + ".tmp");
+        try (ZipInputStream in = new ZipInputStream(Files.newInputStream(zip));
+             ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(copy))) {
+            for (ZipEntry entry; (entry = in.getNextEntry()) != null; ) {
+                byte[] content = in.readAllBytes();
+                if (entry.getName().equals(entryName)) {
+                    content = new String(content, StandardCharsets.UTF_8)
+                        .substring(0, content.length / 2).getBytes(StandardCharsets.UTF_8);
+                }
+                out.putNextEntry(new ZipEntry(entry.getName()));
+                out.write(content);
+                out.closeEntry();
+            }
+        }
+        Files.move(copy, zip, StandardCopyOption.REPLACE_EXISTING);
+    }
+    
+    private static List<String> ids(List<TestCase> testCases) {
+        return testCases.stream().map(TestCase::getId).collect(Collectors.toList());
+    }
+    
+    private static List<String> describe(List<TestCase> testCases) {
+        return testCases.stream()
+            .map(testCase -> testCase.getId() + "|" + testCase.getClassName() + "|" + testCase.getMethodName()
+                + "|" + testCase.getSteps())
+            .collect(Collectors.toList());
+    }
+}
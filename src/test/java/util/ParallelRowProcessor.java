@@ -0,0 +1,116 @@
+package util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Second ingestion stage: turns raw row values into TestCase objects on a fork-join pool
+ * The reading thread only extracts cell values and hands them over in batches; step
+ * lexing and test data extraction run on the pool while reading continues.
+ * Batches are joined in submission order, so the output order matches the sheet.
+ */
+class ParallelRowProcessor implements RowHandler, AutoCloseable {
+    
+    static final int BATCH_SIZE = 512;
+    
+    private final ForkJoinPool pool;
+    private final IngestionMetrics metrics;
+    // Steps of this read, shared by the batches
+    private final StepPool steps = new StepPool();
+    private final List<ForkJoinTask<List<TestCase>>> batches = new ArrayList<>();
+    private final List<TestCase> inline = new ArrayList<>();
+    private Map<String, Integer> columnMap = Map.of();
+    private List<String[]> batch = new ArrayList<>(BATCH_SIZE);
+    
+    /**
+     * @param parallelism Number of worker threads; 1 processes rows on the reading thread
+     */
+    ParallelRowProcessor(int parallelism) {
+        this(parallelism, new IngestionMetrics());
+    }
+    
+    /**
+     * @param parallelism Number of worker threads; 1 processes rows on the reading thread
+     * @param metrics Receives header mapping and post-processing time and the row count
+     */
+    ParallelRowProcessor(int parallelism, IngestionMetrics metrics) {
+        this.pool = parallelism > 1 ? new ForkJoinPool(parallelism) : null;
+        this.metrics = metrics;
+    }
+    
+    @Override
+    public void handleRow(int rowNum, String[] values) {
+        if (rowNum == 0) {
+            IngestionMetrics.Phase previous = metrics.enter(IngestionMetrics.Phase.HEADER_MAPPING);
+            columnMap = ExcelReader.createColumnMap(values);
+            metrics.enter(previous);
+            return;
+        }
+        
+        metrics.countRow();
+        if (pool == null) {
+            IngestionMetrics.Phase previous = metrics.enter(IngestionMetrics.Phase.POST_PROCESSING);
+            addIfValid(ExcelReader.createTestCaseFromValues(values, columnMap, steps), inline);
+            metrics.enter(previous);
+            return;
+        }
+        
+        batch.add(values);
+        if (batch.size() == BATCH_SIZE) {
+            submit();
+        }
+    }
+    
+    /**
+     * Waits for the remaining batches and returns all test cases in row order
+     * The wait is charged to post-processing, the time of the reading thread's current phase
+     */
+    List<TestCase> finish() {
+        if (pool == null) {
+            return inline;
+        }
+        
+        submit();
+        IngestionMetrics.Phase previous = metrics.enter(IngestionMetrics.Phase.POST_PROCESSING);
+        List<TestCase> testCases = new ArrayList<>(batches.size() * BATCH_SIZE);
+        for (ForkJoinTask<List<TestCase>> task : batches) {
+            testCases.addAll(task.join());
+        }
+        batches.clear();
+        metrics.enter(previous);
+        return testCases;
+    }
+    
+    @Override
+    public void close() {
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+    }
+    
+    private void submit() {
+        if (batch.isEmpty()) return;
+        
+        List<String[]> rows = batch;
+        Map<String, Integer> columns = columnMap;
+        batches.add(pool.submit(() -> {
+            long start = System.nanoTime();
+            List<TestCase> testCases = new ArrayList<>(rows.size());
+            for (String[] values : rows) {
+                addIfValid(ExcelReader.createTestCaseFromValues(values, columns, steps), testCases);
+            }
+            metrics.addWorkerNanos(System.nanoTime() - start);
+            return testCases;
+        }));
+        batch = new ArrayList<>(BATCH_SIZE);
+    }
+    
+    private static void addIfValid(TestCase testCase, List<TestCase> testCases) {
+        if (ExcelReader.hasId(testCase)) {
+            testCases.add(testCase);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package util;
+
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.testng.Assert.*;
+
+/**
+ * Ordering and failure handling of the fork-join row post-processing stage
+ */
+public class ParallelRowProcessorTest {
+    
+    private static final String[] HEADER = {
+        "Test Case ID", "Automation Class Name", "Automation Method Name", "Test Case (steps)", "Test Data"
+    };
+    
+    @Test
+    public void keepsRowOrderAcrossBatches() {
+        // Several full batches and a partial last one
+        int rows = ParallelRowProcessor.BATCH_SIZE * 3 + 17;
+        
+        List<TestCase> testCases = process(4, rows(rows));
+        
+        assertEquals(testCases.size(), rows);
+        for (int i = 0; i < rows; i++) {
+            assertEquals(testCases.get(i).getId(), "TC_" + (i + 1));
+        }
+    }
+    
+    @Test
+    public void parallelismDoesNotChangeTheResult() {
+        List<String[]> rows = rows(ParallelRowProcessor.BATCH_SIZE * 2 + 5);
+        
+        assertEquals(describe(process(8, rows)), describe(process(1, rows)));
+    }
+    
+    @Test
+    public void dropsRowsWithoutId() {
+        List<String[]> rows = rows(3);
+        rows.add(2, new String[] {" ", "LoginTest", "blank", "Open the portal", ""});
+        
+        List<TestCase> testCases = process(2, rows);
+        assertEquals(testCases.size(), 3);
+        assertEquals(testCases.get(2).getId(), "TC_3");
+    }
+    
+    @Test
+    public void batchesShareTheStepPoolOfTheRead() {
+        List<TestCase> testCases = process(4, rows(ParallelRowProcessor.BATCH_SIZE + 1));
+        
+        TestCase first = testCases.get(0);
+        TestCase last = testCases.get(testCases.size() - 1);
+        assertNotNull(first.getStepPool());
+        assertSame(last.getStepPool(), first.getStepPool());
+        // "Open the portal" is the first step of every row
+        assertEquals(last.getStepIds()[0], first.getStepIds()[0]);
+    }
+    
+    @Test
+    public void workerFailureSurfacesFromFinish() {
+        List<String[]> rows = rows(ParallelRowProcessor.BATCH_SIZE * 2);
+        // A reader bug handing over no cells fails the batch on a worker thread
+        rows.set(ParallelRowProcessor.BATCH_SIZE + 3, null);
+        
+        try (ParallelRowProcessor processor = new ParallelRowProcessor(4)) {
+            processor.handleRow(0, HEADER);
+            for (int i = 0; i < rows.size(); i++) {
+                processor.handleRow(i + 1, rows.get(i));
+            }
+            expectThrows(NullPointerException.class, processor::finish);
+        }
+    }
+    
+    @Test
+    public void inlineFailureSurfacesFromHandleRow() {
+        try (ParallelRowProcessor processor = new ParallelRowProcessor(1)) {
+            processor.handleRow(0, HEADER);
+            expectThrows(NullPointerException.class, () -> processor.handleRow(1, null));
+        }
+    }
+    
+    @Test
+    public void countsRowsAndWorkerTime() {
+        IngestionMetrics metrics = new IngestionMetrics();
+        List<String[]> rows = rows(ParallelRowProcessor.BATCH_SIZE + 10);
+        
+        try (ParallelRowProcessor processor = new ParallelRowProcessor(4, metrics)) {
+            processor.handleRow(0, HEADER);
+            for (int i = 0; i < rows.size(); i++) {
+                processor.handleRow(i + 1, rows.get(i));
+            }
+            processor.finish();
+        }
+        
+        assertEquals(metrics.getRows(), rows.size());
+        assertTrue(metrics.getWorkerNanos() > 0);
+    }
+    
+    private static List<TestCase> process(int parallelism, List<String[]> rows) {
+        try (ParallelRowProcessor processor = new ParallelRowProcessor(parallelism)) {
+            processor.handleRow(0, HEADER);
+            for (int i = 0; i < rows.size(); i++) {
+                processor.handleRow(i + 1, rows.get(i));
+            }
+            return processor.finish();
+        }
+    }
+    
+    private static List<String[]> rows(int count) {
+        List<String[]> rows = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            rows.add(new String[] {
+                "TC_" + i, "Suite" + (i % 7) + "Test", "case" + i,
+                "1. Open the portal\n2. Click item " + i, "Username: user" + i + ", Password: secret"
+            });
+        }
+        return rows;
+    }
+    
+    private static List<String> describe(List<TestCase> testCases) {
+        return testCases.stream()
+            .map(testCase -> testCase.getId() + "|" + testCase.getClassName() + "|" + testCase.getSteps()
+                + "|" + testCase.getStructuredTestData())
+            .collect(Collectors.toList());
+    }
+}
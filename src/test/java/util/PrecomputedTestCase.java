@@ -0,0 +1,121 @@
+package util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable test case whose derived fields are computed once, when it is built
+ * Lower-cased steps and class name, the joined step text, the navigation flag,
+ * the extracted URL and the content fingerprint are plain field reads, so the
+ * generators can query them per class and per page without recomputing anything.
+ * Setters are not supported.
+ */
+public final class PrecomputedTestCase extends TestCase {
+    
+    private final String id;
+    private final String className;
+    private final String methodName;
+    private final String preConditions;
+    private final String summary;
+    private final String testData;
+    private final List<String> steps;
+    private final String expected;
+    private final Map<String, String> structuredTestData;
+    private final List<TestStep> structuredSteps;
+    private final StepPool stepPool;
+    private final int[] stepIds;
+    
+    private final String lowerCaseClassName;
+    private final List<String> lowerCaseSteps;
+    private final String joinedSteps;
+    private final boolean navigationSteps;
+    private final String url;
+    private final long fingerprint;
+    
+    private PrecomputedTestCase(TestCase testCase) {
+        this.id = testCase.getId();
+        this.className = testCase.getClassName();
+        this.methodName = testCase.getMethodName();
+        this.preConditions = testCase.getPreConditions();
+        this.summary = testCase.getSummary();
+        this.testData = testCase.getTestData();
+        this.steps = testCase.getSteps() == null ? null
+            : Collections.unmodifiableList(new ArrayList<>(testCase.getSteps()));
+        this.expected = testCase.getExpected();
+        this.structuredTestData = testCase.getStructuredTestData() == null ? null
+            : Collections.unmodifiableMap(new HashMap<>(testCase.getStructuredTestData()));
+        this.structuredSteps = testCase.getStructuredSteps() == null ? null
+            : Collections.unmodifiableList(new ArrayList<>(testCase.getStructuredSteps()));
+        this.stepPool = testCase.getStepPool();
+        this.stepIds = testCase.getStepIds();
+        
+        this.lowerCaseClassName = super.getLowerCaseClassName();
+        List<String> lowered = super.getLowerCaseSteps();
+        this.lowerCaseSteps = lowered == null ? null : Collections.unmodifiableList(lowered);
+        this.joinedSteps = super.getJoinedSteps();
+        this.navigationSteps = hasNavigationSteps(lowerCaseSteps);
+        this.url = extractUrl(steps, lowerCaseSteps);
+        this.fingerprint = super.getFingerprint();
+    }
+    
+    /**
+     * Freezes a test case, computing its derived fields
+     * @return The test case itself if it is already precomputed
+     */
+    public static PrecomputedTestCase of(TestCase testCase) {
+        if (testCase instanceof PrecomputedTestCase) {
+            return (PrecomputedTestCase) testCase;
+        }
+        return new PrecomputedTestCase(testCase);
+    }
+    
+    /**
+     * Freezes every test case of a list, keeping the order
+     */
+    public static List<TestCase> of(List<TestCase> testCases) {
+        List<TestCase> precomputed = new ArrayList<>(testCases.size());
+        for (TestCase testCase : testCases) {
+            precomputed.add(of(testCase));
+        }
+        return precomputed;
+    }
+    
+    @Override public String getId() { return id; }
+    @Override public String getClassName() { return className; }
+    @Override public String getMethodName() { return methodName; }
+    @Override public String getPreConditions() { return preConditions; }
+    @Override public String getSummary() { return summary; }
+    @Override public String getTestData() { return testData; }
+    @Override public List<String> getSteps() { return steps; }
+    @Override public String getExpected() { return expected; }
+    @Override public Map<String, String> getStructuredTestData() { return structuredTestData; }
+    @Override public List<TestStep> getStructuredSteps() { return structuredSteps; }
+    @Override public StepPool getStepPool() { return stepPool; }
+    @Override public int[] getStepIds() { return stepIds; }
+    
+    @Override public String getLowerCaseClassName() { return lowerCaseClassName; }
+    @Override public List<String> getLowerCaseSteps() { return lowerCaseSteps; }
+    @Override public String getJoinedSteps() { return joinedSteps; }
+    @Override public boolean hasNavigationSteps() { return navigationSteps; }
+    @Override public String extractUrl() { return url; }
+    @Override public long getFingerprint() { return fingerprint; }
+    
+    @Override public void setId(String id) { readOnly(); }
+    @Override public void setClassName(String className) { readOnly(); }
+    @Override public void setMethodName(String methodName) { readOnly(); }
+    @Override public void setPreConditions(String preConditions) { readOnly(); }
+    @Override public void setSummary(String summary) { readOnly(); }
+    @Override public void setTestData(String testData) { readOnly(); }
+    @Override public void setSteps(List<String> steps) { readOnly(); }
+    @Override public void setExpected(String expected) { readOnly(); }
+    @Override public void setStructuredTestData(Map<String, String> structuredTestData) { readOnly(); }
+    @Override public void setStructuredSteps(List<TestStep> structuredSteps) { readOnly(); }
+    @Override public void setStepIds(StepPool stepPool, int[] stepIds) { readOnly(); }
+    
+    private void readOnly() {
+        throw new UnsupportedOperationException("Precomputed test cases are immutable");
+    }
+}
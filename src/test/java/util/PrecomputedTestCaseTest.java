@@ -0,0 +1,144 @@
+package util;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.testng.Assert.*;
+
+/**
+ * Cached derived fields and immutability of PrecomputedTestCase
+ */
+public class PrecomputedTestCaseTest {
+    
+    private static final Map<String, Integer> COLUMNS = ExcelReader.createColumnMap(new String[] {
+        "Test Case ID", "Automation Class Name", "Automation Method Name", "Pre-Conditions",
+        "Test Scenario Summary", "Test Data", "Test Case (steps)", "Expected Results"
+    });
+    
+    @DataProvider
+    public Object[][] testCases() {
+        TestCase withoutSteps = new TestCase();
+        withoutSteps.setId("TC_04");
+        withoutSteps.setClassName("EmptyTest");
+        return new Object[][] {
+            {read("TC_01", "LoginTest", "1. Navigate to https://portal.welldoc.com/login.\n2. Enter Username: admin\n"
+                + "3. Click Login", "Username: admin, Password: secret")},
+            {read("TC_02", "PatientSearchTest", "Open the search page; Type Smith; Press Enter", "")},
+            {read("TC_03", "MessageTest", "Open the URL from the e-mail", "")},
+            {withoutSteps}
+        };
+    }
+    
+    @Test(dataProvider = "testCases")
+    public void cachedFieldsMatchTheTestCase(TestCase testCase) {
+        PrecomputedTestCase precomputed = PrecomputedTestCase.of(testCase);
+        
+        assertEquals(precomputed.getId(), testCase.getId());
+        assertEquals(precomputed.getClassName(), testCase.getClassName());
+        assertEquals(precomputed.getMethodName(), testCase.getMethodName());
+        assertEquals(precomputed.getPreConditions(), testCase.getPreConditions());
+        assertEquals(precomputed.getSummary(), testCase.getSummary());
+        assertEquals(precomputed.getTestData(), testCase.getTestData());
+        assertEquals(precomputed.getSteps(), testCase.getSteps());
+        assertEquals(precomputed.getExpected(), testCase.getExpected());
+        assertEquals(precomputed.getStructuredTestData(), testCase.getStructuredTestData());
+        assertEquals(precomputed.getStructuredSteps(), testCase.getStructuredSteps());
+        assertSame(precomputed.getStepPool(), testCase.getStepPool());
+        assertEquals(precomputed.getStepIds(), testCase.getStepIds());
+        
+        assertEquals(precomputed.getLowerCaseClassName(), testCase.getLowerCaseClassName());
+        assertEquals(precomputed.getLowerCaseSteps(), testCase.getLowerCaseSteps());
+        assertEquals(precomputed.getJoinedSteps(), testCase.getJoinedSteps());
+        assertEquals(precomputed.hasNavigationSteps(), testCase.hasNavigationSteps());
+        assertEquals(precomputed.extractUrl(), testCase.extractUrl());
+        assertEquals(precomputed.getFingerprint(), testCase.getFingerprint());
+        assertEquals(precomputed.getTestDataValue("username"), testCase.getTestDataValue("username"));
+        assertEquals(precomputed.toString(), testCase.toString());
+    }
+    
+    @Test
+    public void derivedFieldsAreComputedOnce() {
+        PrecomputedTestCase precomputed = PrecomputedTestCase.of(read("TC_01", "LoginTest",
+            "Navigate to https://portal.welldoc.com", ""));
+        
+        assertTrue(precomputed.hasNavigationSteps());
+        assertNotNull(precomputed.extractUrl());
+        assertSame(precomputed.getLowerCaseSteps(), precomputed.getLowerCaseSteps());
+        assertSame(precomputed.getJoinedSteps(), precomputed.getJoinedSteps());
+        assertSame(precomputed.extractUrl(), precomputed.extractUrl());
+    }
+    
+    @Test
+    public void settersRejectChanges() {
+        PrecomputedTestCase precomputed = PrecomputedTestCase.of(read("TC_01", "LoginTest", "Click Login", ""));
+        
+        expectThrows(UnsupportedOperationException.class, () -> precomputed.setId("TC_02"));
+        expectThrows(UnsupportedOperationException.class, () -> precomputed.setClassName("OtherTest"));
+        expectThrows(UnsupportedOperationException.class, () -> precomputed.setMethodName("other"));
+        expectThrows(UnsupportedOperationException.class, () -> precomputed.setPreConditions("none"));
+        expectThrows(UnsupportedOperationException.class, () -> precomputed.setSummary("none"));
+        expectThrows(UnsupportedOperationException.class, () -> precomputed.setTestData("none"));
+        expectThrows(UnsupportedOperationException.class, () -> precomputed.setSteps(List.of("Click Logout")));
+        expectThrows(UnsupportedOperationException.class, () -> precomputed.setExpected("none"));
+        expectThrows(UnsupportedOperationException.class, () -> precomputed.setStructuredTestData(Map.of()));
+        expectThrows(UnsupportedOperationException.class, () -> precomputed.setStructuredSteps(List.of()));
+        expectThrows(UnsupportedOperationException.class, () -> precomputed.setStepIds(new StepPool(), new int[0]));
+        
+        assertEquals(precomputed.getId(), "TC_01");
+        assertEquals(precomputed.getSteps(), List.of("Click Login"));
+    }
+    
+    @Test
+    public void collectionsAreReadOnly() {
+        PrecomputedTestCase precomputed = PrecomputedTestCase.of(read("TC_01", "LoginTest", "Click Login",
+            "Username: admin"));
+        
+        expectThrows(UnsupportedOperationException.class, () -> precomputed.getSteps().add("Click Logout"));
+        expectThrows(UnsupportedOperationException.class, () -> precomputed.getLowerCaseSteps().clear());
+        expectThrows(UnsupportedOperationException.class, () -> precomputed.getStructuredSteps().clear());
+        expectThrows(UnsupportedOperationException.class,
+            () -> precomputed.getStructuredTestData().put("password", "secret"));
+    }
+    
+    @Test
+    public void laterChangesToTheSourceDoNotLeakIn() {
+        TestCase testCase = read("TC_01", "LoginTest", "Click Login", "Username: admin");
+        List<String> steps = new ArrayList<>(testCase.getSteps());
+        testCase.setSteps(steps);
+        PrecomputedTestCase precomputed = PrecomputedTestCase.of(testCase);
+        long fingerprint = precomputed.getFingerprint();
+        
+        steps.add("Navigate to http://other");
+        testCase.setId("TC_99");
+        testCase.getStructuredTestData().put("password", "secret");
+        
+        assertEquals(precomputed.getId(), "TC_01");
+        assertEquals(precomputed.getSteps(), List.of("Click Login"));
+        assertFalse(precomputed.hasNavigationSteps());
+        assertNull(precomputed.getTestDataValue("password"));
+        assertEquals(precomputed.getFingerprint(), fingerprint);
+    }
+    
+    @Test
+    public void freezingIsIdempotentAndKeepsOrder() {
+        TestCase first = read("TC_01", "LoginTest", "Click Login", "");
+        TestCase second = read("TC_02", "LoginTest", "Click Logout", "");
+        PrecomputedTestCase precomputed = PrecomputedTestCase.of(first);
+        
+        assertSame(PrecomputedTestCase.of(precomputed), precomputed);
+        List<TestCase> frozen = PrecomputedTestCase.of(List.of(precomputed, second));
+        assertSame(frozen.get(0), precomputed);
+        assertTrue(frozen.get(1) instanceof PrecomputedTestCase);
+        assertEquals(frozen.get(1).getId(), "TC_02");
+    }
+    
+    private static TestCase read(String id, String className, String steps, String testData) {
+        return ExcelReader.createTestCaseFromValues(new String[] {
+            id, className, "run", "Logged out", "Summary of " + id, testData, steps, "Done"
+        }, COLUMNS, new StepPool());
+    }
+}
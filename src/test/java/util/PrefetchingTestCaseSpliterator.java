@@ -0,0 +1,147 @@
+package util;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Spliterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Consumer;
+
+/**
+ * Spliterator that reads test cases on a background thread into a bounded buffer
+ * Test cases are handed out as immutable PrecomputedTestCase objects.
+ * The reader runs ahead of the consumer by at most "prefetch" test cases; when the
+ * buffer is full the reader blocks, so a slow consumer applies backpressure.
+ * Closing the spliterator stops the reader and releases the underlying file.
+ */
+public class PrefetchingTestCaseSpliterator implements Spliterator<TestCase>, AutoCloseable {
+    
+    private static final TestCase END_OF_INPUT = new TestCase();
+    
+    private final BlockingQueue<TestCase> buffer;
+    // Package-private so tests can wait for the reader to stop
+    final Thread readerThread;
+    private final IngestionMetrics metrics;
+    private volatile IOException failure;
+    private volatile boolean closed;
+    private boolean finished;
+    
+    /**
+     * Starts reading the file in the background
+     * @param filePath Path to the Excel or CSV file
+     * @param prefetch Maximum number of test cases buffered ahead of the consumer
+     */
+    public PrefetchingTestCaseSpliterator(String filePath, int prefetch) {
+        this(filePath, prefetch, new IngestionMetrics());
+    }
+    
+    /**
+     * Starts reading the file in the background, recording per-phase timings
+     * @param metrics Filled by the reader thread; complete once the end of input is reached
+     */
+    public PrefetchingTestCaseSpliterator(String filePath, int prefetch, IngestionMetrics metrics) {
+        if (prefetch < 1) {
+            throw new IllegalArgumentException("prefetch must be at least 1");
+        }
+        this.buffer = new ArrayBlockingQueue<>(prefetch);
+        this.metrics = metrics;
+        this.readerThread = new Thread(() -> read(filePath), "testcase-reader");
+        this.readerThread.setDaemon(true);
+        this.readerThread.start();
+    }
+    
+    private void read(String filePath) {
+        try {
+            ExcelReader.readRows(filePath, ExcelReader.precomputedRowHandler(this::enqueue, metrics), metrics);
+        } catch (ReaderClosedException e) {
+            return;
+        } catch (IOException e) {
+            failure = e;
+        } catch (RuntimeException e) {
+            failure = new IOException("Failed to read test cases: " + e.getMessage(), e);
+        } finally {
+            metrics.end();
+        }
+        
+        try {
+            buffer.put(END_OF_INPUT);
+        } catch (InterruptedException e) {
+            // Consumer closed the stream; nobody is waiting for the end marker
+        }
+    }
+    
+    private void enqueue(TestCase testCase) {
+        if (closed) {
+            throw new ReaderClosedException();
+        }
+        try {
+            buffer.put(testCase);
+        } catch (InterruptedException e) {
+            throw new ReaderClosedException();
+        }
+    }
+    
+    @Override
+    public boolean tryAdvance(Consumer<? super TestCase> action) {
+        if (finished) return false;
+        
+        TestCase next;
+        try {
+            next = buffer.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            close();
+            throw new UncheckedIOException(new IOException("Interrupted while reading test cases", e));
+        }
+        
+        if (next == END_OF_INPUT) {
+            finished = true;
+            if (failure != null) {
+                throw new UncheckedIOException(failure);
+            }
+            return false;
+        }
+        
+        action.accept(next);
+        return true;
+    }
+    
+    @Override
+    public Spliterator<TestCase> trySplit() {
+        // Rows arrive sequentially from a single reader
+        return null;
+    }
+    
+    @Override
+    public long estimateSize() {
+        return Long.MAX_VALUE;
+    }
+    
+    @Override
+    public int characteristics() {
+        return ORDERED | NONNULL;
+    }
+    
+    /**
+     * Stops the background reader; safe to call more than once
+     */
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        finished = true;
+        readerThread.interrupt();
+        buffer.clear();
+    }
+    
+    /**
+     * Unwinds the SAX/CSV parser once the consumer has gone away
+     */
+    private static class ReaderClosedException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+        
+        ReaderClosedException() {
+            super("Test case stream closed", null, false, false);
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package util;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import static org.testng.Assert.*;
+
+/**
+ * Backpressure, early close and failure reporting of the background test case reader
+ */
+public class PrefetchingTestCaseSpliteratorTest {
+    
+    private static final String HEADER = "Test Case ID,Automation Class Name,Automation Method Name,Test Case (steps)\n";
+    
+    private Path directory;
+    
+    @BeforeMethod
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("prefetch-test");
+    }
+    
+    @AfterMethod(alwaysRun = true)
+    public void deleteFiles() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+    
+    @Test
+    public void deliversEveryRowInOrder() throws IOException {
+        Path source = writeCsv(100);
+        
+        try (Stream<TestCase> testCases = ExcelReader.streamTestCases(source.toString(), 4)) {
+            List<String> ids = testCases.map(TestCase::getId).collect(Collectors.toList());
+            assertEquals(ids.size(), 100);
+            assertEquals(ids.get(0), "TC_1");
+            assertEquals(ids.get(99), "TC_100");
+        }
+    }
+    
+    @Test
+    public void readerStaysWithinTheBuffer() throws Exception {
+        Path source = writeCsv(1000);
+        IngestionMetrics metrics = new IngestionMetrics();
+        PrefetchingTestCaseSpliterator spliterator = new PrefetchingTestCaseSpliterator(source.toString(), 3, metrics);
+        
+        // Nothing is consumed, so the reader fills the buffer and blocks
+        awaitBlocked(spliterator.readerThread);
+        spliterator.close();
+        spliterator.readerThread.join(5000);
+        
+        assertFalse(spliterator.readerThread.isAlive());
+        // Three buffered rows and the one the reader was handing over; if clearing the buffer
+        // lets that hand-over complete, one more row is parsed before the reader sees the close
+        assertTrue(metrics.getRows() <= 5, "rows read ahead: " + metrics.getRows());
+    }
+    
+    @Test
+    public void slowConsumerResumesTheReader() throws Exception {
+        Path source = writeCsv(50);
+        List<String> ids = new ArrayList<>();
+        
+        try (PrefetchingTestCaseSpliterator spliterator = new PrefetchingTestCaseSpliterator(source.toString(), 2)) {
+            while (true) {
+                awaitBlockedOrDone(spliterator.readerThread);
+                if (!spliterator.tryAdvance(testCase -> ids.add(testCase.getId()))) break;
+            }
+        }
+        
+        assertEquals(ids.size(), 50);
+        assertEquals(ids.get(49), "TC_50");
+    }
+    
+    @Test
+    public void earlyCloseStopsTheReader() throws Exception {
+        Path source = writeCsv(10_000);
+        IngestionMetrics metrics = new IngestionMetrics();
+        List<TestCase> taken = new ArrayList<>();
+        PrefetchingTestCaseSpliterator spliterator = new PrefetchingTestCaseSpliterator(source.toString(), 8, metrics);
+        
+        for (int i = 0; i < 5; i++) {
+            assertTrue(spliterator.tryAdvance(taken::add));
+        }
+        spliterator.close();
+        spliterator.close();
+        spliterator.readerThread.join(5000);
+        
+        assertFalse(spliterator.readerThread.isAlive());
+        assertTrue(metrics.getRows() < 10_000, "rows read: " + metrics.getRows());
+        assertFalse(spliterator.tryAdvance(taken::add));
+        assertEquals(taken.size(), 5);
+    }
+    
+    @Test
+    public void closingTheStreamClosesTheReader() throws Exception {
+        Path source = writeCsv(10_000);
+        
+        try (Stream<TestCase> testCases = ExcelReader.streamTestCases(source.toString(), 8)) {
+            assertEquals(testCases.limit(3).count(), 3);
+        }
+        // The reader thread of the closed stream ends; the suite runs tests one at a time
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().equals("testcase-reader")) {
+                thread.join(5000);
+                assertFalse(thread.isAlive());
+            }
+        }
+    }
+    
+    @Test
+    public void readFailureReachesTheConsumerAfterEarlierRows() throws IOException {
+        Path source = writeXlsx(500);
+        truncateEntry(source, "xl/worksheets/sheet1.xml");
+        List<TestCase> received = new ArrayList<>();
+        
+        try (PrefetchingTestCaseSpliterator spliterator = new PrefetchingTestCaseSpliterator(source.toString(), 8)) {
+            UncheckedIOException failure = expectThrows(UncheckedIOException.class, () -> {
+                while (spliterator.tryAdvance(received::add)) {
+                    // drain
+                }
+            });
+            assertTrue(failure.getCause().getMessage().startsWith("Failed to parse worksheet"),
+                failure.getCause().getMessage());
+            // Once failed, the spliterator reports the end of input
+            assertFalse(spliterator.tryAdvance(received::add));
+        }
+        
+        assertFalse(received.isEmpty());
+        assertEquals(received.get(0).getId(), "TC_1");
+    }
+    
+    @Test
+    public void missingFileFailsTheFirstAdvance() {
+        String missing = directory.resolve("missing.csv").toString();
+        
+        try (Stream<TestCase> testCases = ExcelReader.streamTestCases(missing, 4)) {
+            UncheckedIOException failure = expectThrows(UncheckedIOException.class, testCases::count);
+            assertTrue(failure.getCause() instanceof NoSuchFileException, failure.getCause().toString());
+        }
+    }
+    
+    @Test
+    public void handsOutPrecomputedTestCases() throws IOException {
+        Path source = writeCsv(1);
+        
+        try (Stream<TestCase> testCases = ExcelReader.streamTestCases(source.toString(), 1)) {
+            assertTrue(testCases.findFirst().orElseThrow() instanceof PrecomputedTestCase);
+        }
+    }
+    
+    @Test
+    public void rejectsEmptyBuffer() {
+        expectThrows(IllegalArgumentException.class,
+            () -> new PrefetchingTestCaseSpliterator(directory.resolve("cases.csv").toString(), 0));
+    }
+    
+    private Path writeCsv(int rows) throws IOException {
+        StringBuilder csv = new StringBuilder(HEADER);
+        for (int i = 1; i <= rows; i++) {
+            csv.append("TC_").append(i).append(",LoginTest,case").append(i).append(",Open the portal\n");
+        }
+        Path source = directory.resolve("cases.csv");
+        Files.write(source, csv.toString().getBytes(StandardCharsets.UTF_8));
+        return source;
+    }
+    
+    private Path writeXlsx(int rows) throws IOException {
+        Path source = directory.resolve("cases.xlsx");
+        try (XSSFWorkbook workbook = new XSSFWorkbook()) {
+            Sheet sheet = workbook.createSheet("Test Cases");
+            String[] headers = HEADER.trim().split(",");
+            Row header = sheet.createRow(0);
+            for (int i = 0; i < headers.length; i++) {
+                header.createCell(i).setCellValue(headers[i]);
+            }
+            for (int i = 1; i <= rows; i++) {
+                Row row = sheet.createRow(i);
+                row.createCell(0).setCellValue("TC_" + i);
+                row.createCell(1).setCellValue("LoginTest");
+                row.createCell(2).setCellValue("case" + i);
+                row.createCell(3).setCellValue("Open the portal");
+            }
+            try (OutputStream out = Files.newOutputStream(source)) {
+                workbook.write(out);
+            }
+        }
+        return source;
+    }
+    
+    /**
+     * Cuts a zip entry in half so the XML inside it no longer parses
+     */
+    private static void truncateEntry(Path zip, String entryName) throws IOException {
+        Path copy = zip.resolveSibling(zip.getFileName() + ".tmp");
+        try (ZipInputStream in = new ZipInputStream(Files.newInputStream(zip));
+             ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(copy))) {
+            for (ZipEntry entry; (entry = in.getNextEntry()) != null; ) {
+                byte[] content = in.readAllBytes();
+                if (entry.getName().equals(entryName)) {
+                    content = new String(content, StandardCharsets.UTF_8)
+                        .substring(0, content.length / 2).getBytes(StandardCharsets.UTF_8);
+                }
+                out.putNextEntry(new ZipEntry(entry.getName()));
+                out.write(content);
+                out.closeEntry();
+            }
+        }
+        Files.move(copy, zip, StandardCopyOption.REPLACE_EXISTING);
+    }
+    
+    /**
+     * Waits until the reader parks on the full buffer
+     */
+    private static void awaitBlocked(Thread reader) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (reader.getState() != Thread.State.WAITING) {
+            assertTrue(reader.isAlive(), "reader finished instead of blocking");
+            assertTrue(System.currentTimeMillis() < deadline, "reader never blocked");
+            Thread.sleep(5);
+        }
+    }
+    
+    private static void awaitBlockedOrDone(Thread reader) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (reader.isAlive() && reader.getState() != Thread.State.WAITING) {
+            assertTrue(System.currentTimeMillis() < deadline, "reader neither blocked nor finished");
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package util;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Persistent per-row content fingerprints for incremental ingestion
+ * Each data row is hashed over its raw cell values and keyed by Test Case ID.
+ * The fingerprints are stored next to the workbook as "&lt;workbook&gt;.fingerprints".
+ * Every row is also validated, so a duplicate Test Case ID is reported rather than
+ * letting one row's fingerprint stand in for the other's.
+ */
+public class RowFingerprintCache {
+
+    private static final String FILE_SUFFIX = ".fingerprints";
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final char CELL_SEPARATOR = '\u001F';
+
+    /**
+     * Reads the workbook and compares every row with the stored fingerprints
+     * Only rows that are new or changed are turned into TestCase objects;
+     * unchanged rows are hashed and skipped.
+     * @param filePath Path to the Excel or CSV file
+     * @return Changes since the last committed fingerprints
+     */
+    public static TestCaseChanges readChanges(String filePath) throws IOException {
+        Path cachePath = cachePath(filePath);
+        Map<String, Long> previous = load(cachePath);
+        Map<String, Long> current = new LinkedHashMap<>();
+        List<TestCase> added = new ArrayList<>();
+        List<TestCase> changed = new ArrayList<>();
+        // Sheet row numbers (1-based, as shown in Excel) of the validated rows, for messages
+        int[][] rowNumbers = {new int[1024]};
+        TestCaseValidator validator = new TestCaseValidator(ordinal -> "row " + rowNumbers[0][ordinal]);
+        StepPool steps = new StepPool();
+
+        ExcelReader.readRows(filePath, new RowHandler() {
+            private Map<String, Integer> columnMap = Map.of();
+
+            @Override
+            public void handleRow(int rowNum, String[] values) {
+                if (rowNum == 0) {
+                    columnMap = ExcelReader.createColumnMap(values);
+                    return;
+                }
+
+                String id = ExcelReader.getCellValue(values, columnMap, ExcelReader.TEST_CASE_ID).trim();
+                if (id.isEmpty()) return;
+
+                int ordinal = validator.getCount();
+                if (ordinal == rowNumbers[0].length) {
+                    rowNumbers[0] = Arrays.copyOf(rowNumbers[0], ordinal * 2);
+                }
+                rowNumbers[0][ordinal] = rowNum + 1;
+                validator.add(id,
+                    ExcelReader.getCellValue(values, columnMap, ExcelReader.AUTOMATION_CLASS_NAME),
+                    ExcelReader.getCellValue(values, columnMap, ExcelReader.AUTOMATION_METHOD_NAME));
+                
+                // A repeated ID is left to the validator; the first row keeps the ID's fingerprint
+                long fingerprint = fingerprint(values);
+                if (current.putIfAbsent(id, fingerprint) != null) return;
+
+                Long previousFingerprint = previous.get(id);
+                if (previousFingerprint != null && previousFingerprint == fingerprint) return;
+
+                TestCase testCase = ExcelReader.createTestCaseFromValues(values, columnMap, steps);
+                if (previousFingerprint == null) {
+                    added.add(testCase);
+                } else {
+                    changed.add(testCase);
+                }
+            }
+        });
+
+        List<String> removed = new ArrayList<>();
+        for (String id : previous.keySet()) {
+            if (!current.containsKey(id)) {
+                removed.add(id);
+            }
+        }
+
+        return new TestCaseChanges(added, changed, removed, current, cachePath, validator);
+    }
+
+    /**
+     * 64-bit FNV-1a hash over the raw cell values of a row
+     */
+    static long fingerprint(String[] values) {
+        long hash = FNV_OFFSET_BASIS;
+        for (String value : values) {
+            if (value != null) {
+                for (int i = 0; i < value.length(); i++) {
+                    hash ^= value.charAt(i);
+                    hash *= FNV_PRIME;
+                }
+            }
+            hash ^= CELL_SEPARATOR;
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+
+    /**
+     * Location of the fingerprint file for a workbook
+     */
+    static Path cachePath(String filePath) {
+        return Paths.get(filePath + FILE_SUFFIX);
+    }
+
+    /**
+     * Loads stored fingerprints, one "id&lt;TAB&gt;hex" entry per line
+     */
+    static Map<String, Long> load(Path cachePath) throws IOException {
+        Map<String, Long> fingerprints = new HashMap<>();
+        if (!Files.exists(cachePath)) {
+            return fingerprints;
+        }
+
+        try (BufferedReader reader = Files.newBufferedReader(cachePath, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int tab = line.lastIndexOf('\t');
+                if (tab <= 0) continue;
+                try {
+                    fingerprints.put(line.substring(0, tab), Long.parseUnsignedLong(line.substring(tab + 1), 16));
+                } catch (NumberFormatException e) {
+                    // Ignore corrupt entries; the row will simply be reported as added
+                }
+            }
+        }
+        return fingerprints;
+    }
+
+    /**
+     * Writes fingerprints atomically so an interrupted run never leaves a partial file
+     */
+    static void save(Path cachePath, Map<String, Long> fingerprints) throws IOException {
+        Path tempPath = cachePath.resolveSibling(cachePath.getFileName() + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(tempPath, StandardCharsets.UTF_8)) {
+            for (Map.Entry<String, Long> entry : fingerprints.entrySet()) {
+                writer.write(entry.getKey());
+                writer.write('\t');
+                writer.write(Long.toHexString(entry.getValue()));
+                writer.newLine();
+            }
+        }
+        Files.move(tempPath, cachePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
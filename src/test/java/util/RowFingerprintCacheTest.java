@@ -0,0 +1,134 @@
+package util;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.testng.Assert.*;
+
+/**
+ * Add, change and remove detection of the per-row FNV-1a fingerprints
+ */
+public class RowFingerprintCacheTest {
+    
+    private static final String HEADER =
+        "Test Case ID,Automation Class Name,Automation Method Name,Test Case (steps),Expected Results\n";
+    private static final String LOGIN = "TC_01,LoginTest,loginPortal,\"1. Open the portal\n2. Click Login\",Dashboard\n";
+    private static final String SEARCH = "TC_02,SearchTest,searchPatient,Enter patient name 'Smith',Results\n";
+    private static final String LOGOUT = "TC_03,LoginTest,logout,Click Logout,Login page\n";
+    
+    private Path directory;
+    private Path source;
+    
+    @BeforeMethod
+    public void createSource() throws IOException {
+        directory = Files.createTempDirectory("fingerprint-test");
+        source = directory.resolve("cases.csv");
+        write(LOGIN, SEARCH);
+    }
+    
+    @AfterMethod(alwaysRun = true)
+    public void deleteFiles() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+    
+    @Test
+    public void firstReadReportsEveryRowAsAdded() throws IOException {
+        TestCaseChanges changes = RowFingerprintCache.readChanges(source.toString());
+        
+        assertEquals(ids(changes.getAdded()), List.of("TC_01", "TC_02"));
+        assertTrue(changes.getChanged().isEmpty());
+        assertTrue(changes.getRemovedIds().isEmpty());
+    }
+    
+    @Test
+    public void committedRowsAreUnchanged() throws IOException {
+        RowFingerprintCache.readChanges(source.toString()).commit();
+        
+        TestCaseChanges changes = RowFingerprintCache.readChanges(source.toString());
+        assertFalse(changes.hasChanges());
+        assertTrue(changes.isUnchanged("TC_01"));
+    }
+    
+    @Test
+    public void detectsAddedChangedAndRemovedRows() throws IOException {
+        RowFingerprintCache.readChanges(source.toString()).commit();
+        write(LOGIN.replace("Click Login", "Click Sign in"), LOGOUT);
+        
+        TestCaseChanges changes = RowFingerprintCache.readChanges(source.toString());
+        assertEquals(ids(changes.getAdded()), List.of("TC_03"));
+        assertEquals(ids(changes.getChanged()), List.of("TC_01"));
+        assertEquals(changes.getRemovedIds(), List.of("TC_02"));
+        assertEquals(changes.getChanged().get(0).getSteps().get(1), "Click Sign in");
+    }
+    
+    @Test
+    public void uncommittedChangesAreReportedAgain() throws IOException {
+        RowFingerprintCache.readChanges(source.toString()).commit();
+        write(LOGIN, SEARCH.replace("Smith", "Jones"));
+        
+        assertEquals(ids(RowFingerprintCache.readChanges(source.toString()).getChanged()), List.of("TC_02"));
+        assertEquals(ids(RowFingerprintCache.readChanges(source.toString()).getChanged()), List.of("TC_02"));
+    }
+    
+    @Test
+    public void duplicateIdIsReportedAndKeepsFirstFingerprint() throws IOException {
+        RowFingerprintCache.readChanges(source.toString()).commit();
+        write(LOGIN, SEARCH, LOGIN.replace("loginPortal", "loginAgain"));
+        
+        TestCaseChanges changes = RowFingerprintCache.readChanges(source.toString());
+        assertFalse(changes.getValidator().isValid());
+        assertTrue(changes.getValidator().getProblems().get(0).contains("duplicate Test Case ID (first used by row 2)"),
+            changes.getValidator().getProblems().toString());
+        // The first TC_01 row is unchanged, and stays so on every later read
+        assertFalse(changes.hasChanges());
+        changes.commit();
+        assertTrue(RowFingerprintCache.readChanges(source.toString()).isUnchanged("TC_01"));
+    }
+    
+    @Test
+    public void fingerprintSeparatesCells() {
+        long fingerprint = RowFingerprintCache.fingerprint(new String[] {"ab", "c"});
+        
+        assertEquals(RowFingerprintCache.fingerprint(new String[] {"ab", "c"}), fingerprint);
+        assertNotEquals(RowFingerprintCache.fingerprint(new String[] {"a", "bc"}), fingerprint);
+        assertNotEquals(RowFingerprintCache.fingerprint(new String[] {"abc"}), fingerprint);
+        assertNotEquals(RowFingerprintCache.fingerprint(new String[] {"ab", "c", ""}), fingerprint);
+    }
+    
+    @Test
+    public void corruptEntriesAreReadAsAdded() throws IOException {
+        RowFingerprintCache.readChanges(source.toString()).commit();
+        Path cachePath = RowFingerprintCache.cachePath(source.toString());
+        List<String> lines = Files.readAllLines(cachePath, StandardCharsets.UTF_8);
+        lines.set(0, lines.get(0).replaceAll("\t.*", "\tnot-hex"));
+        Files.write(cachePath, lines, StandardCharsets.UTF_8);
+        
+        TestCaseChanges changes = RowFingerprintCache.readChanges(source.toString());
+        assertEquals(ids(changes.getAdded()), List.of("TC_01"));
+        assertTrue(changes.getChanged().isEmpty());
+    }
+    
+    private void write(String... rows) throws IOException {
+        Files.write(source, (HEADER + String.join("", rows)).getBytes(StandardCharsets.UTF_8));
+    }
+    
+    private static List<String> ids(List<TestCase> testCases) {
+        List<String> ids = new ArrayList<>();
+        for (TestCase testCase : testCases) {
+            ids.add(testCase.getId());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,16 @@
+package util;
+
+/**
+ * Callback for raw spreadsheet rows produced by the ingestion readers
+ * Row 0 is the header row; values are indexed by column position
+ */
+@FunctionalInterface
+public interface RowHandler {
+
+    /**
+     * Handles a single row of raw cell values
+     * @param rowNum Zero-based row number within the sheet
+     * @param values Cell values as strings, empty string for blank cells
+     */
+    void handleRow(int rowNum, String[] values);
+}
@@ -0,0 +1,420 @@
+package util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Test case store that keeps rows on the heap until a budget is exceeded, then
+ * spills everything to memory-mapped, append-only segment files
+ * Once spilled, the heap only holds an offset per row and the row numbers per class;
+ * test cases are decoded from the mapped segments whenever they are accessed.
+ * Lexed steps are stored as parsed, like TestCaseCatalog does, so a spilled row reads
+ * back the same as one kept on the heap. Close the store to delete the segment files.
+ */
+public class SpillingTestCaseStore implements Iterable<TestCase>, Closeable {
+    
+    private static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+    
+    // Rough heap cost of a TestCase with its lists and maps, excluding string contents
+    private static final int ROW_OVERHEAD = 256;
+    private static final int STRING_OVERHEAD = 48;
+    
+    private final long heapBudgetBytes;
+    private final int segmentSize;
+    
+    // Heap mode
+    private List<TestCase> heapRows = new ArrayList<>();
+    private long heapBytes;
+    
+    // Spilled mode: row -> (segment << 32 | offset)
+    private Path directory;
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+    private long[] offsets;
+    private int spilledRows;
+    private ByteBuffer scratch;
+    
+    private int size;
+    private final Map<String, RowList> rowsByClass = new LinkedHashMap<>();
+    
+    /**
+     * @param heapBudgetBytes Approximate heap the store may use before spilling to disk
+     */
+    public SpillingTestCaseStore(long heapBudgetBytes) {
+        this(heapBudgetBytes, DEFAULT_SEGMENT_SIZE);
+    }
+    
+    /**
+     * @param segmentSize Size of each memory-mapped segment file
+     */
+    SpillingTestCaseStore(long heapBudgetBytes, int segmentSize) {
+        this.heapBudgetBytes = heapBudgetBytes;
+        this.segmentSize = segmentSize;
+    }
+    
+    /**
+     * Appends a test case, spilling to disk once the heap budget is exceeded
+     */
+    public void add(TestCase testCase) throws IOException {
+        rowsByClass.computeIfAbsent(testCase.getClassName(), k -> new RowList()).add(size);
+        
+        if (heapRows != null) {
+            heapRows.add(testCase);
+            heapBytes += estimateHeapBytes(testCase);
+            size++;
+            if (heapBytes > heapBudgetBytes) {
+                spill();
+            }
+            return;
+        }
+        
+        append(testCase);
+        size++;
+    }
+    
+    /**
+     * Number of test cases in the store
+     */
+    public int size() {
+        return size;
+    }
+    
+    /**
+     * Whether rows have been moved to disk
+     */
+    public boolean isSpilled() {
+        return heapRows == null;
+    }
+    
+    /**
+     * Test case at a row index; decoded from disk once spilled
+     */
+    public TestCase get(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " of " + size);
+        }
+        return heapRows != null ? heapRows.get(row) : decode(offsets[row]);
+    }
+    
+    /**
+     * Class names in order of first appearance
+     */
+    public Set<String> getClassNames() {
+        return Collections.unmodifiableSet(rowsByClass.keySet());
+    }
+    
+    /**
+     * Test cases of one class in sheet order, decoded on access
+     */
+    public List<TestCase> getByClass(String className) {
+        RowList rows = rowsByClass.get(className);
+        return rows == null ? Collections.emptyList() : new RowsView(rows.rows, rows.size);
+    }
+    
+    /**
+     * All test cases in insertion order, decoded on access
+     */
+    public List<TestCase> asList() {
+        return new RowsView(null, size);
+    }
+    
+    @Override
+    public Iterator<TestCase> iterator() {
+        return asList().iterator();
+    }
+    
+    /**
+     * Releases the mapped segments and deletes their files
+     */
+    @Override
+    public void close() throws IOException {
+        segments.clear();
+        heapRows = null;
+        if (directory != null) {
+            try (Stream<Path> files = Files.list(directory)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    Files.deleteIfExists(file);
+                }
+            }
+            Files.deleteIfExists(directory);
+            directory = null;
+        }
+    }
+    
+    /**
+     * Moves all heap rows to disk; later rows are appended to disk directly
+     */
+    private void spill() throws IOException {
+        directory = Files.createTempDirectory("testcase-store");
+        offsets = new long[Math.max(1024, heapRows.size() * 2)];
+        scratch = ByteBuffer.allocate(64 * 1024);
+        
+        List<TestCase> rows = heapRows;
+        heapRows = null;
+        for (TestCase testCase : rows) {
+            append(testCase);
+        }
+        System.out.println("Test case store exceeded " + heapBudgetBytes / (1024 * 1024)
+            + " MB heap budget, spilled " + rows.size() + " rows to " + directory);
+    }
+    
+    private void append(TestCase testCase) throws IOException {
+        encode(testCase);
+        int length = scratch.position();
+        if (length > segmentSize) {
+            throw new IOException("Test case " + testCase.getId() + " is too large to store (" + length + " bytes)");
+        }
+        
+        MappedByteBuffer segment = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+        if (segment == null || segment.remaining() < length) {
+            segment = newSegment();
+        }
+        
+        long offset = ((long) (segments.size() - 1) << 32) | segment.position();
+        segment.put(scratch.array(), 0, length);
+        
+        if (spilledRows == offsets.length) {
+            offsets = Arrays.copyOf(offsets, offsets.length * 2);
+        }
+        offsets[spilledRows++] = offset;
+    }
+    
+    private MappedByteBuffer newSegment() throws IOException {
+        Path file = directory.resolve("segment-" + segments.size() + ".bin");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+            segments.add(segment);
+            return segment;
+        }
+    }
+    
+    /**
+     * Encodes a test case into the scratch buffer
+     * Strings are stored as varint (length + 1) and UTF-8 bytes, 0 meaning null;
+     * the steps, lexed steps and test data counts are stored the same way
+     */
+    private void encode(TestCase testCase) {
+        scratch.clear();
+        putString(testCase.getId());
+        putString(testCase.getClassName());
+        putString(testCase.getMethodName());
+        putString(testCase.getPreConditions());
+        putString(testCase.getSummary());
+        putString(testCase.getTestData());
+        putString(testCase.getExpected());
+        
+        List<String> steps = testCase.getSteps();
+        putVarInt(steps == null ? 0 : steps.size() + 1);
+        if (steps != null) {
+            for (String step : steps) {
+                putString(step);
+            }
+        }
+        
+        List<TestStep> structuredSteps = testCase.getStructuredSteps();
+        putVarInt(structuredSteps == null ? 0 : structuredSteps.size() + 1);
+        if (structuredSteps != null) {
+            for (TestStep step : structuredSteps) {
+                // Unnumbered steps have number -1
+                putVarInt(step.getNumber() + 1);
+                putString(step.getText());
+                putString(step.getVerb());
+                putString(step.getTarget());
+                putString(step.getValue());
+            }
+        }
+        
+        Map<String, String> data = testCase.getStructuredTestData();
+        putVarInt(data == null ? 0 : data.size() + 1);
+        if (data != null) {
+            for (Map.Entry<String, String> entry : data.entrySet()) {
+                putString(entry.getKey());
+                putString(entry.getValue());
+            }
+        }
+    }
+    
+    private TestCase decode(long offset) {
+        ByteBuffer buffer = segments.get((int) (offset >>> 32)).duplicate();
+        buffer.position((int) offset);
+        
+        TestCase testCase = new TestCase();
+        testCase.setId(getString(buffer));
+        testCase.setClassName(getString(buffer));
+        testCase.setMethodName(getString(buffer));
+        testCase.setPreConditions(getString(buffer));
+        testCase.setSummary(getString(buffer));
+        testCase.setTestData(getString(buffer));
+        testCase.setExpected(getString(buffer));
+        
+        int stepCount = getVarInt(buffer) - 1;
+        if (stepCount >= 0) {
+            List<String> steps = new ArrayList<>(stepCount);
+            for (int i = 0; i < stepCount; i++) {
+                steps.add(getString(buffer));
+            }
+            testCase.setSteps(steps);
+        }
+        
+        int structuredCount = getVarInt(buffer) - 1;
+        if (structuredCount >= 0) {
+            // Not pooled: decoded rows are transient, and a pool would keep every step they had
+            List<TestStep> structuredSteps = new ArrayList<>(structuredCount);
+            for (int i = 0; i < structuredCount; i++) {
+                structuredSteps.add(new TestStep(getVarInt(buffer) - 1, getString(buffer),
+                    getString(buffer), getString(buffer), getString(buffer)));
+            }
+            testCase.setStructuredSteps(structuredSteps);
+        }
+        
+        int dataCount = getVarInt(buffer) - 1;
+        if (dataCount >= 0) {
+            Map<String, String> data = new HashMap<>();
+            for (int i = 0; i < dataCount; i++) {
+                data.put(getString(buffer), getString(buffer));
+            }
+            testCase.setStructuredTestData(data);
+        }
+        return testCase;
+    }
+    
+    private void putString(String value) {
+        if (value == null) {
+            putVarInt(0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        putVarInt(bytes.length + 1);
+        ensureScratch(bytes.length);
+        scratch.put(bytes);
+    }
+    
+    private void putVarInt(int value) {
+        ensureScratch(5);
+        while ((value & ~0x7F) != 0) {
+            scratch.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        scratch.put((byte) value);
+    }
+    
+    private void ensureScratch(int extra) {
+        if (scratch.remaining() < extra) {
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(scratch.capacity() * 2, scratch.position() + extra));
+            scratch.flip();
+            larger.put(scratch);
+            scratch = larger;
+        }
+    }
+    
+    private static String getString(ByteBuffer buffer) {
+        int length = getVarInt(buffer) - 1;
+        if (length < 0) return null;
+        
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+    
+    private static int getVarInt(ByteBuffer buffer) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+    
+    private static long estimateHeapBytes(TestCase testCase) {
+        long bytes = ROW_OVERHEAD;
+        bytes += stringBytes(testCase.getId()) + stringBytes(testCase.getClassName())
+            + stringBytes(testCase.getMethodName()) + stringBytes(testCase.getPreConditions())
+            + stringBytes(testCase.getSummary()) + stringBytes(testCase.getTestData())
+            + stringBytes(testCase.getExpected());
+        if (testCase.getSteps() != null) {
+            for (String step : testCase.getSteps()) {
+                bytes += stringBytes(step);
+            }
+        }
+        if (testCase.getStructuredSteps() != null) {
+            for (TestStep step : testCase.getStructuredSteps()) {
+                // The step text is usually the one already counted above
+                bytes += STRING_OVERHEAD + stringBytes(step.getVerb()) + stringBytes(step.getTarget())
+                    + stringBytes(step.getValue());
+            }
+        }
+        if (testCase.getStructuredTestData() != null) {
+            for (Map.Entry<String, String> entry : testCase.getStructuredTestData().entrySet()) {
+                bytes += stringBytes(entry.getKey()) + stringBytes(entry.getValue());
+            }
+        }
+        return bytes;
+    }
+    
+    private static long stringBytes(String value) {
+        return value == null ? 0 : STRING_OVERHEAD + value.length();
+    }
+    
+    /**
+     * Growable list of row numbers
+     */
+    private static class RowList {
+        private int[] rows = new int[8];
+        private int size;
+        
+        void add(int row) {
+            if (size == rows.length) {
+                rows = Arrays.copyOf(rows, size * 2);
+            }
+            rows[size++] = row;
+        }
+    }
+    
+    /**
+     * List view over all rows, or over the given row numbers
+     */
+    private class RowsView extends AbstractList<TestCase> implements RandomAccess {
+        private final int[] rows;
+        private final int size;
+        
+        RowsView(int[] rows, int size) {
+            this.rows = rows;
+            this.size = size;
+        }
+        
+        @Override
+        public TestCase get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index " + index + " of " + size);
+            }
+            return SpillingTestCaseStore.this.get(rows == null ? index : rows[index]);
+        }
+        
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package util;
+
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.testng.Assert.*;
+
+/**
+ * Binary round trip of rows spilled to the memory-mapped segments
+ */
+public class SpillingTestCaseStoreTest {
+    
+    private static final int SEGMENT_SIZE = 4 * 1024;
+    
+    @Test
+    public void heapRowsStayUntilBudgetIsExceeded() throws IOException {
+        try (SpillingTestCaseStore store = new SpillingTestCaseStore(1024 * 1024)) {
+            TestCase login = testCase("TC_01", "LoginTest");
+            store.add(login);
+            
+            assertFalse(store.isSpilled());
+            assertSame(store.get(0), login);
+        }
+    }
+    
+    @Test
+    public void spilledRowsKeepEveryField() throws IOException {
+        List<TestCase> rows = List.of(testCase("TC_01", "LoginTest"), testCase("TC_02", "SearchTest"));
+        try (SpillingTestCaseStore store = spilled(rows)) {
+            assertTrue(store.isSpilled());
+            for (int i = 0; i < rows.size(); i++) {
+                assertSameFields(store.get(i), rows.get(i));
+            }
+        }
+    }
+    
+    @Test
+    public void keepsLexedStepNumbers() throws IOException {
+        TestCase login = testCase("TC_01", "LoginTest");
+        try (SpillingTestCaseStore store = spilled(List.of(login))) {
+            // The stored texts are stripped of their numbers, so re-lexing them would lose these
+            List<TestStep> steps = store.get(0).getStructuredSteps();
+            assertEquals(steps.size(), 2);
+            assertEquals(steps.get(0).getNumber(), 1);
+            assertEquals(steps.get(1).getNumber(), 2);
+            assertEquals(steps.get(1).getValue(), "welldocsu");
+        }
+    }
+    
+    @Test
+    public void nullFieldsAndEmptyListsReadBackAsStored() throws IOException {
+        TestCase nulls = new TestCase();
+        TestCase empties = new TestCase();
+        empties.setId("");
+        empties.setSteps(new ArrayList<>());
+        empties.setStructuredTestData(Collections.emptyMap());
+        
+        try (SpillingTestCaseStore store = spilled(List.of(nulls, empties))) {
+            TestCase first = store.get(0);
+            assertNull(first.getId());
+            assertNull(first.getClassName());
+            assertNull(first.getTestData());
+            assertNull(first.getSteps());
+            assertNull(first.getStructuredSteps());
+            assertNull(first.getStructuredTestData());
+            
+            TestCase second = store.get(1);
+            assertEquals(second.getId(), "");
+            assertEquals(second.getSteps(), List.of());
+            assertEquals(second.getStructuredSteps(), List.of());
+            assertEquals(second.getStructuredTestData(), Map.of());
+        }
+    }
+    
+    @Test
+    public void rowsRollOverIntoNewSegments() throws IOException {
+        List<TestCase> rows = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            rows.add(testCase("TC_" + i, i % 2 == 0 ? "LoginTest" : "SearchTest"));
+        }
+        
+        try (SpillingTestCaseStore store = spilled(rows)) {
+            assertEquals(store.size(), rows.size());
+            for (int i = 0; i < rows.size(); i++) {
+                assertSameFields(store.get(i), rows.get(i));
+            }
+        }
+    }
+    
+    @Test
+    public void getByClassDecodesRowsInSheetOrder() throws IOException {
+        List<TestCase> rows = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            rows.add(testCase("TC_" + i, i % 3 == 0 ? "LoginTest" : "SearchTest"));
+        }
+        
+        try (SpillingTestCaseStore store = spilled(rows)) {
+            // Rows added after the spill are appended to disk directly
+            store.add(testCase("TC_100", "LoginTest"));
+            
+            List<String> expected = new ArrayList<>();
+            for (int i = 0; i <= 100; i += 3) {
+                expected.add("TC_" + i);
+            }
+            expected.add("TC_100");
+            assertEquals(ids(store.getByClass("LoginTest")), expected);
+            assertEquals(store.getByClass("SearchTest").size(), 66);
+            assertTrue(store.getByClass("LogoutTest").isEmpty());
+            assertEquals(List.copyOf(store.getClassNames()), List.of("LoginTest", "SearchTest"));
+        }
+    }
+    
+    @Test
+    public void iteratingSpilledRowsPoolsNoSteps() throws IOException {
+        Path directory = Files.createTempDirectory("spilling-store-test");
+        Path csv = directory.resolve("cases.csv");
+        StringBuilder content = new StringBuilder("Test Case ID,Automation Class Name,Test Case (steps)\n");
+        for (int i = 0; i < 500; i++) {
+            content.append("TC_").append(i).append(",LoginTest,\"1. Open page ").append(i)
+                .append("\n2. Click Login\"\n");
+        }
+        Files.write(csv, content.toString().getBytes(StandardCharsets.UTF_8));
+        
+        try (SpillingTestCaseStore store = ExcelReader.readToStore(List.of(csv.toString()), 1)) {
+            assertTrue(store.isSpilled());
+            for (int pass = 0; pass < 2; pass++) {
+                for (TestCase testCase : store.getByClass("LoginTest")) {
+                    // Nothing outside the row refers to its steps, so they go when the row does
+                    assertNull(testCase.getStepPool());
+                    assertNull(testCase.getStepIds());
+                }
+            }
+            assertNotSame(store.get(0).getStructuredSteps().get(1), store.get(1).getStructuredSteps().get(1));
+        }
+        // Rows kept on the heap are not pooled either, so no pool outlives the budget
+        try (SpillingTestCaseStore store = ExcelReader.readToStore(List.of(csv.toString()), 64 * 1024 * 1024)) {
+            assertFalse(store.isSpilled());
+            assertNull(store.get(0).getStepPool());
+        } finally {
+            Files.delete(csv);
+            Files.delete(directory);
+        }
+    }
+    
+    /**
+     * Store with a budget of one byte, so it spills on the first row
+     */
+    private static SpillingTestCaseStore spilled(List<TestCase> rows) throws IOException {
+        SpillingTestCaseStore store = new SpillingTestCaseStore(1, SEGMENT_SIZE);
+        for (TestCase row : rows) {
+            store.add(row);
+        }
+        return store;
+    }
+    
+    private static TestCase testCase(String id, String className) {
+        return ExcelReader.createTestCaseFromValues(
+            new String[] {id, className, "run" + id, "User is logged out", "Summary of " + id,
+                "Username: welldocsu\nPassword: secret",
+                "1. Navigate to https://example.com/login\n2) Enter username 'welldocsu'", "Dashboard is shown"},
+            ExcelReader.createColumnMap(new String[] {"Test Case ID", "Automation Class Name",
+                "Automation Method Name", "Pre-Conditions", "Test Scenario Summary", "Test Data",
+                "Test Case (steps)", "Expected Results"}));
+    }
+    
+    private static void assertSameFields(TestCase actual, TestCase expected) {
+        assertEquals(actual.getId(), expected.getId());
+        assertEquals(actual.getClassName(), expected.getClassName());
+        assertEquals(actual.getMethodName(), expected.getMethodName());
+        assertEquals(actual.getPreConditions(), expected.getPreConditions());
+        assertEquals(actual.getSummary(), expected.getSummary());
+        assertEquals(actual.getTestData(), expected.getTestData());
+        assertEquals(actual.getExpected(), expected.getExpected());
+        assertEquals(actual.getSteps(), expected.getSteps());
+        assertEquals(actual.getStructuredTestData(), expected.getStructuredTestData());
+        assertEquals(actual.getStructuredSteps().toString(), expected.getStructuredSteps().toString());
+    }
+    
+    private static List<String> ids(List<TestCase> testCases) {
+        return testCases.stream().map(TestCase::getId).collect(Collectors.toList());
+    }
+}
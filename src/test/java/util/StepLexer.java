@@ -0,0 +1,219 @@
+package util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Single-pass lexer for the "Test Case (steps)" and "Test Data" cells
+ * Walks the cell text once, without regex or intermediate split arrays.
+ * Steps are separated by newlines or semicolons and may be numbered "1." or "1)".
+ */
+public class StepLexer {
+    
+    private static final String[] LEADING_PREPOSITIONS = {"to ", "on ", "in ", "into ", "at "};
+    
+    /**
+     * Lexes a steps cell into structured steps
+     * @param text Raw cell text
+     * @return Steps in order, never null
+     */
+    public static List<TestStep> lexSteps(CharSequence text) {
+        List<TestStep> steps = new ArrayList<>();
+        if (text == null) return steps;
+        
+        int length = text.length();
+        int pos = 0;
+        while (pos < length) {
+            char c = text.charAt(pos);
+            if (isStepSeparator(c) || Character.isWhitespace(c)) {
+                pos++;
+                continue;
+            }
+            
+            // Optional step number: digits followed by '.' or ')'
+            int number = -1;
+            int start = pos;
+            int digitsEnd = pos;
+            while (digitsEnd < length && isDigit(text.charAt(digitsEnd))) digitsEnd++;
+            if (digitsEnd > pos && digitsEnd < length
+                    && (text.charAt(digitsEnd) == '.' || text.charAt(digitsEnd) == ')')) {
+                number = parseInt(text, pos, digitsEnd);
+                start = digitsEnd + 1;
+                while (start < length && isInlineWhitespace(text.charAt(start))) start++;
+            }
+            
+            // Scan to the end of the step, noting the verb and the first literal value
+            int end = start;
+            int lastNonWhitespace = start - 1;
+            int verbEnd = -1;
+            int valueStart = -1;
+            int valueEnd = -1;
+            int literalStart = -1;
+            int literalEnd = -1;
+            while (end < length && !isStepSeparator(text.charAt(end))) {
+                char ch = text.charAt(end);
+                boolean tokenStart = end == start || Character.isWhitespace(text.charAt(end - 1));
+                
+                if (Character.isWhitespace(ch)) {
+                    if (verbEnd < 0) verbEnd = end;
+                } else {
+                    lastNonWhitespace = end;
+                    if (valueStart < 0 && tokenStart && verbEnd >= 0) {
+                        if (ch == '\'' || ch == '"') {
+                            int close = findClosingQuote(text, end + 1, ch);
+                            if (close > 0) {
+                                literalStart = end;
+                                valueStart = end + 1;
+                                valueEnd = close;
+                                literalEnd = close + 1;
+                                lastNonWhitespace = close;
+                                end = close;
+                            }
+                        } else if (startsWithIgnoreCase(text, end, "http")) {
+                            literalStart = end;
+                            valueStart = end;
+                            valueEnd = end;
+                            while (valueEnd < length && !Character.isWhitespace(text.charAt(valueEnd))
+                                    && !isStepSeparator(text.charAt(valueEnd))) valueEnd++;
+                            while (valueEnd > valueStart && isTrailingPunctuation(text.charAt(valueEnd - 1))) valueEnd--;
+                            literalEnd = valueEnd;
+                        }
+                    }
+                }
+                end++;
+            }
+            
+            int textEnd = lastNonWhitespace + 1;
+            if (textEnd > start) {
+                if (verbEnd < 0 || verbEnd > textEnd) verbEnd = textEnd;
+                String stepText = text.subSequence(start, textEnd).toString();
+                String verb = stepText.substring(0, verbEnd - start);
+                String value = valueStart >= 0 ? text.subSequence(valueStart, valueEnd).toString() : null;
+                String target = literalStart < 0
+                        ? target(stepText, verbEnd - start, stepText.length())
+                        : target(stepText, verbEnd - start, literalStart - start);
+                if (target.isEmpty() && literalStart >= 0) {
+                    target = target(stepText, Math.min(literalEnd, textEnd) - start, stepText.length());
+                }
+                steps.add(new TestStep(number, stepText, verb, target, value));
+            }
+            pos = end;
+        }
+        
+        return steps;
+    }
+    
+    /**
+     * Lexes a steps cell into plain step strings with numbering removed
+     */
+    public static List<String> lexStepTexts(CharSequence text) {
+        List<TestStep> steps = lexSteps(text);
+        List<String> texts = new ArrayList<>(steps.size());
+        for (TestStep step : steps) {
+            texts.add(step.getText());
+        }
+        return texts;
+    }
+    
+    /**
+     * Lexes "Key: value" lines of a test data cell
+     * Keys are lowercased and trimmed; lines without a colon are ignored
+     * @param text Raw cell text
+     * @return Key/value pairs, never null
+     */
+    public static Map<String, String> lexTestData(CharSequence text) {
+        Map<String, String> data = new HashMap<>();
+        if (text == null) return data;
+        
+        int length = text.length();
+        int lineStart = 0;
+        while (lineStart < length) {
+            int colon = -1;
+            int lineEnd = lineStart;
+            while (lineEnd < length && text.charAt(lineEnd) != '\n' && text.charAt(lineEnd) != '\r') {
+                if (colon < 0 && text.charAt(lineEnd) == ':') colon = lineEnd;
+                lineEnd++;
+            }
+            
+            if (colon >= 0) {
+                String key = trimmed(text, lineStart, colon).toLowerCase();
+                String value = trimmed(text, colon + 1, lineEnd);
+                data.put(key, value);
+            }
+            lineStart = lineEnd + 1;
+        }
+        
+        return data;
+    }
+    
+    /**
+     * Target is the text between the verb and the literal, without a leading preposition
+     * Falls back to the text after the literal, e.g. Click on "Search" button
+     */
+    private static String target(String stepText, int start, int end) {
+        while (start < end && Character.isWhitespace(stepText.charAt(start))) start++;
+        while (end > start && (Character.isWhitespace(stepText.charAt(end - 1))
+                || isTrailingPunctuation(stepText.charAt(end - 1)))) end--;
+        
+        for (String preposition : LEADING_PREPOSITIONS) {
+            if (stepText.regionMatches(true, start, preposition, 0, preposition.length())) {
+                start += preposition.length();
+                break;
+            }
+        }
+        return start < end ? stepText.substring(start, end) : "";
+    }
+    
+    private static String trimmed(CharSequence text, int start, int end) {
+        while (start < end && Character.isWhitespace(text.charAt(start))) start++;
+        while (end > start && Character.isWhitespace(text.charAt(end - 1))) end--;
+        return text.subSequence(start, end).toString();
+    }
+    
+    /**
+     * Finds a closing quote that ends a token, or -1
+     */
+    private static int findClosingQuote(CharSequence text, int from, char quote) {
+        for (int i = from; i < text.length() && !isStepSeparator(text.charAt(i)); i++) {
+            if (text.charAt(i) == quote
+                    && (i + 1 == text.length() || !Character.isLetterOrDigit(text.charAt(i + 1)))) {
+                return i > from ? i : -1;
+            }
+        }
+        return -1;
+    }
+    
+    private static boolean startsWithIgnoreCase(CharSequence text, int offset, String prefix) {
+        if (offset + prefix.length() > text.length()) return false;
+        for (int i = 0; i < prefix.length(); i++) {
+            if (Character.toLowerCase(text.charAt(offset + i)) != prefix.charAt(i)) return false;
+        }
+        return true;
+    }
+    
+    private static int parseInt(CharSequence text, int start, int end) {
+        int value = 0;
+        for (int i = start; i < end && value < 100_000_000; i++) {
+            value = value * 10 + (text.charAt(i) - '0');
+        }
+        return value;
+    }
+    
+    private static boolean isStepSeparator(char c) {
+        return c == '\n' || c == '\r' || c == ';';
+    }
+    
+    private static boolean isInlineWhitespace(char c) {
+        return c == ' ' || c == '\t';
+    }
+    
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+    
+    private static boolean isTrailingPunctuation(char c) {
+        return c == '.' || c == ',' || c == ';';
+    }
+}
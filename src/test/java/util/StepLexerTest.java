@@ -0,0 +1,150 @@
+package util;
+
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.testng.Assert.*;
+
+/**
+ * StepLexer output pinned against the regex parsing it replaced
+ * The regex versions are kept here as the reference; the lexer differs from them
+ * only in stripping "1)" numbering and dropping steps that are just a number.
+ */
+public class StepLexerTest {
+    
+    private static final List<String> STEP_CELLS = List.of(
+        "Navigate to login page\nEnter username\nClick Login",
+        "1. Navigate to https://example.com/login\n2. Enter username 'welldocsu'\n3.Click \"Login\"",
+        "Open app; Tap menu;; Select settings",
+        "  1.   Indented step  \r\n\r\n2. Windows line ends\r\n",
+        "10. Tenth step\n11. Eleventh step",
+        "Wait 5 seconds\n3 retries allowed",
+        "1.5 kg is entered as weight",
+        "",
+        "   \n ;  \n");
+    
+    private static final List<String> TEST_DATA_CELLS = List.of(
+        "Username: welldocsu\nPassword: secret",
+        "  URL : https://example.com:8443/login  \r\nEmpty:\n no colon here\n\n",
+        "Key: value: with colon\nKEY: last wins",
+        "plain text only");
+    
+    @Test
+    public void stepTextsMatchRegexParser() {
+        for (String cell : STEP_CELLS) {
+            assertEquals(StepLexer.lexStepTexts(cell), regexParseSteps(cell), cell);
+        }
+    }
+    
+    @Test
+    public void stripsParenthesisNumbering() {
+        String cell = "1) Navigate to login page\n2)Enter username";
+        
+        assertEquals(StepLexer.lexStepTexts(cell), List.of("Navigate to login page", "Enter username"));
+        // The regex only knew "1." and kept these numbers in the text
+        assertEquals(regexParseSteps(cell), List.of("1) Navigate to login page", "2)Enter username"));
+    }
+    
+    @Test
+    public void dropsStepsThatAreOnlyANumber() {
+        String cell = "1. Open app\n2.\n3) \n4. Click Login";
+        
+        List<TestStep> steps = StepLexer.lexSteps(cell);
+        assertEquals(steps.size(), 2);
+        assertEquals(steps.get(0).getNumber(), 1);
+        assertEquals(steps.get(1).getNumber(), 4);
+        assertEquals(steps.get(1).getText(), "Click Login");
+        // The regex kept an empty step for "2."
+        assertEquals(regexParseSteps(cell), List.of("Open app", "", "3)", "Click Login"));
+    }
+    
+    @Test
+    public void unnumberedStepsHaveNoNumber() {
+        List<TestStep> steps = StepLexer.lexSteps("Wait 5 seconds\n42");
+        
+        assertEquals(steps.get(0).getNumber(), -1);
+        assertEquals(steps.get(1).getNumber(), -1);
+        assertEquals(steps.get(1).getText(), "42");
+    }
+    
+    @Test
+    public void splitsVerbTargetAndLiteral() {
+        List<TestStep> steps = StepLexer.lexSteps("1. Navigate to https://example.com/login.\n"
+            + "2. Enter username 'welldocsu'\n"
+            + "3. Click on \"Search\" button\n"
+            + "4. Logout");
+        
+        assertStep(steps.get(0), "Navigate", "", "https://example.com/login");
+        assertStep(steps.get(1), "Enter", "username", "welldocsu");
+        assertStep(steps.get(2), "Click", "button", "Search");
+        assertStep(steps.get(3), "Logout", "", null);
+    }
+    
+    @Test
+    public void apostropheInsideWordIsNotALiteral() {
+        TestStep step = StepLexer.lexSteps("Verify user's name").get(0);
+        
+        assertEquals(step.getTarget(), "user's name");
+        assertNull(step.getValue());
+    }
+    
+    @Test
+    public void nullCellsLexToEmptyResults() {
+        assertTrue(StepLexer.lexSteps(null).isEmpty());
+        assertTrue(StepLexer.lexStepTexts(null).isEmpty());
+        assertTrue(StepLexer.lexTestData(null).isEmpty());
+    }
+    
+    @Test
+    public void testDataMatchesRegexParser() {
+        for (String cell : TEST_DATA_CELLS) {
+            assertEquals(StepLexer.lexTestData(cell), regexParseTestData(cell), cell);
+        }
+    }
+    
+    private static void assertStep(TestStep step, String verb, String target, String value) {
+        assertEquals(step.getVerb(), verb, step.getText());
+        assertEquals(step.getTarget(), target, step.getText());
+        assertEquals(step.getValue(), value, step.getText());
+    }
+    
+    /**
+     * ExcelReader.parseSteps before the lexer
+     */
+    private static List<String> regexParseSteps(String stepsText) {
+        List<String> steps = new ArrayList<>();
+        if (stepsText == null || stepsText.trim().isEmpty()) {
+            return steps;
+        }
+        
+        String[] stepArray = stepsText.split("[\n\r;]+");
+        for (String step : stepArray) {
+            String cleanStep = step.trim();
+            if (!cleanStep.isEmpty()) {
+                cleanStep = cleanStep.replaceAll("^\\d+\\.\\s*", "");
+                steps.add(cleanStep);
+            }
+        }
+        
+        return steps;
+    }
+    
+    /**
+     * ExcelReader.extractStructuredTestData before the lexer
+     */
+    private static Map<String, String> regexParseTestData(String testData) {
+        Map<String, String> structuredData = new HashMap<>();
+        for (String line : testData.split("[\n\r]+")) {
+            line = line.trim();
+            if (line.contains(":")) {
+                String[] parts = line.split(":", 2);
+                structuredData.put(parts[0].trim().toLowerCase(), parts[1].trim());
+            }
+        }
+        return structuredData;
+    }
+}
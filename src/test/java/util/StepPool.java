@@ -0,0 +1,145 @@
+package util;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Flyweight pool of test case steps for one ingestion run
+ * Steps are keyed by normalized text (case, surrounding and repeated whitespace and
+ * trailing periods ignored), so "Navigate to the Welldoc SMIT Portal" gets the same
+ * step id in every row the run reads. The readers keep the pooled TestStep
+ * (and its strings) for exact repeats, so a step used by thousands of rows is held once.
+ * Known steps are looked up without locking, so parallel readers do not queue on the pool;
+ * only new steps take a lock.
+ * Each read creates its own pool and the test cases refer to it, so the pool is released
+ * together with the last of them. Ids are never reused, so an id stays valid for the pool's life.
+ */
+public class StepPool {
+    
+    // Exact text -> id, checked first so repeats skip normalization
+    private final Map<String, Integer> idsByText = new ConcurrentHashMap<>();
+    private final Map<String, Integer> idsByKey = new ConcurrentHashMap<>();
+    // Guards adding steps; entries are replaced, never modified, when the array grows
+    private final Object lock = new Object();
+    private volatile Entry[] entries = new Entry[256];
+    private volatile int size;
+    
+    /**
+     * Text of a step id and its lexed step, null for steps only interned as text
+     */
+    private static final class Entry {
+        final String text;
+        volatile TestStep step;
+        
+        Entry(String text) {
+            this.text = text;
+        }
+    }
+    
+    /**
+     * Id of a step, adding it to the pool if its normalized text is new
+     */
+    public int intern(String text) {
+        Integer id = idsByText.get(text);
+        if (id != null) return id;
+        
+        String key = normalize(text);
+        id = idsByKey.get(key);
+        if (id == null) {
+            synchronized (lock) {
+                id = idsByKey.get(key);
+                if (id == null) {
+                    id = add(text);
+                    idsByKey.put(key, id);
+                }
+            }
+        }
+        idsByText.putIfAbsent(text, id);
+        return id;
+    }
+    
+    /**
+     * Id of a lexed step, keeping it as the pooled TestStep if its id has none yet
+     */
+    public int intern(TestStep step) {
+        int id = intern(step.getText());
+        Entry entry = entry(id);
+        if (entry.step == null) {
+            entry.step = step;
+        }
+        return id;
+    }
+    
+    /**
+     * Pooled instance of a lexed step if it has the same text and number, otherwise the step itself
+     */
+    public TestStep share(int id, TestStep step) {
+        TestStep pooled = entry(id).step;
+        if (pooled != null && pooled.getNumber() == step.getNumber() && pooled.getText().equals(step.getText())) {
+            return pooled;
+        }
+        return step;
+    }
+    
+    /**
+     * Text the step was first seen with
+     */
+    public String getText(int id) {
+        return entry(id).text;
+    }
+    
+    /**
+     * Number of distinct steps
+     */
+    public int size() {
+        return size;
+    }
+    
+    /**
+     * Stores a new step under the next id; called with the lock held
+     */
+    private int add(String text) {
+        int id = size;
+        if (id == entries.length) {
+            entries = Arrays.copyOf(entries, id * 2);
+        }
+        entries[id] = new Entry(text);
+        size = id + 1;
+        return id;
+    }
+    
+    private Entry entry(int id) {
+        Entry[] current = entries;
+        Entry entry = id >= 0 && id < current.length ? current[id] : null;
+        if (entry == null) {
+            throw new IndexOutOfBoundsException("Step " + id + " is not in the pool");
+        }
+        return entry;
+    }
+    
+    /**
+     * Lower-cased text with whitespace runs collapsed and trailing periods removed
+     */
+    static String normalize(String text) {
+        StringBuilder key = new StringBuilder(text.length());
+        boolean space = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c)) {
+                space = key.length() > 0;
+            } else {
+                if (space) {
+                    key.append(' ');
+                    space = false;
+                }
+                key.append(c);
+            }
+        }
+        while (key.length() > 0 && key.charAt(key.length() - 1) == '.') {
+            key.setLength(key.length() - 1);
+        }
+        return key.toString().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,148 @@
+package util;
+
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.testng.Assert.*;
+
+/**
+ * Normalization, sharing and concurrent interning of the per-read StepPool
+ */
+public class StepPoolTest {
+    
+    private static final String HEADER = "Test Case ID,Automation Class Name,Automation Method Name,Test Case (steps)\n";
+    
+    @Test
+    public void normalizedTextsShareAnId() {
+        StepPool pool = new StepPool();
+        int id = pool.intern("Navigate to  the Welldoc SMIT Portal.");
+        
+        assertEquals(pool.intern("navigate to the welldoc smit portal"), id);
+        assertEquals(pool.intern("  NAVIGATE\tto the Welldoc SMIT Portal..."), id);
+        assertNotEquals(pool.intern("Navigate to the Welldoc SMIT Portal home"), id);
+        assertEquals(pool.getText(id), "Navigate to  the Welldoc SMIT Portal.");
+        assertEquals(pool.size(), 2);
+    }
+    
+    @Test
+    public void normalizeCollapsesWhitespaceAndDropsTrailingPeriods() {
+        assertEquals(StepPool.normalize("  Click   the\nLogin button.. "), "click the login button");
+        assertEquals(StepPool.normalize("..."), "");
+        assertEquals(StepPool.normalize("Open v1.2 app"), "open v1.2 app");
+    }
+    
+    @Test
+    public void sharesPooledStepOnlyForExactRepeats() {
+        StepPool pool = new StepPool();
+        TestStep first = new TestStep(1, "Click Login", "Click", "Login", null);
+        int id = pool.intern(first);
+        
+        TestStep repeat = new TestStep(1, "Click Login", "Click", "Login", null);
+        assertSame(pool.share(pool.intern(repeat), repeat), first);
+        
+        // Same step id, but another number or spelling keeps its own instance
+        TestStep renumbered = new TestStep(2, "Click Login", "Click", "Login", null);
+        assertSame(pool.share(pool.intern(renumbered), renumbered), renumbered);
+        TestStep respelled = new TestStep(1, "click login.", "click", "login", null);
+        assertEquals(pool.intern(respelled), id);
+        assertSame(pool.share(id, respelled), respelled);
+    }
+    
+    @Test
+    public void idsAreDenseAndUnknownIdsAreRejected() {
+        StepPool pool = new StepPool();
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(pool.intern("Step " + i), i);
+        }
+        
+        assertEquals(pool.size(), 1000);
+        expectThrows(IndexOutOfBoundsException.class, () -> pool.getText(1000));
+        expectThrows(IndexOutOfBoundsException.class, () -> pool.getText(-1));
+    }
+    
+    @Test
+    public void concurrentInterningAgreesOnIds() throws Exception {
+        StepPool pool = new StepPool();
+        List<String> texts = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            texts.add("Enter value " + i);
+        }
+        
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<int[]>> results = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                List<String> order = new ArrayList<>(texts);
+                Collections.shuffle(order);
+                results.add(executor.submit(() -> {
+                    int[] ids = new int[texts.size()];
+                    for (String text : order) {
+                        ids[Integer.parseInt(text.substring("Enter value ".length()))] = pool.intern(text);
+                    }
+                    return ids;
+                }));
+            }
+            
+            int[] expected = results.get(0).get();
+            for (Future<int[]> result : results) {
+                assertEquals(result.get(), expected);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(pool.size(), texts.size());
+        for (int i = 0; i < texts.size(); i++) {
+            assertEquals(pool.getText(pool.intern(texts.get(i))), texts.get(i));
+        }
+    }
+    
+    @Test
+    public void eachReadPoolsItsOwnSteps() throws IOException {
+        Path directory = Files.createTempDirectory("step-pool-test");
+        Path csv = directory.resolve("cases.csv");
+        try {
+            Files.write(csv, (HEADER
+                + "TC_01,LoginTest,login,\"1. Open app\n2. Click Login\"\n"
+                + "TC_02,LoginTest,logout,\"1. Open app\n2. Click Logout\"\n").getBytes(StandardCharsets.UTF_8));
+            
+            List<TestCase> first = CsvTestCaseReader.readTestCases(csv.toString());
+            List<TestCase> second = CsvTestCaseReader.readTestCases(csv.toString());
+            
+            StepPool pool = first.get(0).getStepPool();
+            assertNotNull(pool);
+            assertSame(first.get(1).getStepPool(), pool);
+            assertEquals(pool.size(), 3);
+            assertNotSame(second.get(0).getStepPool(), pool);
+            
+            // "Open app" is held once within a read
+            assertEquals(first.get(0).getStepIds()[0], first.get(1).getStepIds()[0]);
+            assertSame(first.get(1).getStructuredSteps().get(0), first.get(0).getStructuredSteps().get(0));
+        } finally {
+            Files.delete(csv);
+            Files.delete(directory);
+        }
+    }
+    
+    @Test
+    public void idsInAnotherPoolAreNotCached() {
+        TestCase testCase = new TestCase();
+        testCase.setSteps(List.of("Open app", "Click Login"));
+        StepPool other = new StepPool();
+        other.intern("Unrelated step");
+        
+        assertEquals(testCase.getStepIds(other), new int[] {1, 2});
+        assertNull(testCase.getStepPool());
+        assertNull(testCase.getStepIds());
+        assertEquals(other.size(), 3);
+    }
+}
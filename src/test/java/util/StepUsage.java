@@ -0,0 +1,178 @@
+package util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.lang.model.SourceVersion;
+
+/**
+ * Unique steps of a group of test cases, in order of first appearance, with the
+ * number of times each occurs
+ * Generators use it to emit one page method per unique step and to send each step
+ * to the LLM once, with test cases referring to it as "S1", "S2", ...
+ */
+public class StepUsage {
+    
+    private static final int MAX_METHOD_WORDS = 6;
+    
+    private final StepPool pool;
+    // Step id -> index + 1, 0 when the step is not used by the group
+    private int[] indexes = new int[64];
+    private int[] stepIds = new int[16];
+    private int[] occurrences = new int[16];
+    private int size;
+    private int total;
+    
+    /**
+     * @param pool Pool the step ids are taken from; test cases read into it need no interning
+     */
+    public StepUsage(StepPool pool) {
+        this.pool = pool;
+    }
+    
+    /**
+     * Counts the steps of the given test cases
+     * Uses the pool they were read into when they share one, otherwise a pool of its own
+     */
+    public static StepUsage of(Collection<? extends TestCase> testCases) {
+        StepPool pool = null;
+        for (TestCase testCase : testCases) {
+            StepPool stepPool = testCase.getStepPool();
+            if (stepPool == null || (pool != null && stepPool != pool)) {
+                pool = null;
+                break;
+            }
+            pool = stepPool;
+        }
+        StepUsage usage = new StepUsage(pool != null ? pool : new StepPool());
+        for (TestCase testCase : testCases) {
+            usage.add(testCase);
+        }
+        return usage;
+    }
+    
+    /**
+     * Counts the steps of one more test case
+     */
+    public void add(TestCase testCase) {
+        int[] ids = testCase.getStepIds(pool);
+        if (ids == null) return;
+        for (int id : ids) {
+            add(id);
+        }
+    }
+    
+    private void add(int stepId) {
+        if (stepId >= indexes.length) {
+            indexes = Arrays.copyOf(indexes, Math.max(indexes.length * 2, stepId + 1));
+        }
+        int index = indexes[stepId] - 1;
+        if (index < 0) {
+            if (size == stepIds.length) {
+                stepIds = Arrays.copyOf(stepIds, size * 2);
+                occurrences = Arrays.copyOf(occurrences, size * 2);
+            }
+            index = size++;
+            stepIds[index] = stepId;
+            indexes[stepId] = index + 1;
+        }
+        occurrences[index]++;
+        total++;
+    }
+    
+    /**
+     * Number of unique steps
+     */
+    public int size() {
+        return size;
+    }
+    
+    /**
+     * Number of steps over all test cases, repeats included
+     */
+    public int getTotalOccurrences() {
+        return total;
+    }
+    
+    public String getText(int index) {
+        return pool.getText(stepIds[index]);
+    }
+    
+    public int getOccurrences(int index) {
+        return occurrences[index];
+    }
+    
+    /**
+     * Prompt reference of a unique step, "S1" for the first one
+     */
+    public String getReference(int index) {
+        return "S" + (index + 1);
+    }
+    
+    /**
+     * Prompt references of a test case's steps, e.g. "S1, S2, S5"
+     */
+    public String getReferences(TestCase testCase) {
+        int[] ids = testCase.getStepIds(pool);
+        if (ids == null) return "";
+        
+        StringBuilder references = new StringBuilder();
+        for (int id : ids) {
+            if (references.length() > 0) references.append(", ");
+            int index = id < indexes.length ? indexes[id] - 1 : -1;
+            references.append(index < 0 ? pool.getText(id) : getReference(index));
+        }
+        return references.toString();
+    }
+    
+    /**
+     * Java method names for the unique steps, e.g. "navigateToTheWelldocSmitPortal"
+     * Names are unique, are not keywords and avoid the reserved names
+     * @param reserved Names already declared by the class the methods go into
+     */
+    public List<String> getMethodNames(Collection<String> reserved) {
+        Set<String> taken = new HashSet<>(reserved);
+        List<String> names = new ArrayList<>(size);
+        for (int index = 0; index < size; index++) {
+            String base = methodName(getText(index));
+            String name = base;
+            for (int suffix = 2; !taken.add(name); suffix++) {
+                name = base + suffix;
+            }
+            names.add(name);
+        }
+        return names;
+    }
+    
+    private static String methodName(String text) {
+        StringBuilder name = new StringBuilder();
+        int words = 0;
+        boolean wordStart = true;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\'') continue;
+            if (!Character.isLetterOrDigit(c) || c > 127) {
+                wordStart = true;
+                continue;
+            }
+            if (wordStart) {
+                words++;
+                if (words > MAX_METHOD_WORDS) break;
+                name.append(name.length() == 0 ? Character.toLowerCase(c) : Character.toUpperCase(c));
+                wordStart = false;
+            } else {
+                name.append(Character.toLowerCase(c));
+            }
+        }
+        String camelCase = name.toString();
+        if (camelCase.isEmpty()) return "step";
+        if (!Character.isJavaIdentifierStart(camelCase.charAt(0)) || SourceVersion.isKeyword(camelCase)) {
+            return "step" + Character.toUpperCase(camelCase.charAt(0)) + camelCase.substring(1);
+        }
+        return camelCase;
+    }
+}
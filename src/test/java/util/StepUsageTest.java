@@ -0,0 +1,50 @@
+package util;
+
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.testng.Assert.*;
+
+/**
+ * Unique-step counting and prompt references of StepUsage
+ */
+public class StepUsageTest {
+    
+    @Test
+    public void countsUniqueStepsInOrderOfFirstUse() {
+        TestCase login = testCase("Open app", "Enter username", "Click Login");
+        TestCase logout = testCase("open app.", "Click Logout");
+        StepUsage usage = StepUsage.of(List.of(login, logout));
+        
+        assertEquals(usage.size(), 4);
+        assertEquals(usage.getTotalOccurrences(), 5);
+        assertEquals(usage.getText(0), "Open app");
+        assertEquals(usage.getOccurrences(0), 2);
+        assertEquals(usage.getText(3), "Click Logout");
+        assertEquals(usage.getReferences(logout), "S1, S4");
+    }
+    
+    @Test
+    public void stepsOutsideTheGroupAreSpelledOut() {
+        StepUsage usage = StepUsage.of(List.of(testCase("Open app")));
+        
+        assertEquals(usage.getReferences(testCase("Open app", "Click Login")), "S1, Click Login");
+    }
+    
+    @Test
+    public void methodNamesAreUniqueIdentifiers() {
+        StepUsage usage = StepUsage.of(List.of(testCase("Open app", "Open app now", "1st login",
+            "Open the app and enter all user details", "Open: app!")));
+        
+        List<String> names = usage.getMethodNames(Set.of("openAppNow"));
+        assertEquals(names, List.of("openApp", "openAppNow2", "step1stLogin", "openTheAppAndEnterAll", "openApp2"));
+    }
+    
+    private static TestCase testCase(String... steps) {
+        TestCase testCase = new TestCase();
+        testCase.setSteps(List.of(steps));
+        return testCase;
+    }
+}
@@ -0,0 +1,245 @@
+package util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler.SheetContentsHandler;
+import org.apache.poi.xssf.model.SharedStrings;
+import org.apache.poi.xssf.model.Styles;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.AttributesImpl;
+import org.xml.sax.helpers.XMLFilterImpl;
+
+/**
+ * Streaming reader for XLSX test case workbooks
+ * Uses the POI XSSFReader/SAX event API so rows are emitted one at a time
+ * instead of materializing the whole workbook as a DOM
+ */
+public class StreamingExcelReader {
+
+    /**
+     * Reads test cases from the first sheet of an XLSX file
+     * @param filePath Path to the Excel file
+     * @return List of TestCase objects
+     */
+    public static List<TestCase> readTestCases(String filePath) throws IOException {
+        List<TestCase> testCases = new ArrayList<>();
+        readTestCases(filePath, testCases::add);
+        return testCases;
+    }
+
+    /**
+     * Reads test cases from the first sheet of an XLSX file, handing each one
+     * to the consumer as soon as its row has been parsed
+     * @param filePath Path to the Excel file
+     * @param consumer Receives each TestCase in sheet order
+     */
+    public static void readTestCases(String filePath, Consumer<TestCase> consumer) throws IOException {
+        readRows(filePath, ExcelReader.testCaseRowHandler(consumer));
+    }
+
+    /**
+     * Streams the raw rows of the first sheet of an XLSX file
+     * @param filePath Path to the Excel file
+     * @param handler Receives each row, header row first
+     */
+    public static void readRows(String filePath, RowHandler handler) throws IOException {
+        readRows(filePath, handler, new IngestionMetrics());
+    }
+    
+    /**
+     * Streams the raw rows of the first sheet, charging package opening, shared
+     * strings and styles loading, and sheet parsing to the metrics
+     */
+    static void readRows(String filePath, RowHandler handler, IngestionMetrics metrics) throws IOException {
+        metrics.begin(IngestionMetrics.Phase.FILE_OPEN);
+        File file = new File(filePath);
+        try (OPCPackage pkg = OPCPackage.open(file, PackageAccess.READ);
+             FormulaResults formulas = FormulaResults.forFile(filePath)) {
+            metrics.addBytesRead(file.length());
+            metrics.enter(IngestionMetrics.Phase.WORKBOOK_LOAD);
+            XSSFReader reader = new XSSFReader(pkg);
+            SharedStrings strings = reader.getSharedStringsTable();
+            Styles styles = reader.getStylesTable();
+
+            metrics.enter(IngestionMetrics.Phase.ROW_EXTRACTION);
+            XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+            if (!sheets.hasNext()) return;
+
+            try (InputStream sheetData = sheets.next()) {
+                readSheet(sheetData, sheets.getSheetName(), strings, styles, formulas, handler);
+            }
+        } catch (OpenXML4JException e) {
+            throw new IOException("Invalid XLSX file: " + filePath, e);
+        }
+    }
+
+    /**
+     * Parses a single worksheet part, emitting raw rows to the handler
+     * Formula cells yield their cached results; formulas saved without one are evaluated
+     */
+    static void readSheet(InputStream sheetData, String sheetName, SharedStrings strings, Styles styles,
+                          FormulaResults formulas, RowHandler handler) throws IOException {
+        try {
+            XMLReader parser = XMLHelper.newXMLReader();
+            XMLFilterImpl filter = new MissingFormulaResultFilter(parser, sheetName, formulas);
+            filter.setContentHandler(new XSSFSheetXMLHandler(
+                styles, strings, new RowCollector(handler), new DataFormatter(), false));
+            filter.parse(new InputSource(sheetData));
+        } catch (SAXException | ParserConfigurationException e) {
+            throw new IOException("Failed to parse worksheet: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Converts a cell reference such as "AB12" to a zero-based column index
+     */
+    static int columnIndex(String cellReference) {
+        int column = 0;
+        for (int i = 0; i < cellReference.length(); i++) {
+            char c = cellReference.charAt(i);
+            if (c < 'A' || c > 'Z') break;
+            column = column * 26 + (c - 'A' + 1);
+        }
+        return column - 1;
+    }
+
+    /**
+     * Supplies a calculated &lt;v&gt; for formula cells stored without a cached result,
+     * so XSSFSheetXMLHandler reports a value instead of an empty cell; a formula that
+     * cannot be evaluated reports its text, like the workbook reader
+     */
+    private static class MissingFormulaResultFilter extends XMLFilterImpl {
+        private final String sheetName;
+        private final FormulaResults formulas;
+        private final StringBuilder formulaText = new StringBuilder();
+        private String cellReference;
+        private boolean booleanCell;
+        private boolean hasFormula;
+        private boolean inFormula;
+        private boolean hasValue;
+        
+        MissingFormulaResultFilter(XMLReader parent, String sheetName, FormulaResults formulas) {
+            super(parent);
+            this.sheetName = sheetName;
+            this.formulas = formulas;
+        }
+        
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes atts) throws SAXException {
+            switch (localName) {
+                case "c":
+                    cellReference = atts.getValue("r");
+                    booleanCell = "b".equals(atts.getValue("t"));
+                    hasFormula = false;
+                    hasValue = false;
+                    formulaText.setLength(0);
+                    break;
+                case "f":
+                    hasFormula = true;
+                    inFormula = true;
+                    break;
+                case "v":
+                    hasValue = true;
+                    break;
+                default:
+                    break;
+            }
+            super.startElement(uri, localName, qName, atts);
+        }
+        
+        @Override
+        public void characters(char[] ch, int start, int length) throws SAXException {
+            if (inFormula) {
+                formulaText.append(ch, start, length);
+            }
+            super.characters(ch, start, length);
+        }
+        
+        @Override
+        public void endElement(String uri, String localName, String qName) throws SAXException {
+            if ("f".equals(localName)) {
+                inFormula = false;
+            }
+            if ("c".equals(localName) && hasFormula && !hasValue && cellReference != null) {
+                String value;
+                try {
+                    value = formulas.evaluate(sheetName, cellReference, booleanCell);
+                } catch (IOException e) {
+                    throw new SAXException("Failed to evaluate " + sheetName + "!" + cellReference, e);
+                }
+                // A boolean cell's value is read as a digit, so its formula text cannot stand in
+                if (value == null && !booleanCell && formulaText.length() > 0) {
+                    value = formulaText.toString();
+                }
+                if (value != null) {
+                    String prefix = qName.endsWith(":c") ? qName.substring(0, qName.length() - 1) : "";
+                    super.startElement(uri, "v", prefix + "v", new AttributesImpl());
+                    super.characters(value.toCharArray(), 0, value.length());
+                    super.endElement(uri, "v", prefix + "v");
+                }
+            }
+            super.endElement(uri, localName, qName);
+        }
+    }
+    
+    /**
+     * Collects SAX cell events into a per-row value array
+     */
+    private static class RowCollector implements SheetContentsHandler {
+        private final RowHandler handler;
+        private String[] values = new String[16];
+        private int width;
+        private int nextColumn;
+
+        RowCollector(RowHandler handler) {
+            this.handler = handler;
+        }
+
+        @Override
+        public void startRow(int rowNum) {
+            width = 0;
+            nextColumn = 0;
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            handler.handleRow(rowNum, Arrays.copyOf(values, width));
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            int column = cellReference != null ? columnIndex(cellReference) : nextColumn;
+            if (column < 0) return;
+
+            if (column >= values.length) {
+                values = Arrays.copyOf(values, Math.max(column + 1, values.length * 2));
+            }
+            for (int i = width; i < column; i++) {
+                values[i] = "";
+            }
+
+            values[column] = formattedValue != null ? formattedValue : "";
+            width = Math.max(width, column + 1);
+            nextColumn = column + 1;
+        }
+    }
+}
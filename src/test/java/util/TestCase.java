@@ -1,5 +1,6 @@
 package util;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -16,6 +17,10 @@ public class TestCase {
     private List<String> steps;
     private String expected;
     private Map<String, String> structuredTestData;
+    private List<TestStep> structuredSteps;
+    // Ids of the steps in stepPool, the pool of the run that read this test case
+    private StepPool stepPool;
+    private int[] stepIds;
     
     // Constructors
     public TestCase() {}
@@ -52,7 +57,12 @@ public class TestCase {
     public void setTestData(String testData) { this.testData = testData; }
     
     public List<String> getSteps() { return steps; }
-    public void setSteps(List<String> steps) { this.steps = steps; }
+    public void setSteps(List<String> steps) { 
+        this.steps = steps; 
+        this.structuredSteps = null;
+        this.stepPool = null;
+        this.stepIds = null;
+    }
     
     public String getExpected() { return expected; }
     public void setExpected(String expected) { this.expected = expected; }
@@ -62,38 +72,155 @@ public class TestCase {
         this.structuredTestData = structuredTestData; 
     }
     
+    /**
+     * Gets the lexed steps, deriving them from the step texts when not set by the reader
+     */
+    public List<TestStep> getStructuredSteps() {
+        if (structuredSteps == null && steps != null) {
+            List<TestStep> lexed = new ArrayList<>(steps.size());
+            for (String step : steps) {
+                lexed.addAll(StepLexer.lexSteps(step));
+            }
+            structuredSteps = lexed;
+        }
+        return structuredSteps;
+    }
+    public void setStructuredSteps(List<TestStep> structuredSteps) { this.structuredSteps = structuredSteps; }
+    
+    /**
+     * Gets the pool the reader interned the steps into, null if they were not interned
+     */
+    public StepPool getStepPool() { return stepPool; }
+    
+    /**
+     * Gets the ids of the steps in the given pool, in step order
+     * The reader's ids are returned for its own pool; for any other pool the steps are
+     * interned on each call, so a test case never holds ids that belong to another pool.
+     * The array is shared; do not modify it
+     */
+    public int[] getStepIds(StepPool pool) {
+        if (pool == getStepPool() && getStepIds() != null) {
+            return getStepIds();
+        }
+        List<String> steps = getSteps();
+        if (steps == null) return null;
+        int[] ids = new int[steps.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = pool.intern(steps.get(i));
+        }
+        return ids;
+    }
+    
+    /**
+     * Gets the step ids set by the reader, in getStepPool(), or null
+     */
+    public int[] getStepIds() { return stepIds; }
+    public void setStepIds(StepPool stepPool, int[] stepIds) {
+        this.stepPool = stepPool;
+        this.stepIds = stepIds;
+    }
+    
     /**
      * Gets a specific test data value by key
      */
     public String getTestDataValue(String key) {
-        if (structuredTestData == null) return null;
-        return structuredTestData.get(key.toLowerCase());
+        Map<String, String> data = getStructuredTestData();
+        if (data == null) return null;
+        return data.get(key.toLowerCase());
+    }
+    
+    /**
+     * Gets the class name in lower case, for case-insensitive page matching
+     */
+    public String getLowerCaseClassName() {
+        String className = getClassName();
+        return className == null ? null : className.toLowerCase();
+    }
+    
+    /**
+     * Gets the step texts in lower case, in step order
+     */
+    public List<String> getLowerCaseSteps() {
+        List<String> steps = getSteps();
+        if (steps == null) return null;
+        List<String> lowerCaseSteps = new ArrayList<>(steps.size());
+        for (String step : steps) {
+            lowerCaseSteps.add(step.toLowerCase());
+        }
+        return lowerCaseSteps;
+    }
+    
+    /**
+     * Gets the step texts joined with ", ", as used in generation prompts
+     */
+    public String getJoinedSteps() {
+        List<String> steps = getSteps();
+        return steps == null ? "" : String.join(", ", steps);
     }
     
     /**
      * Checks if this test case has navigation steps (contains URL)
      */
     public boolean hasNavigationSteps() {
-        if (steps == null) return false;
-        return steps.stream().anyMatch(step -> 
-            step.toLowerCase().contains("http") || 
-            step.toLowerCase().contains("navigate") ||
-            step.toLowerCase().contains("url"));
+        return hasNavigationSteps(getLowerCaseSteps());
     }
     
     /**
      * Extracts URL from navigation steps
      */
     public String extractUrl() {
+        return extractUrl(getSteps(), getLowerCaseSteps());
+    }
+    
+    /**
+     * Stable 64-bit fingerprint of the test case content, equal across runs and JVMs
+     */
+    public long getFingerprint() {
+        List<String> steps = getSteps();
+        int stepCount = steps == null ? 0 : steps.size();
+        String[] values = new String[7 + stepCount];
+        values[0] = getId();
+        values[1] = getClassName();
+        values[2] = getMethodName();
+        values[3] = getPreConditions();
+        values[4] = getSummary();
+        values[5] = getTestData();
+        values[6] = getExpected();
+        for (int i = 0; i < stepCount; i++) {
+            values[7 + i] = steps.get(i);
+        }
+        return RowFingerprintCache.fingerprint(values);
+    }
+    
+    static boolean hasNavigationSteps(List<String> lowerCaseSteps) {
+        if (lowerCaseSteps == null) return false;
+        for (String step : lowerCaseSteps) {
+            if (step.contains("http") || step.contains("navigate") || step.contains("url")) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * First whitespace-separated word starting with "http" in a step mentioning http,
+     * with '.', ',' and ';' removed
+     */
+    static String extractUrl(List<String> steps, List<String> lowerCaseSteps) {
         if (steps == null) return null;
-        for (String step : steps) {
-            if (step.toLowerCase().contains("http")) {
-                // Extract URL from step
-                String[] words = step.split("\\s+");
-                for (String word : words) {
-                    if (word.toLowerCase().startsWith("http")) {
-                        return word.replaceAll("[.,;]", "");
+        for (int i = 0; i < steps.size(); i++) {
+            if (!lowerCaseSteps.get(i).contains("http")) continue;
+            
+            for (String word : steps.get(i).split("\\s+")) {
+                if (word.regionMatches(true, 0, "http", 0, 4)) {
+                    StringBuilder url = new StringBuilder(word.length());
+                    for (int j = 0; j < word.length(); j++) {
+                        char c = word.charAt(j);
+                        if (c != '.' && c != ',' && c != ';') {
+                            url.append(c);
+                        }
                     }
+                    return url.toString();
                 }
             }
         }
@@ -103,10 +230,10 @@ public class TestCase {
     @Override
     public String toString() {
         return "TestCase{" +
-                "id='" + id + '\'' +
-                ", className='" + className + '\'' +
-                ", methodName='" + methodName + '\'' +
-                ", summary='" + summary + '\'' +
+                "id='" + getId() + '\'' +
+                ", className='" + getClassName() + '\'' +
+                ", methodName='" + getMethodName() + '\'' +
+                ", summary='" + getSummary() + '\'' +
                 '}';
     }
 }
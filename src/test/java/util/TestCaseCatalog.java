@@ -0,0 +1,398 @@
+package util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+/**
+ * Compact binary snapshot of parsed test cases for fast repeated startup
+ * Written next to the source workbook as "&lt;workbook&gt;.catalog" after a successful parse
+ * and read back while the workbook's size/mtime (or content hash) is unchanged.
+ * Loading a catalog never touches Apache POI, so POI classes are not even loaded.
+ *
+ * Layout: header (magic, version, parser version, source size, mtime, CRC32C), a
+ * deduplicated string table, then one record per test case referencing strings by index.
+ * A catalog written by another ExcelReader.PARSER_VERSION is stale. Lexed steps are stored
+ * as parsed, since their numbers cannot be recovered from the step texts; step ids belong
+ * to the StepPool of one read and are not stored.
+ */
+public class TestCaseCatalog {
+
+    private static final String FILE_SUFFIX = ".catalog";
+    private static final int MAGIC = 0x54434341; // "TCCA"
+    private static final int VERSION = 2;
+    // Offset of the source mtime: magic, version and parser version, then the source size
+    private static final int MODIFIED_OFFSET = 20;
+
+    /**
+     * Loads test cases from the catalog when it is current, otherwise parses
+     * the workbook and writes a fresh catalog
+     * @param filePath Path to the Excel or CSV file
+     * @return List of TestCase objects
+     */
+    public static List<TestCase> readTestCases(String filePath) throws IOException {
+        List<TestCase> testCases = load(filePath);
+        if (testCases != null) {
+            return testCases;
+        }
+
+        // Identify the source before parsing, so a save during the parse leaves the catalog stale
+        SourceIdentity identity = SourceIdentity.of(filePath);
+        testCases = ExcelReader.readTestCases(filePath);
+        try {
+            save(filePath, identity, testCases);
+        } catch (IOException e) {
+            System.err.println("Could not write test case catalog: " + e.getMessage());
+        }
+        return testCases;
+    }
+
+    /**
+     * Loads the catalog for a workbook
+     * @param filePath Path to the source Excel or CSV file
+     * @return Cached test cases, or null if there is no catalog or it is stale
+     */
+    public static List<TestCase> load(String filePath) throws IOException {
+        Path source = Paths.get(filePath);
+        Path catalog = catalogPath(filePath);
+        if (!Files.exists(catalog) || !Files.exists(source)) {
+            return null;
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(catalog));
+        try {
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION
+                    || buffer.getInt() != ExcelReader.PARSER_VERSION) {
+                return null;
+            }
+
+            long size = buffer.getLong();
+            long modified = buffer.getLong();
+            long hash = buffer.getLong();
+            if (size != Files.size(source)) {
+                return null;
+            }
+            // Same size but touched: fall back to comparing content
+            long sourceModified = Files.getLastModifiedTime(source).toMillis();
+            if (modified != sourceModified) {
+                if (hash != contentHash(source)) {
+                    return null;
+                }
+                // Record the new mtime, so the next start skips the hash
+                updateModified(catalog, sourceModified);
+            }
+
+            return readBody(buffer);
+        } catch (RuntimeException e) {
+            System.err.println("Ignoring unreadable test case catalog: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Writes the catalog for a workbook
+     * @param filePath Path to the source Excel or CSV file
+     * @param identity Identity of the source taken before it was parsed
+     * @param testCases Test cases parsed from that file
+     */
+    public static void save(String filePath, SourceIdentity identity, List<TestCase> testCases) throws IOException {
+        Writer writer = new Writer();
+
+        writer.writeInt(MAGIC);
+        writer.writeInt(VERSION);
+        writer.writeInt(ExcelReader.PARSER_VERSION);
+        writer.writeLong(identity.size);
+        writer.writeLong(identity.modified);
+        writer.writeLong(identity.hash);
+
+        // String table first so records can reference strings by index
+        Map<String, Integer> stringIds = new HashMap<>();
+        List<String> strings = new ArrayList<>();
+        for (TestCase testCase : testCases) {
+            collectStrings(testCase, stringIds, strings);
+        }
+        writer.writeVarInt(strings.size());
+        for (String string : strings) {
+            byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            writer.writeVarInt(bytes.length);
+            writer.writeBytes(bytes);
+        }
+
+        writer.writeVarInt(testCases.size());
+        for (TestCase testCase : testCases) {
+            writer.writeString(testCase.getId(), stringIds);
+            writer.writeString(testCase.getClassName(), stringIds);
+            writer.writeString(testCase.getMethodName(), stringIds);
+            writer.writeString(testCase.getPreConditions(), stringIds);
+            writer.writeString(testCase.getSummary(), stringIds);
+            writer.writeString(testCase.getTestData(), stringIds);
+            writer.writeString(testCase.getExpected(), stringIds);
+
+            List<String> steps = testCase.getSteps();
+            writer.writeVarInt(steps == null ? 0 : steps.size() + 1);
+            if (steps != null) {
+                for (String step : steps) {
+                    writer.writeString(step, stringIds);
+                }
+            }
+
+            List<TestStep> structuredSteps = testCase.getStructuredSteps();
+            writer.writeVarInt(structuredSteps == null ? 0 : structuredSteps.size() + 1);
+            if (structuredSteps != null) {
+                for (TestStep step : structuredSteps) {
+                    // Unnumbered steps have number -1
+                    writer.writeVarInt(step.getNumber() + 1);
+                    writer.writeString(step.getText(), stringIds);
+                    writer.writeString(step.getVerb(), stringIds);
+                    writer.writeString(step.getTarget(), stringIds);
+                    writer.writeString(step.getValue(), stringIds);
+                }
+            }
+            
+            Map<String, String> data = testCase.getStructuredTestData();
+            writer.writeVarInt(data == null ? 0 : data.size() + 1);
+            if (data != null) {
+                for (Map.Entry<String, String> entry : data.entrySet()) {
+                    writer.writeString(entry.getKey(), stringIds);
+                    writer.writeString(entry.getValue(), stringIds);
+                }
+            }
+        }
+
+        Path catalog = catalogPath(filePath);
+        Path tempPath = catalog.resolveSibling(catalog.getFileName() + ".tmp");
+        Files.write(tempPath, writer.toByteArray());
+        Files.move(tempPath, catalog, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Location of the catalog file for a workbook
+     */
+    static Path catalogPath(String filePath) {
+        return Paths.get(filePath + FILE_SUFFIX);
+    }
+
+    private static List<TestCase> readBody(ByteBuffer buffer) {
+        byte[] bytes = buffer.array();
+        String[] strings = new String[readVarInt(buffer)];
+        for (int i = 0; i < strings.length; i++) {
+            int length = readVarInt(buffer);
+            strings[i] = new String(bytes, buffer.position(), length, StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + length);
+        }
+
+        // Shares repeated steps between the rows of this load
+        StepPool pool = new StepPool();
+        int count = readVarInt(buffer);
+        List<TestCase> testCases = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            TestCase testCase = new TestCase();
+            testCase.setId(readString(buffer, strings));
+            testCase.setClassName(readString(buffer, strings));
+            testCase.setMethodName(readString(buffer, strings));
+            testCase.setPreConditions(readString(buffer, strings));
+            testCase.setSummary(readString(buffer, strings));
+            testCase.setTestData(readString(buffer, strings));
+            testCase.setExpected(readString(buffer, strings));
+
+            int stepCount = readVarInt(buffer) - 1;
+            if (stepCount >= 0) {
+                List<String> steps = new ArrayList<>(stepCount);
+                for (int s = 0; s < stepCount; s++) {
+                    steps.add(readString(buffer, strings));
+                }
+                testCase.setSteps(steps);
+            }
+
+            int structuredCount = readVarInt(buffer) - 1;
+            if (structuredCount >= 0) {
+                List<TestStep> structuredSteps = new ArrayList<>(structuredCount);
+                for (int s = 0; s < structuredCount; s++) {
+                    TestStep step = new TestStep(readVarInt(buffer) - 1, readString(buffer, strings),
+                        readString(buffer, strings), readString(buffer, strings), readString(buffer, strings));
+                    // Shared like the reader's steps, so repeats are held once
+                    structuredSteps.add(pool.share(pool.intern(step), step));
+                }
+                testCase.setStructuredSteps(structuredSteps);
+            }
+            
+            int dataCount = readVarInt(buffer) - 1;
+            if (dataCount >= 0) {
+                Map<String, String> data = new HashMap<>();
+                for (int d = 0; d < dataCount; d++) {
+                    data.put(readString(buffer, strings), readString(buffer, strings));
+                }
+                testCase.setStructuredTestData(data);
+            }
+
+            testCases.add(testCase);
+        }
+        return testCases;
+    }
+
+    private static void collectStrings(TestCase testCase, Map<String, Integer> stringIds, List<String> strings) {
+        List<String> values = new ArrayList<>(Arrays.asList(
+            testCase.getId(), testCase.getClassName(), testCase.getMethodName(), testCase.getPreConditions(),
+            testCase.getSummary(), testCase.getTestData(), testCase.getExpected()));
+        if (testCase.getSteps() != null) {
+            values.addAll(testCase.getSteps());
+        }
+        if (testCase.getStructuredSteps() != null) {
+            for (TestStep step : testCase.getStructuredSteps()) {
+                values.addAll(Arrays.asList(step.getText(), step.getVerb(), step.getTarget(), step.getValue()));
+            }
+        }
+        if (testCase.getStructuredTestData() != null) {
+            for (Map.Entry<String, String> entry : testCase.getStructuredTestData().entrySet()) {
+                values.add(entry.getKey());
+                values.add(entry.getValue());
+            }
+        }
+
+        for (String value : values) {
+            if (value != null && !stringIds.containsKey(value)) {
+                stringIds.put(value, strings.size());
+                strings.add(value);
+            }
+        }
+    }
+
+    /**
+     * Reads a string reference; 0 encodes null, otherwise index + 1
+     */
+    private static String readString(ByteBuffer buffer, String[] strings) {
+        int ref = readVarInt(buffer);
+        return ref == 0 ? null : strings[ref - 1];
+    }
+
+    private static int readVarInt(ByteBuffer buffer) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    /**
+     * Rewrites the source mtime in a catalog's header in place
+     */
+    private static void updateModified(Path catalog, long modified) {
+        ByteBuffer bytes = ByteBuffer.allocate(Long.BYTES).putLong(0, modified);
+        try (FileChannel channel = FileChannel.open(catalog, StandardOpenOption.WRITE)) {
+            channel.write(bytes, MODIFIED_OFFSET);
+        } catch (IOException e) {
+            System.err.println("Could not update test case catalog: " + e.getMessage());
+        }
+    }
+
+    /**
+     * CRC32C over the full source file, used when the mtime alone cannot prove freshness
+     */
+    private static long contentHash(Path source) throws IOException {
+        CRC32C crc = new CRC32C();
+        try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = 0;
+            while (position < size) {
+                long chunk = Math.min(size - position, Integer.MAX_VALUE);
+                MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, position, chunk);
+                crc.update(mapped);
+                position += chunk;
+            }
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * Size, mtime and content hash of a source file, as recorded in a catalog's header
+     * Take it before parsing the file: the catalog must describe the bytes that were parsed.
+     */
+    public static final class SourceIdentity {
+        private final long size;
+        private final long modified;
+        private final long hash;
+
+        private SourceIdentity(long size, long modified, long hash) {
+            this.size = size;
+            this.modified = modified;
+            this.hash = hash;
+        }
+
+        /**
+         * Reads the current identity of a source file
+         * @param filePath Path to the source Excel or CSV file
+         */
+        public static SourceIdentity of(String filePath) throws IOException {
+            Path source = Paths.get(filePath);
+            // mtime before the content, so a write during the hash leaves an mtime that no longer matches
+            long modified = Files.getLastModifiedTime(source).toMillis();
+            return new SourceIdentity(Files.size(source), modified, contentHash(source));
+        }
+    }
+
+    /**
+     * Growable big-endian byte buffer with varint support
+     */
+    private static class Writer {
+        private byte[] bytes = new byte[8192];
+        private int length;
+
+        void writeInt(int value) {
+            ensure(4);
+            for (int shift = 24; shift >= 0; shift -= 8) {
+                bytes[length++] = (byte) (value >>> shift);
+            }
+        }
+
+        void writeLong(long value) {
+            writeInt((int) (value >>> 32));
+            writeInt((int) value);
+        }
+
+        void writeVarInt(int value) {
+            ensure(5);
+            while ((value & ~0x7F) != 0) {
+                bytes[length++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[length++] = (byte) value;
+        }
+
+        void writeString(String value, Map<String, Integer> stringIds) {
+            writeVarInt(value == null ? 0 : stringIds.get(value) + 1);
+        }
+
+        void writeBytes(byte[] data) {
+            ensure(data.length);
+            System.arraycopy(data, 0, bytes, length, data.length);
+            length += data.length;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(bytes, length);
+        }
+
+        private void ensure(int extra) {
+            if (length + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + extra));
+            }
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package util;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.testng.Assert.*;
+
+/**
+ * Round trip and staleness checks of the binary test case catalog
+ */
+public class TestCaseCatalogTest {
+    
+    private static final String HEADER =
+        "Test Case ID,Automation Class Name,Automation Method Name,Pre-Conditions,"
+        + "Test Scenario Summary,Test Data,Test Case (steps),Expected Results\n";
+    private static final String ROWS =
+        "TC_01,LoginTest,loginPortal,User has valid credentials,Login to the portal,"
+        + "\"Username: welldocsu\nPassword: secret\",\"1. Navigate to https://example.com/login\n"
+        + "2) Enter username 'welldocsu'\n3. Click on Login button\",Dashboard is shown\n"
+        + "TC_02,SearchTest,searchPatient,,Search a patient,,\"Enter patient name 'Smith'; Click Search\",Results are shown\n";
+    
+    private Path directory;
+    private Path source;
+    
+    @BeforeMethod
+    public void createSource() throws IOException {
+        directory = Files.createTempDirectory("catalog-test");
+        source = directory.resolve("cases.csv");
+        Files.write(source, (HEADER + ROWS).getBytes(StandardCharsets.UTF_8));
+    }
+    
+    @AfterMethod(alwaysRun = true)
+    public void deleteFiles() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+    
+    @Test
+    public void roundTripKeepsParsedFields() throws IOException {
+        List<TestCase> parsed = TestCaseCatalog.readTestCases(source.toString());
+        assertTrue(Files.exists(TestCaseCatalog.catalogPath(source.toString())));
+        
+        List<TestCase> loaded = TestCaseCatalog.load(source.toString());
+        assertNotNull(loaded);
+        assertEquals(loaded.size(), parsed.size());
+        for (int i = 0; i < parsed.size(); i++) {
+            TestCase expected = parsed.get(i);
+            TestCase actual = loaded.get(i);
+            assertEquals(actual.getId(), expected.getId());
+            assertEquals(actual.getClassName(), expected.getClassName());
+            assertEquals(actual.getMethodName(), expected.getMethodName());
+            assertEquals(actual.getPreConditions(), expected.getPreConditions());
+            assertEquals(actual.getSummary(), expected.getSummary());
+            assertEquals(actual.getTestData(), expected.getTestData());
+            assertEquals(actual.getExpected(), expected.getExpected());
+            assertEquals(actual.getSteps(), expected.getSteps());
+            assertEquals(actual.getStructuredTestData(), expected.getStructuredTestData());
+            assertEquals(actual.getStructuredSteps().toString(), expected.getStructuredSteps().toString());
+            assertEquals(actual.getStepIds(expected.getStepPool()), expected.getStepIds());
+        }
+    }
+    
+    @Test
+    public void keepsStepNumbers() throws IOException {
+        TestCaseCatalog.readTestCases(source.toString());
+        
+        List<TestStep> steps = TestCaseCatalog.load(source.toString()).get(0).getStructuredSteps();
+        assertEquals(steps.size(), 3);
+        assertEquals(steps.get(1).getNumber(), 2);
+        assertEquals(steps.get(1).getVerb(), "Enter");
+        assertEquals(steps.get(1).getValue(), "welldocsu");
+    }
+    
+    @Test
+    public void touchedButUnchangedSourceStillLoads() throws IOException {
+        TestCaseCatalog.readTestCases(source.toString());
+        Files.setLastModifiedTime(source, FileTime.fromMillis(System.currentTimeMillis() + 60_000));
+        
+        assertNotNull(TestCaseCatalog.load(source.toString()));
+    }
+    
+    @Test
+    public void touchedSourceUpdatesRecordedMtime() throws IOException {
+        TestCaseCatalog.readTestCases(source.toString());
+        long touched = System.currentTimeMillis() + 60_000;
+        Files.setLastModifiedTime(source, FileTime.fromMillis(touched));
+        
+        assertNotNull(TestCaseCatalog.load(source.toString()));
+        // Source size comes first after the three header ints, then the mtime
+        byte[] bytes = Files.readAllBytes(TestCaseCatalog.catalogPath(source.toString()));
+        assertEquals(ByteBuffer.wrap(bytes, 20, Long.BYTES).getLong(), touched);
+    }
+    
+    @Test
+    public void sourceSavedDuringParseLeavesCatalogStale() throws IOException {
+        TestCaseCatalog.SourceIdentity identity = TestCaseCatalog.SourceIdentity.of(source.toString());
+        List<TestCase> parsed = ExcelReader.readTestCases(source.toString());
+        // Saved again before the catalog is written
+        Files.write(source, (HEADER + ROWS + ROWS.replace("TC_0", "TC_1")).getBytes(StandardCharsets.UTF_8));
+        TestCaseCatalog.save(source.toString(), identity, parsed);
+        
+        assertNull(TestCaseCatalog.load(source.toString()));
+        assertEquals(TestCaseCatalog.readTestCases(source.toString()).size(), 4);
+    }
+    
+    @Test
+    public void rejectsSameSizeSourceWithOtherContent() throws IOException {
+        TestCaseCatalog.readTestCases(source.toString());
+        // Same length, so only the CRC32C of the content tells the difference
+        Files.write(source, (HEADER + ROWS.replace("TC_01", "TC_09")).getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(source, FileTime.fromMillis(System.currentTimeMillis() + 60_000));
+        
+        assertNull(TestCaseCatalog.load(source.toString()));
+        assertEquals(TestCaseCatalog.readTestCases(source.toString()).get(0).getId(), "TC_09");
+    }
+    
+    @Test
+    public void rejectsResizedSource() throws IOException {
+        TestCaseCatalog.readTestCases(source.toString());
+        Files.write(source, (HEADER + ROWS + ROWS.replace("TC_0", "TC_1")).getBytes(StandardCharsets.UTF_8));
+        
+        assertNull(TestCaseCatalog.load(source.toString()));
+    }
+    
+    @Test
+    public void rejectsOtherParserVersion() throws IOException {
+        TestCaseCatalog.readTestCases(source.toString());
+        Path catalog = TestCaseCatalog.catalogPath(source.toString());
+        byte[] bytes = Files.readAllBytes(catalog);
+        // Magic and catalog version come first, then the big-endian parser version
+        bytes[11] = (byte) (ExcelReader.PARSER_VERSION - 1);
+        Files.write(catalog, bytes);
+        
+        assertNull(TestCaseCatalog.load(source.toString()));
+    }
+    
+    @Test
+    public void ignoresTruncatedCatalog() throws IOException {
+        TestCaseCatalog.readTestCases(source.toString());
+        Path catalog = TestCaseCatalog.catalogPath(source.toString());
+        byte[] bytes = Files.readAllBytes(catalog);
+        Files.write(catalog, Arrays.copyOf(bytes, bytes.length / 2));
+        
+        assertNull(TestCaseCatalog.load(source.toString()));
+    }
+}
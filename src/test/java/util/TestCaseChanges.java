@@ -0,0 +1,83 @@
+package util;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Result of an incremental ingestion run
+ * Lists the test cases that were added, changed or removed since the last
+ * committed fingerprints, so downstream stages can skip unchanged ones
+ */
+public class TestCaseChanges {
+    private final List<TestCase> added;
+    private final List<TestCase> changed;
+    private final List<String> removedIds;
+    private final Map<String, Long> fingerprints;
+    private final Path cachePath;
+    private final TestCaseValidator validator;
+    private final Set<String> dirtyIds = new HashSet<>();
+
+    TestCaseChanges(List<TestCase> added, List<TestCase> changed, List<String> removedIds,
+                    Map<String, Long> fingerprints, Path cachePath, TestCaseValidator validator) {
+        this.added = added;
+        this.changed = changed;
+        this.removedIds = removedIds;
+        this.fingerprints = fingerprints;
+        this.cachePath = cachePath;
+        this.validator = validator;
+
+        for (TestCase testCase : added) dirtyIds.add(testCase.getId().trim());
+        for (TestCase testCase : changed) dirtyIds.add(testCase.getId().trim());
+    }
+
+    public List<TestCase> getAdded() { return added; }
+
+    public List<TestCase> getChanged() { return changed; }
+
+    public List<String> getRemovedIds() { return removedIds; }
+
+    /**
+     * IDs of all test cases currently in the workbook
+     */
+    public Set<String> getCurrentIds() { return fingerprints.keySet(); }
+
+    /**
+     * Validation of every row in the workbook, unchanged ones included
+     * Check it before using the changes: of rows sharing a Test Case ID only the first is reported.
+     */
+    public TestCaseValidator getValidator() { return validator; }
+    
+    public boolean hasChanges() {
+        return !added.isEmpty() || !changed.isEmpty() || !removedIds.isEmpty();
+    }
+
+    /**
+     * Checks whether a test case is present and identical to the last committed run
+     */
+    public boolean isUnchanged(String id) {
+        return fingerprints.containsKey(id) && !dirtyIds.contains(id);
+    }
+
+    /**
+     * Persists the current fingerprints next to the workbook
+     * Call this once downstream stages have successfully processed the changes,
+     * otherwise the next run would treat unprocessed rows as unchanged
+     */
+    public void commit() throws IOException {
+        RowFingerprintCache.save(cachePath, fingerprints);
+    }
+
+    @Override
+    public String toString() {
+        return "TestCaseChanges{" +
+                "added=" + added.size() +
+                ", changed=" + changed.size() +
+                ", removed=" + removedIds.size() +
+                ", total=" + fingerprints.size() +
+                '}';
+    }
+}
@@ -0,0 +1,261 @@
+package util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * In-memory test case suite with hash indexes by ID, class and page, plus an
+ * inverted keyword index over steps and summaries
+ * Indexes are built once, so grouping and page lookups are O(1) per query however
+ * many classes the suite has. Page inference is supplied by the generator, as each
+ * generator maps class names to Page Object classes differently.
+ * The keyword index is built on the first keyword query, as generation never needs it.
+ * The repository is immutable; withChanges returns an updated copy.
+ */
+public class TestCaseRepository {
+    
+    /**
+     * Infers the Page Object classes a test case exercises
+     */
+    @FunctionalInterface
+    public interface PageResolver {
+        List<String> pagesFor(TestCase testCase);
+    }
+    
+    private final List<TestCase> testCases;
+    private final PageResolver pageResolver;
+    private final Map<String, TestCase> byId = new LinkedHashMap<>();
+    private final Map<String, List<TestCase>> byClass = new LinkedHashMap<>();
+    private final Map<String, List<TestCase>> byPage = new LinkedHashMap<>();
+    // Lower-cased word -> ordinals of the test cases containing it, ascending
+    private Map<String, Postings> keywords;
+    
+    /**
+     * Indexes the test cases in the given order
+     * @param testCases Test cases in sheet order
+     * @param pageResolver Page inference of the generator using the repository
+     */
+    public TestCaseRepository(Collection<? extends TestCase> testCases, PageResolver pageResolver) {
+        this.testCases = Collections.unmodifiableList(new ArrayList<>(testCases));
+        this.pageResolver = pageResolver;
+        
+        for (int ordinal = 0; ordinal < this.testCases.size(); ordinal++) {
+            TestCase testCase = this.testCases.get(ordinal);
+            if (testCase.getId() != null) {
+                byId.putIfAbsent(testCase.getId().trim(), testCase);
+            }
+            byClass.computeIfAbsent(testCase.getClassName(), k -> new ArrayList<>()).add(testCase);
+            for (String page : pageResolver.pagesFor(testCase)) {
+                byPage.computeIfAbsent(page, k -> new ArrayList<>()).add(testCase);
+            }
+        }
+    }
+    
+    /**
+     * Number of test cases
+     */
+    public int size() {
+        return testCases.size();
+    }
+    
+    /**
+     * All test cases in sheet order
+     */
+    public List<TestCase> getAll() {
+        return testCases;
+    }
+    
+    /**
+     * First test case with the (trimmed) Test Case ID, or null
+     */
+    public TestCase getById(String id) {
+        return id == null ? null : byId.get(id.trim());
+    }
+    
+    /**
+     * Class names in order of first appearance
+     */
+    public Set<String> getClassNames() {
+        return Collections.unmodifiableSet(byClass.keySet());
+    }
+    
+    /**
+     * Test cases of one class in sheet order
+     */
+    public List<TestCase> getByClass(String className) {
+        List<TestCase> classTests = byClass.get(className);
+        return classTests == null ? Collections.emptyList() : Collections.unmodifiableList(classTests);
+    }
+    
+    /**
+     * Page Object classes used by the suite, in order of first appearance
+     */
+    public Set<String> getPages() {
+        return Collections.unmodifiableSet(byPage.keySet());
+    }
+    
+    /**
+     * Test cases exercising a page, in sheet order
+     */
+    public List<TestCase> getByPage(String page) {
+        List<TestCase> pageTests = byPage.get(page);
+        return pageTests == null ? Collections.emptyList() : Collections.unmodifiableList(pageTests);
+    }
+    
+    /**
+     * Pages of a single test case, using this repository's page inference
+     */
+    public List<String> pagesOf(TestCase testCase) {
+        return pageResolver.pagesFor(testCase);
+    }
+    
+    /**
+     * Test cases whose steps or summary contain the word, case-insensitively
+     */
+    public List<TestCase> findByKeyword(String word) {
+        Postings postings = keywords().get(word.toLowerCase());
+        return postings == null ? Collections.emptyList() : toTestCases(postings.ordinals, postings.size);
+    }
+    
+    /**
+     * Test cases whose steps or summary contain all of the words
+     */
+    public List<TestCase> findByAllKeywords(String... words) {
+        if (words.length == 0) return Collections.emptyList();
+        
+        int[] matches = null;
+        int matchCount = 0;
+        for (String word : words) {
+            Postings postings = keywords().get(word.toLowerCase());
+            if (postings == null) return Collections.emptyList();
+            if (matches == null) {
+                matches = Arrays.copyOf(postings.ordinals, postings.size);
+                matchCount = postings.size;
+            } else {
+                matchCount = intersect(matches, matchCount, postings.ordinals, postings.size);
+            }
+        }
+        return toTestCases(matches, matchCount);
+    }
+    
+    /**
+     * Copy of this repository with rows removed and rows added or replaced
+     * Rows are carried over in sheet order, including rows that repeat an earlier ID
+     * or have none. An upsert replaces the first row with its ID, as that row owns the
+     * ID everywhere else; new rows are appended in upsert order.
+     * @param removedIds Test Case IDs to drop, with every row carrying them
+     * @param upserts Test cases to add, or to replace the row with the same ID
+     * @throws IllegalArgumentException if an upsert has no Test Case ID
+     */
+    public TestCaseRepository withChanges(Collection<String> removedIds, Collection<? extends TestCase> upserts) {
+        Set<String> removed = new HashSet<>();
+        for (String id : removedIds) {
+            if (id != null) {
+                removed.add(id.trim());
+            }
+        }
+        Map<String, TestCase> pending = new LinkedHashMap<>();
+        for (TestCase testCase : upserts) {
+            String id = testCase.getId() == null ? "" : testCase.getId().trim();
+            if (id.isEmpty()) {
+                throw new IllegalArgumentException("Cannot upsert a test case without Test Case ID");
+            }
+            pending.put(id, testCase);
+        }
+        
+        List<TestCase> updated = new ArrayList<>(testCases.size() + pending.size());
+        for (TestCase testCase : testCases) {
+            String id = testCase.getId() == null ? null : testCase.getId().trim();
+            if (id != null && removed.contains(id)) continue;
+            
+            TestCase replacement = id != null && byId.get(id) == testCase ? pending.remove(id) : null;
+            updated.add(replacement != null ? replacement : testCase);
+        }
+        updated.addAll(pending.values());
+        return new TestCaseRepository(updated, pageResolver);
+    }
+    
+    private synchronized Map<String, Postings> keywords() {
+        if (keywords == null) {
+            keywords = new HashMap<>();
+            for (int ordinal = 0; ordinal < testCases.size(); ordinal++) {
+                TestCase testCase = testCases.get(ordinal);
+                List<String> steps = testCase.getLowerCaseSteps();
+                if (steps != null) {
+                    for (String step : steps) {
+                        indexWords(step, ordinal);
+                    }
+                }
+                if (testCase.getSummary() != null) {
+                    indexWords(testCase.getSummary().toLowerCase(), ordinal);
+                }
+            }
+        }
+        return keywords;
+    }
+    
+    private void indexWords(String text, int ordinal) {
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                if (i - start > 1) {
+                    keywords.computeIfAbsent(text.substring(start, i), k -> new Postings()).add(ordinal);
+                }
+                start = -1;
+            }
+        }
+    }
+    
+    private List<TestCase> toTestCases(int[] ordinals, int count) {
+        List<TestCase> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            result.add(testCases.get(ordinals[i]));
+        }
+        return result;
+    }
+    
+    /**
+     * Intersects two ascending ordinal arrays into the first one
+     * @return Number of ordinals kept
+     */
+    private static int intersect(int[] target, int targetSize, int[] other, int otherSize) {
+        int kept = 0;
+        int j = 0;
+        for (int i = 0; i < targetSize && j < otherSize; i++) {
+            while (j < otherSize && other[j] < target[i]) {
+                j++;
+            }
+            if (j < otherSize && other[j] == target[i]) {
+                target[kept++] = target[i];
+            }
+        }
+        return kept;
+    }
+    
+    /**
+     * Ascending, duplicate-free list of test case ordinals
+     */
+    private static class Postings {
+        private int[] ordinals = new int[4];
+        private int size;
+        
+        void add(int ordinal) {
+            if (size > 0 && ordinals[size - 1] == ordinal) return;
+            if (size == ordinals.length) {
+                ordinals = Arrays.copyOf(ordinals, size * 2);
+            }
+            ordinals[size++] = ordinal;
+        }
+    }
+}
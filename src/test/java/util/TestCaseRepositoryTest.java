@@ -0,0 +1,158 @@
+package util;
+
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.testng.Assert.*;
+
+/**
+ * Indexes, keyword search and incremental updates of the test case repository
+ */
+public class TestCaseRepositoryTest {
+    
+    // A class exercises the page named after it, plus LoginPage when a step logs in
+    private static final TestCaseRepository.PageResolver PAGES = testCase -> {
+        List<String> pages = new ArrayList<>();
+        pages.add(testCase.getClassName().replace("Test", "Page"));
+        if (testCase.getJoinedSteps().toLowerCase().contains("log in") && !pages.contains("LoginPage")) {
+            pages.add("LoginPage");
+        }
+        return pages;
+    };
+    
+    @Test
+    public void indexesByIdClassAndPage() {
+        TestCaseRepository repository = new TestCaseRepository(List.of(
+            testCase("TC_01", "LoginTest", "Log in with valid user"),
+            testCase("TC_02", "SearchTest", "Log in", "Search for a patient"),
+            testCase("TC_03", "LoginTest", "Open the portal")), PAGES);
+        
+        assertEquals(repository.size(), 3);
+        assertEquals(repository.getById(" TC_02 ").getClassName(), "SearchTest");
+        assertNull(repository.getById("TC_99"));
+        assertNull(repository.getById(null));
+        
+        assertEquals(List.copyOf(repository.getClassNames()), List.of("LoginTest", "SearchTest"));
+        assertEquals(ids(repository.getByClass("LoginTest")), List.of("TC_01", "TC_03"));
+        assertTrue(repository.getByClass("ReportTest").isEmpty());
+        
+        assertEquals(List.copyOf(repository.getPages()), List.of("LoginPage", "SearchPage"));
+        assertEquals(ids(repository.getByPage("LoginPage")), List.of("TC_01", "TC_02", "TC_03"));
+        assertEquals(ids(repository.getByPage("SearchPage")), List.of("TC_02"));
+        assertEquals(repository.pagesOf(repository.getById("TC_02")), List.of("SearchPage", "LoginPage"));
+    }
+    
+    @Test
+    public void firstRowOwnsARepeatedId() {
+        TestCase first = testCase("TC_01", "LoginTest", "Open the portal");
+        TestCase repeat = testCase("TC_01", "LoginTest", "Open it again");
+        TestCaseRepository repository = new TestCaseRepository(List.of(first, repeat), PAGES);
+        
+        assertSame(repository.getById("TC_01"), first);
+        assertEquals(repository.getAll(), List.of(first, repeat));
+    }
+    
+    @Test
+    public void findsKeywordsInStepsAndSummary() {
+        TestCase login = testCase("TC_01", "LoginTest", "Enter the Username", "Click Login");
+        TestCase search = testCase("TC_02", "SearchTest", "Click Search");
+        search.setSummary("Search patients after login");
+        TestCaseRepository repository = new TestCaseRepository(List.of(login, search), PAGES);
+        
+        assertEquals(ids(repository.findByKeyword("LOGIN")), List.of("TC_01", "TC_02"));
+        assertEquals(ids(repository.findByKeyword("username")), List.of("TC_01"));
+        assertEquals(ids(repository.findByKeyword("patients")), List.of("TC_02"));
+        // Single characters and partial words are not indexed
+        assertTrue(repository.findByKeyword("a").isEmpty());
+        assertTrue(repository.findByKeyword("log").isEmpty());
+    }
+    
+    @Test
+    public void intersectsKeywordPostings() {
+        List<TestCase> testCases = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            List<String> steps = new ArrayList<>();
+            steps.add("Open the portal");
+            if (i % 2 == 0) steps.add("Click Save");
+            if (i % 3 == 0) steps.add("Verify the report");
+            if (i % 5 == 0) steps.add("Log out");
+            testCases.add(testCase("TC_" + i, "SuiteTest", steps.toArray(new String[0])));
+        }
+        TestCaseRepository repository = new TestCaseRepository(testCases, PAGES);
+        
+        assertEquals(repository.findByAllKeywords("portal").size(), 30);
+        assertEquals(ids(repository.findByAllKeywords("save", "report")),
+            List.of("TC_0", "TC_6", "TC_12", "TC_18", "TC_24"));
+        assertEquals(ids(repository.findByAllKeywords("Report", "SAVE", "out")), List.of("TC_0"));
+        assertEquals(ids(repository.findByAllKeywords("out", "report")), List.of("TC_0", "TC_15"));
+        assertTrue(repository.findByAllKeywords("save", "missing").isEmpty());
+        assertTrue(repository.findByAllKeywords().isEmpty());
+    }
+    
+    @Test
+    public void withChangesReplacesInPlaceAndAppendsNewRows() {
+        TestCaseRepository repository = new TestCaseRepository(List.of(
+            testCase("TC_01", "LoginTest", "Open the portal"),
+            testCase("TC_02", "LoginTest", "Log in"),
+            testCase("TC_03", "SearchTest", "Search")), PAGES);
+        TestCase changed = testCase(" TC_02", "LoginTest", "Log in again");
+        TestCase added = testCase("TC_04", "ReportTest", "Open a report");
+        
+        TestCaseRepository updated = repository.withChanges(List.of("TC_03 "), List.of(added, changed));
+        
+        assertEquals(ids(updated.getAll()), List.of("TC_01", " TC_02", "TC_04"));
+        assertSame(updated.getById("TC_02"), changed);
+        assertEquals(List.copyOf(updated.getClassNames()), List.of("LoginTest", "ReportTest"));
+        assertTrue(updated.getByPage("SearchPage").isEmpty());
+        assertEquals(ids(updated.findByKeyword("again")), List.of(" TC_02"));
+        // The original repository is unchanged
+        assertEquals(ids(repository.getAll()), List.of("TC_01", "TC_02", "TC_03"));
+        assertEquals(ids(repository.findByKeyword("again")), List.of());
+    }
+    
+    @Test
+    public void withChangesKeepsRepeatedIdsAndRowsWithoutId() {
+        TestCase first = testCase("TC_01", "LoginTest", "Open the portal");
+        TestCase repeat = testCase("TC_01", "LoginTest", "Open it again");
+        TestCase noId = testCase(null, "LoginTest", "Unnamed");
+        TestCase other = testCase("TC_02", "SearchTest", "Search");
+        TestCaseRepository repository = new TestCaseRepository(List.of(first, repeat, noId, other), PAGES);
+        
+        TestCase changed = testCase("TC_01", "LoginTest", "Open the portal twice");
+        TestCaseRepository updated = repository.withChanges(List.of(), List.of(changed));
+        
+        // Only the row owning the ID is replaced
+        assertEquals(updated.getAll(), List.of(changed, repeat, noId, other));
+        assertEquals(updated.getByClass("LoginTest").size(), 3);
+        
+        TestCaseRepository removed = updated.withChanges(List.of("TC_01"), List.of());
+        assertEquals(removed.getAll(), List.of(noId, other));
+    }
+    
+    @Test
+    public void withChangesRejectsUpsertsWithoutId() {
+        TestCaseRepository repository = new TestCaseRepository(List.of(
+            testCase("TC_01", "LoginTest", "Open the portal")), PAGES);
+        
+        expectThrows(IllegalArgumentException.class,
+            () -> repository.withChanges(List.of(), List.of(testCase(null, "LoginTest", "Log in"))));
+        expectThrows(IllegalArgumentException.class,
+            () -> repository.withChanges(List.of(), List.of(testCase("  ", "LoginTest", "Log in"))));
+    }
+    
+    private static TestCase testCase(String id, String className, String... steps) {
+        TestCase testCase = new TestCase();
+        testCase.setId(id);
+        testCase.setClassName(className);
+        testCase.setMethodName("run");
+        testCase.setSteps(List.of(steps));
+        return testCase;
+    }
+    
+    private static List<String> ids(List<TestCase> testCases) {
+        return testCases.stream().map(TestCase::getId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,362 @@
+package util;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * Column-oriented, dictionary-encoded store of test cases
+ * Every distinct string (class names, pre-conditions, step text, ...) is kept once
+ * and rows hold int references into that dictionary. Steps of all rows share one
+ * int pool, addressed by per-row offsets, and so do their lexed forms and the
+ * key/value pairs of their test data.
+ * {@link #get(int)} returns a read-only TestCase view that decodes on access.
+ * The table stays appendable after {@link #trimToSize()}.
+ */
+public class TestCaseTable {
+    
+    private static final int INITIAL_CAPACITY = 256;
+    
+    // Dictionary: id -> string, and string -> id while the table is being filled;
+    // the reverse map is dropped by trimToSize and rebuilt if rows are added again
+    private Map<String, Integer> stringIds = new HashMap<>();
+    private String[] strings = new String[INITIAL_CAPACITY];
+    private int stringCount;
+    
+    // One int column per field, indexed by row
+    private int[] ids = new int[INITIAL_CAPACITY];
+    private int[] classNames = new int[INITIAL_CAPACITY];
+    private int[] methodNames = new int[INITIAL_CAPACITY];
+    private int[] preConditions = new int[INITIAL_CAPACITY];
+    private int[] summaries = new int[INITIAL_CAPACITY];
+    private int[] testData = new int[INITIAL_CAPACITY];
+    private int[] expected = new int[INITIAL_CAPACITY];
+    
+    // Steps of row r are stepPool[stepOffsets[r] .. stepOffsets[r + 1])
+    private int[] stepOffsets = new int[INITIAL_CAPACITY + 1];
+    private int[] stepPool = new int[INITIAL_CAPACITY * 4];
+    private int stepCount;
+    
+    // Lexed steps of row r are entries structuredOffsets[r] .. structuredOffsets[r + 1]
+    // of these columns, so views never lex again
+    private int[] structuredOffsets = new int[INITIAL_CAPACITY + 1];
+    private int[] stepNumbers = new int[INITIAL_CAPACITY * 4];
+    private int[] stepTexts = new int[INITIAL_CAPACITY * 4];
+    private int[] stepVerbs = new int[INITIAL_CAPACITY * 4];
+    private int[] stepTargets = new int[INITIAL_CAPACITY * 4];
+    private int[] stepValues = new int[INITIAL_CAPACITY * 4];
+    private int structuredCount;
+    
+    // Test data pairs of row r are entries dataOffsets[r] .. dataOffsets[r + 1] of these
+    // columns; rows without a structured test data map are set in missingData
+    private int[] dataOffsets = new int[INITIAL_CAPACITY + 1];
+    private int[] dataKeys = new int[INITIAL_CAPACITY * 2];
+    private int[] dataValues = new int[INITIAL_CAPACITY * 2];
+    private int dataCount;
+    private final BitSet missingData = new BitSet();
+    
+    private int size;
+    
+    /**
+     * Appends a row from raw cell values; the steps and test data cells are lexed once here
+     * @return Row index of the new test case
+     */
+    public int add(String id, String className, String methodName, String preCondition,
+                   String summary, String data, String stepsText, String expectedResult) {
+        List<TestStep> steps = StepLexer.lexSteps(stepsText);
+        ensureStepCapacity(steps.size());
+        for (TestStep step : steps) {
+            stepPool[stepCount++] = intern(step.getText());
+        }
+        addStructuredSteps(steps);
+        addStructuredTestData(data == null || data.trim().isEmpty() ? null : StepLexer.lexTestData(data));
+        return addRow(id, className, methodName, preCondition, summary, data, expectedResult);
+    }
+    
+    /**
+     * Appends a copy of an existing test case
+     * @return Row index of the new test case
+     */
+    public int add(TestCase testCase) {
+        List<String> steps = testCase.getSteps();
+        if (steps != null) {
+            ensureStepCapacity(steps.size());
+            for (String step : steps) {
+                stepPool[stepCount++] = intern(step);
+            }
+        }
+        addStructuredSteps(testCase.getStructuredSteps());
+        addStructuredTestData(testCase.getStructuredTestData());
+        return addRow(testCase.getId(), testCase.getClassName(), testCase.getMethodName(),
+            testCase.getPreConditions(), testCase.getSummary(), testCase.getTestData(), testCase.getExpected());
+    }
+    
+    /**
+     * Number of rows in the table
+     */
+    public int size() {
+        return size;
+    }
+    
+    /**
+     * Number of distinct strings held by the dictionary
+     */
+    public int distinctStrings() {
+        return stringCount;
+    }
+    
+    /**
+     * Read-only TestCase view of a row
+     */
+    public TestCase get(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " of " + size);
+        }
+        return new RowView(row);
+    }
+    
+    /**
+     * All rows as read-only TestCase views, created on access
+     */
+    public List<TestCase> asList() {
+        return new Rows();
+    }
+    
+    /**
+     * Releases spare capacity and the string lookup map once the table is fully populated
+     */
+    public void trimToSize() {
+        stringIds = null;
+        strings = Arrays.copyOf(strings, stringCount);
+        ids = Arrays.copyOf(ids, size);
+        classNames = Arrays.copyOf(classNames, size);
+        methodNames = Arrays.copyOf(methodNames, size);
+        preConditions = Arrays.copyOf(preConditions, size);
+        summaries = Arrays.copyOf(summaries, size);
+        testData = Arrays.copyOf(testData, size);
+        expected = Arrays.copyOf(expected, size);
+        stepOffsets = Arrays.copyOf(stepOffsets, size + 1);
+        stepPool = Arrays.copyOf(stepPool, stepCount);
+        structuredOffsets = Arrays.copyOf(structuredOffsets, size + 1);
+        stepNumbers = Arrays.copyOf(stepNumbers, structuredCount);
+        stepTexts = Arrays.copyOf(stepTexts, structuredCount);
+        stepVerbs = Arrays.copyOf(stepVerbs, structuredCount);
+        stepTargets = Arrays.copyOf(stepTargets, structuredCount);
+        stepValues = Arrays.copyOf(stepValues, structuredCount);
+        dataOffsets = Arrays.copyOf(dataOffsets, size + 1);
+        dataKeys = Arrays.copyOf(dataKeys, dataCount);
+        dataValues = Arrays.copyOf(dataValues, dataCount);
+    }
+    
+    private int addRow(String id, String className, String methodName, String preCondition,
+                       String summary, String data, String expectedResult) {
+        if (size == ids.length) {
+            // A trimmed table may be empty
+            int capacity = Math.max(INITIAL_CAPACITY, size * 2);
+            ids = Arrays.copyOf(ids, capacity);
+            classNames = Arrays.copyOf(classNames, capacity);
+            methodNames = Arrays.copyOf(methodNames, capacity);
+            preConditions = Arrays.copyOf(preConditions, capacity);
+            summaries = Arrays.copyOf(summaries, capacity);
+            testData = Arrays.copyOf(testData, capacity);
+            expected = Arrays.copyOf(expected, capacity);
+            stepOffsets = Arrays.copyOf(stepOffsets, capacity + 1);
+            structuredOffsets = Arrays.copyOf(structuredOffsets, capacity + 1);
+            dataOffsets = Arrays.copyOf(dataOffsets, capacity + 1);
+        }
+        
+        ids[size] = intern(id);
+        classNames[size] = intern(className);
+        methodNames[size] = intern(methodName);
+        preConditions[size] = intern(preCondition);
+        summaries[size] = intern(summary);
+        testData[size] = intern(data);
+        expected[size] = intern(expectedResult);
+        stepOffsets[size + 1] = stepCount;
+        structuredOffsets[size + 1] = structuredCount;
+        dataOffsets[size + 1] = dataCount;
+        return size++;
+    }
+    
+    /**
+     * Appends the lexed steps of the row being added
+     */
+    private void addStructuredSteps(List<TestStep> steps) {
+        if (steps == null) return;
+        
+        if (structuredCount + steps.size() > stepNumbers.length) {
+            int capacity = Math.max(stepNumbers.length * 2, structuredCount + steps.size());
+            stepNumbers = Arrays.copyOf(stepNumbers, capacity);
+            stepTexts = Arrays.copyOf(stepTexts, capacity);
+            stepVerbs = Arrays.copyOf(stepVerbs, capacity);
+            stepTargets = Arrays.copyOf(stepTargets, capacity);
+            stepValues = Arrays.copyOf(stepValues, capacity);
+        }
+        for (TestStep step : steps) {
+            stepNumbers[structuredCount] = step.getNumber();
+            stepTexts[structuredCount] = intern(step.getText());
+            stepVerbs[structuredCount] = intern(step.getVerb());
+            stepTargets[structuredCount] = intern(step.getTarget());
+            stepValues[structuredCount] = intern(step.getValue());
+            structuredCount++;
+        }
+    }
+    
+    /**
+     * Appends the test data pairs of the row being added; null is kept apart from an empty map
+     */
+    private void addStructuredTestData(Map<String, String> data) {
+        if (data == null) {
+            missingData.set(size);
+            return;
+        }
+        
+        if (dataCount + data.size() > dataKeys.length) {
+            int capacity = Math.max(dataKeys.length * 2, dataCount + data.size());
+            dataKeys = Arrays.copyOf(dataKeys, capacity);
+            dataValues = Arrays.copyOf(dataValues, capacity);
+        }
+        for (Map.Entry<String, String> entry : data.entrySet()) {
+            dataKeys[dataCount] = intern(entry.getKey());
+            dataValues[dataCount] = intern(entry.getValue());
+            dataCount++;
+        }
+    }
+    
+    /**
+     * Returns the dictionary reference for a string; -1 encodes null
+     */
+    private int intern(String value) {
+        if (value == null) return -1;
+        
+        if (stringIds == null) {
+            stringIds = new HashMap<>();
+            for (int ref = 0; ref < stringCount; ref++) {
+                stringIds.put(strings[ref], ref);
+            }
+        }
+        Integer existing = stringIds.get(value);
+        if (existing != null) return existing;
+        
+        if (stringCount == strings.length) {
+            strings = Arrays.copyOf(strings, Math.max(INITIAL_CAPACITY, stringCount * 2));
+        }
+        strings[stringCount] = value;
+        stringIds.put(value, stringCount);
+        return stringCount++;
+    }
+    
+    private String string(int ref) {
+        return ref < 0 ? null : strings[ref];
+    }
+    
+    private void ensureStepCapacity(int extra) {
+        if (stepCount + extra > stepPool.length) {
+            stepPool = Arrays.copyOf(stepPool, Math.max(stepPool.length * 2, stepCount + extra));
+        }
+    }
+    
+    /**
+     * Test case backed by a table row; setters are not supported
+     */
+    private class RowView extends TestCase {
+        private final int row;
+        
+        RowView(int row) {
+            this.row = row;
+        }
+        
+        @Override public String getId() { return string(ids[row]); }
+        @Override public String getClassName() { return string(classNames[row]); }
+        @Override public String getMethodName() { return string(methodNames[row]); }
+        @Override public String getPreConditions() { return string(preConditions[row]); }
+        @Override public String getSummary() { return string(summaries[row]); }
+        @Override public String getTestData() { return string(testData[row]); }
+        @Override public String getExpected() { return string(expected[row]); }
+        @Override public List<String> getSteps() { return new StepList(stepOffsets[row], stepOffsets[row + 1]); }
+        
+        @Override
+        public Map<String, String> getStructuredTestData() {
+            if (missingData.get(row)) return null;
+            
+            int from = dataOffsets[row];
+            int to = dataOffsets[row + 1];
+            Map<String, String> data = new HashMap<>();
+            for (int i = from; i < to; i++) {
+                data.put(string(dataKeys[i]), string(dataValues[i]));
+            }
+            return data;
+        }
+        
+        @Override
+        public List<TestStep> getStructuredSteps() {
+            int from = structuredOffsets[row];
+            int to = structuredOffsets[row + 1];
+            List<TestStep> steps = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) {
+                steps.add(new TestStep(stepNumbers[i], string(stepTexts[i]), string(stepVerbs[i]),
+                    string(stepTargets[i]), string(stepValues[i])));
+            }
+            return steps;
+        }
+        
+        @Override public void setId(String id) { readOnly(); }
+        @Override public void setClassName(String className) { readOnly(); }
+        @Override public void setMethodName(String methodName) { readOnly(); }
+        @Override public void setPreConditions(String preConditions) { readOnly(); }
+        @Override public void setSummary(String summary) { readOnly(); }
+        @Override public void setTestData(String testData) { readOnly(); }
+        @Override public void setSteps(List<String> steps) { readOnly(); }
+        @Override public void setExpected(String expected) { readOnly(); }
+        @Override public void setStructuredTestData(Map<String, String> structuredTestData) { readOnly(); }
+        @Override public void setStructuredSteps(List<TestStep> structuredSteps) { readOnly(); }
+        @Override public void setStepIds(StepPool stepPool, int[] stepIds) { readOnly(); }
+        
+        private void readOnly() {
+            throw new UnsupportedOperationException("TestCaseTable rows are read-only");
+        }
+    }
+    
+    /**
+     * Slice of the shared step pool
+     */
+    private class StepList extends AbstractList<String> implements RandomAccess {
+        private final int from;
+        private final int to;
+        
+        StepList(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+        
+        @Override
+        public String get(int index) {
+            if (index < 0 || index >= to - from) {
+                throw new IndexOutOfBoundsException("Step " + index + " of " + (to - from));
+            }
+            return strings[stepPool[from + index]];
+        }
+        
+        @Override
+        public int size() {
+            return to - from;
+        }
+    }
+    
+    private class Rows extends AbstractList<TestCase> implements RandomAccess {
+        @Override
+        public TestCase get(int index) {
+            return TestCaseTable.this.get(index);
+        }
+        
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package util;
+
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.testng.Assert.*;
+
+/**
+ * Row views of the dictionary-encoded TestCaseTable
+ */
+public class TestCaseTableTest {
+    
+    @Test
+    public void rawRowsAreLexedOnAdd() {
+        TestCaseTable table = new TestCaseTable();
+        table.add("TC_01", "LoginTest", "loginPortal", "User is logged out", "Login",
+            "Username: welldocsu\nPassword: secret", "1. Navigate to login page\n2) Enter username 'welldocsu'",
+            "Dashboard is shown");
+        
+        TestCase row = table.get(0);
+        assertEquals(row.getId(), "TC_01");
+        assertEquals(row.getClassName(), "LoginTest");
+        assertEquals(row.getExpected(), "Dashboard is shown");
+        assertEquals(row.getSteps(), List.of("Navigate to login page", "Enter username 'welldocsu'"));
+        assertEquals(row.getStructuredSteps().get(1).getNumber(), 2);
+        assertEquals(row.getStructuredSteps().get(1).getValue(), "welldocsu");
+        assertEquals(row.getStructuredTestData(), Map.of("username", "welldocsu", "password", "secret"));
+    }
+    
+    @Test
+    public void blankTestDataHasNoStructuredData() {
+        TestCaseTable table = new TestCaseTable();
+        table.add("TC_01", "LoginTest", "loginPortal", "", "", "  ", "Open app", "");
+        table.add("TC_02", "LoginTest", "logout", "", "", null, "Logout", "");
+        
+        assertNull(table.get(0).getStructuredTestData());
+        assertNull(table.get(1).getStructuredTestData());
+    }
+    
+    @Test
+    public void copiedRowsKeepTheirStructuredTestData() {
+        TestCase custom = testCase("TC_01", "Username: welldocsu");
+        custom.setStructuredTestData(Map.of("environment", "staging"));
+        TestCase missing = testCase("TC_02", "Username: welldocsu");
+        missing.setStructuredTestData(null);
+        TestCase empty = testCase("TC_03", "Username: welldocsu");
+        empty.setStructuredTestData(Collections.emptyMap());
+        
+        TestCaseTable table = new TestCaseTable();
+        table.add(custom);
+        table.add(missing);
+        table.add(empty);
+        
+        // The test data text is not lexed again
+        assertEquals(table.get(0).getStructuredTestData(), Map.of("environment", "staging"));
+        assertNull(table.get(1).getStructuredTestData());
+        assertEquals(table.get(2).getStructuredTestData(), Map.of());
+    }
+    
+    @Test
+    public void copiedRowsKeepEveryField() {
+        TestCase original = testCase("TC_01", "Username: welldocsu\nPassword: secret");
+        TestCaseTable table = new TestCaseTable();
+        table.add(original);
+        
+        TestCase copy = table.get(0);
+        assertEquals(copy.getId(), original.getId());
+        assertEquals(copy.getMethodName(), original.getMethodName());
+        assertEquals(copy.getPreConditions(), original.getPreConditions());
+        assertEquals(copy.getSummary(), original.getSummary());
+        assertEquals(copy.getTestData(), original.getTestData());
+        assertEquals(copy.getSteps(), original.getSteps());
+        assertEquals(copy.getStructuredSteps().toString(), original.getStructuredSteps().toString());
+        assertEquals(copy.getStructuredTestData(), original.getStructuredTestData());
+    }
+    
+    @Test
+    public void repeatedStringsAreStoredOnce() {
+        TestCaseTable table = new TestCaseTable();
+        for (int i = 0; i < 10; i++) {
+            table.add("TC_" + i, "LoginTest", "login", "", "", "Username: welldocsu", "Open app", "");
+        }
+        
+        // 10 ids plus LoginTest, login, "", the test data text, its key and value,
+        // and the step text with its verb and target
+        assertEquals(table.distinctStrings(), 19);
+    }
+    
+    @Test
+    public void staysAppendableAfterTrimToSize() {
+        TestCaseTable table = new TestCaseTable();
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            table.add(testCase("TC_" + i, "Row: " + i));
+            ids.add("TC_" + i);
+            if (i == 0 || i == 150) {
+                table.trimToSize();
+            }
+        }
+        
+        assertEquals(table.size(), 300);
+        for (int i = 0; i < 300; i++) {
+            TestCase row = table.asList().get(i);
+            assertEquals(row.getId(), ids.get(i));
+            assertEquals(row.getStructuredTestData(), Map.of("row", String.valueOf(i)));
+            assertEquals(row.getSteps().size(), 2);
+        }
+    }
+    
+    @Test
+    public void rowsAreReadOnly() {
+        TestCaseTable table = new TestCaseTable();
+        table.add(testCase("TC_01", ""));
+        
+        expectThrows(UnsupportedOperationException.class, () -> table.get(0).setId("TC_02"));
+        expectThrows(UnsupportedOperationException.class, () -> table.get(0).setStructuredTestData(Map.of()));
+        expectThrows(IndexOutOfBoundsException.class, () -> table.get(1));
+    }
+    
+    private static TestCase testCase(String id, String testData) {
+        return ExcelReader.createTestCaseFromValues(
+            new String[] {id, "LoginTest", "run" + id, "User is logged out", "Summary of " + id, testData,
+                "1. Navigate to https://example.com/login\n2) Enter username 'welldocsu'", "Dashboard is shown"},
+            ExcelReader.createColumnMap(new String[] {"Test Case ID", "Automation Class Name",
+                "Automation Method Name", "Pre-Conditions", "Test Scenario Summary", "Test Data",
+                "Test Case (steps)", "Expected Results"}));
+    }
+}
@@ -0,0 +1,208 @@
+package util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * Ingestion-time validation of test case identity
+ * Builds hash indexes over ID and class/method while rows are added and collects
+ * every conflict in one pass, so a broken sheet is rejected before any LLM work:
+ * duplicate Test Case IDs, missing or non-Java class/method names, and several
+ * rows mapping to the same generated test method.
+ * The indexes hold 64-bit fingerprints and row ordinals; only the identifying cells
+ * of each row are kept, to confirm a fingerprint match, so a collision between two
+ * different IDs or methods is never reported as a duplicate.
+ */
+public class TestCaseValidator {
+    
+    // fingerprint(Test Case ID) -> ordinal of the first row with it
+    private final FingerprintIndex ids = new FingerprintIndex();
+    // fingerprint(class, method) -> ordinal of the first row generating it
+    private final FingerprintIndex methods = new FingerprintIndex();
+    // Trimmed identifying cells by ordinal, compared when fingerprints match
+    private String[] rowIds = new String[1024];
+    private String[] classNames = new String[1024];
+    private String[] methodNames = new String[1024];
+    private final IntFunction<String> describeRow;
+    private final ToLongFunction<String[]> fingerprint;
+    private final List<String> problems = new ArrayList<>();
+    private int count;
+    
+    public TestCaseValidator() {
+        this(ordinal -> "test case #" + (ordinal + 1));
+    }
+    
+    /**
+     * @param describeRow Names an earlier row by its ordinal in conflict messages
+     */
+    public TestCaseValidator(IntFunction<String> describeRow) {
+        this(describeRow, RowFingerprintCache::fingerprint);
+    }
+    
+    /**
+     * @param fingerprint Hash of the identifying cells; tests pass a colliding one
+     */
+    TestCaseValidator(IntFunction<String> describeRow, ToLongFunction<String[]> fingerprint) {
+        this.describeRow = describeRow;
+        this.fingerprint = fingerprint;
+    }
+    
+    /**
+     * Validates a list of already parsed test cases
+     */
+    public static TestCaseValidator validate(List<TestCase> testCases) {
+        TestCaseValidator validator = new TestCaseValidator(ordinal -> testCases.get(ordinal).getId());
+        for (TestCase testCase : testCases) {
+            validator.add(testCase);
+        }
+        return validator;
+    }
+    
+    /**
+     * Indexes a test case and records any conflict with the ones added before it
+     */
+    public void add(TestCase testCase) {
+        add(testCase.getId(), testCase.getClassName(), testCase.getMethodName());
+    }
+    
+    /**
+     * Indexes the identifying cells of a row
+     */
+    void add(String id, String className, String methodName) {
+        int ordinal = count++;
+        id = id == null ? "" : id.trim();
+        className = className == null ? "" : className.trim();
+        methodName = methodName == null ? "" : methodName.trim();
+        if (ordinal == rowIds.length) {
+            rowIds = Arrays.copyOf(rowIds, ordinal * 2);
+            classNames = Arrays.copyOf(classNames, ordinal * 2);
+            methodNames = Arrays.copyOf(methodNames, ordinal * 2);
+        }
+        rowIds[ordinal] = id;
+        classNames[ordinal] = className;
+        methodNames[ordinal] = methodName;
+        
+        if (className.isEmpty()) {
+            problems.add(id + ": missing Automation Class Name");
+        } else if (!isJavaIdentifier(className)) {
+            problems.add(id + ": Automation Class Name '" + className + "' is not a valid Java class name");
+        }
+        if (methodName.isEmpty()) {
+            problems.add(id + ": missing Automation Method Name");
+        } else if (!isJavaIdentifier(methodName)) {
+            problems.add(id + ": Automation Method Name '" + methodName + "' is not a valid Java method name");
+        }
+        
+        String rowId = id;
+        int previousId = ids.putIfAbsent(fingerprint.applyAsLong(new String[] {id}), ordinal,
+            previous -> rowIds[previous].equals(rowId));
+        if (previousId >= 0) {
+            problems.add(id + ": duplicate Test Case ID (first used by " + describeRow.apply(previousId) + ")");
+            return;
+        }
+        
+        if (!className.isEmpty() && !methodName.isEmpty()) {
+            long method = fingerprint.applyAsLong(new String[] {className, methodName});
+            String rowClass = className;
+            String rowMethod = methodName;
+            int previousMethod = methods.putIfAbsent(method, ordinal,
+                previous -> classNames[previous].equals(rowClass) && methodNames[previous].equals(rowMethod));
+            if (previousMethod >= 0) {
+                problems.add(id + ": " + className + "." + methodName + "() is already generated for "
+                    + describeRow.apply(previousMethod));
+            }
+        }
+    }
+    
+    /**
+     * Number of test cases checked
+     */
+    public int getCount() {
+        return count;
+    }
+    
+    public boolean isValid() {
+        return problems.isEmpty();
+    }
+    
+    /**
+     * All conflicts found, in sheet order
+     */
+    public List<String> getProblems() {
+        return problems;
+    }
+    
+    /**
+     * Fails with every conflict listed, so the sheet can be fixed in one go
+     * @throws IllegalStateException if any conflict was found
+     */
+    public void throwIfInvalid() {
+        if (problems.isEmpty()) return;
+        
+        StringBuilder message = new StringBuilder();
+        message.append(problems.size()).append(" test case problem(s) found in ").append(count).append(" rows:");
+        for (String problem : problems) {
+            message.append("\n  - ").append(problem);
+        }
+        throw new IllegalStateException(message.toString());
+    }
+    
+    /**
+     * Open-addressing multimap from 64-bit fingerprint to row ordinals
+     * Rows whose fingerprints collide get slots of their own; the caller tells them apart.
+     */
+    private static class FingerprintIndex {
+        private long[] keys = new long[1024];
+        private int[] values = new int[1024]; // ordinal + 1, 0 marks an empty slot
+        private int size;
+        
+        /**
+         * Stores the ordinal unless an equal row is stored under the key
+         * @param same Whether the row with a given ordinal equals the new one
+         * @return Ordinal of the equal row, or -1
+         */
+        int putIfAbsent(long key, int ordinal, IntPredicate same) {
+            if ((size + 1) * 2 > keys.length) {
+                resize();
+            }
+            int mask = keys.length - 1;
+            int slot = (int) (key ^ (key >>> 32)) & mask;
+            while (values[slot] != 0) {
+                if (keys[slot] == key && same.test(values[slot] - 1)) {
+                    return values[slot] - 1;
+                }
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            values[slot] = ordinal + 1;
+            size++;
+            return -1;
+        }
+        
+        private void resize() {
+            long[] oldKeys = keys;
+            int[] oldValues = values;
+            keys = new long[oldKeys.length * 2];
+            values = new int[oldValues.length * 2];
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldValues[i] != 0) {
+                    // Stored rows are all distinct
+                    putIfAbsent(oldKeys[i], oldValues[i] - 1, previous -> false);
+                }
+            }
+        }
+    }
+    
+    private static boolean isJavaIdentifier(String name) {
+        if (!Character.isJavaIdentifierStart(name.charAt(0))) return false;
+        for (int i = 1; i < name.length(); i++) {
+            if (!Character.isJavaIdentifierPart(name.charAt(i))) return false;
+        }
+        return true;
+    }
+}
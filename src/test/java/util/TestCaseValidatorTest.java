@@ -0,0 +1,110 @@
+package util;
+
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.testng.Assert.*;
+
+/**
+ * Conflicts reported by the ingestion-time TestCaseValidator
+ */
+public class TestCaseValidatorTest {
+    
+    @Test
+    public void acceptsDistinctTestCases() {
+        TestCaseValidator validator = TestCaseValidator.validate(List.of(
+            testCase("TC_01", "LoginTest", "loginPortal"),
+            testCase("TC_02", "LoginTest", "logout"),
+            testCase("TC_03", "SearchTest", "loginPortal")));
+        
+        assertTrue(validator.isValid());
+        assertEquals(validator.getCount(), 3);
+        validator.throwIfInvalid();
+    }
+    
+    @Test
+    public void reportsMissingNames() {
+        TestCaseValidator validator = TestCaseValidator.validate(List.of(
+            testCase("TC_01", " ", "loginPortal"),
+            testCase("TC_02", "LoginTest", null)));
+        
+        assertEquals(validator.getProblems(), List.of(
+            "TC_01: missing Automation Class Name",
+            "TC_02: missing Automation Method Name"));
+    }
+    
+    @Test
+    public void reportsNamesThatAreNotJavaIdentifiers() {
+        TestCaseValidator validator = TestCaseValidator.validate(List.of(
+            testCase("TC_01", "Login Test", "login-portal"),
+            testCase("TC_02", "1stTest", "ok")));
+        
+        assertEquals(validator.getProblems(), List.of(
+            "TC_01: Automation Class Name 'Login Test' is not a valid Java class name",
+            "TC_01: Automation Method Name 'login-portal' is not a valid Java method name",
+            "TC_02: Automation Class Name '1stTest' is not a valid Java class name"));
+    }
+    
+    @Test
+    public void reportsDuplicateIdsAgainstFirstRow() {
+        TestCaseValidator validator = TestCaseValidator.validate(List.of(
+            testCase("TC_01", "LoginTest", "loginPortal"),
+            testCase(" TC_01 ", "LoginTest", "loginAgain"),
+            testCase("TC_01", "LoginTest", "loginOnceMore")));
+        
+        assertEquals(validator.getProblems(), List.of(
+            "TC_01: duplicate Test Case ID (first used by TC_01)",
+            "TC_01: duplicate Test Case ID (first used by TC_01)"));
+    }
+    
+    @Test
+    public void reportsRowsGeneratingTheSameMethod() {
+        TestCaseValidator validator = new TestCaseValidator();
+        validator.add(testCase("TC_01", "LoginTest", "loginPortal"));
+        validator.add(testCase("TC_02", "SearchTest", "search"));
+        validator.add(testCase("TC_03", "LoginTest", " loginPortal "));
+        
+        assertEquals(validator.getProblems(), List.of(
+            "TC_03: LoginTest.loginPortal() is already generated for test case #1"));
+        IllegalStateException failure = expectThrows(IllegalStateException.class, validator::throwIfInvalid);
+        assertTrue(failure.getMessage().startsWith("1 test case problem(s) found in 3 rows:"), failure.getMessage());
+    }
+    
+    @Test
+    public void collidingFingerprintsAreNotDuplicates() {
+        // Every ID and every class/method pair gets the same fingerprint
+        TestCaseValidator validator = new TestCaseValidator(ordinal -> "row " + ordinal, values -> 42L);
+        validator.add("TC_01", "LoginTest", "loginPortal");
+        validator.add("TC_02", "LoginTest", "logout");
+        validator.add("TC_03", "SearchTest", "loginPortal");
+        assertTrue(validator.isValid(), validator.getProblems().toString());
+        
+        validator.add("TC_02", "SearchTest", "search");
+        validator.add("TC_04", "LoginTest", "logout");
+        assertEquals(validator.getProblems(), List.of(
+            "TC_02: duplicate Test Case ID (first used by row 1)",
+            "TC_04: LoginTest.logout() is already generated for row 1"));
+    }
+    
+    @Test
+    public void indexesGrowPastInitialCapacity() {
+        List<TestCase> testCases = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            testCases.add(testCase("TC_" + i, "Test" + (i % 50), "method" + i));
+        }
+        testCases.add(testCase("TC_4321", "Test0", "method0"));
+        
+        assertEquals(TestCaseValidator.validate(testCases).getProblems(), List.of(
+            "TC_4321: duplicate Test Case ID (first used by TC_4321)"));
+    }
+    
+    private static TestCase testCase(String id, String className, String methodName) {
+        TestCase testCase = new TestCase();
+        testCase.setId(id);
+        testCase.setClassName(className);
+        testCase.setMethodName(methodName);
+        return testCase;
+    }
+}
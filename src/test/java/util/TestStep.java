@@ -0,0 +1,57 @@
+package util;
+
+/**
+ * A single parsed test case step
+ * e.g. "2) Enter username 'welldocsu'" has number 2, verb "Enter",
+ * target "username" and literal value "welldocsu"
+ */
+public class TestStep {
+    private final int number;
+    private final String text;
+    private final String verb;
+    private final String target;
+    private final String value;
+    
+    public TestStep(int number, String text, String verb, String target, String value) {
+        this.number = number;
+        this.text = text;
+        this.verb = verb;
+        this.target = target;
+        this.value = value;
+    }
+    
+    /**
+     * Step number as written in the sheet ("1." or "1)"), or -1 when unnumbered
+     */
+    public int getNumber() { return number; }
+    
+    /**
+     * Step text without its number
+     */
+    public String getText() { return text; }
+    
+    /**
+     * First word of the step, e.g. "Navigate", "Enter", "Click"
+     */
+    public String getVerb() { return verb; }
+    
+    /**
+     * What the step acts on, with the verb and literal value removed
+     */
+    public String getTarget() { return target; }
+    
+    /**
+     * Quoted literal or URL mentioned in the step, or null
+     */
+    public String getValue() { return value; }
+    
+    @Override
+    public String toString() {
+        return "TestStep{" +
+                "number=" + number +
+                ", verb='" + verb + '\'' +
+                ", target='" + target + '\'' +
+                ", value='" + value + '\'' +
+                '}';
+    }
+}